@@ -664,6 +664,7 @@ public class DMLScript
 		
 		//Step 10: execute runtime program
 		Statistics.startRunTimer();
+		Explain.resetPartitioningReport();
 		ExecutionContext ec = null;
 		try 
 		{  
@@ -680,6 +681,10 @@ public class DMLScript
 				((SparkExecutionContext) ec).close();
 			}
 			
+			//display runtime partitioning report of spark instructions (if explain enabled)
+			if( EXPLAIN != ExplainType.NONE && OptimizerUtils.isSparkExecutionMode() )
+				LOG.info(Explain.explainPartitioningReport());
+			
 			//display statistics (incl caching stats if enabled)
 			Statistics.stopRunTimer();
 			LOG.info(Statistics.display());
@@ -47,6 +47,7 @@ import com.ibm.bi.dml.parser.Expression.ValueType;
 import com.ibm.bi.dml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
 import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.mapred.DistributedCacheInput;
 import com.ibm.bi.dml.runtime.matrix.mapred.MMCJMRReducerWithAggregator;
@@ -338,6 +339,9 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 		}
 		*/
 		//currently always estimated as dense in order to account for dense intermediate without unnecessary overestimation 
+		//(except for sparse density map estimates, where the dense intermediate is part of the intermediate estimate)
+		if( isSparseDensityMapEstimate() )
+			sparsity = _dmap.getSparsity();
 		double ret = OptimizerUtils.estimateSizeExactSparsity(dim1, dim2, sparsity);
 		
 		return ret;
@@ -348,8 +352,11 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 	{
 		double ret = 0;
 		
+		//account for dense intermediate of final dense-sparse transformation (see output estimate)
+		if( isSparseDensityMapEstimate() )
+			ret = OptimizerUtils.estimateSizeExactSparsity(dim1, dim2, 1.0);
 		//account for potential final dense-sparse transformation (worst-case sparse representation)
-		if( dim2 >= 2 ) //vectors always dense
+		else if( dim2 >= 2 ) //vectors always dense
 			ret = OptimizerUtils.estimateSizeExactSparsity(dim1, dim2, MatrixBlock.SPARSITY_TURN_POINT);
 		
 		return ret;
@@ -1919,9 +1926,29 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 		{
 			setDim1(input1.getDim1());
 			setDim2(input2.getDim2());
+			
+			//estimate output density map (average case, checked before creating uniform input maps)
+			_dmap = ( isDensityMapEstimateApplicable(input1, input2) && DensityMap.isApplicableMatMult(
+					input1.getDim1(), input1.getDim2(), input2.getDim2()) ) ? DensityMap.estimateMatMult(
+					getDensityMapOrUniform(input1), getDensityMapOrUniform(input2)) : null;
 		}
 	}
 	
+	/**
+	 * Indicates if the output is estimated to be sparse according to the density map,
+	 * in which case the output estimate is sparse and the dense intermediate (due to
+	 * dense output representations of matrix multiplications) is accounted for in
+	 * the intermediate estimate. 
+	 * 
+	 * @return
+	 */
+	private boolean isSparseDensityMapEstimate()
+	{
+		return ( isMatrixMultiply() && _dmap != null && _nnz < 0
+			&& _dmap.getNumRows() == _dim1 && _dmap.getNumColumns() == _dim2
+			&& MatrixBlock.evalSparseFormatInMemory(_dim1, _dim2, (long)Math.ceil(_dmap.getNonZeros())) );
+	}
+	
 	@Override
 	public Object clone() throws CloneNotSupportedException 
 	{
@@ -17,6 +17,7 @@
 
 package com.ibm.bi.dml.hops;
 
+import com.ibm.bi.dml.hops.Hop.MultiThreadedHop;
 import com.ibm.bi.dml.lops.Aggregate;
 import com.ibm.bi.dml.lops.AppendGAlignedSP;
 import com.ibm.bi.dml.lops.AppendM;
@@ -48,6 +49,7 @@ import com.ibm.bi.dml.parser.Expression.DataType;
 import com.ibm.bi.dml.parser.Expression.ValueType;
 import com.ibm.bi.dml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
 import com.ibm.bi.dml.runtime.matrix.mapred.DistributedCacheInput;
 
 
@@ -58,7 +60,7 @@ import com.ibm.bi.dml.runtime.matrix.mapred.DistributedCacheInput;
  * 		Semantic: align indices (sort), then perform operation
  */
 
-public class BinaryOp extends Hop 
+public class BinaryOp extends Hop implements MultiThreadedHop
 {
 	
 	//we use the full remote memory budget (but reduced by sort buffer), 
@@ -66,6 +68,7 @@ public class BinaryOp extends Hop
 	
 	private Hop.OpOp2 op;
 	private boolean outer = false;
+	private int _maxNumThreads = -1; //-1 for unlimited
 	
 	public static AppendMethod FORCED_APPEND_METHOD = null;
 	public enum AppendMethod { 
@@ -119,6 +122,16 @@ public class BinaryOp extends Hop
 		return outer;
 	}
 	
+	@Override
+	public void setMaxNumThreads( int k ) {
+		_maxNumThreads = k;
+	}
+	
+	@Override
+	public int getMaxNumThreads() {
+		return _maxNumThreads;
+	}
+	
 	@Override
 	public Lop constructLops() 
 		throws HopsException, LopsException 
@@ -596,8 +609,11 @@ public class BinaryOp extends Hop
 			ExecType et = optFindExecType();
 			if ( et == ExecType.CP ) 
 			{
+				//multi-threaded native factorization for solve
+				int k = (op == OpOp2.SOLVE) ? 
+						OptimizerUtils.getConstrainedNumThreads( _maxNumThreads ) : 1;
 				Binary binary = new Binary(getInput().get(0).constructLops(), getInput().get(1).constructLops(), HopsOpOp2LopsB.get(op),
-						getDataType(), getValueType(), et);
+						getDataType(), getValueType(), et, k);
 				
 				setOutputDimensions(binary);
 				setLineNumbers(binary);
@@ -779,6 +795,10 @@ public class BinaryOp extends Hop
 						LiteralOp lit = (LiteralOp)input2;
 						sparsity = OptimizerUtils.getBinaryOpSparsityConditionalSparseSafe(sp1, op, lit);
 					}
+					else if( _dmap != null && _dmap.getNumRows()==dim1 && _dmap.getNumColumns()==dim2 ) {
+						//cell-wise upper bounds of density map estimates
+						sparsity = _dmap.getSparsity();
+					}
 					else {
 						double sp1 = (input1.getNnz()>0 && input1.getDataType()==DataType.MATRIX) ? OptimizerUtils.getSparsity(input1.getDim1(), input1.getDim2(), input1.getNnz()) : 1.0;
 						double sp2 = (input2.getNnz()>0 && input2.getDataType()==DataType.MATRIX) ? OptimizerUtils.getSparsity(input2.getDim1(), input2.getDim2(), input2.getNnz()) : 1.0;
@@ -808,8 +828,8 @@ public class BinaryOp extends Hop
 			ret = getInput().get(0).getMemEstimate() * 3; 
 		}
 		else if ( op == OpOp2.SOLVE ) {
-			// x=solve(A,b) relies on QR decomposition of A, which is done using Apache commons-math
-			// matrix of size same as the first input
+			// x=solve(A,b) relies on an in-place factorization (Cholesky, LU, or QR) of a dense copy 
+			// of A, i.e., a matrix of size same as the first input
 			double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0); 
 			return interOutput;
 
@@ -1500,6 +1520,16 @@ public class BinaryOp extends Hop
 				{
 					setNnz( lnnz1 );
 				}
+				
+				//estimate output density map for cell-wise matrix-matrix operations (upper bounds)
+				_dmap = null;
+				if( !outer && (op==OpOp2.MULT || op==OpOp2.PLUS || op==OpOp2.MINUS)
+					&& isDensityMapEstimateApplicable(input1, input2) 
+					&& input1.getDim1()==input2.getDim1() && input1.getDim2()==input2.getDim2() )
+				{
+					_dmap = DensityMap.estimateCellwise(getDensityMapOrUniform(input1), 
+							getDensityMapOrUniform(input2), op!=OpOp2.MULT);
+				}
 			}
 		}	
 	}
@@ -1515,6 +1545,7 @@ public class BinaryOp extends Hop
 		//copy specific attributes
 		ret.op = op;
 		ret.outer = outer;
+		ret._maxNumThreads = _maxNumThreads;
 		
 		return ret;
 	}
@@ -1528,6 +1559,7 @@ public class BinaryOp extends Hop
 		BinaryOp that2 = (BinaryOp)that;
 		return (   op == that2.op
 				&& outer == that2.outer
+				&& _maxNumThreads == that2._maxNumThreads
 				&& getInput().get(0) == that2.getInput().get(0)
 				&& getInput().get(1) == that2.getInput().get(1));
 	}
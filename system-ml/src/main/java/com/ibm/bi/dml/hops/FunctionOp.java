@@ -19,6 +19,7 @@ package com.ibm.bi.dml.hops;
 
 import java.util.ArrayList;
 
+import com.ibm.bi.dml.hops.Hop.MultiThreadedHop;
 import com.ibm.bi.dml.lops.FunctionCallCP;
 import com.ibm.bi.dml.lops.Lop;
 import com.ibm.bi.dml.lops.LopsException;
@@ -34,7 +35,7 @@ import com.ibm.bi.dml.runtime.controlprogram.parfor.opt.CostEstimatorHops;
  * Note: Currently, we support expressions in function arguments but no function calls
  * in expressions.
  */
-public class FunctionOp extends Hop
+public class FunctionOp extends Hop implements MultiThreadedHop
 {
 	
 	public static String OPSTRING = "extfunct";
@@ -53,6 +54,8 @@ public class FunctionOp extends Hop
 	private String[] _outputs = null; 
 	private ArrayList<Hop> _outputHops = null;
 	
+	private int _maxNumThreads = -1; //-1 for unlimited
+	
 	private FunctionOp() {
 		//default constructor for clone
 	}
@@ -106,6 +109,16 @@ public class FunctionOp extends Hop
 	{
 		return _type;
 	}
+	
+	@Override
+	public void setMaxNumThreads( int k ) {
+		_maxNumThreads = k;
+	}
+	
+	@Override
+	public int getMaxNumThreads() {
+		return _maxNumThreads;
+	}
 
 	@Override
 	public boolean allowsAllExecTypes() {
@@ -227,8 +240,10 @@ public class FunctionOp extends Hop
 		for( Hop in : getInput() )
 			tmp.add( in.constructLops() );
 		
-		//construct function call
-		FunctionCallCP fcall = new FunctionCallCP( tmp, _fnamespace, _fname, _outputs, _outputHops );
+		//construct function call (multi-threaded for multi-return builtins like qr/lu)
+		int k = (_type == FunctionType.MULTIRETURN_BUILTIN) ? 
+				OptimizerUtils.getConstrainedNumThreads( _maxNumThreads ) : 1;
+		FunctionCallCP fcall = new FunctionCallCP( tmp, _fnamespace, _fname, _outputs, _outputHops, k );
 		setLineNumbers( fcall );
 		setLops( fcall );
 	
@@ -285,6 +300,7 @@ public class FunctionOp extends Hop
 		ret._fnamespace = _fnamespace;
 		ret._fname = _fname;
 		ret._outputs = _outputs.clone();
+		ret._maxNumThreads = _maxNumThreads;
 		
 		return ret;
 	}
@@ -42,6 +42,7 @@ import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.ProgramConverter;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
 import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.util.UtilFunctions;
 
@@ -82,6 +83,7 @@ public abstract class Hop
 	protected long _rows_in_block = -1;
 	protected long _cols_in_block = -1;
 	protected long _nnz = -1;
+	protected DensityMap _dmap = null; //optional sparsity sketch
 
 	protected ArrayList<Hop> _parent = new ArrayList<Hop>();
 	protected ArrayList<Hop> _input = new ArrayList<Hop>();
@@ -110,6 +112,10 @@ public abstract class Hop
 	// (the default storage level for caching is not yet exposed here)
 	protected boolean _requiresCheckpoint = false;
 	
+	// indicates if the checkpointed output should be range-partitioned by block index
+	// (only for outputs that are consumed by indexing, which allows partition pruning)
+	protected boolean _requiresBlockPartitioning = false;
+	
 	// indicates if the output of this hops needs to contain materialized empty blocks 
 	// if those exists; otherwise only blocks w/ non-zero values are materialized
 	protected boolean _outputEmptyBlocks = true;
@@ -272,6 +278,16 @@ public abstract class Hop
 		return _requiresCheckpoint;
 	}
 	
+	public void setRequiresBlockPartitioning(boolean flag)
+	{
+		_requiresBlockPartitioning = flag;
+	}
+	
+	public boolean requiresBlockPartitioning()
+	{
+		return _requiresBlockPartitioning;
+	}
+	
 	
 	/**
 	 * 
@@ -384,7 +400,8 @@ public abstract class Hop
 				Lop input = getLops();			
 				Lop chkpoint = new Checkpoint(input, getDataType(), getValueType(), 
 						serializedStorage ? Checkpoint.getSerializeStorageLevelString() :
-								            Checkpoint.getDefaultStorageLevelString() );
+								            Checkpoint.getDefaultStorageLevelString(),
+						_requiresBlockPartitioning );
 				
 				setOutputDimensions( chkpoint );
 				setLineNumbers( chkpoint );
@@ -837,6 +854,43 @@ public abstract class Hop
 	public long getNnz(){
 		return _nnz;
 	}
+	
+	public void setDensityMap(DensityMap map){
+		_dmap = map;
+	}
+	
+	public DensityMap getDensityMap(){
+		return _dmap;
+	}
+	
+	/**
+	 * Indicates if density map estimates are applicable for the given inputs, i.e., 
+	 * if all dimensions are known and at least one input carries a density map.
+	 * 
+	 * @param input1
+	 * @param input2
+	 * @return
+	 */
+	protected static boolean isDensityMapEstimateApplicable( Hop input1, Hop input2 )
+	{
+		return OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES
+			&& input1.getDataType()==DataType.MATRIX && input2.getDataType()==DataType.MATRIX
+			&& input1.dimsKnown() && input2.dimsKnown()
+			&& (input1.getDensityMap()!=null || input2.getDensityMap()!=null);
+	}
+	
+	/**
+	 * Gets the density map of the given hop or a uniform density map according
+	 * to its number of non-zeros (dense if unknown).
+	 * 
+	 * @param hop
+	 * @return density map, or null if not applicable for the hop dimensions
+	 */
+	protected static DensityMap getDensityMapOrUniform( Hop hop )
+	{
+		return (hop.getDensityMap() != null) ? hop.getDensityMap() :
+			DensityMap.createUniform(hop.getDim1(), hop.getDim2(), hop.getNnz());
+	}
 
 	public abstract Lop constructLops() 
 		throws HopsException, LopsException;
@@ -1803,6 +1857,7 @@ public abstract class Hop
 		_rows_in_block = that._rows_in_block;
 		_cols_in_block = that._cols_in_block;
 		_nnz = that._nnz;
+		_dmap = that._dmap;
 
 		//no copy of lops (regenerated)
 		_parent = new ArrayList<Hop>();
@@ -1817,6 +1872,7 @@ public abstract class Hop
 		_requiresRecompile = that._requiresRecompile;
 		_requiresReblock = that._requiresReblock;
 		_requiresCheckpoint = that._requiresCheckpoint;
+		_requiresBlockPartitioning = that._requiresBlockPartitioning;
 		_outputEmptyBlocks = that._outputEmptyBlocks;
 		
 		_beginLine = that._beginLine;
@@ -123,6 +123,22 @@ public class OptimizerUtils
 	 */
 	public static boolean ALLOW_AUTO_VECTORIZATION = true;
 	
+	/**
+	 * Enables the sparsity-aware cost model of the matrix multiplication chain optimization,
+	 * i.e., costs of sparse inputs and estimated intermediate sparsity, as well as cost 
+	 * discounts for tsmm and mmchain operators. If disabled, chains are ordered by dense
+	 * floating point operations.
+	 */
+	public static boolean ALLOW_SPARSITY_AWARE_MMCHAIN_OPT = true;
+	
+	/**
+	 * Enables density maps as sparsity sketches, which are computed for sparse matrices 
+	 * when they are read or produced in CP, carried in the matrix characteristics, and
+	 * propagated through matrix multiplications, cell-wise operations, and transpose
+	 * in order to estimate the output sparsity for memory estimates of intermediates.
+	 */
+	public static boolean ALLOW_DENSITY_MAP_ESTIMATES = true;
+	
 	/**
 	 * Enables simple expression evaluation for datagen parameters 'rows', 'cols'. Simple
 	 * expressions are defined as binary operations on literals and nrow/ncol. This applies
@@ -147,6 +163,34 @@ public class OptimizerUtils
 	 */
 	public static boolean ALLOW_TRANSFORM_RECOMPILE = true;
 
+	/**
+	 * Enables the reuse of recompiled instructions of statement blocks for repeated 
+	 * input signatures (dimensions, nnz categories, scalar values), which avoids
+	 * redundant recompilation of loop bodies with unchanged sizes.
+	 */
+	public static boolean ALLOW_RECOMPILE_MEMO = ALLOW_DYN_RECOMPILATION && true;
+	
+	/**
+	 * Enables update in-place of matrix variables that are modified via left indexing 
+	 * or self-append (cbind/rbind with amortized growth) in for/while loops, if safe 
+	 * to do so (see RewriteMarkLoopVariablesUpdateInPlace).
+	 */
+	public static boolean ALLOW_LOOP_UPDATE_IN_PLACE = true;
+	
+	/**
+	 * Enables loop-invariant code motion, i.e., hoisting matrix operations that only depend
+	 * on variables not updated in for/while loops into a statement block before the loop,
+	 * if the outputs fit into the local memory budget (see RewriteHoistLoopInvariantOperations).
+	 */
+	public static boolean ALLOW_LOOP_INVARIANT_CODE_MOTION = true;
+	
+	/**
+	 * Enables the early release of intermediates, i.e., placing rmvar instructions directly
+	 * after the last use of the removed variables instead of at the end of the DAG, which 
+	 * reduces the peak memory consumption and evictions to the buffer pool.
+	 */
+	public static boolean ALLOW_EARLY_VARIABLE_CLEANUP = true;
+	
 	/**
 	 * Enables parfor runtime piggybacking of MR jobs into the packed jobs for
 	 * scan sharing.
@@ -172,7 +216,28 @@ public class OptimizerUtils
 	 */
 	public static boolean ALLOW_SPLIT_HOP_DAGS = true;
 	
+	/**
+	 * Enables the native, cache-blocked and multi-threaded dense factorizations for solve,
+	 * inverse, lu and qr in CP (see LibMatrixLinAlg) instead of commons-math.
+	 */
+	public static boolean ALLOW_NATIVE_LINALG = true;
 	
+	/**
+	 * Enables the in-memory invocation of external functions that support it, i.e., 
+	 * passing pinned matrix blocks to and from the function instead of exporting
+	 * inputs and running block2cell and cell2block jobs. If the inputs exceed the 
+	 * local memory budget, we fall back to the file-based invocation.
+	 */
+	public static boolean ALLOW_INMEMORY_UDF_INVOCATION = true;
+	
+	/**
+	 * Enables range partitioning of binary block rdds by block index on reblock and 
+	 * checkpoint, which allows right indexing to prune partitions that do not contain 
+	 * any requested blocks (e.g., mini-batch slices in loops).
+	 */
+	public static boolean ALLOW_BLOCK_PARTITIONED_RDDS = true;
+	
+
 	/**
 	 * Enables parallel read/write of all text formats (textcell, csv, mm)
 	 * and binary formats (binary block). 
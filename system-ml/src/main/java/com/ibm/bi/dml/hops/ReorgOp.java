@@ -467,6 +467,7 @@ public class ReorgOp extends Hop
 				setDim1(input1.getDim2());
 				setDim2(input1.getDim1());
 				setNnz(input1.getNnz());
+				_dmap = (input1.getDensityMap()!=null) ? input1.getDensityMap().transpose() : null;
 				break;
 			}	
 			case DIAG:
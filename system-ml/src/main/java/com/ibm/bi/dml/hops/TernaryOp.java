@@ -17,6 +17,7 @@
 
 package com.ibm.bi.dml.hops;
 
+import com.ibm.bi.dml.hops.Hop.MultiThreadedHop;
 import com.ibm.bi.dml.hops.rewrite.HopRewriteUtils;
 import com.ibm.bi.dml.lops.Aggregate;
 import com.ibm.bi.dml.lops.CentralMoment;
@@ -52,7 +53,7 @@ import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
  * however, since there does not exist a real TernaryOp yet - we can leave it as is for now. 
  */
 
-public class TernaryOp extends Hop 
+public class TernaryOp extends Hop implements MultiThreadedHop
 {
 	
 	public static boolean ALLOW_CTABLE_SEQUENCE_REWRITES = true;
@@ -64,6 +65,7 @@ public class TernaryOp extends Hop
 	private boolean _dimInputsPresent = false;
 	private boolean _disjointInputs = false;
 	
+	private int _maxNumThreads = -1; //-1 for unlimited
 	
 	private TernaryOp() {
 		//default constructor for clone
@@ -108,6 +110,16 @@ public class TernaryOp extends Hop
 		_disjointInputs = flag;
 	}
 	
+	@Override
+	public void setMaxNumThreads( int k ) {
+		_maxNumThreads = k;
+	}
+	
+	@Override
+	public int getMaxNumThreads() {
+		return _maxNumThreads;
+	}
+	
 	@Override
 	public Lop constructLops() 
 		throws HopsException, LopsException 
@@ -395,7 +407,8 @@ public class TernaryOp extends Hop
 				inputLops[1] = ((ParameterizedBuiltinOp)getInput().get(1)).getTargetHop().getInput().get(0).constructLops();
 			}
 			
-			Ternary tertiary = new Ternary(inputLops, tertiaryOp, getDataType(), getValueType(), ignoreZeros, et);
+			int k = OptimizerUtils.getConstrainedNumThreads( _maxNumThreads );
+			Ternary tertiary = new Ternary(inputLops, tertiaryOp, getDataType(), getValueType(), ignoreZeros, et, k);
 			
 			tertiary.getOutputParameters().setDimensions(_dim1, _dim2, getRowsInBlock(), getColsInBlock(), -1);
 			tertiary.setAllPositions(this.getBeginLine(), this.getBeginColumn(), this.getEndLine(), this.getEndColumn());
@@ -861,6 +874,7 @@ public class TernaryOp extends Hop
 		ret._op = _op;
 		ret._dimInputsPresent  = _dimInputsPresent;
 		ret._disjointInputs    = _disjointInputs;
+		ret._maxNumThreads     = _maxNumThreads;
 		
 		return ret;
 	}
@@ -888,7 +902,8 @@ public class TernaryOp extends Hop
 		
 		//compare optimizer hints and parameters
 		ret &= _disjointInputs == that2._disjointInputs
-			&& _outputEmptyBlocks == that2._outputEmptyBlocks;
+			&& _outputEmptyBlocks == that2._outputEmptyBlocks
+			&& _maxNumThreads == that2._maxNumThreads;
 		
 		return ret;
 	}
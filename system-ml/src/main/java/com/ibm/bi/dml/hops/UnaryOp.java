@@ -19,6 +19,7 @@ package com.ibm.bi.dml.hops;
 
 import java.util.ArrayList;
 
+import com.ibm.bi.dml.hops.Hop.MultiThreadedHop;
 import com.ibm.bi.dml.lops.Aggregate;
 import com.ibm.bi.dml.lops.Aggregate.OperationTypes;
 import com.ibm.bi.dml.lops.CombineUnary;
@@ -45,10 +46,12 @@ import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
  * 		Semantic: given a value, perform the operation (independent of other values)
  */
 
-public class UnaryOp extends Hop 
+public class UnaryOp extends Hop implements MultiThreadedHop
 {
 
 	private OpOp1 _op = null;
+	
+	private int _maxNumThreads = -1; //-1 for unlimited
 
 	
 	private UnaryOp() {
@@ -74,6 +77,16 @@ public class UnaryOp extends Hop
 		return _op;
 	}
 	
+	@Override
+	public void setMaxNumThreads( int k ) {
+		_maxNumThreads = k;
+	}
+	
+	@Override
+	public int getMaxNumThreads() {
+		return _maxNumThreads;
+	}
+	
 	public void printMe() throws HopsException {
 		if (LOG.isDebugEnabled()){
 			if (getVisited() != VisitStatus.DONE) {
@@ -148,8 +161,10 @@ public class UnaryOp extends Hop
 				}
 				else //default unary 
 				{
+					int k = (isCumulativeUnaryOperation() || isCellwiseBuiltinOperation() || _op == OpOp1.INVERSE) ? 
+						OptimizerUtils.getConstrainedNumThreads( _maxNumThreads ) : 1;
 					Unary unary1 = new Unary(input.constructLops(), HopsOpOp1LopsU.get(_op), 
-							                 getDataType(), getValueType(), et);
+							                 getDataType(), getValueType(), et, k);
 					setOutputDimensions(unary1);
 					setLineNumbers(unary1);
 					setLops(unary1);
@@ -608,6 +623,20 @@ public class UnaryOp extends Hop
 				|| _op == OpOp1.CUMMAX  );
 	}
 	
+	/**
+	 * Indicates cell-wise builtin functions with multi-threaded 
+	 * (and specialized) runtime kernels in CP.
+	 * 
+	 * @return
+	 */
+	public boolean isCellwiseBuiltinOperation() 
+	{
+		return (   _op == OpOp1.ABS || _op == OpOp1.SIN || _op == OpOp1.COS || _op == OpOp1.TAN
+				|| _op == OpOp1.ASIN || _op == OpOp1.ACOS || _op == OpOp1.ATAN || _op == OpOp1.SQRT
+				|| _op == OpOp1.LOG || _op == OpOp1.EXP || _op == OpOp1.ROUND || _op == OpOp1.CEIL
+				|| _op == OpOp1.FLOOR || _op == OpOp1.SPROP || _op == OpOp1.SIGMOID || _op == OpOp1.SELP );
+	}
+	
 	/**
 	 * 
 	 * @return
@@ -718,6 +747,7 @@ public class UnaryOp extends Hop
 		
 		//copy specific attributes
 		ret._op = _op;
+		ret._maxNumThreads = _maxNumThreads;
 		
 		return ret;
 	}
@@ -741,6 +771,7 @@ public class UnaryOp extends Hop
 		
 		UnaryOp that2 = (UnaryOp)that;		
 		return (   _op == that2._op
+				&& _maxNumThreads == that2._maxNumThreads
 				&& getInput().get(0) == that2.getInput().get(0));
 	}
 }
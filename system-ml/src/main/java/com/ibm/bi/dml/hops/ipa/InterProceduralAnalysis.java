@@ -30,6 +30,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import com.ibm.bi.dml.api.DMLScript;
 import com.ibm.bi.dml.hops.BinaryOp;
 import com.ibm.bi.dml.hops.DataGenOp;
 import com.ibm.bi.dml.hops.DataOp;
@@ -37,11 +38,13 @@ import com.ibm.bi.dml.hops.FunctionOp;
 import com.ibm.bi.dml.hops.FunctionOp.FunctionType;
 import com.ibm.bi.dml.hops.Hop;
 import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.OpOp1;
 import com.ibm.bi.dml.hops.Hop.OpOp2;
 import com.ibm.bi.dml.hops.HopsException;
 import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.hops.Hop.VisitStatus;
 import com.ibm.bi.dml.hops.LiteralOp;
+import com.ibm.bi.dml.hops.UnaryOp;
 import com.ibm.bi.dml.hops.rewrite.HopRewriteUtils;
 import com.ibm.bi.dml.hops.recompile.Recompiler;
 import com.ibm.bi.dml.parser.DMLProgram;
@@ -125,6 +128,8 @@ public class InterProceduralAnalysis
 	private static final boolean FLAG_FUNCTION_RECOMPILE_ONCE   = true; //flag functions which require recompilation inside a loop for full function recompile
 	private static final boolean REMOVE_UNNECESSARY_CHECKPOINTS = true; //remove unnecessary checkpoints (unconditionally overwritten intermediates) 
 	private static final boolean REMOVE_CONSTANT_BINARY_OPS     = true; //remove constant binary operations (e.g., X*ones, where ones=matrix(1,...)) 
+	private static final boolean INLINE_SMALL_FUNCTIONS         = true; //inline small, non-recursive functions with a single statement block
+	private static final int     INLINING_MAX_NUM_OPS           = 10;   //max number of operations (excl reads/writes/literals) of inlined functions
 	
 	static {
 		// for internal debugging only
@@ -151,6 +156,13 @@ public class InterProceduralAnalysis
 	public void analyzeProgram( DMLProgram dmlp ) 
 		throws HopsException, ParseException, LanguageException
 	{
+		//step 0: inline small functions into their call sites (before statistics propagation,
+		//in order to propagate statistics across the inlined operations)
+		if( INLINE_SMALL_FUNCTIONS && dmlp.getFunctionStatementBlocks().size() > 0 ) {
+			inlineSmallFunctions( dmlp );
+			DMLTranslator.resetHopsDAGVisitStatus( dmlp );
+		}
+		
 		//step 1: get candidates for statistics propagation into functions (if required)
 		Map<String, Integer> fcandCounts = new HashMap<String, Integer>();
 		Map<String, FunctionOp> fcandHops = new HashMap<String, FunctionOp>();
@@ -879,6 +891,344 @@ public class InterProceduralAnalysis
 		return moOut;
 	}
 	
+	/////////////////////////////
+	// INLINE SMALL FUNCTIONS
+	//////
+	
+	/**
+	 * Inlines calls to small DML-bodied functions with a single last-level statement
+	 * block (non-recursive by definition, because without function calls) into the
+	 * hop dags of their call sites. This removes the function call overhead (new 
+	 * symbol table, copy of inputs and outputs) and allows subsequent rewrites to 
+	 * optimize across the former call boundary. Functions that are not inlined at 
+	 * parse time (e.g., with multiple statement blocks that collapse into a single 
+	 * block after constant propagation and branch removal) are covered here.
+	 * 
+	 * @param dmlp
+	 * @throws HopsException
+	 * @throws LanguageException
+	 */
+	private void inlineSmallFunctions( DMLProgram dmlp ) 
+		throws HopsException, LanguageException
+	{
+		if( DMLScript.ENABLE_DEBUG_MODE )
+			return;
+		
+		//inline function calls in functions
+		for (String namespaceKey : dmlp.getNamespaces().keySet())
+			for (String fname : dmlp.getFunctionStatementBlocks(namespaceKey).keySet())
+				rInlineSmallFunctions(dmlp.getFunctionStatementBlock(namespaceKey, fname), dmlp);
+		
+		//inline function calls in main program
+		for( StatementBlock sb : dmlp.getStatementBlocks() )
+			rInlineSmallFunctions(sb, dmlp);
+	}
+	
+	/**
+	 * 
+	 * @param sb
+	 * @param prog
+	 * @throws HopsException
+	 */
+	private void rInlineSmallFunctions( StatementBlock sb, DMLProgram prog ) 
+		throws HopsException
+	{
+		if (sb instanceof FunctionStatementBlock)
+		{
+			FunctionStatementBlock fsb = (FunctionStatementBlock)sb;
+			FunctionStatement fstmt = (FunctionStatement)fsb.getStatement(0);
+			for (StatementBlock sbi : fstmt.getBody())
+				rInlineSmallFunctions(sbi, prog);
+		}
+		else if (sb instanceof WhileStatementBlock)
+		{
+			WhileStatementBlock wsb = (WhileStatementBlock) sb;
+			WhileStatement wstmt = (WhileStatement)wsb.getStatement(0);
+			for (StatementBlock sbi : wstmt.getBody())
+				rInlineSmallFunctions(sbi, prog);
+		}	
+		else if (sb instanceof IfStatementBlock)
+		{
+			IfStatementBlock isb = (IfStatementBlock) sb;
+			IfStatement istmt = (IfStatement)isb.getStatement(0);
+			for (StatementBlock sbi : istmt.getIfBody())
+				rInlineSmallFunctions(sbi, prog);
+			for (StatementBlock sbi : istmt.getElseBody())
+				rInlineSmallFunctions(sbi, prog);
+		}
+		else if (sb instanceof ForStatementBlock) //incl parfor
+		{
+			ForStatementBlock fsb = (ForStatementBlock) sb;
+			ForStatement fstmt = (ForStatement)fsb.getStatement(0);
+			for (StatementBlock sbi : fstmt.getBody())
+				rInlineSmallFunctions(sbi, prog);
+		}
+		else if( sb.get_hops() != null ) //generic (last-level)
+		{
+			//function calls are always roots of the hop dag
+			ArrayList<Hop> roots = sb.get_hops();
+			boolean inlined = false;
+			for( int i=0; i<roots.size(); i++ )
+				if( roots.get(i) instanceof FunctionOp 
+					&& ((FunctionOp)roots.get(i)).getFunctionType() == FunctionType.DML )
+				{
+					FunctionOp fop = (FunctionOp) roots.get(i);
+					FunctionStatementBlock fsb = prog.getFunctionStatementBlock(fop.getFunctionNamespace(), fop.getFunctionName());
+					if( isInlineableFunctionCall(fop, fsb) ) 
+					{
+						ArrayList<Hop> froots = inlineFunctionCall(fop, fsb);
+						roots.remove(i);
+						roots.addAll(i, froots);
+						i += froots.size() - 1;
+						inlined = true;
+						
+						LOG.debug("IPA: FUNC inlined into call site (lines "+sb.getBeginLine()+"-"+sb.getEndLine()+"): " 
+								+ DMLProgram.constructFunctionKey(fop.getFunctionNamespace(), fop.getFunctionName()));
+					}
+				}
+			
+			if( inlined )
+				sb.updateRecompilationFlag();
+		}
+	}
+	
+	/**
+	 * 
+	 * @param fop
+	 * @param fsb
+	 * @return
+	 * @throws HopsException
+	 */
+	private boolean isInlineableFunctionCall( FunctionOp fop, FunctionStatementBlock fsb ) 
+		throws HopsException
+	{
+		//check for dml-bodied function with single last-level statement block
+		if( fsb == null || fop.getFunctionNamespace().equals(DMLProgram.INTERNAL_NAMESPACE) )
+			return false;
+		FunctionStatement fstmt = (FunctionStatement)fsb.getStatement(0);
+		if( fstmt.getBody().size() != 1 )
+			return false;
+		StatementBlock fbody = fstmt.getBody().get(0);
+		if(    fbody instanceof IfStatementBlock || fbody instanceof WhileStatementBlock 
+			|| fbody instanceof ForStatementBlock || fbody.get_hops() == null )
+			return false;
+		
+		//check consistent inputs (no default parameters, scalar casts only)
+		ArrayList<DataIdentifier> inParams = fstmt.getInputParams();
+		if( fop.getInput().size() != inParams.size() )
+			return false;
+		HashSet<String> inNames = new HashSet<String>();
+		for( int i=0; i<inParams.size(); i++ ) {
+			if( !isConsistentType(fop.getInput().get(i), inParams.get(i)) )
+				return false;
+			inNames.add(inParams.get(i).getName());
+		}
+		
+		//check consistent outputs (all outputs assigned, scalar casts only)
+		for( DataIdentifier outParam : fstmt.getOutputParams() ) {
+			Hop twrite = null;
+			for( Hop root : fbody.get_hops() )
+				if( root instanceof DataOp && ((DataOp)root).getDataOpType()==DataOpTypes.TRANSIENTWRITE
+					&& root.getName().equals(outParam.getName()) )
+					twrite = root;
+			if( twrite == null || !isConsistentType(twrite.getInput().get(0), outParam) )
+				return false;
+		}
+		
+		//check size and operations of function body (no function calls, only reads of inputs)
+		int[] count = new int[]{0};
+		boolean ret = true;
+		Hop.resetVisitStatus(fbody.get_hops());
+		for( Hop root : fbody.get_hops() )
+			ret &= rIsInlineableHopDag(root, inNames, count);
+		Hop.resetVisitStatus(fbody.get_hops());
+		
+		return ret && count[0] <= INLINING_MAX_NUM_OPS;
+	}
+	
+	/**
+	 * 
+	 * @param hop
+	 * @param param
+	 * @return
+	 */
+	private boolean isConsistentType( Hop hop, DataIdentifier param )
+	{
+		return hop.getDataType() == param.getDataType()
+			&& (hop.getDataType() != DataType.SCALAR || hop.getValueType() == param.getValueType()
+			    || (isCastableValueType(hop.getValueType()) && isCastableValueType(param.getValueType())));
+	}
+	
+	/**
+	 * 
+	 * @param vt
+	 * @return
+	 */
+	private boolean isCastableValueType( ValueType vt )
+	{
+		return (vt == ValueType.DOUBLE || vt == ValueType.INT || vt == ValueType.BOOLEAN);
+	}
+	
+	/**
+	 * Creates a value type cast of the given scalar hop if required, equivalent
+	 * to the auto casts on function inlining at parser level.
+	 * 
+	 * @param hop
+	 * @param vt
+	 * @return
+	 * @throws HopsException
+	 */
+	private Hop createValueTypeCast( Hop hop, ValueType vt ) 
+		throws HopsException
+	{
+		if( hop.getDataType() != DataType.SCALAR || hop.getValueType() == vt )
+			return hop;
+		
+		OpOp1 op = (vt == ValueType.INT) ? OpOp1.CAST_AS_INT : 
+			       (vt == ValueType.BOOLEAN) ? OpOp1.CAST_AS_BOOLEAN : OpOp1.CAST_AS_DOUBLE;
+		UnaryOp cast = new UnaryOp(hop.getName(), DataType.SCALAR, vt, op, hop);
+		HopRewriteUtils.copyLineNumbers(hop, cast);
+		return cast;
+	}
+	
+	/**
+	 * 
+	 * @param hop
+	 * @param inNames
+	 * @param count
+	 * @return
+	 */
+	private boolean rIsInlineableHopDag( Hop hop, HashSet<String> inNames, int[] count )
+	{
+		if( hop.getVisited() == VisitStatus.DONE )
+			return true;
+		
+		boolean ret = true;
+		if( hop instanceof FunctionOp )
+			ret = false;
+		else if( hop instanceof DataOp && ((DataOp)hop).getDataOpType()==DataOpTypes.TRANSIENTREAD )
+			ret = inNames.contains(hop.getName());
+		else if( !(hop instanceof DataOp || hop instanceof LiteralOp) )
+			count[0]++;
+		
+		for( Hop c : hop.getInput() )
+			ret &= rIsInlineableHopDag(c, inNames, count);
+		
+		hop.setVisited(VisitStatus.DONE);
+		return ret;
+	}
+	
+	/**
+	 * Creates a copy of the function body hop dag, where transient reads of input
+	 * parameters are replaced by the function call inputs and transient writes of
+	 * output parameters by transient writes of the function call outputs. Other
+	 * roots with side effects (e.g., print or persistent writes) are kept as is.
+	 * 
+	 * @param fop
+	 * @param fsb
+	 * @return new roots of the caller hop dag
+	 * @throws HopsException
+	 */
+	private ArrayList<Hop> inlineFunctionCall( FunctionOp fop, FunctionStatementBlock fsb ) 
+		throws HopsException
+	{
+		FunctionStatement fstmt = (FunctionStatement)fsb.getStatement(0);
+		ArrayList<Hop> froots = Recompiler.deepCopyHopsDag(fstmt.getBody().get(0).get_hops());
+		ArrayList<Hop> ret = new ArrayList<Hop>();
+		
+		//bind input parameters to function call inputs
+		HashMap<String, Hop> inputs = new HashMap<String, Hop>();
+		for( int i=0; i<fstmt.getInputParams().size(); i++ )
+			inputs.put(fstmt.getInputParams().get(i).getName(), fop.getInput().get(i));
+		ArrayList<Hop> treads = new ArrayList<Hop>();
+		Hop.resetVisitStatus(froots);
+		for( Hop root : froots )
+			rCollectTransientReads(root, treads);
+		for( Hop tread : treads )
+			replaceHop(tread, createValueTypeCast(inputs.get(tread.getName()), tread.getValueType()));
+		
+		//bind output parameters to function call outputs
+		HashMap<String, Hop> outputs = new HashMap<String, Hop>();
+		ArrayList<Hop> twrites = new ArrayList<Hop>();
+		for( Hop root : froots ) {
+			if( root instanceof DataOp && ((DataOp)root).getDataOpType()==DataOpTypes.TRANSIENTWRITE ) {
+				outputs.put(root.getName(), root.getInput().get(0));
+				twrites.add(root);
+			}
+			else
+				ret.add(root);
+		}
+		String[] outNames = fop.getOutputVariableNames();
+		for( int i=0; i<outNames.length; i++ ) {
+			DataIdentifier outParam = fstmt.getOutputParams().get(i);
+			Hop out = createValueTypeCast(outputs.get(outParam.getName()), outParam.getValueType());
+			DataOp twrite = new DataOp(outNames[i], out.getDataType(), out.getValueType(), out, DataOpTypes.TRANSIENTWRITE, null);
+			twrite.setOutputParams(out.getDim1(), out.getDim2(), out.getNnz(), out.getRowsInBlock(), out.getColsInBlock());
+			HopRewriteUtils.copyLineNumbers(fop, twrite);
+			ret.add(twrite);
+		}
+		
+		//remove function call and writes of local variables (incl unused sub dags)
+		ArrayList<Hop> finputs = new ArrayList<Hop>(fop.getInput());
+		HopRewriteUtils.removeAllChildReferences(fop);
+		for( Hop c : finputs )
+			rRemoveUnreachableHops(c);
+		for( Hop twrite : twrites )
+			rRemoveUnreachableHops(twrite);
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param hop
+	 * @param treads
+	 */
+	private void rCollectTransientReads( Hop hop, ArrayList<Hop> treads )
+	{
+		if( hop.getVisited() == VisitStatus.DONE )
+			return;
+		
+		if( hop instanceof DataOp && ((DataOp)hop).getDataOpType()==DataOpTypes.TRANSIENTREAD )
+			treads.add(hop);
+		
+		for( Hop c : hop.getInput() )
+			rCollectTransientReads(c, treads);
+		
+		hop.setVisited(VisitStatus.DONE);
+	}
+	
+	/**
+	 * 
+	 * @param hold
+	 * @param hnew
+	 */
+	private void replaceHop( Hop hold, Hop hnew )
+	{
+		ArrayList<Hop> parents = new ArrayList<Hop>(hold.getParent());
+		for( Hop p : parents )
+			for( int i=0; i<p.getInput().size(); i++ )
+				if( p.getInput().get(i) == hold ) {
+					HopRewriteUtils.removeChildReferenceByPos(p, hold, i);
+					HopRewriteUtils.addChildReference(p, hnew, i);
+				}
+	}
+	
+	/**
+	 * 
+	 * @param hop
+	 */
+	private void rRemoveUnreachableHops( Hop hop )
+	{
+		if( !hop.getParent().isEmpty() )
+			return;
+		
+		ArrayList<Hop> inputs = new ArrayList<Hop>(hop.getInput());
+		HopRewriteUtils.removeAllChildReferences(hop);
+		for( Hop c : inputs )
+			rRemoveUnreachableHops(c);
+	}
+	
 	/////////////////////////////
 	// REMOVE UNUSED FUNCTIONS
 	//////
@@ -0,0 +1,251 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.hops.recompile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.hops.AggUnaryOp;
+import com.ibm.bi.dml.hops.DataOp;
+import com.ibm.bi.dml.hops.Hop;
+import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.OpOp1;
+import com.ibm.bi.dml.hops.IndexingOp;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.hops.UnaryOp;
+import com.ibm.bi.dml.parser.Expression.DataType;
+import com.ibm.bi.dml.runtime.controlprogram.LocalVariableMap;
+import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
+import com.ibm.bi.dml.runtime.instructions.Instruction;
+import com.ibm.bi.dml.runtime.instructions.cp.Data;
+import com.ibm.bi.dml.runtime.instructions.cp.ScalarObject;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
+
+/**
+ * Memo of recompiled runtime instructions of a single statement block hop DAG.
+ * The entries are keyed by a signature of the live input variables (dimensions,
+ * blocksizes, exact nnz and used density maps of matrices, values of scalars), the 
+ * local and remote memory budgets, and the execution mode, i.e., all inputs of 
+ * size-dependent plan decisions. A repeated signature allows to reuse the previously
+ * generated instructions instead of a full recompile, which is common for loop bodies
+ * with unchanged input sizes. The memoized instructions are thread-independent (before
+ * thread id replacement), so that all parfor workers share the same entries.
+ *
+ * Note: The memo is not thread-safe and requires synchronization on the
+ * hop dag of the owning statement block (as done in the recompiler).
+ */
+public class RecompileMemo
+{
+	//max number of distinct signatures per statement block (LRU)
+	private static final int MAX_ENTRIES = 8;
+
+	//global epoch for invalidating all memos (e.g., on in-place hop modifications)
+	private static AtomicLong _sEpoch = new AtomicLong(0);
+
+	private ArrayList<Hop> _hops = null;
+	private long _epoch = -1;
+	private LinkedHashMap<String, ArrayList<Instruction>> _entries = null;
+
+	public RecompileMemo()
+	{
+		_entries = new LinkedHashMap<String, ArrayList<Instruction>>(MAX_ENTRIES, 0.75f, true) {
+			private static final long serialVersionUID = -5120583547432093412L;
+			@Override
+			protected boolean removeEldestEntry(Entry<String, ArrayList<Instruction>> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Invalidates all existing memo entries of all statement blocks. This is
+	 * required whenever hop dags are modified in-place (e.g., forced execution
+	 * types, parfor optimization) or the optimizer configuration changes.
+	 */
+	public static void invalidateAll()
+	{
+		_sEpoch.incrementAndGet();
+	}
+
+	/**
+	 *
+	 * @param hops
+	 * @param key
+	 * @return
+	 */
+	public ArrayList<Instruction> get( ArrayList<Hop> hops, String key )
+	{
+		if( key == null || !isValid(hops) ) {
+			_entries.clear();
+			return null;
+		}
+
+		return _entries.get(key);
+	}
+
+	/**
+	 *
+	 * @param hops
+	 * @param key
+	 * @param inst
+	 */
+	public void put( ArrayList<Hop> hops, String key, ArrayList<Instruction> inst )
+	{
+		if( key == null )
+			return;
+
+		if( !isValid(hops) ) {
+			_entries.clear();
+			_hops = hops;
+			_epoch = _sEpoch.get();
+		}
+
+		_entries.put(key, inst);
+	}
+
+	/**
+	 *
+	 * @param hops
+	 * @return
+	 */
+	private boolean isValid( ArrayList<Hop> hops )
+	{
+		return (_hops == hops && _epoch == _sEpoch.get());
+	}
+
+	/**
+	 * Creates the memo signature for the given hop dag and current variables.
+	 * Returns null if the dag is not eligible for reuse, i.e., if recompilation
+	 * depends on more than the sizes of matrices and values of scalars (e.g.,
+	 * literal replacement of matrix values or reads of file meta data).
+	 *
+	 * @param hops
+	 * @param vars
+	 * @return
+	 */
+	public static String createSignature( ArrayList<Hop> hops, LocalVariableMap vars )
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(DMLScript.rtplatform);
+		sb.append('|');
+		sb.append(OptimizerUtils.getLocalMemBudget());
+		if( DMLScript.rtplatform != RUNTIME_PLATFORM.SINGLE_NODE ) {
+			//remote budgets (e.g., changed by the resource optimizer)
+			sb.append('|');
+			sb.append(InfrastructureAnalyzer.getRemoteMaxMemoryMap());
+			sb.append('|');
+			sb.append(InfrastructureAnalyzer.getRemoteMaxMemoryReduce());
+		}
+
+		HashSet<Long> memo = new HashSet<Long>();
+		for( Hop hopRoot : hops )
+			if( !rCreateSignature(hopRoot, vars, sb, memo) )
+				return null;
+
+		return sb.toString();
+	}
+
+	/**
+	 *
+	 * @param hop
+	 * @param vars
+	 * @param sb
+	 * @param memo
+	 * @return
+	 */
+	private static boolean rCreateSignature( Hop hop, LocalVariableMap vars, StringBuilder sb, HashSet<Long> memo )
+	{
+		if( memo.contains(hop.getHopID()) )
+			return true;
+
+		//check for value-dependent literal replacement
+		if( isValueDependentLiteral(hop) )
+			return false;
+
+		if( hop instanceof DataOp )
+		{
+			DataOp dop = (DataOp) hop;
+			if( dop.getDataOpType() == DataOpTypes.PERSISTENTREAD && !dop.dimsKnown() )
+				return false; //meta data read on recompile
+			if( dop.getDataOpType() == DataOpTypes.TRANSIENTREAD )
+			{
+				Data dat = vars.get(dop.getName());
+				sb.append('|');
+				sb.append(dop.getName());
+				if( dat instanceof MatrixObject ) {
+					MatrixObject mo = (MatrixObject) dat;
+					sb.append(':');
+					sb.append(mo.getNumRows());
+					sb.append(',');
+					sb.append(mo.getNumColumns());
+					sb.append(',');
+					sb.append(mo.getNumRowsPerBlock());
+					sb.append(',');
+					sb.append(mo.getNumColumnsPerBlock());
+					sb.append(',');
+					sb.append(mo.getNnz());
+					if( Recompiler.requiresDensityMap(dop) ) {
+						DensityMap dm = mo.getDensityMap();
+						sb.append(',');
+						sb.append((dm != null) ? dm.getSignature() : "-");
+					}
+				}
+				else if( dat instanceof ScalarObject ) {
+					sb.append('=');
+					sb.append(((ScalarObject)dat).getStringValue());
+				}
+				else if( dat != null )
+					return false; //unsupported data type
+			}
+		}
+
+		if( hop.getInput() != null )
+			for( Hop c : hop.getInput() )
+				if( !rCreateSignature(c, vars, sb, memo) )
+					return false;
+
+		memo.add(hop.getHopID());
+		return true;
+	}
+
+	/**
+	 * Indicates if the given hop is a candidate for literal replacement
+	 * based on matrix values (see LiteralReplacement), which would bake
+	 * data values into the generated instructions.
+	 *
+	 * @param hop
+	 * @return
+	 */
+	private static boolean isValueDependentLiteral( Hop hop )
+	{
+		if( hop.getDataType() != DataType.SCALAR || hop.getInput().isEmpty()
+			|| !((hop instanceof UnaryOp && ((UnaryOp)hop).getOp()==OpOp1.CAST_AS_SCALAR)
+				|| hop instanceof AggUnaryOp) )
+			return false;
+
+		Hop in = hop.getInput().get(0);
+		return (in instanceof DataOp)
+			|| (in instanceof IndexingOp && in.getInput().get(0) instanceof DataOp);
+	}
+}
@@ -33,6 +33,7 @@ import org.apache.wink.json4j.JSONObject;
 
 import com.ibm.bi.dml.api.DMLScript;
 import com.ibm.bi.dml.conf.ConfigurationManager;
+import com.ibm.bi.dml.hops.AggBinaryOp;
 import com.ibm.bi.dml.hops.BinaryOp;
 import com.ibm.bi.dml.hops.DataGenOp;
 import com.ibm.bi.dml.hops.DataOp;
@@ -101,6 +102,7 @@ import com.ibm.bi.dml.runtime.util.MapReduceTool;
 import com.ibm.bi.dml.utils.Explain;
 import com.ibm.bi.dml.utils.Explain.ExplainType;
 import com.ibm.bi.dml.utils.JSONHelper;
+import com.ibm.bi.dml.utils.Statistics;
 
 /**
  * Dynamic recompilation of hop dags to runtime instructions, which includes the 
@@ -133,6 +135,7 @@ public class Recompiler
 	public static void reinitRecompiler()
 	{
 		rewriter = new ProgramRewriter(false, true);
+		RecompileMemo.invalidateAll();
 	}
 	
 	/**
@@ -155,6 +158,8 @@ public class Recompiler
 		throws DMLRuntimeException, HopsException, LopsException, DMLUnsupportedOperationException, IOException
 	{
 		ArrayList<Instruction> newInst = null;
+		ArrayList<Hop> origHops = hops;
+		String memoKey = null;
 
 		//need for synchronization as we do temp changes in shared hops/lops
 		//however, we create deep copies for most dags to allow for concurrent recompile
@@ -163,54 +168,75 @@ public class Recompiler
 			LOG.debug ("\n**************** Optimizer (Recompile) *************\nMemory Budget = " + 
 					   OptimizerUtils.toMB(OptimizerUtils.getLocalMemBudget()) + " MB");
 	
-			// prepare hops dag for recompile
-			if( !inplace ){ 
-				// deep copy hop dag (for non-reversable rewrites)
-				hops = deepCopyHopsDag(hops);
+			// probe recompile memo (reuse of thread-independent instructions for unchanged input signature)
+			ArrayList<Instruction> memoInst = null;
+			if( isRecompileMemoApplicable(sb, hops, status, inplace) ) {
+				memoKey = RecompileMemo.createSignature(hops, vars);
+				memoInst = sb.getRecompileMemo().get(hops, memoKey);
+				if( memoInst != null && DMLScript.STATISTICS )
+					Statistics.incrementHOPRecompileMemoHits();
 			}
-			else {
-				// clear existing lops
-				Hop.resetVisitStatus(hops);
-				for( Hop hopRoot : hops )
-					rClearLops( hopRoot );
+			
+			if( memoInst != null ) {
+				newInst = memoInst;
 			}
+			else {
+				// prepare hops dag for recompile
+				if( !inplace ){ 
+					// deep copy hop dag (for non-reversable rewrites)
+					hops = deepCopyHopsDag(hops);
+				}
+				else {
+					// in-place modifications invalidate memoized instructions
+					RecompileMemo.invalidateAll();
+				
+					// clear existing lops
+					Hop.resetVisitStatus(hops);
+					for( Hop hopRoot : hops )
+						rClearLops( hopRoot );
+				}
 
-			// replace scalar reads with literals 
-			if( !inplace ) {
+				// replace scalar reads with literals 
+				if( !inplace ) {
+					Hop.resetVisitStatus(hops);
+					for( Hop hopRoot : hops )
+						rReplaceLiterals( hopRoot, vars );
+				}
+			
+				// refresh matrix characteristics (update stats)			
 				Hop.resetVisitStatus(hops);
 				for( Hop hopRoot : hops )
-					rReplaceLiterals( hopRoot, vars );
-			}
+					rUpdateStatistics( hopRoot, vars );
 			
-			// refresh matrix characteristics (update stats)			
-			Hop.resetVisitStatus(hops);
-			for( Hop hopRoot : hops )
-				rUpdateStatistics( hopRoot, vars );
+				// dynamic hop rewrites
+				if( !inplace )
+					rewriter.rewriteHopDAGs( hops, null );
 			
-			// dynamic hop rewrites
-			if( !inplace )
-				rewriter.rewriteHopDAGs( hops, null );
+				// refresh memory estimates (based on updated stats,
+				// before: init memo table with propagated worst-case estimates,
+				// after: extract worst-case estimates from memo table 
+				Hop.resetVisitStatus(hops);
+				MemoTable memo = new MemoTable();
+				memo.init(hops, status);
+				Hop.resetVisitStatus(hops);
+				for( Hop hopRoot : hops )
+					hopRoot.refreshMemEstimates(memo); 
+				memo.extract(hops, status);
 			
-			// refresh memory estimates (based on updated stats,
-			// before: init memo table with propagated worst-case estimates,
-			// after: extract worst-case estimates from memo table 
-			Hop.resetVisitStatus(hops);
-			MemoTable memo = new MemoTable();
-			memo.init(hops, status);
-			Hop.resetVisitStatus(hops);
-			for( Hop hopRoot : hops )
-				hopRoot.refreshMemEstimates(memo); 
-			memo.extract(hops, status);
+				// construct lops			
+				Dag<Lop> dag = new Dag<Lop>();
+				for( Hop hopRoot : hops ){
+					Lop lops = hopRoot.constructLops();
+					lops.addToDag(dag);	
+				}		
 			
-			// construct lops			
-			Dag<Lop> dag = new Dag<Lop>();
-			for( Hop hopRoot : hops ){
-				Lop lops = hopRoot.constructLops();
-				lops.addToDag(dag);	
-			}		
-			
-			// generate runtime instructions (incl piggybacking)
-			newInst = dag.getJobs(sb, ConfigurationManager.getConfig());	
+				// generate runtime instructions (incl piggybacking)
+				newInst = dag.getJobs(sb, ConfigurationManager.getConfig());	
+				
+				// memoize new instructions for reuse (before thread id replacement)
+				if( memoKey != null )
+					sb.getRecompileMemo().put(origHops, memoKey, newInst);
+			}
 		}
 		
 		// replace thread ids in new instructions
@@ -268,6 +294,9 @@ public class Recompiler
 				hops = deepCopyHopsDag(hops);	
 			}
 			else {
+				// in-place modifications invalidate memoized instructions
+				RecompileMemo.invalidateAll();
+				
 				// clear existing lops
 				hops.resetVisitStatus();
 				rClearLops( hops );	
@@ -343,6 +372,9 @@ public class Recompiler
 			LOG.debug ("\n**************** Optimizer (Recompile) *************\nMemory Budget = " + 
 					   OptimizerUtils.toMB(OptimizerUtils.getLocalMemBudget()) + " MB");
 	
+			// in-place modifications invalidate memoized instructions
+			RecompileMemo.invalidateAll();
+			
 			// clear existing lops
 			Hop.resetVisitStatus(hops);
 			for( Hop hopRoot : hops )
@@ -399,6 +431,9 @@ public class Recompiler
 			LOG.debug ("\n**************** Optimizer (Recompile) *************\nMemory Budget = " + 
 					   OptimizerUtils.toMB(OptimizerUtils.getLocalMemBudget()) + " MB");
 
+			// in-place modifications invalidate memoized instructions
+			RecompileMemo.invalidateAll();
+			
 			// clear existing lops
 			hops.resetVisitStatus();
 			rClearLops( hops );	
@@ -626,6 +661,28 @@ public class Recompiler
 		}
 	}
 	
+	/**
+	 * Indicates if the recompile memo can be used for the given statement block,
+	 * which requires a deep-copy recompile of the statement block's own hop dag 
+	 * without recompile status, and no explain of recompiled hops/instructions.
+	 * 
+	 * @param sb
+	 * @param hops
+	 * @param status
+	 * @param inplace
+	 * @return
+	 * @throws HopsException
+	 */
+	private static boolean isRecompileMemoApplicable( StatementBlock sb, ArrayList<Hop> hops, RecompileStatus status, boolean inplace ) 
+		throws HopsException
+	{
+		return OptimizerUtils.ALLOW_RECOMPILE_MEMO
+			&& sb != null && sb.get_hops() == hops
+			&& status == null && !inplace
+			&& DMLScript.EXPLAIN != ExplainType.RECOMPILE_HOPS
+			&& DMLScript.EXPLAIN != ExplainType.RECOMPILE_RUNTIME;
+	}
+	
 	/**
 	 * 
 	 * @param hops
@@ -1648,6 +1705,7 @@ public class Recompiler
 					d.setDim1(mo.getNumRows());
 					d.setDim2(mo.getNumColumns());
 					d.setNnz(mo.getNnz());
+					d.setDensityMap(requiresDensityMap(d) ? mo.getDensityMap() : null);
 				}
 			}
 		}
@@ -1732,6 +1790,25 @@ public class Recompiler
 		
 		hop.setVisited(VisitStatus.DONE);
 	}
+	
+	/**
+	 * Indicates if the given transient read has consumers that propagate density
+	 * maps (matrix multiply, cell-wise binary operations, transpose), in which 
+	 * case the density map of the input matrix is computed on demand.
+	 * 
+	 * @param hop
+	 * @return
+	 */
+	protected static boolean requiresDensityMap( Hop hop )
+	{
+		if( !OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES )
+			return false;
+		
+		for( Hop p : hop.getParent() )
+			if( p instanceof AggBinaryOp || p instanceof BinaryOp || p instanceof ReorgOp )
+				return true;
+		return false;
+	}
 
 	/**
 	 * public interface to package local literal replacement
@@ -111,7 +111,11 @@ public class ProgramRewriter
  				_sbRuleSet.add(  new RewriteSplitDagDataDependentOperators()     );
  			if( OptimizerUtils.ALLOW_AUTO_VECTORIZATION )
 				_sbRuleSet.add(  new RewriteForLoopVectorization()               ); //dependency: reblock (reblockop)
- 			_sbRuleSet.add( new RewriteInjectSparkLoopCheckpointing(true)        ); //dependency: reblock (blocksizes)
+ 			if( OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION )
+				_sbRuleSet.add( new RewriteHoistLoopInvariantOperations()        ); //dependency: reblock, split dags, vectorization
+			_sbRuleSet.add( new RewriteInjectSparkLoopCheckpointing(true)        ); //dependency: reblock (blocksizes)
+ 			if( OptimizerUtils.ALLOW_LOOP_UPDATE_IN_PLACE )
+ 				_sbRuleSet.add( new RewriteMarkLoopVariablesUpdateInPlace()      ); //dependency: split dags, vectorization
 		}
 		
 		// DYNAMIC REWRITES (which do require size information)
@@ -0,0 +1,555 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.hops.rewrite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import com.ibm.bi.dml.hops.AggBinaryOp;
+import com.ibm.bi.dml.hops.AggUnaryOp;
+import com.ibm.bi.dml.hops.BinaryOp;
+import com.ibm.bi.dml.hops.DataOp;
+import com.ibm.bi.dml.hops.Hop;
+import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.OpOp1;
+import com.ibm.bi.dml.hops.Hop.OpOp2;
+import com.ibm.bi.dml.hops.Hop.VisitStatus;
+import com.ibm.bi.dml.hops.HopsException;
+import com.ibm.bi.dml.hops.IndexingOp;
+import com.ibm.bi.dml.hops.LiteralOp;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.hops.ReorgOp;
+import com.ibm.bi.dml.hops.UnaryOp;
+import com.ibm.bi.dml.hops.recompile.Recompiler;
+import com.ibm.bi.dml.parser.BooleanIdentifier;
+import com.ibm.bi.dml.parser.ConditionalPredicate;
+import com.ibm.bi.dml.parser.DataIdentifier;
+import com.ibm.bi.dml.parser.ForStatement;
+import com.ibm.bi.dml.parser.ForStatementBlock;
+import com.ibm.bi.dml.parser.FunctionStatementBlock;
+import com.ibm.bi.dml.parser.IfStatement;
+import com.ibm.bi.dml.parser.IfStatementBlock;
+import com.ibm.bi.dml.parser.ParForStatementBlock;
+import com.ibm.bi.dml.parser.StatementBlock;
+import com.ibm.bi.dml.parser.VariableSet;
+import com.ibm.bi.dml.parser.WhileStatement;
+import com.ibm.bi.dml.parser.WhileStatementBlock;
+import com.ibm.bi.dml.parser.Expression.DataType;
+import com.ibm.bi.dml.parser.Expression.ValueType;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
+
+/**
+ * Rule: Hoist loop-invariant operations out of for/while loops. For all generic
+ * statement blocks of the loop body, we determine the maximal sub DAGs that only
+ * depend on literals and variables that are live-in but not updated in the loop
+ * (e.g., t(X) in conjugate gradient), compute them once in a new statement block
+ * before the loop, and replace them by transient reads of artificial variables.
+ * These variables are removed by a cleanup statement block after the loop.
+ *
+ * Since hoisted operations might fail or be expensive for loops that are never
+ * entered (e.g., out-of-bounds indexing or matrix multiplications in for(i in 1:0)),
+ * the hoisted statement block is guarded by the loop predicate, i.e., we create
+ * if(pred) {hoisted} else {empty placeholders}; loop; cleanup. For for-loops the
+ * guard is (from<=to | incr<=0) in order to preserve the error on invalid increments.
+ * Loops with non-deterministic predicates are not rewritten.
+ *
+ * We only hoist matrix operations with known dimensions whose outputs together fit
+ * into the local memory budget, because the hoisted intermediates are kept alive for
+ * the entire loop. Operations with side effects or non-deterministic results
+ * (e.g., print, rand, function calls) and nested control flow are not hoisted.
+ *
+ * Note: parfor loops and loops in parfor bodies are excluded in order to keep
+ * the parfor dependency analysis and optimizer unaffected.
+ *
+ * This is a recursive statementblock rewrite rule, which is applied bottom-up.
+ * Invariants of inner loops are not hoisted further out of outer loops because
+ * they reside in the guarded statement block of the inner loop.
+ */
+public class RewriteHoistLoopInvariantOperations extends StatementBlockRewriteRule
+{
+	private static String _varnamePrefix = "_licmvar";
+	private static IDSequence _seq = new IDSequence();
+
+	@Override
+	public ArrayList<StatementBlock> rewriteStatementBlock(StatementBlock sb, ProgramRewriteStatus status)
+		throws HopsException
+	{
+		ArrayList<StatementBlock> ret = new ArrayList<StatementBlock>();
+
+		if( !OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION
+			|| !(sb instanceof WhileStatementBlock || sb instanceof ForStatementBlock)
+			|| sb instanceof ParForStatementBlock || status.isInParforContext() )
+		{
+			ret.add(sb); // nothing to do here
+			return ret; //return original statement block
+		}
+
+		//create guard predicate (evaluated once before the loop)
+		Hop pred = createLoopPredicate(sb);
+		if( pred == null ) {
+			ret.add(sb); // nothing to do here
+			return ret; //return original statement block
+		}
+
+		ArrayList<StatementBlock> body = (sb instanceof WhileStatementBlock) ?
+			((WhileStatement)sb.getStatement(0)).getBody() :
+			((ForStatement)sb.getStatement(0)).getBody();
+		VariableSet updated = sb.variablesUpdated(); //incl for iteration variable
+		double memBudget = OptimizerUtils.getLocalMemBudget();
+		double memHoisted = 0;
+
+		StatementBlock sb0 = new StatementBlock();
+		sb0.setDMLProg(sb.getDMLProg());
+		sb0.setAllPositions(sb.getFilename(), sb.getBeginLine(), sb.getBeginColumn(), sb.getBeginLine(), sb.getBeginColumn());
+		sb0.setLiveIn(new VariableSet());
+		sb0.setLiveOut(new VariableSet());
+		VariableSet hoisted = new VariableSet();
+		ArrayList<Hop> sb0hops = new ArrayList<Hop>();
+
+		for( StatementBlock csb : body )
+		{
+			//only generic last-level statement blocks (which are executed in every iteration)
+			if( csb instanceof WhileStatementBlock || csb instanceof ForStatementBlock
+				|| csb instanceof IfStatementBlock || csb instanceof FunctionStatementBlock
+				|| csb.get_hops() == null || csb.get_hops().isEmpty() )
+				continue;
+
+			//step 1: collect maximal loop-invariant sub DAGs
+			HashMap<Long, Boolean> memo = new HashMap<Long, Boolean>();
+			ArrayList<Hop> cand = new ArrayList<Hop>();
+			Hop.resetVisitStatus(csb.get_hops());
+			for( Hop root : csb.get_hops() )
+				rCollectLoopInvariantOperations(root, sb, updated, memo, cand);
+			Hop.resetVisitStatus(csb.get_hops());
+
+			//check aggregate memory of hoisted intermediates (alive over all iterations)
+			ArrayList<Hop> cand2 = new ArrayList<Hop>();
+			for( Hop c : cand ) {
+				double mem = OptimizerUtils.estimateSizeExactSparsity(c.getDim1(), c.getDim2(), c.getNnz());
+				if( memHoisted + mem < memBudget ) {
+					cand2.add(c);
+					memHoisted += mem;
+				}
+			}
+			cand = cand2;
+			if( cand.isEmpty() )
+				continue;
+
+			//step 2: replace candidates by transient reads of artificial variables
+			//(candidates might be shared by other candidates, which are kept as is)
+			HashSet<Hop> moved = new HashSet<Hop>();
+			for( Hop c : cand )
+				rCollectHops(c, moved);
+			ArrayList<Hop> twrites = new ArrayList<Hop>();
+			for( Hop c : cand )
+			{
+				ArrayList<Hop> parents = new ArrayList<Hop>();
+				for( Hop p : c.getParent() )
+					if( !moved.contains(p) )
+						parents.add(p);
+				if( parents.isEmpty() )
+					continue;
+
+				String varname = _varnamePrefix + _seq.getNextID();
+				long rlen = c.getDim1();
+				long clen = c.getDim2();
+				long nnz = c.getNnz();
+				long brlen = c.getRowsInBlock();
+				long bclen = c.getColsInBlock();
+
+				//create new transient read and replace candidate in all outside parents
+				DataOp tread = new DataOp(varname, c.getDataType(), c.getValueType(),
+	                    DataOpTypes.TRANSIENTREAD, null, rlen, clen, nnz, brlen, bclen);
+				tread.setVisited(VisitStatus.DONE);
+				HopRewriteUtils.copyLineNumbers(c, tread);
+				for( Hop parent : parents ) {
+					int pos = HopRewriteUtils.getChildReferencePos(parent, c);
+					HopRewriteUtils.removeChildReferenceByPos(parent, c, pos);
+					HopRewriteUtils.addChildReference(parent, tread, pos);
+				}
+
+				//create transient write of candidate sub DAG for hoisted statement block
+				DataOp twrite = new DataOp(varname, c.getDataType(), c.getValueType(),
+						                   c, DataOpTypes.TRANSIENTWRITE, null);
+				twrite.setVisited(VisitStatus.DONE);
+				twrite.setOutputParams(rlen, clen, nnz, brlen, bclen);
+				HopRewriteUtils.copyLineNumbers(c, twrite);
+				twrites.add(twrite);
+
+				DataIdentifier diVar = new DataIdentifier(varname);
+				diVar.setDimensions(rlen, clen);
+				diVar.setBlockDimensions(brlen, bclen);
+				diVar.setDataType(c.getDataType());
+				diVar.setValueType(c.getValueType());
+				hoisted.addVariable(varname, diVar);
+
+				//keep variable alive over all iterations (no rmvar in loop body)
+				csb.liveIn().addVariable(varname, new DataIdentifier(diVar));
+				csb.liveOut().addVariable(varname, new DataIdentifier(diVar));
+				csb.variablesRead().addVariable(varname, new DataIdentifier(diVar));
+			}
+
+			//step 3: live-in variables of hoisted sub DAGs
+			for( Hop h : moved )
+				if( h instanceof DataOp && ((DataOp)h).getDataOpType()==DataOpTypes.TRANSIENTREAD ) {
+					DataIdentifier di = sb.liveIn().getVariable(h.getName());
+					sb0.liveIn().addVariable(h.getName(), new DataIdentifier(di));
+					sb0.liveOut().addVariable(h.getName(), new DataIdentifier(di));
+				}
+
+			//step 4: detach hoisted sub DAGs from the loop body dag (after deep copy
+			//in order to keep shared leaf nodes such as transient reads in both dags)
+			sb0hops.addAll(Recompiler.deepCopyHopsDag(twrites));
+			for( Hop twrite : twrites )
+				rRemoveUnreachableHops(twrite);
+			csb.updateRecompilationFlag();
+
+			LOG.debug("Applied hoistLoopInvariantOperations (lines "+csb.getBeginLine()+"-"+csb.getEndLine()+"): "
+				+ twrites.size() + " loop-invariant operations.");
+		}
+
+		//create guarded hoisted statement block before loop and cleanup statement block after loop
+		if( !sb0hops.isEmpty() )
+		{
+			sb0.set_hops(sb0hops);
+			sb0.liveOut().addVariables(hoisted);
+			sb0.updateRecompilationFlag();
+
+			//placeholder block for zero-trip loops (keeps cleanup block valid)
+			StatementBlock sb1 = new StatementBlock();
+			sb1.setDMLProg(sb.getDMLProg());
+			sb1.setAllPositions(sb.getFilename(), sb.getBeginLine(), sb.getBeginColumn(), sb.getBeginLine(), sb.getBeginColumn());
+			sb1.set_hops(createPlaceholderWrites(hoisted));
+			sb1.setLiveIn(new VariableSet(sb0.liveIn()));
+			sb1.setLiveOut(new VariableSet(sb0.liveOut()));
+			sb1.updateRecompilationFlag();
+
+			IfStatementBlock isb = createGuardStatementBlock(sb, pred, sb0, sb1);
+
+			sb.liveIn().addVariables(hoisted);
+			sb.liveOut().addVariables(hoisted);
+			sb.variablesRead().addVariables(hoisted);
+
+			StatementBlock sb2 = new StatementBlock();
+			sb2.setDMLProg(sb.getDMLProg());
+			sb2.setAllPositions(sb.getFilename(), sb.getEndLine(), sb.getEndColumn(), sb.getEndLine(), sb.getEndColumn());
+			sb2.set_hops(new ArrayList<Hop>());
+			sb2.setLiveIn(new VariableSet(sb.liveOut()));
+			sb2.setLiveOut(new VariableSet(sb.liveOut()));
+			sb2.liveOut().removeVariables(hoisted);
+
+			ret.add(isb);
+			ret.add(sb);
+			ret.add(sb2);
+		}
+		else
+		{
+			ret.add(sb);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Creates a deep copy of the loop predicate that determines if the loop is
+	 * entered at least once, or null if the predicate is not deterministic.
+	 * For for-loops we also enter the guarded block for non-positive increments
+	 * in order to keep the runtime error of the loop itself.
+	 *
+	 * @param sb
+	 * @return
+	 * @throws HopsException
+	 */
+	private Hop createLoopPredicate( StatementBlock sb )
+		throws HopsException
+	{
+		Hop pred = null;
+		if( sb instanceof WhileStatementBlock )
+		{
+			Hop wpred = ((WhileStatementBlock)sb).getPredicateHops();
+			if( wpred == null || !isDeterministic(wpred, sb) )
+				return null;
+			pred = Recompiler.deepCopyHopsDag(wpred);
+		}
+		else //ForStatementBlock
+		{
+			ForStatementBlock fsb = (ForStatementBlock)sb;
+			Hop from = fsb.getFromHops();
+			Hop to = fsb.getToHops();
+			Hop incr = fsb.getIncrementHops();
+			if( from == null || to == null || !isDeterministic(from, sb) || !isDeterministic(to, sb)
+				|| (incr != null && !isDeterministic(incr, sb)) )
+				return null;
+
+			pred = createScalarBinary(Recompiler.deepCopyHopsDag(from),
+				Recompiler.deepCopyHopsDag(to), OpOp2.LESSEQUAL);
+			if( incr != null ) {
+				Hop invalid = createScalarBinary(Recompiler.deepCopyHopsDag(incr),
+					new LiteralOp(0), OpOp2.LESSEQUAL);
+				pred = createScalarBinary(pred, invalid, OpOp2.OR);
+			}
+		}
+
+		pred.resetVisitStatus();
+		return pred;
+	}
+
+	/**
+	 *
+	 * @param in1
+	 * @param in2
+	 * @param op
+	 * @return
+	 */
+	private Hop createScalarBinary( Hop in1, Hop in2, OpOp2 op )
+	{
+		Hop bop = new BinaryOp(_varnamePrefix+"pred", DataType.SCALAR, ValueType.BOOLEAN, op, in1, in2);
+		HopRewriteUtils.setOutputParametersForScalar(bop);
+		HopRewriteUtils.copyLineNumbers(in1, bop);
+		return bop;
+	}
+
+	/**
+	 * Creates transient writes of empty matrices for all hoisted variables, which
+	 * are used if the loop is not entered.
+	 *
+	 * @param hoisted
+	 * @return
+	 * @throws HopsException
+	 */
+	private ArrayList<Hop> createPlaceholderWrites( VariableSet hoisted )
+		throws HopsException
+	{
+		ArrayList<Hop> ret = new ArrayList<Hop>();
+		for( String varname : hoisted.getVariableNames() )
+		{
+			DataIdentifier di = hoisted.getVariable(varname);
+			Hop rows = new LiteralOp(di.getDim1());
+			Hop cols = new LiteralOp(di.getDim2());
+			Hop datagen = HopRewriteUtils.createDataGenOpByVal(rows, cols, 0);
+			datagen.setDim1(di.getDim1());
+			datagen.setDim2(di.getDim2());
+			HopRewriteUtils.setOutputBlocksizes(datagen, di.getRowsInBlock(), di.getColumnsInBlock());
+
+			DataOp twrite = new DataOp(varname, di.getDataType(), di.getValueType(),
+					                   datagen, DataOpTypes.TRANSIENTWRITE, null);
+			twrite.setOutputParams(di.getDim1(), di.getDim2(), 0, di.getRowsInBlock(), di.getColumnsInBlock());
+			ret.add(twrite);
+		}
+		return ret;
+	}
+
+	/**
+	 * Creates the guard if(pred) {sb0} else {sb1} of the hoisted statement block.
+	 *
+	 * @param loop
+	 * @param pred
+	 * @param sb0
+	 * @param sb1
+	 * @return
+	 * @throws HopsException
+	 */
+	private IfStatementBlock createGuardStatementBlock( StatementBlock loop, Hop pred, StatementBlock sb0, StatementBlock sb1 )
+		throws HopsException
+	{
+		IfStatement istmt = new IfStatement();
+		//note: the predicate expression is only used during validate, the guard is given by its hops
+		istmt.setConditionalPredicate( (loop instanceof WhileStatementBlock) ?
+			((WhileStatement)loop.getStatement(0)).getConditionalPredicate() :
+			new ConditionalPredicate(new BooleanIdentifier(true, loop.getFilename(),
+				loop.getBeginLine(), loop.getBeginColumn(), loop.getBeginLine(), loop.getBeginColumn())) );
+		istmt.addStatementBlockIfBody(sb0);
+		istmt.addStatementBlockElseBody(sb1);
+
+		IfStatementBlock isb = new IfStatementBlock();
+		isb.setDMLProg(loop.getDMLProg());
+		isb.setAllPositions(loop.getFilename(), loop.getBeginLine(), loop.getBeginColumn(), loop.getBeginLine(), loop.getBeginColumn());
+		isb.addStatement(istmt);
+		isb.setPredicateHops(pred);
+		isb.setLiveIn(new VariableSet(sb0.liveIn()));
+		isb.setLiveOut(new VariableSet(sb0.liveOut()));
+
+		//live-in variables of guard predicate
+		HashSet<Hop> phops = new HashSet<Hop>();
+		rCollectHops(pred, phops);
+		for( Hop h : phops )
+			if( h instanceof DataOp && ((DataOp)h).getDataOpType()==DataOpTypes.TRANSIENTREAD ) {
+				DataIdentifier di = loop.liveIn().getVariable(h.getName());
+				isb.liveIn().addVariable(h.getName(), new DataIdentifier(di));
+				isb.variablesRead().addVariable(h.getName(), new DataIdentifier(di));
+			}
+		isb.variablesRead().addVariables(sb0.liveIn());
+		isb.variablesUpdated().addVariables(sb0.liveOut());
+		isb.variablesUpdated().removeVariables(sb0.liveIn());
+		isb.updatePredicateRecompilationFlag();
+
+		return isb;
+	}
+
+	/**
+	 * Collects the maximal loop-invariant sub DAGs (top-down) that are worth
+	 * hoisting, i.e., matrix operations with known dimensions and a memory
+	 * estimate within the local memory budget (the aggregate is checked by the caller).
+	 *
+	 * @param hop
+	 * @param loop
+	 * @param updated
+	 * @param memo
+	 * @param cand
+	 */
+	private void rCollectLoopInvariantOperations( Hop hop, StatementBlock loop, VariableSet updated, HashMap<Long, Boolean> memo, ArrayList<Hop> cand )
+	{
+		if( hop.getVisited() == VisitStatus.DONE )
+			return;
+
+		if( isLoopInvariant(hop, loop, updated, memo) && isHoistingCandidate(hop) ) {
+			cand.add(hop);
+		}
+		else {
+			for( Hop c : hop.getInput() )
+				rCollectLoopInvariantOperations(c, loop, updated, memo, cand);
+		}
+
+		hop.setVisited(VisitStatus.DONE);
+	}
+
+	/**
+	 * Determines if the given hop produces the same output in all loop iterations,
+	 * i.e., if its entire sub DAG consists of deterministic operations without side
+	 * effects over literals and variables that are live-in but not updated in the loop.
+	 *
+	 * @param hop
+	 * @param loop
+	 * @param updated
+	 * @param memo
+	 * @return
+	 */
+	private boolean isLoopInvariant( Hop hop, StatementBlock loop, VariableSet updated, HashMap<Long, Boolean> memo )
+	{
+		if( memo.containsKey(hop.getHopID()) )
+			return memo.get(hop.getHopID());
+
+		boolean ret = false;
+		if( hop instanceof LiteralOp ) {
+			ret = true;
+		}
+		else if( hop instanceof DataOp ) {
+			//note: live-in check excludes artificial variables of split dags in the loop body
+			ret = ((DataOp)hop).getDataOpType() == DataOpTypes.TRANSIENTREAD
+				&& loop.liveIn().containsVariable(hop.getName())
+				&& !updated.containsVariable(hop.getName());
+		}
+		else if( isDeterministicOperation(hop) )
+		{
+			ret = true;
+			for( Hop c : hop.getInput() )
+				ret &= isLoopInvariant(c, loop, updated, memo);
+		}
+		//all other operations (e.g., datagen, function calls, persistent reads/writes) are never invariant
+
+		memo.put(hop.getHopID(), ret);
+		return ret;
+	}
+
+	/**
+	 * Determines if the given predicate hop produces the same output whenever it is
+	 * evaluated with the same live-in variables, i.e., if it can be evaluated once more.
+	 *
+	 * @param hop
+	 * @param loop
+	 * @return
+	 */
+	private boolean isDeterministic( Hop hop, StatementBlock loop )
+	{
+		boolean ret = false;
+		if( hop instanceof LiteralOp ) {
+			ret = true;
+		}
+		else if( hop instanceof DataOp ) {
+			ret = ((DataOp)hop).getDataOpType() == DataOpTypes.TRANSIENTREAD
+				&& loop.liveIn().containsVariable(hop.getName());
+		}
+		else if( isDeterministicOperation(hop) ) {
+			ret = true;
+			for( Hop c : hop.getInput() )
+				ret &= isDeterministic(c, loop);
+		}
+
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param hop
+	 * @return
+	 */
+	private boolean isDeterministicOperation( Hop hop )
+	{
+		return hop instanceof ReorgOp || hop instanceof AggUnaryOp || hop instanceof AggBinaryOp
+			|| hop instanceof BinaryOp || hop instanceof IndexingOp
+			|| (hop instanceof UnaryOp && ((UnaryOp)hop).getOp() != OpOp1.PRINT
+			    && ((UnaryOp)hop).getOp() != OpOp1.STOP);
+	}
+
+	/**
+	 *
+	 * @param hop
+	 * @return
+	 */
+	private boolean isHoistingCandidate( Hop hop )
+	{
+		return hop.getDataType() == DataType.MATRIX
+			&& !(hop instanceof DataOp) && !(hop instanceof LiteralOp)
+			&& hop.dimsKnown()
+			&& OptimizerUtils.estimateSizeExactSparsity(hop.getDim1(), hop.getDim2(), hop.getNnz())
+			   < OptimizerUtils.getLocalMemBudget();
+	}
+
+	/**
+	 *
+	 * @param hop
+	 * @param hops
+	 */
+	private void rCollectHops( Hop hop, HashSet<Hop> hops )
+	{
+		if( hops.contains(hop) )
+			return;
+
+		hops.add(hop);
+		for( Hop c : hop.getInput() )
+			rCollectHops(c, hops);
+	}
+
+	/**
+	 * Removes the given hop (without parents) from its inputs, and recursively
+	 * all inputs that become unreachable in the original dag.
+	 *
+	 * @param hop
+	 */
+	private void rRemoveUnreachableHops( Hop hop )
+	{
+		if( !hop.getParent().isEmpty() )
+			return;
+
+		ArrayList<Hop> inputs = new ArrayList<Hop>(hop.getInput());
+		HopRewriteUtils.removeAllChildReferences(hop);
+		for( Hop c : inputs )
+			rRemoveUnreachableHops(c);
+	}
+}
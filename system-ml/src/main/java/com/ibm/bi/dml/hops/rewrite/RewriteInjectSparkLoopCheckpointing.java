@@ -23,11 +23,17 @@ import com.ibm.bi.dml.hops.DataOp;
 import com.ibm.bi.dml.hops.Hop;
 import com.ibm.bi.dml.hops.HopsException;
 import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.VisitStatus;
+import com.ibm.bi.dml.hops.IndexingOp;
 import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.parser.DataIdentifier;
+import com.ibm.bi.dml.parser.ForStatement;
 import com.ibm.bi.dml.parser.ForStatementBlock;
+import com.ibm.bi.dml.parser.IfStatement;
+import com.ibm.bi.dml.parser.IfStatementBlock;
 import com.ibm.bi.dml.parser.StatementBlock;
 import com.ibm.bi.dml.parser.VariableSet;
+import com.ibm.bi.dml.parser.WhileStatement;
 import com.ibm.bi.dml.parser.WhileStatementBlock;
 import com.ibm.bi.dml.parser.Expression.DataType;
 import com.ibm.bi.dml.parser.Expression.ValueType;
@@ -97,6 +103,9 @@ public class RewriteInjectSparkLoopCheckpointing extends StatementBlockRewriteRu
 					DataOp tread = new DataOp(var, DataType.MATRIX, ValueType.DOUBLE, DataOpTypes.TRANSIENTREAD, 
 							            dat.getFilename(), dat.getDim1(), dat.getDim2(), dat.getNnz(), blocksize, blocksize);
 					tread.setRequiresCheckpoint( true );
+					//range partitioning (shuffle) only for variables indexed within the loop
+					tread.setRequiresBlockPartitioning( OptimizerUtils.ALLOW_BLOCK_PARTITIONED_RDDS 
+							&& rIsRightIndexed(sb, var) );
 					DataOp twrite = new DataOp(var, DataType.MATRIX, ValueType.DOUBLE, tread, DataOpTypes.TRANSIENTWRITE, null);
 					HopRewriteUtils.setOutputParameters(twrite, dat.getDim1(), dat.getDim2(), blocksize, blocksize, dat.getNnz());					
 					hops.add(twrite);
@@ -115,4 +124,86 @@ public class RewriteInjectSparkLoopCheckpointing extends StatementBlockRewriteRu
 		
 		return ret;
 	}
+	
+	/**
+	 * Indicates if the given variable is consumed by a right indexing operation
+	 * anywhere in the given statement block (incl predicates and nested bodies).
+	 * 
+	 * @param sb
+	 * @param varname
+	 * @return
+	 */
+	private boolean rIsRightIndexed( StatementBlock sb, String varname )
+	{
+		boolean ret = false;
+		
+		if( sb instanceof WhileStatementBlock ) {
+			ret = isRightIndexed(((WhileStatementBlock)sb).getPredicateHops(), varname);
+			for( StatementBlock csb : ((WhileStatement)sb.getStatement(0)).getBody() )
+				ret |= rIsRightIndexed(csb, varname);
+		}
+		else if( sb instanceof IfStatementBlock ) {
+			IfStatement istmt = (IfStatement)sb.getStatement(0);
+			ret = isRightIndexed(((IfStatementBlock)sb).getPredicateHops(), varname);
+			for( StatementBlock csb : istmt.getIfBody() )
+				ret |= rIsRightIndexed(csb, varname);
+			for( StatementBlock csb : istmt.getElseBody() )
+				ret |= rIsRightIndexed(csb, varname);
+		}
+		else if( sb instanceof ForStatementBlock ) { //incl parfor
+			ForStatementBlock fsb = (ForStatementBlock) sb;
+			ret = isRightIndexed(fsb.getFromHops(), varname)
+				| isRightIndexed(fsb.getToHops(), varname)
+				| isRightIndexed(fsb.getIncrementHops(), varname);
+			for( StatementBlock csb : ((ForStatement)sb.getStatement(0)).getBody() )
+				ret |= rIsRightIndexed(csb, varname);
+		}
+		else if( sb.get_hops() != null ) { //generic (last-level)
+			for( Hop root : sb.get_hops() )
+				ret |= isRightIndexed(root, varname);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param root
+	 * @param varname
+	 * @return
+	 */
+	private boolean isRightIndexed( Hop root, String varname )
+	{
+		if( root == null )
+			return false;
+		
+		root.resetVisitStatus();
+		boolean ret = rIsRightIndexed(root, varname);
+		root.resetVisitStatus();
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param hop
+	 * @param varname
+	 * @return
+	 */
+	private boolean rIsRightIndexed( Hop hop, String varname )
+	{
+		if( hop.getVisited() == VisitStatus.DONE )
+			return false;
+		
+		boolean ret = hop instanceof IndexingOp 
+			&& hop.getInput().get(0) instanceof DataOp
+			&& ((DataOp)hop.getInput().get(0)).getDataOpType()==DataOpTypes.TRANSIENTREAD
+			&& hop.getInput().get(0).getName().equals(varname);
+		
+		for( Hop c : hop.getInput() )
+			ret |= rIsRightIndexed(c, varname);
+		
+		hop.setVisited(VisitStatus.DONE);
+		return ret;
+	}
 }
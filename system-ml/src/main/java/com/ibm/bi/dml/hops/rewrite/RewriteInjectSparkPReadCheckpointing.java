@@ -23,6 +23,7 @@ import com.ibm.bi.dml.hops.DataOp;
 import com.ibm.bi.dml.hops.Hop;
 import com.ibm.bi.dml.hops.Hop.DataOpTypes;
 import com.ibm.bi.dml.hops.HopsException;
+import com.ibm.bi.dml.hops.IndexingOp;
 import com.ibm.bi.dml.hops.OptimizerUtils;
 
 /**
@@ -78,6 +79,12 @@ public class RewriteInjectSparkPReadCheckpointing extends HopRewriteRule
 			//make given hop for checkpointing (w/ default storage level)
 			//note: we do not recursively process childs here in order to prevent unnecessary checkpoints
 			hop.setRequiresCheckpoint(true);
+			
+			//range partitioning (shuffle) only if directly consumed by right indexing
+			boolean indexed = false;
+			for( Hop p : hop.getParent() )
+				indexed |= (p instanceof IndexingOp && p.getInput().get(0) == hop);
+			hop.setRequiresBlockPartitioning(OptimizerUtils.ALLOW_BLOCK_PARTITIONED_RDDS && indexed);
 		}
 		else
 		{
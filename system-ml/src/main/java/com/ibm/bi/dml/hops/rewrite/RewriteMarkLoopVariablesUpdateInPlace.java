@@ -0,0 +1,331 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.hops.rewrite;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import com.ibm.bi.dml.hops.AggBinaryOp;
+import com.ibm.bi.dml.hops.AggUnaryOp;
+import com.ibm.bi.dml.hops.BinaryOp;
+import com.ibm.bi.dml.hops.DataOp;
+import com.ibm.bi.dml.hops.FunctionOp;
+import com.ibm.bi.dml.hops.Hop;
+import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.OpOp2;
+import com.ibm.bi.dml.hops.Hop.VisitStatus;
+import com.ibm.bi.dml.hops.HopsException;
+import com.ibm.bi.dml.hops.IndexingOp;
+import com.ibm.bi.dml.hops.LeftIndexingOp;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.hops.UnaryOp;
+import com.ibm.bi.dml.parser.ForStatement;
+import com.ibm.bi.dml.parser.ForStatementBlock;
+import com.ibm.bi.dml.parser.FunctionStatementBlock;
+import com.ibm.bi.dml.parser.IfStatement;
+import com.ibm.bi.dml.parser.IfStatementBlock;
+import com.ibm.bi.dml.parser.ParForStatementBlock;
+import com.ibm.bi.dml.parser.StatementBlock;
+import com.ibm.bi.dml.parser.VariableSet;
+import com.ibm.bi.dml.parser.WhileStatement;
+import com.ibm.bi.dml.parser.WhileStatementBlock;
+import com.ibm.bi.dml.parser.Expression.DataType;
+
+/**
+ * Rule: Mark loop variables for update in-place. For for/while loops, we determine
+ * all matrix variables that are updated via left indexing or self-append (e.g., 
+ * R = rbind(R, X)) and are otherwise only read by operations that create new outputs 
+ * (no aliases via assignments or function calls, and no reads of the old value after 
+ * the update). These variables are then copied once on loop entry into a private, 
+ * pinned in-memory matrix which is updated in-place by all left indexing operations
+ * and appended in-place with amortized capacity growth (see ProgramBlock).
+ *
+ * Note: parfor loops are excluded here because parfor has its own in-place result
+ * handling, and loop bodies with nested parfor loops are excluded as well.
+ */
+public class RewriteMarkLoopVariablesUpdateInPlace extends StatementBlockRewriteRule
+{
+	@Override
+	public ArrayList<StatementBlock> rewriteStatementBlock(StatementBlock sb, ProgramRewriteStatus status)
+		throws HopsException
+	{
+		ArrayList<StatementBlock> ret = new ArrayList<StatementBlock>();
+
+		if( OptimizerUtils.ALLOW_LOOP_UPDATE_IN_PLACE
+			&& (sb instanceof WhileStatementBlock || sb instanceof ForStatementBlock)
+			&& !(sb instanceof ParForStatementBlock) )
+		{
+			ArrayList<StatementBlock> body = (sb instanceof WhileStatementBlock) ?
+				((WhileStatement)sb.getStatement(0)).getBody() :
+				((ForStatement)sb.getStatement(0)).getBody();
+
+			//determine candidates (updated matrices that are safe for update in-place)
+			ArrayList<String> candidates = new ArrayList<String>();
+			VariableSet updated = sb.variablesUpdated();
+			for( String var : updated.getVariableNames() )
+				if( updated.getVariable(var).getDataType() == DataType.MATRIX ) {
+					boolean[] hasLix = new boolean[]{false};
+					if( isApplicableForUpdateInPlace(sb, var, hasLix)
+						&& rIsApplicableForUpdateInPlace(body, var, hasLix) && hasLix[0] )
+						candidates.add(var);
+				}
+
+			//mark statement block (consumed at runtime)
+			sb.setUpdateInPlaceVars(candidates.isEmpty() ? null : candidates);
+			if( !candidates.isEmpty() )
+				LOG.debug("Applied rewriteMarkLoopVariablesUpdateInPlace (lines "
+					+sb.getBeginLine()+"-"+sb.getEndLine()+"): "+candidates);
+		}
+
+		ret.add(sb);
+		return ret;
+	}
+
+	/**
+	 * Checks the predicate hops of the given loop statement block.
+	 *
+	 * @param sb
+	 * @param varname
+	 * @param hasLix
+	 * @return
+	 * @throws HopsException
+	 */
+	private boolean isApplicableForUpdateInPlace( StatementBlock sb, String varname, boolean[] hasLix )
+		throws HopsException
+	{
+		if( sb instanceof WhileStatementBlock )
+			return isApplicableForUpdateInPlace(((WhileStatementBlock)sb).getPredicateHops(), varname, hasLix);
+		else if( sb instanceof IfStatementBlock )
+			return isApplicableForUpdateInPlace(((IfStatementBlock)sb).getPredicateHops(), varname, hasLix);
+		else if( sb instanceof ForStatementBlock ) {
+			ForStatementBlock fsb = (ForStatementBlock) sb;
+			return isApplicableForUpdateInPlace(fsb.getFromHops(), varname, hasLix)
+				&& isApplicableForUpdateInPlace(fsb.getToHops(), varname, hasLix)
+				&& isApplicableForUpdateInPlace(fsb.getIncrementHops(), varname, hasLix);
+		}
+
+		return true;
+	}
+
+	/**
+	 *
+	 * @param sbs
+	 * @param varname
+	 * @param hasLix
+	 * @return
+	 * @throws HopsException
+	 */
+	private boolean rIsApplicableForUpdateInPlace( ArrayList<StatementBlock> sbs, String varname, boolean[] hasLix )
+		throws HopsException
+	{
+		for( StatementBlock sb : sbs )
+		{
+			if( sb instanceof ParForStatementBlock || sb instanceof FunctionStatementBlock ) {
+				return false;
+			}
+			else if( sb instanceof WhileStatementBlock ) {
+				WhileStatement wstmt = (WhileStatement)sb.getStatement(0);
+				if( !isApplicableForUpdateInPlace(sb, varname, hasLix)
+					|| !rIsApplicableForUpdateInPlace(wstmt.getBody(), varname, hasLix) )
+					return false;
+			}
+			else if( sb instanceof IfStatementBlock ) {
+				IfStatement istmt = (IfStatement)sb.getStatement(0);
+				if( !isApplicableForUpdateInPlace(sb, varname, hasLix)
+					|| !rIsApplicableForUpdateInPlace(istmt.getIfBody(), varname, hasLix)
+					|| !rIsApplicableForUpdateInPlace(istmt.getElseBody(), varname, hasLix) )
+					return false;
+			}
+			else if( sb instanceof ForStatementBlock ) {
+				ForStatement fstmt = (ForStatement)sb.getStatement(0);
+				if( !isApplicableForUpdateInPlace(sb, varname, hasLix)
+					|| !rIsApplicableForUpdateInPlace(fstmt.getBody(), varname, hasLix) )
+					return false;
+			}
+			else if( sb.get_hops() != null ) { //generic (last-level)
+				for( Hop root : sb.get_hops() )
+					if( !isApplicableForUpdateInPlace(root, varname, hasLix) )
+						return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 *
+	 * @param root
+	 * @param varname
+	 * @param hasLix
+	 * @return
+	 */
+	private boolean isApplicableForUpdateInPlace( Hop root, String varname, boolean[] hasLix )
+	{
+		if( root == null )
+			return true;
+
+		//collect all transient reads of the given variable
+		ArrayList<Hop> treads = new ArrayList<Hop>();
+		root.resetVisitStatus();
+		rCollectTransientReads(root, varname, treads);
+
+		//check all references to the matrix of the transient reads
+		for( Hop tread : treads )
+			if( !rIsSafeReference(tread, varname, hasLix) )
+				return false;
+
+		return true;
+	}
+
+	/**
+	 *
+	 * @param hop
+	 * @param varname
+	 * @param treads
+	 */
+	private void rCollectTransientReads( Hop hop, String varname, ArrayList<Hop> treads )
+	{
+		if( hop.getVisited() == VisitStatus.DONE )
+			return;
+
+		if( hop instanceof DataOp && ((DataOp)hop).getDataOpType()==DataOpTypes.TRANSIENTREAD
+			&& hop.getName().equals(varname) )
+		{
+			treads.add(hop);
+		}
+
+		for( Hop c : hop.getInput() )
+			rCollectTransientReads(c, varname, treads);
+
+		hop.setVisited(VisitStatus.DONE);
+	}
+
+	/**
+	 * Checks all consumers of a hop that refers to the (potentially in-place updated)
+	 * matrix of the given variable. Note that we reuse the hasLix flag for indicating
+	 * in-place updates by both left indexing and append.
+	 *
+	 * @param hop
+	 * @param varname
+	 * @param hasLix
+	 * @return
+	 */
+	private boolean rIsSafeReference( Hop hop, String varname, boolean[] hasLix )
+	{
+		//determine the in-place update of this matrix, if any (at most one,
+		//because otherwise multiple updates would modify the same matrix)
+		Hop lix = null;
+		for( Hop p : hop.getParent() )
+			if( isInPlaceUpdate(p, hop) && p != lix ) {
+				if( lix != null )
+					return false;
+				lix = p;
+			}
+
+		for( Hop p : hop.getParent() )
+		{
+			if( p == lix )
+				continue;
+
+			//write back to the same variable (no alias)
+			if( p instanceof DataOp && ((DataOp)p).getDataOpType()==DataOpTypes.TRANSIENTWRITE
+				&& p.getName().equals(varname) )
+				continue;
+
+			//read by an operation that creates a new output
+			if( !isSafeConsumer(p) )
+				return false;
+
+			//reads of the old value need to happen before the in-place update
+			if( lix != null && !rIsInputOf(p, lix, hop, new HashSet<Long>()) )
+				return false;
+		}
+
+		//recursively check references to the updated matrix
+		if( lix != null ) {
+			hasLix[0] = true;
+			return rIsSafeReference(lix, varname, hasLix);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Indicates if the given operation updates its first input, i.e., left indexing 
+	 * into the given matrix or a cbind/rbind append to the given matrix.
+	 * 
+	 * @param p
+	 * @param in
+	 * @return
+	 */
+	private boolean isInPlaceUpdate( Hop p, Hop in )
+	{
+		return p.getInput().get(0) == in
+			&& (p instanceof LeftIndexingOp 
+			|| (p instanceof BinaryOp && p.getDataType() == DataType.MATRIX
+				&& (((BinaryOp)p).getOp() == OpOp2.CBIND || ((BinaryOp)p).getOp() == OpOp2.RBIND)));
+	}
+	
+	/**
+	 * Indicates if the given consumer creates a new output and hence no alias
+	 * of its input (including robustness against rewrites that remove operations).
+	 *
+	 * @param p
+	 * @return
+	 */
+	private boolean isSafeConsumer( Hop p )
+	{
+		boolean ret = (p instanceof IndexingOp || p instanceof AggUnaryOp
+			|| p instanceof AggBinaryOp || p instanceof BinaryOp
+			|| p instanceof UnaryOp || p instanceof LeftIndexingOp);
+
+		//no direct write or function call of matrix outputs because
+		//dynamic rewrites might remove the operation (e.g., X[,] or X*1)
+		if( ret && p.getDataType() == DataType.MATRIX )
+			for( Hop pp : p.getParent() )
+				if( pp instanceof DataOp || pp instanceof FunctionOp )
+					return false;
+
+		return ret;
+	}
+
+	/**
+	 * Indicates if hop p is a (transitive) input of the given left indexing
+	 * operation, excluding the path over the in-place updated target.
+	 *
+	 * @param p
+	 * @param current
+	 * @param target
+	 * @param memo
+	 * @return
+	 */
+	private boolean rIsInputOf( Hop p, Hop current, Hop target, HashSet<Long> memo )
+	{
+		if( current == p )
+			return true;
+		if( current == target || memo.contains(current.getHopID()) )
+			return false;
+
+		for( Hop c : current.getInput() )
+			if( rIsInputOf(p, c, target, memo) )
+				return true;
+
+		memo.add(current.getHopID());
+		return false;
+	}
+}
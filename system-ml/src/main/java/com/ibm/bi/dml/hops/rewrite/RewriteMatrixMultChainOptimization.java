@@ -28,12 +28,18 @@ import org.apache.log4j.Logger;
 import com.ibm.bi.dml.hops.AggBinaryOp;
 import com.ibm.bi.dml.hops.Hop;
 import com.ibm.bi.dml.hops.HopsException;
+import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.utils.Explain;
 
 /**
  * Rule: Determine the optimal order of execution for a chain of
  * matrix multiplications Solution: Classic Dynamic Programming
- * Approach Currently, the approach based only on matrix dimensions
+ * Approach with a sparsity-aware cost model, i.e., the costs of an 
+ * individual matrix multiplication are the floating point operations
+ * scaled by the (estimated) sparsity of both inputs, where the sparsity 
+ * of intermediates is estimated from the sparsity of the sub chains.
+ * Furthermore, we discount matrix multiplications that are executed as
+ * tsmm (t(X)%*%X) or mmchain (t(X)%*%(X%*%v)) operators.
  * Goal: To reduce the number of computations in the run-time
  * (map-reduce) layer
  */
@@ -43,6 +49,10 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 	private static final Log LOG = LogFactory.getLog(RewriteMatrixMultChainOptimization.class.getName());
 	private static final boolean LDEBUG = false;
 	
+	//cost factors of matrix multiplications that are compiled to special operators
+	private static final double TSMM_COST_FACTOR = 0.5;    //symmetric output, half the flops
+	private static final double MMCHAIN_COST_FACTOR = 0.5; //single pass over X for both mv
+	
 	static
 	{
 		// for internal debugging only
@@ -196,9 +206,10 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 		} 
 		else 
 		{
-			// Step 2: construct dims array
+			// Step 2: construct dims and sparsity arrays
 			double[] dimsArray = new double[mmChain.size() + 1];
 			boolean dimsKnown = getDimsArray( hop, mmChain, dimsArray );
+			double[] spArray = getSparsityArray( mmChain );
 			
 			if( dimsKnown ) {
 				// Step 3: clear the links among Hops within the identified chain
@@ -208,7 +219,7 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 				
 				// Invoke Dynamic Programming
 				int size = mmChain.size();
-				int[][] split = mmChainDP(dimsArray, mmChain.size());
+				int[][] split = mmChainDP(dimsArray, spArray, mmChain, mmChain.size());
 				
 				 // Step 5: Relink the hops using the optimal ordering (split[][]) found from DP.
 				LOG.trace("Optimal MM Chain: ");
@@ -219,20 +230,22 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 	
 	/**
 	 * mmChainDP(): Core method to perform dynamic programming on a given array
-	 * of matrix dimensions.
+	 * of matrix dimensions and sparsity.
 	 * 
 	 * Thomas H. Cormen, Charles E. Leiserson, Ronald L. Rivest, Clifford Stein
 	 * Introduction to Algorithms, Third Edition, MIT Press, page 395.
 	 */
-	private int[][] mmChainDP(double[] dimArray, int size) 
+	private int[][] mmChainDP(double[] dimArray, double[] spArray, ArrayList<Hop> chain, int size) 
 	{
 		double[][] dpMatrix = new double[size][size]; //min cost table
+		double[][] spMatrix = new double[size][size]; //estimated sparsity table
 		int[][] split = new int[size][size]; //min cost index table
 
 		//init minimum costs for chains of length 1
 		for (int i = 0; i < size; i++) {
 			Arrays.fill(dpMatrix[i], 0);
 			Arrays.fill(split[i], -1);
+			spMatrix[i][i] = spArray[i];
 		}
 
 		//compute cost-optimal chains for increasing chain sizes 
@@ -243,9 +256,18 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 				dpMatrix[i][j] = Double.MAX_VALUE;
 				for (int k = i; k <= j - 1; k++) 
 				{
-					//recursive cost computation
-					double cost = dpMatrix[i][k] + dpMatrix[k + 1][j] 
-							  + (dimArray[i] * dimArray[k + 1] * dimArray[j + 1]);
+					//recursive cost computation (flops scaled by input sparsity)
+					double flops = dimArray[i] * dimArray[k + 1] * dimArray[j + 1]
+							     * spMatrix[i][k] * spMatrix[k + 1][j];
+					double cost = -1;
+					if( isMapMultChain(chain, dimArray, i, k, j) ) {
+						//mmchain computes the inner X%*%v within the same pass over X
+						cost = dpMatrix[i][k] + (dpMatrix[k + 1][j] + flops) * MMCHAIN_COST_FACTOR;
+					}
+					else {
+						cost = dpMatrix[i][k] + dpMatrix[k + 1][j] 
+							  + flops * (isTransposeSelfMatrixMult(chain, i, k, j) ? TSMM_COST_FACTOR : 1.0);
+					}
 					
 					//prune suboptimal
 					if (cost < dpMatrix[i][j]) {
@@ -254,8 +276,14 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 					}
 				}
 
+				//estimate sparsity of intermediate for optimal split (average case)
+				int k = split[i][j];
+				spMatrix[i][j] = OptimizerUtils.getMatMultSparsity(spMatrix[i][k], spMatrix[k + 1][j], 
+						(long)dimArray[i], (long)dimArray[k + 1], (long)dimArray[j + 1], false);
+				
 				if( LOG.isTraceEnabled() ){
-					LOG.trace("mmchainopt [i="+(i+1)+",j="+(j+1)+"]: costs = "+dpMatrix[i][j]+", split = "+(split[i][j]+1));
+					LOG.trace("mmchainopt [i="+(i+1)+",j="+(j+1)+"]: costs = "+dpMatrix[i][j]+", split = "+(split[i][j]+1)
+							+ ", sparsity = "+spMatrix[i][j]);
 				}
 			}
 		}
@@ -263,6 +291,44 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 		return split;
 	}
 
+	/**
+	 * Indicates if the multiplication of the sub chains (i,k) and (k+1,j) is a single 
+	 * matrix multiplication t(X)%*%X or X%*%t(X), which is compiled to tsmm and hence
+	 * exploits the symmetry of the output.
+	 * 
+	 * @param chain
+	 * @param i
+	 * @param k
+	 * @param j
+	 * @return
+	 */
+	private boolean isTransposeSelfMatrixMult( ArrayList<Hop> chain, int i, int k, int j )
+	{
+		return OptimizerUtils.ALLOW_SPARSITY_AWARE_MMCHAIN_OPT
+			&& i == k && k + 1 == j 
+			&& HopRewriteUtils.isTransposeOfItself(chain.get(i), chain.get(j));
+	}
+	
+	/**
+	 * Indicates if the multiplication of the sub chains (i,k) and (k+1,j) is of the form 
+	 * t(X)%*%(X%*%v) with column vector v, which is compiled to mmchain and hence computes 
+	 * both matrix-vector multiplications in a single pass over X.
+	 * 
+	 * @param chain
+	 * @param dimArray
+	 * @param i
+	 * @param k
+	 * @param j
+	 * @return
+	 */
+	private boolean isMapMultChain( ArrayList<Hop> chain, double[] dimArray, int i, int k, int j )
+	{
+		return OptimizerUtils.ALLOW_SPARSITY_AWARE_MMCHAIN_OPT
+			&& i == k && k + 2 == j && dimArray[j + 1] == 1
+			&& HopRewriteUtils.isTransposeOperation(chain.get(i))
+			&& chain.get(i).getInput().get(0) == chain.get(i + 1);
+	}
+	
 	/**
 	 * mmChainRelinkHops(): This method gets invoked after finding the optimal
 	 * order (split[][]) from dynamic programming. It relinks the Hops that are
@@ -393,6 +459,28 @@ public class RewriteMatrixMultChainOptimization extends HopRewriteRule
 	}
 
 	
+	/**
+	 * Obtains the sparsity of all inputs of the chain. Unknown number of non-zeros
+	 * are treated as dense, which leads to the same plan as the dense cost model.
+	 * 
+	 * @param chain
+	 * @return
+	 */
+	private double[] getSparsityArray( ArrayList<Hop> chain )
+	{
+		double[] spArray = new double[chain.size()];
+		Arrays.fill(spArray, 1.0);
+		
+		if( OptimizerUtils.ALLOW_SPARSITY_AWARE_MMCHAIN_OPT ) {
+			for( int i=0; i<chain.size(); i++ ) {
+				Hop h = chain.get(i);
+				spArray[i] = OptimizerUtils.getSparsity(h.getDim1(), h.getDim2(), h.getNnz());
+			}
+		}
+		
+		return spArray;
+	}
+	
 	/**
 	 * 
 	 * @param p
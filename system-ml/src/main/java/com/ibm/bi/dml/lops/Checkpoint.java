@@ -45,6 +45,7 @@ public class Checkpoint extends Lop
 	public static final String STORAGE_LEVEL = "storage.level"; 
 
 	private StorageLevel _storageLevel;
+	private boolean _partition = false;
 	
 
 	/**
@@ -55,17 +56,32 @@ public class Checkpoint extends Lop
 	 * @param dt
 	 * @param vt
 	 * @param level
-	 * @param et
 	 * @throws LopsException
 	 */
 	public Checkpoint(Lop input, DataType dt, ValueType vt, String level) 
 		throws LopsException
+	{
+		this(input, dt, vt, level, false);
+	}
+	
+	/**
+	 * 
+	 * @param input
+	 * @param dt
+	 * @param vt
+	 * @param level
+	 * @param partition range-partition by block index (for consumers that index into the output)
+	 * @throws LopsException
+	 */
+	public Checkpoint(Lop input, DataType dt, ValueType vt, String level, boolean partition) 
+		throws LopsException
 	{
 		super(Lop.Type.Checkpoint, dt, vt);		
 		this.addInput(input);
 		input.addOutput(this);
 		
 		_storageLevel = StorageLevel.fromString(level);
+		_partition = partition;
 		
 		boolean breaksAlignment = false;
 		boolean aligner = false;
@@ -85,9 +101,14 @@ public class Checkpoint extends Lop
 		_storageLevel = level;
 	}
 	
+	public boolean isPartitioned()
+	{
+		return _partition;
+	}
+	
 	@Override
 	public String toString() {
-		return "Checkpoint - storage.level = " + _storageLevel.toString();
+		return "Checkpoint - storage.level = " + _storageLevel.toString() + ", partition = " + _partition;
 	}
 	
 	@Override
@@ -109,6 +130,8 @@ public class Checkpoint extends Lop
 		sb.append( prepOutputOperand(output));
 		sb.append( OPERAND_DELIMITOR );
 		sb.append( getStorageLevelString(_storageLevel) );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( _partition );
 		
 		return sb.toString();
 
@@ -39,9 +39,17 @@ public class FunctionCallCP extends Lop
 	private String _fname;
 	private String[] _outputs;
 	private ArrayList<Lop> _outputLops = null;
+	
+	//cp-specific parameters (multi-return builtins)
+	private int _numThreads = 1;
 
 	public FunctionCallCP(ArrayList<Lop> inputs, String fnamespace, String fname, String[] outputs, ArrayList<Hop> outputHops) throws HopsException, LopsException {
+		this(inputs, fnamespace, fname, outputs, outputHops, 1);
+	}
+	
+	public FunctionCallCP(ArrayList<Lop> inputs, String fnamespace, String fname, String[] outputs, ArrayList<Hop> outputHops, int k) throws HopsException, LopsException {
 		this(inputs, fnamespace, fname, outputs);
+		_numThreads = k;
 		if(outputHops != null) {
 			_outputLops = new ArrayList<Lop>();
 			for(Hop h : outputHops) {
@@ -100,6 +108,12 @@ public class FunctionCallCP extends Lop
 			sb.append(_outputs[i]);
 		}
 		
+		//append degree of parallelism for native factorizations
+		if( _fname.equalsIgnoreCase("qr") || _fname.equalsIgnoreCase("lu") ) {
+			sb.append(Lop.OPERAND_DELIMITOR);
+			sb.append(_numThreads);
+		}
+		
 		return sb.toString();
 	}
 	
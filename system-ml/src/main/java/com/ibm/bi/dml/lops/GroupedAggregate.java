@@ -37,6 +37,10 @@ public class GroupedAggregate extends Lop
 	private HashMap<String, Lop> _inputParams;
 	private static final String opcode = "groupedagg";
 	public static final String COMBINEDINPUT = "combinedinput";
+	public static final String NUMTHREADS = "k";
+	
+	//cp-specific parameters
+	private int _numThreads = 1;
 	
 	/**
 	 * Constructor to perform grouped aggregate.
@@ -115,6 +119,13 @@ public class GroupedAggregate extends Lop
 		super(Lop.Type.GroupedAgg, dt, vt);
 		init(inputParameterLops, dt, vt, et);
 	}
+	
+	public GroupedAggregate(
+			HashMap<String, Lop> inputParameterLops, 
+			DataType dt, ValueType vt, ExecType et, int k) {
+		this(inputParameterLops, dt, vt, et);
+		_numThreads = k;
+	}
 
 	@Override
 	public String toString() {
@@ -177,6 +188,14 @@ public class GroupedAggregate extends Lop
 			}
 		}
 		
+		//in case of cp grouped aggregates, we also compile the number of threads
+		if( getExecType() == ExecType.CP ) {
+			sb.append( OPERAND_DELIMITOR );
+			sb.append( NUMTHREADS );
+			sb.append( Lop.NAME_VALUE_SEPARATOR );
+			sb.append( _numThreads );
+		}
+		
 		sb.append( OPERAND_DELIMITOR );
 		sb.append( this.prepOutputOperand(output));
 		
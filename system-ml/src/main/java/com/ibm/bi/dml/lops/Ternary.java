@@ -35,6 +35,9 @@ public class Ternary extends Lop
 	
 	private boolean _ignoreZeros = false;
 	
+	//cp-specific parameters
+	private int _numThreads = 1;
+	
 	public enum OperationTypes { 
 		CTABLE_TRANSFORM, 
 		CTABLE_TRANSFORM_SCALAR_WEIGHT, 
@@ -56,6 +59,11 @@ public class Ternary extends Lop
 		_ignoreZeros = ignoreZeros;
 	}
 	
+	public Ternary(Lop[] inputLops, OperationTypes op, DataType dt, ValueType vt, boolean ignoreZeros, ExecType et, int numThreads) {
+		this(inputLops, op, dt, vt, ignoreZeros, et);
+		_numThreads = numThreads;
+	}
+	
 	private void init(Lop[] inputLops, OperationTypes op, ExecType et) {
 		operation = op;
 		
@@ -188,6 +196,12 @@ public class Ternary extends Lop
 		sb.append( OPERAND_DELIMITOR );
 		sb.append( _ignoreZeros );
 		
+		//in case of cp ctable, we also compile the number of threads
+		if( getExecType() == ExecType.CP ) {
+			sb.append( OPERAND_DELIMITOR );
+			sb.append( _numThreads );
+		}
+		
 		return sb.toString();
 	}
 
@@ -40,6 +40,9 @@ public class UAggOuterChain extends Lop
 	private PartialAggregate.DirectionTypes _uaggDir = null;
 	//inner operation
 	private Binary.OperationTypes _binOp             = null;	
+
+	//number of threads (only for cp)
+	private int _numThreads = 1;
 		
 	
 	/**
@@ -89,6 +92,28 @@ public class UAggOuterChain extends Lop
 	}
 	
 
+	/**
+	 * Constructor to setup a multi-threaded unaryagg outer chain (cp only)
+	 * 
+	 * @param input1
+	 * @param input2
+	 * @param uaop
+	 * @param uadir
+	 * @param bop
+	 * @param dt
+	 * @param vt
+	 * @param et
+	 * @param k
+	 * @throws LopsException
+	 */
+	public UAggOuterChain(Lop input1, Lop input2, Aggregate.OperationTypes uaop, PartialAggregate.DirectionTypes uadir, Binary.OperationTypes bop, DataType dt, ValueType vt, ExecType et, int k) 
+		throws LopsException 
+	{
+		this(input1, input2, uaop, uadir, bop, dt, vt, et);
+		_numThreads = k;
+	}
+	
+	
 	public String toString() {
 		return "Operation = UaggOuterChain";
 	}
@@ -151,6 +176,12 @@ public class UAggOuterChain extends Lop
 		sb.append( getInputs().get(0).prepInputOperand(input2));
 		sb.append(Lop.OPERAND_DELIMITOR);
 		sb.append( this.prepOutputOperand(output));
+		
+		//in case of cp, we also compile the number of threads into the instruction
+		if( getExecType() == ExecType.CP ) {
+			sb.append(Lop.OPERAND_DELIMITOR);
+			sb.append(_numThreads);
+		}
 				
 		return sb.toString();
 	}
@@ -44,6 +44,9 @@ public class Unary extends Lop
 	OperationTypes operation;
 
 	Lop valInput;
+	
+	//cp-specific parameters
+	private int _numThreads = 1;
 
 	/**
 	 * Constructor to perform a unary operation with 2 inputs
@@ -113,6 +116,20 @@ public class Unary extends Lop
 		init(input1, op, dt, vt, ExecType.MR);
 	}
 	
+	/**
+	 * Constructor to perform a multi-threaded unary operation with 1 input
+	 * (currently only used for cumulative aggregates, cell-wise builtins and inverse in CP).
+	 * 
+	 * @param input1
+	 * @param op
+	 * @param numThreads
+	 */
+	public Unary(Lop input1, OperationTypes op, DataType dt, ValueType vt, ExecType et, int numThreads) {
+		super(Lop.Type.UNARY, dt, vt);
+		init(input1, op, dt, vt, et);
+		_numThreads = numThreads;
+	}
+	
 	private ExecType forceExecType(OperationTypes op, ExecType et) {
 		if ( op == OperationTypes.INVERSE )
 			return ExecType.CP;
@@ -293,6 +310,28 @@ public class Unary extends Lop
 					"Instruction not defined for Unary operation: " + operation);
 		}
 	}
+	/**
+	 * 
+	 * @return
+	 */
+	private boolean isCumulativeOperation() {
+		return (operation == OperationTypes.CUMSUM || operation == OperationTypes.CUMPROD
+			|| operation == OperationTypes.CUMMIN || operation == OperationTypes.CUMMAX);
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	private boolean isCellwiseBuiltinOperation() {
+		return (operation == OperationTypes.ABS || operation == OperationTypes.SIN || operation == OperationTypes.COS 
+			|| operation == OperationTypes.TAN || operation == OperationTypes.ASIN || operation == OperationTypes.ACOS 
+			|| operation == OperationTypes.ATAN || operation == OperationTypes.SQRT || operation == OperationTypes.LOG 
+			|| operation == OperationTypes.LOG_NZ || operation == OperationTypes.EXP || operation == OperationTypes.ROUND 
+			|| operation == OperationTypes.CEIL || operation == OperationTypes.FLOOR || operation == OperationTypes.SPROP 
+			|| operation == OperationTypes.SIGMOID || operation == OperationTypes.SELP);
+	}
+	
 	public String getInstructions(String input1, String output) 
 		throws LopsException 
 	{
@@ -308,6 +347,13 @@ public class Unary extends Lop
 			sb.append( OPERAND_DELIMITOR );
 			sb.append( this.prepOutputOperand(output));
 			
+			//in case of cp cumulative aggregates, cell-wise builtins and inverse, we also compile the number of threads
+			if( getExecType() == ExecType.CP && (isCumulativeOperation() || isCellwiseBuiltinOperation() 
+				|| operation == OperationTypes.INVERSE) ) {
+				sb.append( OPERAND_DELIMITOR );
+				sb.append( _numThreads );
+			}
+			
 			return sb.toString();
 
 		} else {
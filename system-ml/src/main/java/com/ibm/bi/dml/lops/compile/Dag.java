@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -70,7 +71,7 @@ import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
 import com.ibm.bi.dml.runtime.instructions.CPInstructionParser;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.Instruction.INSTRUCTION_TYPE;
-import com.ibm.bi.dml.runtime.instructions.InstructionParser;
+import com.ibm.bi.dml.runtime.instructions.InstructionParseCache;
 import com.ibm.bi.dml.runtime.instructions.SPInstructionParser;
 import com.ibm.bi.dml.runtime.instructions.cp.CPInstruction;
 import com.ibm.bi.dml.runtime.instructions.cp.VariableCPInstruction;
@@ -99,6 +100,10 @@ public class Dag<N extends Lop>
 	private static final int MR_CHILD_FOUND_BREAKS_ALIGNMENT = 4;
 	private static final int MR_CHILD_FOUND_DOES_NOT_BREAK_ALIGNMENT = 5;
 
+	//delimiters of variable names in instruction strings (operands, types, parameters, placeholders)
+	private static final Pattern VARIABLE_REFERENCE_DELIM = Pattern.compile("[" + Lop.OPERAND_DELIMITOR 
+			+ Lop.VALUETYPE_PREFIX + Lop.NAME_VALUE_SEPARATOR + Lop.VARIABLE_NAME_PLACEHOLDER + ",]");
+
 	private static IDSequence job_id = null;
 	private static IDSequence var_index = null;
 	
@@ -427,6 +432,24 @@ public class Dag<N extends Lop>
 
 	}
 	  
+	/**
+	 * Generates the rmvar instructions for a statement block without lops, i.e.,
+	 * for variables that are live-in but not live-out (e.g., intermediates that
+	 * were hoisted out of a loop and are dead after the loop).
+	 * 
+	 * @param sb
+	 * @return
+	 * @throws DMLUnsupportedOperationException
+	 * @throws DMLRuntimeException
+	 */
+	public ArrayList<Instruction> getRemoveInstructions(StatementBlock sb) 
+		throws DMLUnsupportedOperationException, DMLRuntimeException 
+	{
+		ArrayList<Instruction> ret = new ArrayList<Instruction>();
+		generateRemoveInstructions(sb, ret);
+		return ret;
+	}
+	
 	private void generateRemoveInstructions(StatementBlock sb,
 			ArrayList<Instruction> deleteInst)
 			throws DMLUnsupportedOperationException, DMLRuntimeException {
@@ -1408,6 +1431,10 @@ public class Dag<N extends Lop>
 		inst.addAll(deleteInst);
 		inst.addAll(endOfBlockInst);
 
+		// move rmvar instructions from the end of the block to the last use of their variables
+		if( OptimizerUtils.ALLOW_EARLY_VARIABLE_CLEANUP && !DMLScript.ENABLE_DEBUG_MODE )
+			inst = moveRemoveInstructionsToLastUse(inst, inst.size()-deleteInst.size()-endOfBlockInst.size());
+		
 		return inst;
 
 	}
@@ -1427,6 +1454,99 @@ public class Dag<N extends Lop>
 	  return true;
 	}
 
+	/**
+	 * Moves the rmvar instructions at the end of the given instruction list (starting at 
+	 * position off) directly after the last instruction that references the removed variable. 
+	 * This releases intermediates (and their buffer pool entries) as early as possible instead
+	 * of at the end of the DAG. Since instructions other than control program instructions 
+	 * (e.g., MR jobs) might reference variables indirectly, they act as barriers. The variable
+	 * references of each instruction are determined once per DAG (single pass over all
+	 * instructions), and aliases (e.g., cpvar) are handled by the reference-counted rmvar.
+	 * 
+	 * @param inst
+	 * @param off
+	 * @return
+	 */
+	private static ArrayList<Instruction> moveRemoveInstructionsToLastUse(ArrayList<Instruction> inst, int off)
+	{
+		ArrayList<Instruction> ret = new ArrayList<Instruction>(inst.subList(0, off));
+		ArrayList<VariableCPInstruction> rmInst = new ArrayList<VariableCPInstruction>();
+		
+		//separate rmvar instructions from other end of block instructions (e.g., writes)
+		for( int i=off; i<inst.size(); i++ ) {
+			Instruction tmp = inst.get(i);
+			if( isRemoveVariableInstruction(tmp) )
+				rmInst.add((VariableCPInstruction) tmp);
+			else
+				ret.add(tmp);
+		}
+		
+		//determine last use of all referenced variables and last barrier
+		HashMap<String,Integer> lastUse = new HashMap<String,Integer>();
+		int lastBarrier = -1;
+		for( int i=0; i<ret.size(); i++ ) {
+			HashSet<String> vars = getVariableReferences(ret.get(i));
+			if( vars == null )
+				lastBarrier = i;
+			else
+				for( String var : vars )
+					lastUse.put(var, i);
+		}
+		
+		//group rmvar instructions by position of last use (or barrier)
+		HashMap<Integer,ArrayList<Instruction>> rmPos = new HashMap<Integer,ArrayList<Instruction>>();
+		for( VariableCPInstruction rm : rmInst ) {
+			Integer use = lastUse.get(rm.getInput1().getName());
+			int pos = Math.max((use != null) ? use : -1, lastBarrier);
+			if( !rmPos.containsKey(pos) )
+				rmPos.put(pos, new ArrayList<Instruction>());
+			rmPos.get(pos).add(rm);
+		}
+		
+		//place rmvar instructions directly after their positions
+		ArrayList<Instruction> ret2 = new ArrayList<Instruction>(inst.size());
+		if( rmPos.containsKey(-1) )
+			ret2.addAll(rmPos.get(-1));
+		for( int i=0; i<ret.size(); i++ ) {
+			ret2.add(ret.get(i));
+			if( rmPos.containsKey(i) )
+				ret2.addAll(rmPos.get(i));
+		}
+		
+		return ret2;
+	}
+	
+	/**
+	 * 
+	 * @param inst
+	 * @return
+	 */
+	private static boolean isRemoveVariableInstruction(Instruction inst)
+	{
+		return inst.getType() == INSTRUCTION_TYPE.CONTROL_PROGRAM
+			&& ((CPInstruction)inst).getCPInstructionType() == CPINSTRUCTION_TYPE.Variable 
+			&& inst.getOpcode().equalsIgnoreCase("rmvar");
+	}
+	
+	/**
+	 * Obtains all potential variable names (operands and parameter values) referenced 
+	 * by the given instruction, or null if the instruction is a barrier.
+	 * 
+	 * @param inst
+	 * @return
+	 */
+	private static HashSet<String> getVariableReferences(Instruction inst)
+	{
+		if( inst.getType() != INSTRUCTION_TYPE.CONTROL_PROGRAM )
+			return null;
+		
+		HashSet<String> ret = new HashSet<String>();
+		for( String part : VARIABLE_REFERENCE_DELIM.split(inst.toString()) )
+			if( !part.isEmpty() )
+				ret.add(part);
+		return ret;
+	}
+	
 	/**
 	 * Exclude rmvar instruction for <varname> from deleteInst, if exists
 	 * 
@@ -1668,7 +1788,7 @@ public class Dag<N extends Lop>
 				try {
 					if( LOG.isTraceEnabled() )
 						LOG.trace("Generating instruction - "+ inst_string);
-					Instruction currInstr = InstructionParser.parseSingleInstruction(inst_string);
+					Instruction currInstr = InstructionParseCache.parseSingleInstruction(inst_string);
 					if (node._beginLine != 0)
 						currInstr.setLocation(node);
 					else if ( !node.getOutputs().isEmpty() )
@@ -532,6 +532,10 @@ public class DMLProgram
 				instruct = dag.getJobs(sb, config);
 				rtpb.addInstructions(instruct);
 			}
+			else if( sb.liveIn() != null && sb.liveOut() != null ) {
+				// cleanup of dead variables (e.g., after hoisted loop invariants)
+				rtpb.addInstructions(dag.getRemoveInstructions(sb));
+			}
 			
 			/*// TODO: check with Doug
 			// add instruction for a function call
@@ -29,6 +29,7 @@ import com.ibm.bi.dml.api.MLContextProxy;
 import com.ibm.bi.dml.hops.Hop;
 import com.ibm.bi.dml.hops.HopsException;
 import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.hops.recompile.RecompileMemo;
 import com.ibm.bi.dml.hops.recompile.Recompiler;
 import com.ibm.bi.dml.lops.Lop;
 import com.ibm.bi.dml.parser.Expression.DataType;
@@ -53,6 +54,8 @@ public class StatementBlock extends LiveVariableAnalysis
 	HashMap<String,ConstIdentifier> _constVarsOut;
 	
 	private boolean _requiresRecompile = false;
+	private RecompileMemo _recompileMemo = null;
+	private ArrayList<String> _updateInPlaceVars = null;
 	
 	public StatementBlock(){
 		_dmlProg = null;
@@ -1059,5 +1062,33 @@ public class StatementBlock extends LiveVariableAnalysis
 		return _requiresRecompile;
 	}
 	
+	/**
+	 * Obtains the memo of recompiled instructions, which requires 
+	 * synchronization on the hop dag of this statement block.
+	 * 
+	 * @return
+	 */
+	public RecompileMemo getRecompileMemo()
+	{
+		if( _recompileMemo == null )
+			_recompileMemo = new RecompileMemo();
+		return _recompileMemo;
+	}
+	
+	
+	/**
+	 * Obtains the loop variables marked for update in-place, or null if none.
+	 * 
+	 * @return
+	 */
+	public ArrayList<String> getUpdateInPlaceVars()
+	{
+		return _updateInPlaceVars;
+	}
+	
+	public void setUpdateInPlaceVars( ArrayList<String> vars )
+	{
+		_updateInPlaceVars = vars;
+	}
 	
 }  // end class
@@ -27,6 +27,7 @@ import java.util.TreeMap;
 import com.ibm.bi.dml.api.DMLScript;
 import com.ibm.bi.dml.conf.ConfigurationManager;
 import com.ibm.bi.dml.conf.DMLConfig;
+import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.lops.Lop;
 import com.ibm.bi.dml.lops.ReBlock;
 import com.ibm.bi.dml.lops.compile.JobType;
@@ -81,6 +82,12 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 
 	protected long _runID = -1; //ID for block of statements
 	
+	//in-memory invocation (w/o export and reblock) of file-based external functions
+	//(note: the invocation mode is passed as parameter because program blocks are
+	//shared by concurrent parfor workers)
+	protected static final IDSequence _defaultSeq = new IDSequence();
+	private Boolean _inMemorySupport = null;
+	
 	/**
 	 * Constructor that also provides otherParams that are needed for external
 	 * functions. Remaining parameters will just be passed to constructor for
@@ -167,6 +174,13 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 	{
 		_runID = _idSeq.getNextID();
 		
+		//in-memory invocation if supported by the function and all inputs fit
+		//into the memory budget (otherwise fall back to file-based invocation)
+		if( isInMemoryInvocationApplicable(ec) ) {
+			executeInMemory(ec);
+			return;
+		}
+		
 		changeTmpInput( _runID, ec ); 
 		changeTmpOutput( _runID );
 		
@@ -206,7 +220,7 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 		{
 			try {
 				if (_inst.get(i) instanceof ExternalFunctionInvocationInstruction)
-					executeInstruction(ec, (ExternalFunctionInvocationInstruction) _inst.get(i));
+					executeInstruction(ec, (ExternalFunctionInvocationInstruction) _inst.get(i), false);
 			} 
 			catch(Exception e) {
 				throw new PackageRuntimeException(this.printBlockErrorLocation() + 
@@ -233,6 +247,86 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 		checkOutputParameters(ec.getVariables());
 	}
 
+	/**
+	 * Indicates if the external function can be invoked in-memory, i.e., with
+	 * pinned matrix blocks as inputs and outputs instead of exported cell files
+	 * and reblock jobs. This requires that the function supports the in-memory
+	 * calling convention and that all pinned matrix inputs, the outputs, and the
+	 * function intermediates (e.g., double[][] copies) fit into the memory budget.
+	 * 
+	 * @param ec
+	 * @return
+	 */
+	protected boolean isInMemoryInvocationApplicable( ExecutionContext ec )
+	{
+		if( !OptimizerUtils.ALLOW_INMEMORY_UDF_INVOCATION )
+			return false;
+		
+		//check function support of in-memory calling convention (once)
+		if( _inMemorySupport == null ) {
+			String className = _otherParams.get(ExternalFunctionStatement.CLASS_NAME);
+			_inMemorySupport = createFunctionObject(className).supportsInMemoryInvocation();
+		}
+		if( !_inMemorySupport )
+			return false;
+		
+		//memory estimate of all pinned matrix inputs
+		double mem = 0;
+		double memMaxInput = 0;
+		ArrayList<MatrixCharacteristics> inputs = new ArrayList<MatrixCharacteristics>();
+		for( DataIdentifier di : getInputParams() ) {
+			Data d = ec.getVariable(di.getName());
+			if( d != null && d.getDataType() == DataType.MATRIX ) {
+				MatrixCharacteristics mc = ((MatrixObject)d).getMatrixCharacteristics();
+				if( !mc.dimsKnown() )
+					return false;
+				mem += OptimizerUtils.estimateSizeExactSparsity(mc);
+				memMaxInput = Math.max(memMaxInput, 
+						OptimizerUtils.estimateSizeExactSparsity(mc.getRows(), mc.getCols(), 1.0));
+				inputs.add(mc);
+			}
+		}
+		
+		//memory estimate of all matrix outputs (dense, w/ size of largest input if unknown)
+		for( DataIdentifier di : getOutputParams() )
+			if( di.getDataType() == DataType.MATRIX ) {
+				mem += (di.getDim1() > 0 && di.getDim2() > 0) ?
+					OptimizerUtils.estimateSizeExactSparsity(di.getDim1(), di.getDim2(), 1.0) : memMaxInput;
+			}
+		
+		//memory estimate of function intermediates
+		String className = _otherParams.get(ExternalFunctionStatement.CLASS_NAME);
+		mem += createFunctionObject(className).getInMemoryIntermediateSize(inputs);
+		
+		return mem <= OptimizerUtils.getLocalMemBudget();
+	}
+	
+	/**
+	 * Executes the external function instructions in-memory, i.e., 
+	 * w/o export of inputs, block2cell, and cell2block instructions.
+	 * 
+	 * @param ec
+	 * @throws DMLRuntimeException
+	 */
+	private void executeInMemory( ExecutionContext ec ) 
+		throws DMLRuntimeException
+	{
+		for (int i = 0; i < _inst.size(); i++) 
+		{
+			try {
+				if (_inst.get(i) instanceof ExternalFunctionInvocationInstruction)
+					executeInstruction(ec, (ExternalFunctionInvocationInstruction) _inst.get(i), true);
+			} 
+			catch(Exception e) {
+				throw new PackageRuntimeException(this.printBlockErrorLocation() + 
+						"Failed to execute instruction in-memory " + _inst.get(i).toString(), e);
+			}
+		}
+		
+		// check return values
+		checkOutputParameters(ec.getVariables());
+	}
+	
 	/**
 	 * Given a list of parameters as data identifiers, returns a string
 	 * representation.
@@ -613,9 +707,23 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 	 * @throws NimbleCheckedRuntimeException
 	 * @throws DMLRuntimeException 
 	 */
-	@SuppressWarnings("unchecked")
 	public void executeInstruction(ExecutionContext ec, ExternalFunctionInvocationInstruction inst) 
 		throws DMLRuntimeException 
+	{
+		executeInstruction(ec, inst, false);
+	}
+	
+	/**
+	 * Method to execute an external function invocation instruction, either
+	 * in-memory (pinned matrix blocks) or file-based.
+	 * 
+	 * @param ec
+	 * @param inst
+	 * @param inMemory
+	 * @throws DMLRuntimeException
+	 */
+	protected void executeInstruction(ExecutionContext ec, ExternalFunctionInvocationInstruction inst, boolean inMemory) 
+		throws DMLRuntimeException 
 	{		
 		String className = inst.getClassName();
 		String configFile = inst.getConfigFile();
@@ -624,6 +732,38 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 			throw new PackageRuntimeException(this.printBlockErrorLocation() + "Class name can't be null");
 
 		// create instance of package function.
+		PackageFunction func = createFunctionObject(className);
+
+		// add inputs to this package function based on input parameter
+		// and their mappings.
+		setupInputs(func, inst.getInputParams(), ec.getVariables(), inMemory);
+		func.setConfiguration(configFile);
+		func.setBaseDir(_baseDir);
+		
+		//executes function
+		try {
+			func.execute();
+		}
+		finally {
+			//release matrix blocks pinned by the function
+			for( int i=0; i<func.getNumFunctionInputs(); i++ )
+				if( func.getFunctionInput(i) instanceof Matrix )
+					((Matrix)func.getFunctionInput(i)).releaseMatrixBlock();
+		}
+		
+		// verify output of function execution matches declaration
+		// and add outputs to variableMapping and Metadata
+		verifyAndAttachOutputs(ec, func, inst.getOutputParams(), inMemory);
+	}
+
+	/**
+	 * 
+	 * @param className
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	protected PackageFunction createFunctionObject( String className )
+	{
 		Object o;
 		try 
 		{
@@ -638,31 +778,19 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 		if (!(o instanceof PackageFunction))
 			throw new PackageRuntimeException(this.printBlockErrorLocation() + "Class is not of type PackageFunction");
 
-		PackageFunction func = (PackageFunction) o;
-
-		// add inputs to this package function based on input parameter
-		// and their mappings.
-		setupInputs(func, inst.getInputParams(), ec.getVariables());
-		func.setConfiguration(configFile);
-		func.setBaseDir(_baseDir);
-		
-		//executes function
-		func.execute();
-		
-		// verify output of function execution matches declaration
-		// and add outputs to variableMapping and Metadata
-		verifyAndAttachOutputs(ec, func, inst.getOutputParams());
+		return (PackageFunction) o;
 	}
-
+	
 	/**
 	 * Method to verify that function outputs match with declared outputs
 	 * 
 	 * @param returnFunc
 	 * @param outputParams
+	 * @param inMemory
 	 * @throws DMLRuntimeException 
 	 */
 	protected void verifyAndAttachOutputs(ExecutionContext ec, PackageFunction returnFunc,
-			String outputParams) throws DMLRuntimeException {
+			String outputParams, boolean inMemory) throws DMLRuntimeException {
 
 		ArrayList<String> outputs = getParameters(outputParams);
 		// make sure they are of equal size first
@@ -694,7 +822,7 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 
 				// add result to variableMapping
 				String varName = tokens.get(1);
-				MatrixObject newVar = createOutputMatrixObject( m ); 
+				MatrixObject newVar = createOutputMatrixObject( m, inMemory ); 
 				newVar.setVarName(varName);
 				
 				/* cleanup not required because done at central position (FunctionCallCPInstruction)
@@ -765,9 +893,17 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 		}
 	}
 
-	protected MatrixObject createOutputMatrixObject( Matrix m ) 
+	protected MatrixObject createOutputMatrixObject( Matrix m, boolean inMemory ) 
 		throws CacheException 
 	{
+		//pass in-memory matrix from extfunct back to invoking program
+		if( inMemory && m.getMatrixObject() != null ) {
+			MatrixObject ret = m.getMatrixObject();
+			if( ret.getFileName().equals( ExternalFunctionProgramBlockCP.DEFAULT_FILENAME ) ) 
+				ret.setFileName( createDefaultOutputFilePathAndName() );
+			return ret;
+		}
+		
 		MatrixCharacteristics mc = new MatrixCharacteristics(m.getNumRows(),m.getNumCols(), DMLTranslator.DMLBlockSize, DMLTranslator.DMLBlockSize);
 		MatrixFormatMetaData mfmd = new MatrixFormatMetaData(mc, OutputInfo.TextCellOutputInfo, InputInfo.TextCellInputInfo);		
 		return new MatrixObject(ValueType.DOUBLE, m.getFilePath(), mfmd);
@@ -801,12 +937,13 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 	 * @param inputParams
 	 * @param metaData
 	 * @param variableMapping
+	 * @param inMemory
 	 */
 	protected void setupInputs (PackageFunction func, String inputParams,
-			LocalVariableMap variableMapping) {
+			LocalVariableMap variableMapping, boolean inMemory) {
 
 		ArrayList<String> inputs = getParameters(inputParams);
-		ArrayList<FunctionParameter> inputObjects = getInputObjects(inputs, variableMapping);
+		ArrayList<FunctionParameter> inputObjects = getInputObjects(inputs, variableMapping, inMemory);
 		func.setNumFunctionInputs(inputObjects.size());
 		for (int i = 0; i < inputObjects.size(); i++)
 			func.setInput(inputObjects.get(i), i);
@@ -820,11 +957,12 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 	 * @param inputs
 	 * @param variableMapping
 	 * @param metaData
+	 * @param inMemory
 	 * @return
 	 */
 
 	protected ArrayList<FunctionParameter> getInputObjects(ArrayList<String> inputs,
-			LocalVariableMap variableMapping) {
+			LocalVariableMap variableMapping, boolean inMemory) {
 		ArrayList<FunctionParameter> inputObjects = new ArrayList<FunctionParameter>();
 
 		for (int i = 0; i < inputs.size(); i++) {
@@ -841,7 +979,7 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 				Matrix m = new Matrix(mobj.getFileName(),
 						mc.getRows(), mc.getCols(),
 						getMatrixValueType(tokens.get(2)));
-				modifyInputMatrix(m, mobj);
+				modifyInputMatrix(m, mobj, inMemory);
 				inputObjects.add(m);
 			}
 
@@ -867,9 +1005,21 @@ public class ExternalFunctionProgramBlock extends FunctionProgramBlock
 
 	}
 
-	protected void modifyInputMatrix(Matrix m, MatrixObject mobj) 
+	protected void modifyInputMatrix(Matrix m, MatrixObject mobj, boolean inMemory) 
+	{
+		//pass in-memory object to external function (in-memory invocation only),
+		//otherwise do nothing, intended for extensions
+		if( inMemory )
+			m.setMatrixObject( mobj );
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	public String createDefaultOutputFilePathAndName( )
 	{
-		//do nothing, intended for extensions
+		return _baseDir + ExternalFunctionProgramBlockCP.DEFAULT_FILENAME + _defaultSeq.getNextID();
 	}
 
 	/**
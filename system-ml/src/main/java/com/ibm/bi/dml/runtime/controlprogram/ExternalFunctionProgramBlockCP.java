@@ -27,7 +27,6 @@ import com.ibm.bi.dml.parser.Expression.ValueType;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
-import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
 import com.ibm.bi.dml.runtime.matrix.MatrixFormatMetaData;
@@ -53,7 +52,6 @@ public class ExternalFunctionProgramBlockCP extends ExternalFunctionProgramBlock
 {
 	
 	public static String DEFAULT_FILENAME = "ext_funct";
-	private static IDSequence _defaultSeq = new IDSequence();
 	
 	/**
 	 * Constructor that also provides otherParams that are needed for external
@@ -121,7 +119,7 @@ public class ExternalFunctionProgramBlockCP extends ExternalFunctionProgramBlock
 		// After removal of nimble, we moved the code of ExternalFunctionProgramBlockCP to 
 		// ExternalFunctionProgramBlock and hence hence both types of external functions can
 		// share the same code path here.
-		super.executeInstruction(ec, inst);
+		super.executeInstruction(ec, inst, true);
 	}
 	
 
@@ -152,14 +150,14 @@ public class ExternalFunctionProgramBlockCP extends ExternalFunctionProgramBlock
 	}
 
 	@Override
-	protected void modifyInputMatrix(Matrix m, MatrixObject mobj) 
+	protected void modifyInputMatrix(Matrix m, MatrixObject mobj, boolean inMemory) 
 	{
 		//pass in-memory object to external function
 		m.setMatrixObject( mobj );
 	}
 	
 	@Override
-	protected MatrixObject createOutputMatrixObject(Matrix m)
+	protected MatrixObject createOutputMatrixObject(Matrix m, boolean inMemory)
 	{
 		MatrixObject ret = m.getMatrixObject();
 		
@@ -178,12 +176,7 @@ public class ExternalFunctionProgramBlockCP extends ExternalFunctionProgramBlock
 			
 		return ret;
 	}	
-	
-	
-	public String createDefaultOutputFilePathAndName( )
-	{
-		return _baseDir + DEFAULT_FILENAME + _defaultSeq.getNextID();
-	}	
+
 
 	public String printBlockErrorLocation(){
 		return "ERROR: Runtime error in external function program block (for CP) generated from external function statement block between lines " + _beginLine + " and " + _endLine + " -- ";
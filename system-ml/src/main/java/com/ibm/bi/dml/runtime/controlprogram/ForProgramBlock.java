@@ -169,6 +169,10 @@ public class ForProgramBlock extends ProgramBlock
 		// initialize iter var to from value
 		IntObject iterVar = new IntObject(iterVarName, from.getLongValue() );
 		
+		// enable update in-place of marked loop variables
+		ArrayList<String> inplaceVars = (from.getLongValue() <= to.getLongValue()) ? 
+			enableUpdateInPlaceVariables(ec) : new ArrayList<String>();
+		
 		// execute for loop
 		try 
 		{
@@ -201,6 +205,9 @@ public class ForProgramBlock extends ProgramBlock
 			throw new DMLRuntimeException(printBlockErrorLocation() + "Error evaluating for program block", e);
 		}
 		
+		//disable update in-place of loop variables
+		disableUpdateInPlaceVariables(ec, inplaceVars);
+		
 		//execute exit instructions
 		try {
 			executeInstructions(_exitInstructions, ec);	
@@ -32,6 +32,9 @@ import java.util.Set;
 /**
  * Replaces <code>HashMap&lang;String, Data&rang;</code> as the table of
  * variable names and references.  No longer supports global consistency.
+ * Variables are intentionally keyed by name (not by compile-time slots)
+ * because names are the interface for parfor serialization, function call
+ * binding, and dynamic recompilation.
  * 
  */
 public class LocalVariableMap implements Cloneable
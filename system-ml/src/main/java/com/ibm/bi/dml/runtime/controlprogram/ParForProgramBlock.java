@@ -57,6 +57,7 @@ import com.ibm.bi.dml.runtime.controlprogram.parfor.DataPartitionerRemoteMR;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.DataPartitionerRemoteSpark;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.LocalParWorker;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.LocalTaskQueue;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.LocalWorkStealingScheduler;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.ParForBody;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.ProgramConverter;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.RemoteDPParForMR;
@@ -78,6 +79,7 @@ import com.ibm.bi.dml.runtime.controlprogram.parfor.TaskPartitionerFactoringCmin
 import com.ibm.bi.dml.runtime.controlprogram.parfor.TaskPartitionerFixedsize;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.TaskPartitionerNaive;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.TaskPartitionerStatic;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.TaskPartitionerWorkStealing;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.mqo.RuntimePiggybacking;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.opt.CostEstimator;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.opt.CostEstimatorHops;
@@ -135,7 +137,8 @@ public class ParForProgramBlock extends ForProgramBlock
 		FACTORING,  //factoring task partitioner  
 		FACTORING_CMIN,  //constrained factoring task partitioner, uses tasksize as min constraint
 		FACTORING_CMAX,  //constrained factoring task partitioner, uses tasksize as max constraint
-		UNSPECIFIED
+		UNSPECIFIED,
+		WORK_STEALING    //local work-stealing scheduler (split remaining ranges on demand), factoring for remote
 	}
 	
 	public enum PDataPartitionFormat {
@@ -211,9 +214,11 @@ public class ParForProgramBlock extends ForProgramBlock
 	public static final boolean ALLOW_NESTED_PARALLELISM	= true;    // if not, transparently change parfor to for on program conversions (local,remote)
 	public static       boolean ALLOW_REUSE_MR_JVMS         = true;    // potential benefits: less setup costs per task, NOTE> cannot be used MR4490 in Hadoop 1.0.3, still not fixed in 1.1.1
 	public static       boolean ALLOW_REUSE_MR_PAR_WORKER   = ALLOW_REUSE_MR_JVMS; //potential benefits: less initialization, reuse in-memory objects and result consolidation!
+	public static final boolean ALLOW_REUSE_SPARK_PAR_WORKER = true;   // reuse parsed parfor bodies of remote spark workers across tasks of a job (parse once per executor)
 	public static final boolean USE_FLEX_SCHEDULER_CONF     = false;
 	public static final boolean USE_PARALLEL_RESULT_MERGE   = false;    // if result merge is run in parallel or serial 
 	public static final boolean USE_PARALLEL_RESULT_MERGE_REMOTE = true; // if remote result merge should be run in parallel for multiple result vars
+	public static final boolean USE_PARALLEL_RESULT_MERGE_LOCAL = true; // if local in-memory result merge should be run multi-threaded over row partitions
 	public static final boolean ALLOW_DATA_COLOCATION       = true;
 	public static final boolean CREATE_UNSCOPED_RESULTVARS  = true;
 	public static       boolean ALLOW_REUSE_PARTITION_VARS  = true; //reuse partition input matrices, applied only if read-only in surrounding loops
@@ -711,14 +716,19 @@ public class ParForProgramBlock extends ForProgramBlock
 		
 		try
 		{
-			// Step 1) init parallel workers, task queue and threads
+			// Step 1) init parallel workers, task queue (or work-stealing scheduler) and threads
 			LocalTaskQueue<Task> queue = new LocalTaskQueue<Task>();
+			TaskPartitioner partitioner = createTaskPartitioner(from, to, incr);
+			LocalWorkStealingScheduler scheduler = (partitioner instanceof TaskPartitionerWorkStealing) ?
+					((TaskPartitionerWorkStealing)partitioner).createScheduler() : null;
 			Thread[] threads         = new Thread[_numThreads];
 			LocalParWorker[] workers = new LocalParWorker[_numThreads];
 			for( int i=0; i<_numThreads; i++ )
 			{
 				//create parallel workers as (lazy) deep copies
 				workers[i] = createParallelWorker( _pwIDs[i], queue, ec ); 
+				if( scheduler != null )
+					workers[i].setWorkStealingScheduler(scheduler, i);
 				threads[i] = new Thread( workers[i] );
 				threads[i].setPriority(Thread.MAX_PRIORITY); 
 			}
@@ -735,10 +745,14 @@ public class ParForProgramBlock extends ForProgramBlock
 				StatisticMonitor.putPFStat(_ID, Stat.PARFOR_INIT_PARWRK_T, tinit);
 			
 			// Step 2) create tasks 
-			TaskPartitioner partitioner = createTaskPartitioner(from, to, incr);
 			long numIterations = partitioner.getNumIterations();
 			long numCreatedTasks = -1;
-			if( USE_STREAMING_TASK_CREATION )
+			if( scheduler != null )
+			{
+				//tasks are created on demand by the workers (see step 3)
+				queue.closeInput();
+			}
+			else if( USE_STREAMING_TASK_CREATION )
 			{
 				//put tasks into queue (parworker start work on first tasks while creating tasks) 
 				numCreatedTasks = partitioner.createTasks(queue);		
@@ -764,7 +778,12 @@ public class ParForProgramBlock extends ForProgramBlock
 			
 			if( _monitor ) 
 				StatisticMonitor.putPFStat(_ID, Stat.PARFOR_WAIT_EXEC_T, time.stop());
-				
+			
+			if( scheduler != null ) {
+				numCreatedTasks = scheduler.getNumCreatedTasks();
+				if( _monitor )
+					StatisticMonitor.putPFStat(_ID, Stat.PARFOR_NUMSTEALS, scheduler.getNumSteals());
+			}
 				
 			// Step 4) collecting results from each parallel worker
 			//obtain results
@@ -1483,6 +1502,10 @@ public class ParForProgramBlock extends ForProgramBlock
 				tp = new TaskPartitionerFactoringCmax( _taskSize,_numThreads, _taskSize, _iterablePredicateVars[0],
 							                       from, to, incr );
 				break;	
+			case WORK_STEALING:
+				tp = new TaskPartitionerWorkStealing( _taskSize,_numThreads, _iterablePredicateVars[0],
+							                       from, to, incr );
+				break;
 			default:
 				throw new DMLRuntimeException("Undefined task partitioner: '"+_taskPartitioner+"'.");
 		}
@@ -1775,7 +1798,7 @@ public class ParForProgramBlock extends ForProgramBlock
 					String fname = constructResultMergeFileName();
 					ResultMerge rm = createResultMerge(_resultMerge, out, in, fname, ec);
 					MatrixObject outNew = null;
-					if( USE_PARALLEL_RESULT_MERGE )
+					if( USE_PARALLEL_RESULT_MERGE || checkParallelLocalResultMerge() )
 						outNew = rm.executeParallelMerge( _numThreads );
 					else
 						outNew = rm.executeSerialMerge(); 		
@@ -1823,6 +1846,21 @@ public class ParForProgramBlock extends ForProgramBlock
 			       ||_resultMerge == PResultMerge.REMOTE_SPARK) );
 	}
 	
+	/**
+	 * Local in-memory result merge is run multi-threaded (partitioned by row blocks
+	 * of the output) if the parfor itself was executed with multiple threads. Local
+	 * file-based result merge gracefully degrades to serial merge.
+	 * 
+	 * @return
+	 */
+	private boolean checkParallelLocalResultMerge()
+	{
+		return (USE_PARALLEL_RESULT_MERGE_LOCAL
+				&& _numThreads > 1
+				&& ( _resultMerge == PResultMerge.LOCAL_MEM
+				   ||_resultMerge == PResultMerge.LOCAL_AUTOMATIC) );
+	}
+	
 	/**
 	 * 
 	 * @param IDPrefix
@@ -2098,7 +2136,7 @@ public class ParForProgramBlock extends ForProgramBlock
 				
 					ResultMerge rm = createResultMerge(_resultMerge, out, in, fname, _ec);
 					MatrixObject outNew = null;
-					if( USE_PARALLEL_RESULT_MERGE )
+					if( USE_PARALLEL_RESULT_MERGE || checkParallelLocalResultMerge() )
 						outNew = rm.executeParallelMerge( _numThreads );
 					else
 						outNew = rm.executeSerialMerge(); 	
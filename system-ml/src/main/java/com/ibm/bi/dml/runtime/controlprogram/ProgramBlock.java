@@ -24,9 +24,13 @@ import org.apache.commons.logging.LogFactory;
 
 import com.ibm.bi.dml.api.DMLScript;
 import com.ibm.bi.dml.api.MLContextProxy;
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.conf.ConfigurationManager;
+import com.ibm.bi.dml.conf.DMLConfig;
 import com.ibm.bi.dml.hops.Hop;
 import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.hops.recompile.Recompiler;
+import com.ibm.bi.dml.lops.Lop;
 import com.ibm.bi.dml.parser.StatementBlock;
 import com.ibm.bi.dml.parser.Expression.ValueType;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
@@ -34,6 +38,7 @@ import com.ibm.bi.dml.runtime.DMLScriptException;
 import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.cp.BooleanObject;
 import com.ibm.bi.dml.runtime.instructions.cp.ComputationCPInstruction;
@@ -54,6 +59,9 @@ public class ProgramBlock
 	protected static final Log LOG = LogFactory.getLog(ProgramBlock.class.getName());
 	private static final boolean CHECK_MATRIX_SPARSITY = false;
 	
+	//sequence for unique file names of private in-place loop variables
+	private static IDSequence _seqInPlace = new IDSequence();
+	
 	protected Program _prog;		// pointer to Program this ProgramBlock is part of
 	protected ArrayList<Instruction> _inst;
 	
@@ -342,6 +350,84 @@ public class ProgramBlock
 		}
 	}
 	
+	/**
+	 * Enables update in-place for all loop variables marked by the compiler
+	 * (see RewriteMarkLoopVariablesUpdateInPlace). For each variable, we create a
+	 * private in-memory copy of the current matrix (which might be shared with other
+	 * variables or backed by a persistent file), flagged for update in-place. The
+	 * flag pins the matrix in memory and is propagated by all left indexing and 
+	 * append operations of the loop body, which then modify the matrix in-place.
+	 * 
+	 * @param ec
+	 * @return list of variables enabled for update in-place 
+	 * @throws DMLRuntimeException
+	 */
+	protected ArrayList<String> enableUpdateInPlaceVariables( ExecutionContext ec ) 
+		throws DMLRuntimeException
+	{
+		ArrayList<String> ret = new ArrayList<String>();
+		if( _sb == null || _sb.getUpdateInPlaceVars() == null
+			|| DMLScript.rtplatform == RUNTIME_PLATFORM.HADOOP 
+			|| ConfigurationManager.getConfig() == null )
+			return ret;
+		
+		for( String var : _sb.getUpdateInPlaceVars() )
+		{
+			Data dat = ec.getVariable(var);
+			if( !(dat instanceof MatrixObject) )
+				continue;
+			MatrixObject mo = (MatrixObject) dat;
+			
+			//check for existing in-place, partitioned, or too large inputs
+			long rows = mo.getNumRows(), cols = mo.getNumColumns();
+			if( mo.isUpdateInPlaceEnabled() || mo.isPartitioned() || rows <= 0 || cols <= 0
+				|| OptimizerUtils.estimateSizeExactSparsity(rows, cols, 1.0) 
+				   >= OptimizerUtils.getLocalMemBudget() )
+				continue;
+			
+			//create private in-place copy with unique scratch file name
+			String fname = ConfigurationManager.getConfig().getTextValue(DMLConfig.SCRATCH_SPACE)
+				+ Lop.FILE_SEPARATOR + Lop.PROCESS_PREFIX + DMLScript.getUUID() 
+				+ Lop.FILE_SEPARATOR + "_inplace" + _seqInPlace.getNextID();
+			MatrixObject moNew = new MatrixObject(mo);
+			moNew.setFileName(fname);
+			moNew.setFileExists(false);
+			moNew.enableCleanup(true);
+			moNew.enableUpdateInPlace(true);
+			MatrixBlock mb = mo.acquireRead();
+			moNew.acquireModify(new MatrixBlock(mb));
+			moNew.release();
+			mo.release();
+			
+			//replace variable and cleanup unreferenced old matrix
+			ec.setVariable(var, moNew);
+			ec.cleanupMatrixObject(mo);
+			ret.add(var);
+		}
+		
+		if( !ret.isEmpty() && LOG.isDebugEnabled() )
+			LOG.debug(printBlockErrorLocation() + "Enabled update in-place for " + ret + ".");
+		
+		return ret;
+	}
+	
+	/**
+	 * Disables update in-place for the given loop variables after loop exit
+	 * in order to unpin these matrices and prevent in-place updates outside 
+	 * the scope of the analyzed loop.
+	 * 
+	 * @param ec
+	 * @param vars
+	 */
+	protected void disableUpdateInPlaceVariables( ExecutionContext ec, ArrayList<String> vars )
+	{
+		for( String var : vars ) {
+			Data dat = ec.getVariable(var);
+			if( dat instanceof MatrixObject )
+				((MatrixObject)dat).enableUpdateInPlace(false);
+		}
+	}
+	
 	/**
 	 * 
 	 * @param inst
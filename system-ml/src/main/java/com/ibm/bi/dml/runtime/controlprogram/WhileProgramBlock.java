@@ -153,7 +153,7 @@ public class WhileProgramBlock extends ProgramBlock
 				if( scalarResult instanceof BooleanObject )
 					result = (BooleanObject)scalarResult;
 				else
-					result = new BooleanObject( scalarResult.getBooleanValue() ); //auto casting
+					result = BooleanObject.valueOf( scalarResult.getBooleanValue() ); //auto casting
 			}
 		}
 		catch(Exception ex)
@@ -170,6 +170,10 @@ public class WhileProgramBlock extends ProgramBlock
 
 		BooleanObject predResult = executePredicate(ec); 
 		
+		//enable update in-place of marked loop variables
+		ArrayList<String> inplaceVars = predResult.getBooleanValue() ? 
+			enableUpdateInPlaceVariables(ec) : new ArrayList<String>();
+		
 		//execute while loop
 		try 
 		{
@@ -194,6 +198,9 @@ public class WhileProgramBlock extends ProgramBlock
 			throw new DMLRuntimeException(this.printBlockErrorLocation() + "Error evaluating while program block.", e);
 		}
 		
+		//disable update in-place of loop variables
+		disableUpdateInPlaceVariables(ec, inplaceVars);
+		
 		//execute exit instructions
 		try {
 			executeInstructions(_exitInstructions, ec);
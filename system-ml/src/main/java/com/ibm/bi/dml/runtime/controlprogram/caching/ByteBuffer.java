@@ -34,6 +34,11 @@ public class ByteBuffer
 	private boolean _sparse;
 	private long _size;
 	
+	//meta data for cost-aware eviction
+	private boolean _persisted = false; //clean copy on hdfs
+	private int _freq = 1;              //number of accesses
+	private double _priority = 0;       //eviction priority
+	
 	protected byte[]       _bdata = null; //sparse matrix
 	protected MatrixBlock  _mdata = null; //dense matrix
 	
@@ -152,6 +157,42 @@ public class ByteBuffer
 		return _sparse;
 	}
 	
+	/**
+	 * Indicates if a clean copy of the buffered matrix exists on hdfs,
+	 * i.e., if the buffer can be discarded on eviction without write.
+	 * 
+	 * @return
+	 */
+	public boolean isPersisted()
+	{
+		return _persisted;
+	}
+	
+	public void setPersisted( boolean flag )
+	{
+		_persisted = flag;
+	}
+	
+	public int getFrequency()
+	{
+		return _freq;
+	}
+	
+	public void incrementFrequency()
+	{
+		_freq++;
+	}
+	
+	public double getPriority()
+	{
+		return _priority;
+	}
+	
+	public void setPriority( double priority )
+	{
+		_priority = priority;
+	}
+	
 	public void freeMemory()
 	{
 		//clear strong references to buffer/matrix
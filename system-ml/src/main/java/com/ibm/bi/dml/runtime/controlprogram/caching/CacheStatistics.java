@@ -59,12 +59,14 @@ public class CacheStatistics
 	private static AtomicLong _numWritesFSBuff = null;
 	private static AtomicLong _numWritesFS     = null;
 	private static AtomicLong _numWritesHDFS   = null;
+	private static AtomicLong _numDiscardsFS   = null; //evictions w/o write
 	
 	//time statistics caching
 	private static AtomicLong _ctimeAcquireR   = null; //in nano sec
 	private static AtomicLong _ctimeAcquireM   = null; //in nano sec
 	private static AtomicLong _ctimeRelease    = null; //in nano sec
 	private static AtomicLong _ctimeExport     = null; //in nano sec
+	private static AtomicLong _ctimeRestore    = null; //in nano sec
 
 	static
 	{
@@ -82,11 +84,13 @@ public class CacheStatistics
 		_numWritesFSBuff = new AtomicLong(0);
 		_numWritesFS = new AtomicLong(0);
 		_numWritesHDFS = new AtomicLong(0);
+		_numDiscardsFS = new AtomicLong(0);
 		
 		_ctimeAcquireR = new AtomicLong(0);
 		_ctimeAcquireM = new AtomicLong(0);
 		_ctimeRelease = new AtomicLong(0);
 		_ctimeExport = new AtomicLong(0);
+		_ctimeRestore = new AtomicLong(0);
 	}
 	
 	public static void incrementTotalHits()
@@ -209,6 +213,16 @@ public class CacheStatistics
 		return _numWritesHDFS.get();
 	}
 	
+	public static void incrementFSDiscards()
+	{
+		_numDiscardsFS.incrementAndGet();
+	}
+	
+	public static long getFSDiscards()
+	{
+		return _numDiscardsFS.get();
+	}
+	
 	public static void incrementAcquireRTime(long delta)
 	{
 		_ctimeAcquireR.addAndGet(delta);
@@ -250,6 +264,16 @@ public class CacheStatistics
 		return _ctimeExport.get();
 	}
 	
+	public static void incrementRestoreTime(long delta)
+	{
+		_ctimeRestore.addAndGet(delta);
+	}
+	
+	public static long getRestoreTime()
+	{
+		return _ctimeRestore.get();
+	}
+	
 
 	public static String displayHits()
 	{	
@@ -279,6 +303,16 @@ public class CacheStatistics
 		return sb.toString();
 	}
 	
+	public static String displayEvictions()
+	{	
+		StringBuilder sb = new StringBuilder();
+		sb.append(_numDiscardsFS.get());
+		sb.append("/");
+		sb.append(String.format("%.3f", ((double)_ctimeRestore.get())/1000000000)); //in sec
+		
+		return sb.toString();
+	}
+	
 	public static String displayTime()
 	{	
 		StringBuilder sb = new StringBuilder();
@@ -24,6 +24,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.conf.ConfigurationManager;
+import com.ibm.bi.dml.conf.DMLConfig;
 import com.ibm.bi.dml.parser.Expression.DataType;
 import com.ibm.bi.dml.parser.Expression.ValueType;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
@@ -57,7 +59,7 @@ public abstract class CacheableData extends Data
     
 	public static final long 	CACHING_THRESHOLD = 4*1024; //obj not s.t. caching if below threshold [in bytes]
 	public static final double 	CACHING_BUFFER_SIZE = 0.15; 
-	public static final RPolicy CACHING_BUFFER_POLICY = RPolicy.FIFO; 
+	public static RPolicy CACHING_BUFFER_POLICY = RPolicy.FIFO; //eviction policy (configured via cp.caching.policy)
 	public static final boolean CACHING_BUFFER_PAGECACHE = false; 
 	public static final boolean CACHING_WRITE_CACHE_ON_READ = false;
 	
@@ -425,6 +427,18 @@ public abstract class CacheableData extends Data
 		{
 			throw new IOException(e);
 		}
+		
+		//obtain configured eviction policy (if config available)
+		DMLConfig conf = ConfigurationManager.getConfig();
+		if( conf != null ) {
+			String policy = conf.getTextValue(DMLConfig.CP_CACHING_POLICY);
+			try {
+				CACHING_BUFFER_POLICY = RPolicy.valueOf(policy.trim().toUpperCase());
+			}
+			catch(IllegalArgumentException ex) {
+				throw new IOException("Unsupported caching buffer policy: "+policy, ex);
+			}
+		}
 	
 		//init write-ahead buffer
 		LazyWriteBuffer.init();
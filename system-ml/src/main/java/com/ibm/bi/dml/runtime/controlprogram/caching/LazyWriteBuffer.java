@@ -18,10 +18,17 @@
 package com.ibm.bi.dml.runtime.controlprogram.caching;
 
 import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map.Entry;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import com.ibm.bi.dml.api.DMLScript;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
@@ -33,12 +40,21 @@ import com.ibm.bi.dml.runtime.util.LocalFileUtils;
  */
 public class LazyWriteBuffer 
 {
+	private static final Log LOG = LogFactory.getLog(LazyWriteBuffer.class.getName());
 	
 	public enum RPolicy{
-		FIFO,
-		LRU
+		FIFO, //evict in order of writes
+		LRU,  //evict least recently used
+		COST  //evict min eviction priority (cost-aware, greedy dual size frequency)
 	}
 	
+	//cost model for cost-aware eviction (see CostEstimatorStaticRuntime) 
+	private static final double COST_FS_LATENCY = 0.01;   //in sec per file 
+	private static final double COST_HDFS_LATENCY = 0.05; //in sec per file
+	private static final double COST_MBS_FSREAD = 200;
+	private static final double COST_MBS_FSWRITE = 150;
+	private static final double COST_MBS_HDFSREAD = 150;
+	
 	//global size limit in bytes
 	private static long _limit; 
 	
@@ -49,6 +65,15 @@ public class LazyWriteBuffer
 	//for (1) queue semantics and (2) constant time get/insert/delete operations)
 	private static EvictionQueue _mQueue;
 	
+	//filenames of evicted but persisted (not written) matrices
+	private static HashSet<String> _mDiscarded;
+	
+	//priority inflation for cost-aware eviction (priority of last evicted buffer)
+	private static double _inflation;
+	
+	//optional trace of buffer pool requests (for replay under different policies)
+	private static List<TraceEntry> _trace = null;
+	
 	static 
 	{
 		//obtain the logical buffer size in bytes
@@ -79,8 +104,9 @@ public class LazyWriteBuffer
 				//evict matrices to make room (by default FIFO)
 				while( _size+lSize >= _limit )
 				{
-					//remove first entry from eviction queue
-					Entry<String, ByteBuffer> entry = _mQueue.removeFirst();
+					//remove next entry from eviction queue (first or min priority)
+					Entry<String, ByteBuffer> entry = isCostAwarePolicy() ? 
+							_mQueue.removeMinPriority() : _mQueue.removeFirst();
 					String ftmp = entry.getKey();
 					ByteBuffer tmp = entry.getValue();
 					
@@ -89,22 +115,43 @@ public class LazyWriteBuffer
 						//wait for pending serialization
 						tmp.checkSerialized();
 						
-						//evict matrix
-						tmp.evictBuffer(ftmp);
+						//evict matrix (discard persisted matrices w/o write)
+						boolean discard = isCostAwarePolicy() && tmp.isPersisted();
+						if( discard )
+							_mDiscarded.add(ftmp);
+						else
+							tmp.evictBuffer(ftmp);
 						tmp.freeMemory();
 						_size-=tmp.getSize();
 						
-						if( DMLScript.STATISTICS )
-							CacheStatistics.incrementFSWrites();
+						if( isCostAwarePolicy() )
+							_inflation = Math.max(_inflation, tmp.getPriority());
+						
+						if( LOG.isTraceEnabled() )
+							LOG.trace("Evict "+ftmp+" ("+CacheableData.CACHING_BUFFER_POLICY+"): size="+tmp.getSize()
+									+", freq="+tmp.getFrequency()+", priority="+tmp.getPriority()+", discard="+discard);
+						
+						if( DMLScript.STATISTICS ) {
+							if( discard )
+								CacheStatistics.incrementFSDiscards();
+							else
+								CacheStatistics.incrementFSWrites();
+						}
 					}
 				}
 				
 				//create buffer (reserve mem), and lock
 				bbuff = new ByteBuffer( lSize );
+				if( isCostAwarePolicy() )
+					bbuff.setPriority( _inflation + getEvictionCost(bbuff) );
 				
 				//put placeholder into buffer pool 
 				_mQueue.addLast(fname, bbuff);
+				_mDiscarded.remove(fname);
 				_size += lSize;	
+				
+				if( _trace != null )
+					_trace.add(new TraceEntry(TraceType.WRITE, fname, mb));
 			}
 			
 			//serialize matrix (outside synchronized critical path)
@@ -115,6 +162,11 @@ public class LazyWriteBuffer
 		}	
 		else
 		{
+			if( _trace != null )
+				synchronized( _mQueue ) {
+					_trace.add(new TraceEntry(TraceType.WRITE, fname, mb));
+				}
+			
 			//write directly to local FS (bypass buffer if too large)
 			LocalFileUtils.writeMatrixBlockToLocal(fname, mb);
 			if( DMLScript.STATISTICS )
@@ -140,6 +192,13 @@ public class LazyWriteBuffer
 				requiresDelete = false;
 				ldata.freeMemory(); //cleanup
 			}
+			
+			//remove discarded entry (never written)
+			if( _mDiscarded.remove(fname) )
+				requiresDelete = false;
+			
+			if( _trace != null )
+				_trace.add(new TraceEntry(TraceType.DELETE, fname, null));
 		}
 		
 		//delete from FS if required
@@ -148,6 +207,36 @@ public class LazyWriteBuffer
 	}
 	
 	/**
+	 * Marks the buffered matrix of the given filename as persisted (or not),
+	 * i.e., a clean copy of the matrix exists on hdfs. With the cost-aware
+	 * policy, persisted matrices are discarded on eviction without write.
+	 * Invariant: the caller must be able to restore a discarded matrix from
+	 * its persisted copy, i.e., the copy must not change until the matrix is 
+	 * deleted or rewritten (see MatrixObject, which checks the modification
+	 * time of the persisted file on restore).
+	 * 
+	 * @param fname
+	 * @param flag
+	 */
+	public static void setPersisted( String fname, boolean flag )
+	{
+		synchronized( _mQueue )
+		{
+			ByteBuffer ldata = _mQueue.get(fname);
+			if( ldata != null ) {
+				ldata.setPersisted(flag);
+				if( isCostAwarePolicy() )
+					ldata.setPriority( _inflation + ldata.getFrequency() * getEvictionCost(ldata) );
+				if( _trace != null )
+					_trace.add(new TraceEntry(TraceType.PERSIST, fname, null));
+			}
+		}
+	}
+	
+	/**
+	 * Reads the matrix of the given filename from the write buffer or local
+	 * file system. Returns null if the matrix has been discarded on eviction,
+	 * in which case the caller is expected to read the persisted copy. 
 	 * 
 	 * @param fname
 	 * @return
@@ -172,6 +261,17 @@ public class LazyWriteBuffer
 				_mQueue.remove( fname );
 				_mQueue.addLast( fname, ldata );
 			}
+			//modify eviction priority (accordingly to access frequency)
+			else if( isCostAwarePolicy() && ldata != null )
+			{
+				ldata.incrementFrequency();
+				ldata.setPriority( _inflation + ldata.getFrequency() * getEvictionCost(ldata) );
+			}
+			//probe discarded matrices (read from hdfs by caller)
+			else if( ldata == null && _mDiscarded.contains(fname) )
+			{
+				return null;
+			}
 		}
 		
 		//deserialize or read from FS if required
@@ -197,7 +297,9 @@ public class LazyWriteBuffer
 	public static void init()
 	{
 		_mQueue = new EvictionQueue();		
+		_mDiscarded = new HashSet<String>();
 		_size = 0;
+		_inflation = 0;
 		if( CacheableData.CACHING_BUFFER_PAGECACHE )
 			PageCache.init();
 	}
@@ -209,6 +311,10 @@ public class LazyWriteBuffer
 	{
 		if( _mQueue!=null )
 			_mQueue.clear();
+		if( _mDiscarded!=null )
+			_mDiscarded.clear();
+		_size = 0;
+		_inflation = 0;
 		if( CacheableData.CACHING_BUFFER_PAGECACHE )
 			PageCache.clear();
 	}
@@ -223,6 +329,99 @@ public class LazyWriteBuffer
 		return (long)(CacheableData.CACHING_BUFFER_SIZE * maxMem);
 	}
 	
+	/**
+	 * Gets the current size limit of the write buffer in bytes.
+	 * 
+	 * @return
+	 */
+	public static long getWriteBufferLimit()
+	{
+		return _limit;
+	}
+	
+	/**
+	 * Sets the size limit of the write buffer in bytes (e.g., for 
+	 * replaying traces with small buffer sizes).
+	 * 
+	 * @param limit
+	 */
+	public static void setWriteBufferLimit( long limit )
+	{
+		_limit = limit;
+	}
+	
+	/**
+	 * Starts recording all write, delete, and persist requests to the
+	 * write buffer, as well as reads of cached matrices. 
+	 */
+	public static void startTrace()
+	{
+		_trace = new ArrayList<TraceEntry>();
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	public static boolean isTraceActive()
+	{
+		return (_trace != null);
+	}
+	
+	/**
+	 * Records a read request (acquire read) of a cached matrix, independent 
+	 * of whether the matrix is still in memory or read from the buffer pool, 
+	 * in order to replay traces under memory pressure.
+	 * 
+	 * @param fname
+	 */
+	public static void traceRead( String fname )
+	{
+		synchronized( _mQueue ) {
+			if( _trace != null )
+				_trace.add(new TraceEntry(TraceType.READ, fname, null));
+		}
+	}
+	
+	/**
+	 * Stops recording buffer requests and returns the recorded trace.
+	 * 
+	 * @return
+	 */
+	public static List<TraceEntry> stopTrace()
+	{
+		List<TraceEntry> ret = _trace;
+		_trace = null;
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	private static boolean isCostAwarePolicy()
+	{
+		return (CacheableData.CACHING_BUFFER_POLICY == RPolicy.COST);
+	}
+	
+	/**
+	 * Estimates the eviction cost per MB of the given buffer, i.e., the time 
+	 * of writing to and restoring from local FS (or only restoring from HDFS 
+	 * if persisted), including a fixed per-file latency. Hence, small matrices
+	 * have higher costs per MB, and are less likely to be evicted. 
+	 * 
+	 * @param bbuff
+	 * @return
+	 */
+	private static double getEvictionCost( ByteBuffer bbuff )
+	{
+		double sizeMB = Math.max((double)bbuff.getSize() / 1024 / 1024, 1e-6);
+		double cost = bbuff.isPersisted() ?
+				COST_HDFS_LATENCY + sizeMB / COST_MBS_HDFSREAD :
+				2 * COST_FS_LATENCY + sizeMB / COST_MBS_FSWRITE + sizeMB / COST_MBS_FSREAD;
+		return cost / sizeMB;
+	}
+	
 	/**
 	 * 
 	 */
@@ -274,5 +473,51 @@ public class LazyWriteBuffer
 			
 			return entry;
 		}
+		
+		public Entry<String, ByteBuffer> removeMinPriority() 
+		{
+			//find entry with min eviction priority (first on ties)
+			String fname = null;
+			double minPriority = Double.MAX_VALUE;
+			for( Entry<String, ByteBuffer> entry : entrySet() ) {
+				ByteBuffer bbuff = entry.getValue();
+				if( fname == null || bbuff.getPriority() < minPriority ) {
+					fname = entry.getKey();
+					minPriority = bbuff.getPriority();
+				}
+			}
+			
+			return new SimpleEntry<String, ByteBuffer>(fname, remove(fname));
+		}
+	}
+	
+	public enum TraceType {
+		WRITE,
+		READ,
+		DELETE,
+		PERSIST
+	}
+	
+	/**
+	 * Recorded buffer request, including the matrix characteristics
+	 * for write requests.
+	 * 
+	 */
+	public static class TraceEntry
+	{
+		public final TraceType type;
+		public final String fname;
+		public final int rows;
+		public final int cols;
+		public final long nnz;
+		
+		public TraceEntry( TraceType type, String fname, MatrixBlock mb )
+		{
+			this.type = type;
+			this.fname = fname;
+			this.rows = (mb != null) ? mb.getNumRows() : -1;
+			this.cols = (mb != null) ? mb.getNumColumns() : -1;
+			this.nnz = (mb != null) ? mb.getNonZeros() : -1;
+		}
 	}
 }
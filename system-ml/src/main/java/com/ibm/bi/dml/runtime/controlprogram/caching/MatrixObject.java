@@ -39,6 +39,7 @@ import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
 import com.ibm.bi.dml.runtime.matrix.MatrixDimensionsMetaData;
 import com.ibm.bi.dml.runtime.matrix.MatrixFormatMetaData;
 import com.ibm.bi.dml.runtime.matrix.MetaData;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
 import com.ibm.bi.dml.runtime.matrix.data.FileFormatProperties;
 import com.ibm.bi.dml.runtime.matrix.data.InputInfo;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
@@ -95,6 +96,14 @@ public class MatrixObject extends CacheableData
 	 */
 	private boolean _dirtyFlag = false;
 	
+	/**
+	 * File name and modification time of the clean copy on hdfs, if the buffered
+	 * matrix is marked as persisted. Matrices discarded on eviction are restored
+	 * from this file, but only if it is unchanged since it has been written.
+	 */
+	private String _persistedFileName = null;
+	private long _persistedModTime = -1;
+	
 	/**
 	 * Object that holds the metadata associated with the matrix, which
 	 * includes: 1) Matrix dimensions, if available 2) Number of non-zeros, if
@@ -239,6 +248,32 @@ public class MatrixObject extends CacheableData
 		mc.setDimension( _data.getNumRows(),
 						 _data.getNumColumns() );
 		mc.setNonZeros( _data.getNonZeros() );		
+		mc.setDensityMap( null ); //recomputed on demand
+	}
+	
+	/**
+	 * Gets the density map (sketch of the non-zero structure) for sparsity estimates
+	 * during recompilation. The density map is computed lazily on the first request
+	 * after a modification and only for sparse matrices that are in memory (no restore
+	 * of evicted data), because for dense matrices uniform density is a good 
+	 * approximation and they would require a full pass over all cells.
+	 * 
+	 * @return density map, or null if not available
+	 */
+	public synchronized DensityMap getDensityMap()
+	{
+		if( !OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES 
+			|| !(_metaData instanceof MatrixDimensionsMetaData) )
+			return null;
+		
+		MatrixCharacteristics mc = ((MatrixDimensionsMetaData) _metaData).getMatrixCharacteristics();
+		if( mc.getDensityMap() == null && _data != null && isAvailableToRead()
+			&& _data.isInSparseFormat() && _data.getNonZeros() == mc.getNonZeros() ) 
+		{
+			mc.setDensityMap( DensityMap.create(_data) );
+		}
+		
+		return mc.getDensityMap();
 	}
 
 	public void setFileFormatProperties(FileFormatProperties formatProperties) {
@@ -524,6 +559,10 @@ public class MatrixObject extends CacheableData
 		//cache status maintenance
 		super.acquire( false, _data==null );	
 		
+		//record read of cached matrix for trace replay
+		if( LazyWriteBuffer.isTraceActive() && isCachingActive() && !_isAcquireFromEmpty )
+			LazyWriteBuffer.traceRead(getCacheFilePathAndName());
+		
 		if( DMLScript.STATISTICS ){
 			long t1 = System.nanoTime();
 			CacheStatistics.incrementAcquireRTime(t1-t0);
@@ -656,6 +695,7 @@ public class MatrixObject extends CacheableData
 			//set flags for write
 			write = true;
 			_dirtyFlag = true;
+			_persistedFileName = null;
 			
 			//update meta data
 			refreshMetaData();
@@ -858,8 +898,16 @@ public class MatrixObject extends CacheableData
 			{
 				writeMetaData( fName, outputFormat, formatProperties );
 				writeMatrixToHDFS( fName, outputFormat, replication, formatProperties );
-				if ( !pWrite )
+				if ( !pWrite ) {
 					_dirtyFlag = false;
+					
+					//mark buffered matrix as persisted (clean copy on hdfs)
+					if( isCachingActive() && isEqualOutputFormat(outputFormat) ) {
+						_persistedFileName = fName;
+						_persistedModTime = MapReduceTool.getModificationTimeOnHDFS(fName);
+						LazyWriteBuffer.setPersisted(getCacheFilePathAndName(), true);
+					}
+				}
 			}
 			catch (Exception e)
 			{
@@ -1212,9 +1260,19 @@ public class MatrixObject extends CacheableData
 		if (_data != null)
 			throw new CacheIOException (filePath + " : Cannot restore on top of existing in-memory data.");
 
+		long t0 = DMLScript.STATISTICS ? System.nanoTime() : 0;
 		try
 		{
 			_data = readMatrix(filePath);
+			
+			//read persisted copy if discarded on eviction (only if unchanged)
+			if( _data == null && _persistedFileName != null ) {
+				if( MapReduceTool.getModificationTimeOnHDFS(_persistedFileName) != _persistedModTime )
+					throw new CacheIOException(filePath + " : Persisted copy " + _persistedFileName + " changed after eviction.");
+				_data = readMatrixFromHDFS( _persistedFileName );
+				if( DMLScript.STATISTICS )
+					CacheStatistics.incrementHDFSHits();
+			}
 		}
 		catch (IOException e)
 		{
@@ -1225,6 +1283,9 @@ public class MatrixObject extends CacheableData
 	    if (_data == null)
 			throw new CacheIOException (filePath + " : Restore failed.");
 	    
+	    if( DMLScript.STATISTICS )
+	    	CacheStatistics.incrementRestoreTime(System.nanoTime()-t0);
+	    
 	    if( LOG.isTraceEnabled() )
 	    	LOG.trace("Restoring matrix - COMPLETED ... " + (System.currentTimeMillis()-begin) + " msec.");
 	}		
@@ -1241,6 +1302,7 @@ public class MatrixObject extends CacheableData
 		}
 		
 		LazyWriteBuffer.deleteMatrix(cacheFilePathAndName);
+		_persistedFileName = null;
 		
 		if( LOG.isTraceEnabled() )
 			LOG.trace("Freeing evicted matrix - COMPLETED ... " + (System.currentTimeMillis()-begin) + " msec.");		
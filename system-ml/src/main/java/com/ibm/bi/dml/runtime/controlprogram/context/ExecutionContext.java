@@ -34,6 +34,7 @@ import com.ibm.bi.dml.runtime.controlprogram.caching.CacheException;
 import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.cp.BooleanObject;
+import com.ibm.bi.dml.runtime.instructions.cp.CPOperand;
 import com.ibm.bi.dml.runtime.instructions.cp.Data;
 import com.ibm.bi.dml.runtime.instructions.cp.DoubleObject;
 import com.ibm.bi.dml.runtime.instructions.cp.FunctionCallCPInstruction;
@@ -194,16 +195,14 @@ public class ExecutionContext
 			switch (vt) {
 			case INT:
 				long intVal = UtilFunctions.parseToLong(name);				
-				IntObject intObj = new IntObject(intVal);
-				return intObj;
+				return IntObject.valueOf(intVal);
 			case DOUBLE:
 				double doubleVal = Double.parseDouble(name);
 				DoubleObject doubleObj = new DoubleObject(doubleVal);
 				return doubleObj;
 			case BOOLEAN:
-				Boolean boolVal = Boolean.parseBoolean(name);
-				BooleanObject boolObj = new BooleanObject(boolVal);
-				return boolObj;
+				boolean boolVal = Boolean.parseBoolean(name);
+				return BooleanObject.valueOf(boolVal);
 			case STRING:
 				StringObject stringObj = new StringObject(name);
 				return stringObj;
@@ -219,6 +218,29 @@ public class ExecutionContext
 			return (ScalarObject) obj;
 		}
 	}
+	
+	/**
+	 * Gets the scalar input of the given operand. For literal operands, the 
+	 * scalar object is created on first access and cached in the operand.
+	 * 
+	 * @param input
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public ScalarObject getScalarInput(CPOperand input)
+		throws DMLRuntimeException 
+	{
+		if( input.isLiteral() ) {
+			ScalarObject ret = input.getLiteral();
+			if( ret == null ) {
+				ret = getScalarInput(input.getName(), input.getValueType(), true);
+				input.setLiteral(ret);
+			}
+			return ret;
+		}
+		
+		return getScalarInput(input.getName(), input.getValueType(), false);
+	}
 
 	
 	public void setScalarOutput(String varName, ScalarObject so) 
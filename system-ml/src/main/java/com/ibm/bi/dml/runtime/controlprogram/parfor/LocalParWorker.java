@@ -36,6 +36,8 @@ import com.ibm.bi.dml.runtime.controlprogram.parfor.stat.Timing;
 public class LocalParWorker extends ParWorker implements Runnable
 {
 	protected LocalTaskQueue<Task> _taskQueue   = null;
+	protected LocalWorkStealingScheduler _scheduler = null; //alternative to task queue
+	protected int _schedulerIx = -1;
 	
 	protected Collection<String> _fnNames = null;
 	
@@ -60,6 +62,18 @@ public class LocalParWorker extends ParWorker implements Runnable
 		_stopped = true;
 	}
 	
+	/**
+	 * Sets a work-stealing scheduler, which is used instead of the task queue 
+	 * in order to obtain tasks for this worker.
+	 * 
+	 * @param scheduler
+	 * @param ix index of this worker in the scheduler
+	 */
+	public void setWorkStealingScheduler(LocalWorkStealingScheduler scheduler, int ix) {
+		_scheduler = scheduler;
+		_schedulerIx = ix;
+	}
+	
 	public void setFunctionNames(Collection<String> fnNames) {
 		_fnNames = fnNames;
 	}
@@ -82,13 +96,15 @@ public class LocalParWorker extends ParWorker implements Runnable
 		
 		// continuous execution (execute tasks until (1) stopped or (2) no more tasks)
 		Task lTask = null; 
+		long tbusy = 0; //time spent in task execution (rest is idle/scheduling time)
 		
 		while( !_stopped ) 
 		{
 			//dequeue the next task (abort on NO_MORE_TASKS or error)
 			try
 			{
-				lTask = _taskQueue.dequeueTask();
+				lTask = (_scheduler != null) ? 
+						_scheduler.nextTask(_schedulerIx) : _taskQueue.dequeueTask();
 				
 				if( lTask == LocalTaskQueue.NO_MORE_TASKS ) // task queue closed (no more tasks)
 					break; //normal end of parallel worker
@@ -104,6 +120,7 @@ public class LocalParWorker extends ParWorker implements Runnable
 			//execute the task sequentially (re-try on error)
 			boolean success = false;
 			int retrys = _max_retry;
+			long t0 = _monitor ? System.nanoTime() : 0;
 			
 			while( !success )
 			{
@@ -129,6 +146,9 @@ public class LocalParWorker extends ParWorker implements Runnable
 					}
 				}
 			}
+			
+			if( _monitor )
+				tbusy += System.nanoTime() - t0;
 		}	
 
 		//setup fair scheduler pool for worker thread
@@ -140,7 +160,10 @@ public class LocalParWorker extends ParWorker implements Runnable
 		if( _monitor ) {
 			StatisticMonitor.putPWStat(_workerID, Stat.PARWRK_NUMTASKS, _numTasks);
 			StatisticMonitor.putPWStat(_workerID, Stat.PARWRK_NUMITERS, _numIters);
-			StatisticMonitor.putPWStat(_workerID, Stat.PARWRK_EXEC_T, time1.stop());
+			double texec = time1.stop();
+			StatisticMonitor.putPWStat(_workerID, Stat.PARWRK_EXEC_T, texec);
+			StatisticMonitor.putPWStat(_workerID, Stat.PARWRK_BUSY_T, ((double)tbusy)/1000000);
+			StatisticMonitor.putPWStat(_workerID, Stat.PARWRK_IDLE_T, Math.max(texec-((double)tbusy)/1000000, 0));
 		}
 	}
 }
@@ -0,0 +1,199 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package com.ibm.bi.dml.runtime.controlprogram.parfor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.bi.dml.runtime.controlprogram.ParForProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.Task.TaskType;
+import com.ibm.bi.dml.runtime.instructions.cp.IntObject;
+
+/**
+ * Lock-free work-stealing scheduler for local parfor workers. Initially, the iteration 
+ * space (from, to, incr) is split into numThreads contiguous ranges, one per worker. Each 
+ * worker takes chunks of decreasing size from the front of its own range; if its range is 
+ * exhausted, the worker steals the back half of the remaining range of the most loaded worker.
+ * 
+ * Each range [lo, hi) of iteration ordinals is packed into a single AtomicLong, which allows
+ * owner and thieves to split ranges via compare-and-swap without any locks. Since every 
+ * iteration ordinal is handed out exactly once, a worker can safely terminate as soon as it 
+ * observes all ranges as empty.
+ * 
+ */
+public class LocalWorkStealingScheduler 
+{
+	//divisor for the chunk size taken from the own range (similar to factoring, x=2) 
+	public static final int CHUNK_DIVISOR = 2;
+	
+	private String       _iterVarName = null;
+	private long         _from        = -1;
+	private long         _incr        = -1;
+	private int          _numThreads  = -1;
+	private AtomicLong[] _ranges      = null;
+	
+	private AtomicLong   _numTasks    = null;
+	private AtomicLong   _numSteals   = null;
+	
+	public LocalWorkStealingScheduler( int numThreads, String iterVarName, IntObject fromVal, IntObject toVal, IntObject incrVal ) 
+	{
+		_iterVarName = iterVarName;
+		_from = fromVal.getLongValue();
+		_incr = incrVal.getLongValue();
+		_numThreads = numThreads;
+		
+		//initial static partitioning into equally sized contiguous ranges
+		long numIter = (long)Math.ceil(((double)(toVal.getLongValue()-_from+1 )) / _incr);
+		if( numIter > Integer.MAX_VALUE )
+			throw new RuntimeException("Number of iterations exceeds work-stealing range: "+numIter);
+		int N = (int) Math.max(numIter, 0);
+		_ranges = new AtomicLong[numThreads];
+		for( int i=0; i<numThreads; i++ ) {
+			int lo = (int)((long)N * i / numThreads);
+			int hi = (int)((long)N * (i+1) / numThreads);
+			_ranges[i] = new AtomicLong(pack(lo, hi));
+		}
+		
+		_numTasks = new AtomicLong(0);
+		_numSteals = new AtomicLong(0);
+	}
+	
+	/**
+	 * Returns the next task for the given worker, either from its own range or stolen
+	 * from another worker, or NO_MORE_TASKS if all ranges are exhausted.
+	 * 
+	 * @param workerIx index of the calling worker (0 to numThreads-1)
+	 * @return
+	 */
+	public Task nextTask( int workerIx )
+	{
+		AtomicLong own = _ranges[workerIx];
+		
+		while( true )
+		{
+			//take chunk from the front of the own range
+			long cur = own.get();
+			int lo = low(cur), hi = high(cur);
+			if( lo < hi ) {
+				int len = (int)Math.ceil((double)(hi-lo) / (CHUNK_DIVISOR * _numThreads));
+				len = Math.max(1, len);
+				if( own.compareAndSet(cur, pack(lo+len, hi)) )
+					return createTask(lo, lo+len);
+				continue; //concurrent steal, retry
+			}
+			
+			//steal back half of the most loaded range 
+			if( !steal(workerIx) )
+				return (Task) LocalTaskQueue.NO_MORE_TASKS;
+		}
+	}
+	
+	/**
+	 * 
+	 * @param workerIx
+	 * @return true if a range was stolen, false if all ranges are empty
+	 */
+	private boolean steal( int workerIx )
+	{
+		while( true )
+		{
+			//find victim with maximum remaining iterations
+			int victim = -1; 
+			long vcur = -1;
+			int vrem = 0;
+			for( int i=1; i<_numThreads; i++ ) {
+				int ix = (workerIx + i) % _numThreads;
+				long cur = _ranges[ix].get();
+				int rem = high(cur) - low(cur);
+				if( rem > vrem ) {
+					victim = ix; vcur = cur; vrem = rem;
+				}
+			}
+			if( victim < 0 ) //all ranges empty
+				return false;
+			
+			//split victim range, and take over back half as own range
+			int lo = low(vcur), hi = high(vcur);
+			int mid = hi - (int)Math.ceil((double)vrem/2);
+			if( _ranges[victim].compareAndSet(vcur, pack(lo, mid)) ) {
+				_ranges[workerIx].set(pack(mid, hi)); //own range empty, no concurrent thieves
+				_numSteals.incrementAndGet();
+				return true;
+			}
+			//concurrent modification of victim range, retry
+		}
+	}
+	
+	/**
+	 * 
+	 * @param lo
+	 * @param hi
+	 * @return
+	 */
+	private Task createTask( int lo, int hi )
+	{
+		long from = _from + (long)lo * _incr;
+		long to = _from + (long)(hi-1) * _incr;
+		int len = hi - lo;
+		
+		TaskType type = (ParForProgramBlock.USE_RANGE_TASKS_IF_USEFUL && len>3 ) ? 
+				TaskType.RANGE : TaskType.SET;
+		Task lTask = new Task( type );
+		if( type == TaskType.SET ) {
+			for( long i=from; i<=to; i+=_incr )
+				lTask.addIteration(new IntObject(_iterVarName, i));
+		}
+		else {
+			lTask.addIteration(new IntObject(_iterVarName, from));  //from
+			lTask.addIteration(new IntObject(_iterVarName, to));    //to
+			lTask.addIteration(new IntObject(_iterVarName, _incr)); //increment
+		}
+		
+		_numTasks.incrementAndGet();
+		return lTask;
+	}
+	
+	/**
+	 * Returns the number of created tasks, which is only final after all workers finished.
+	 * 
+	 * @return
+	 */
+	public long getNumCreatedTasks()
+	{
+		return _numTasks.get();
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	public long getNumSteals()
+	{
+		return _numSteals.get();
+	}
+	
+	private static long pack( int lo, int hi ) {
+		return ((long)lo << 32) | (hi & 0xFFFFFFFFL);
+	}
+	
+	private static int low( long range ) {
+		return (int)(range >>> 32);
+	}
+	
+	private static int high( long range ) {
+		return (int)range;
+	}
+}
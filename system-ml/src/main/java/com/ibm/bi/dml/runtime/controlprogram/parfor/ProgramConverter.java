@@ -17,12 +17,21 @@
 
 package com.ibm.bi.dml.runtime.controlprogram.parfor;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.StringTokenizer;
 import java.util.Map.Entry;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -138,6 +147,11 @@ public class ProgramConverter
 	
 	public static final String PARFOR_CONF_STATS = "stats";
 	
+	//binary parfor body format: magic, version, content hash, raw length, compressed length, deflated utf-8 plan
+	public static final int    PARFORBODY_BINARY_MAGIC   = 0x50464231; //"PFB1"
+	public static final byte   PARFORBODY_BINARY_VERSION = 1;
+	private static final int   PARFORBODY_BINARY_HEADER  = 4 + 1 + 8 + 4 + 4;
+	
 	
 	//exception msgs
 	public static final String NOT_SUPPORTED_EXTERNALFUNCTION_PB = "Not supported: ExternalFunctionProgramBlock contains MR instructions. " +
@@ -894,6 +908,153 @@ public class ProgramConverter
 		return sb.toString();		
 	}
 	
+	/**
+	 * Creates a compact binary representation of a serialized parfor body (see 
+	 * serializeParForBody), consisting of a versioned header with a content hash
+	 * and the deflate-compressed plan. The content hash allows remote workers to
+	 * parse the parfor body only once per JVM (see RemoteParForSparkWorker).
+	 * 
+	 * @param body
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static byte[] serializeParForBodyBinary( String body ) 
+		throws DMLRuntimeException
+	{
+		try
+		{
+			byte[] raw = body.getBytes("UTF-8");
+			
+			//compress plan (repetitive instruction strings compress very well)
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			deflater.setInput(raw);
+			deflater.finish();
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(raw.length/4 + 64);
+			byte[] buff = new byte[8192];
+			while( !deflater.finished() ) {
+				int len = deflater.deflate(buff);
+				bos.write(buff, 0, len);
+			}
+			deflater.end();
+			byte[] comp = bos.toByteArray();
+			
+			//write header and compressed plan
+			ByteArrayOutputStream ret = new ByteArrayOutputStream(PARFORBODY_BINARY_HEADER + comp.length);
+			DataOutputStream dos = new DataOutputStream(ret);
+			dos.writeInt(PARFORBODY_BINARY_MAGIC);
+			dos.writeByte(PARFORBODY_BINARY_VERSION);
+			dos.writeLong(computeContentHash(raw));
+			dos.writeInt(raw.length);
+			dos.writeInt(comp.length);
+			dos.write(comp);
+			dos.close();
+			
+			return ret.toByteArray();
+		}
+		catch(IOException ex) {
+			throw new DMLRuntimeException("Failed to serialize binary parfor body.", ex);
+		}
+	}
+	
+	/**
+	 * Returns the content hash of a binary parfor body without decompressing the plan.
+	 * 
+	 * @param in
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static long getParForBodyBinaryHash( byte[] in ) 
+		throws DMLRuntimeException
+	{
+		try {
+			DataInputStream dis = new DataInputStream(new ByteArrayInputStream(in));
+			checkParForBodyBinaryHeader(dis);
+			return dis.readLong();
+		}
+		catch(IOException ex) {
+			throw new DMLRuntimeException("Failed to read binary parfor body header.", ex);
+		}
+	}
+	
+	/**
+	 * Decompresses a binary parfor body into its string representation, incl
+	 * validation of format version and content hash.
+	 * 
+	 * @param in
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static String deserializeParForBodyBinary( byte[] in ) 
+		throws DMLRuntimeException
+	{
+		try
+		{
+			DataInputStream dis = new DataInputStream(new ByteArrayInputStream(in));
+			checkParForBodyBinaryHeader(dis);
+			long hash = dis.readLong();
+			byte[] raw = new byte[dis.readInt()];
+			byte[] comp = new byte[dis.readInt()];
+			dis.readFully(comp);
+			
+			//decompress plan
+			Inflater inflater = new Inflater();
+			inflater.setInput(comp);
+			int off = 0;
+			while( off < raw.length && !inflater.finished() )
+				off += inflater.inflate(raw, off, raw.length-off);
+			inflater.end();
+			
+			if( off != raw.length || computeContentHash(raw) != hash )
+				throw new DMLRuntimeException("Corrupted binary parfor body (hash="+hash+").");
+			
+			return new String(raw, "UTF-8");
+		}
+		catch(IOException ex) {
+			throw new DMLRuntimeException("Failed to deserialize binary parfor body.", ex);
+		}
+		catch(DataFormatException ex) {
+			throw new DMLRuntimeException("Failed to decompress binary parfor body.", ex);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param dis
+	 * @throws IOException
+	 * @throws DMLRuntimeException
+	 */
+	private static void checkParForBodyBinaryHeader( DataInputStream dis ) 
+		throws IOException, DMLRuntimeException
+	{
+		int magic = dis.readInt();
+		byte version = dis.readByte();
+		if( magic != PARFORBODY_BINARY_MAGIC )
+			throw new DMLRuntimeException("Invalid binary parfor body (magic="+Integer.toHexString(magic)+").");
+		if( version != PARFORBODY_BINARY_VERSION )
+			throw new DMLRuntimeException("Unsupported binary parfor body version: "+version+" (expected "+PARFORBODY_BINARY_VERSION+").");
+	}
+	
+	/**
+	 * 
+	 * @param raw
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static long computeContentHash( byte[] raw ) 
+		throws DMLRuntimeException
+	{
+		try {
+			byte[] md5 = MessageDigest.getInstance("MD5").digest(raw);
+			long ret = 0;
+			for( int i=0; i<8; i++ )
+				ret = (ret << 8) | (md5[i] & 0xff);
+			return ret;
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException("Failed to compute parfor body hash.", ex);
+		}
+	}
+	
 	/**
 	 * 
 	 * @param prog
@@ -1529,6 +1690,20 @@ public class ProgramConverter
 	////////////////////////////////
 	
 	
+	/**
+	 * 
+	 * @param in
+	 * @param id
+	 * @return
+	 * @throws DMLRuntimeException
+	 * @throws DMLUnsupportedOperationException 
+	 */
+	public static ParForBody parseParForBodyBinary( byte[] in, int id ) 
+		throws DMLRuntimeException, DMLUnsupportedOperationException
+	{
+		return parseParForBody(deserializeParForBodyBinary(in), id);
+	}
+	
 	/**
 	 * 
 	 * @param in
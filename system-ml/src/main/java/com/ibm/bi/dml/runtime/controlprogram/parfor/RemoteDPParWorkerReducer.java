@@ -227,7 +227,7 @@ public class RemoteDPParWorkerReducer extends ParWorker
 			//print heaver hitter per task
 			JobConf job = ConfigurationManager.getCachedJobConf();
 			if( DMLScript.STATISTICS && !InfrastructureAnalyzer.isLocalMode(job) )
-				LOG.info("\nSystemML Statistics:\nHeavy hitter instructions (name, time, count):\n" + Statistics.getHeavyHitters(10));		
+				LOG.info("\nSystemML Statistics:\nHeavy hitter instructions (name, time, count, avg, max):\n" + Statistics.getHeavyHitters(10));		
 		}
 		catch(Exception ex)
 		{
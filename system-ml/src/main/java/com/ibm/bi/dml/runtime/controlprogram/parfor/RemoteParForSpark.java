@@ -32,6 +32,7 @@ import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.controlprogram.LocalVariableMap;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
 import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
 import com.ibm.bi.dml.utils.Statistics;
 
 /**
@@ -52,6 +53,9 @@ public class RemoteParForSpark
 	
 	protected static final Log LOG = LogFactory.getLog(RemoteParForSpark.class.getName());
 	
+	//sequence of remote parfor jobs (for worker reuse only within a job)
+	private static IDSequence _seqJobID = new IDSequence();
+	
 	/**
 	 * 
 	 * @param pfid
@@ -80,7 +84,10 @@ public class RemoteParForSpark
 		
 		//run remote_spark parfor job 
 		//(w/o lazy evaluation to fit existing parfor framework, e.g., result merge)
-		RemoteParForSparkWorker func = new RemoteParForSparkWorker(program, cpCaching, aTasks, aIters);
+		//(binary parfor body, parsed once per executor and job)
+		String jobID = DMLScript.getUUID() + "_" + pfid + "_" + _seqJobID.getNextID();
+		byte[] bprogram = ProgramConverter.serializeParForBodyBinary( program );
+		RemoteParForSparkWorker func = new RemoteParForSparkWorker(jobID, bprogram, cpCaching, aTasks, aIters);
 		List<Tuple2<Long,String>> out = 
 				sc.parallelize( tasks, numMappers )  //create rdd of parfor tasks
 		          .flatMapToPair( func )             //execute parfor tasks 
@@ -19,6 +19,9 @@ package com.ibm.bi.dml.runtime.controlprogram.parfor;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
 
 import org.apache.spark.Accumulator;
 import org.apache.spark.TaskContext;
@@ -26,14 +29,29 @@ import org.apache.spark.api.java.function.PairFlatMapFunction;
 
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
+import com.ibm.bi.dml.runtime.controlprogram.LocalVariableMap;
+import com.ibm.bi.dml.runtime.controlprogram.ParForProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.ProgramBlock;
 import com.ibm.bi.dml.runtime.controlprogram.caching.CacheableData;
+import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
+import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDHandler;
+import com.ibm.bi.dml.runtime.instructions.cp.Data;
 import com.ibm.bi.dml.runtime.util.LocalFileUtils;
 
 import scala.Tuple2;
 
 /**
+ * Remote ParWorker implementation, realized as Spark flatmap function.
  * 
+ * The parfor body is shipped in binary form (see ProgramConverter.serializeParForBodyBinary)
+ * and parsed at most once per executor JVM and concurrently running task. Configured workers
+ * are kept in a JVM-wide pool, keyed by parfor job and content hash of the parfor body, and 
+ * reused by subsequent tasks of the same job (similar to JVM reuse of remote MR workers).
+ * Before a configured worker is returned to the pool, its symbol table is reset to the parfor
+ * inputs and the data of all other matrices (e.g., exported results) is released. Hence, with
+ * reuse, the results of each parfor task are exported under their own unique result id.
  * 
  */
 public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFunction<Task, Long, String> 
@@ -41,20 +59,47 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 	
 	private static final long serialVersionUID = -3254950138084272296L;
 
+	//pool of configured workers for reuse across tasks (keyed by job id and body hash)
+	//NOTE: bounded number of parfor bodies and idle workers per body in order to prevent leaks
+	private static final int MAX_CACHED_BODIES = 8;
+	private static final int MAX_CACHED_WORKERS = Math.max(InfrastructureAnalyzer.getLocalParallelism(), 1);
+	private static LinkedHashMap<String, LinkedList<CachedWorker>> _sCache = null;
+	
+	static
+	{
+		//init cache (once per JVM)
+		_sCache = new LinkedHashMap<String, LinkedList<CachedWorker>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 4719342398761390212L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, LinkedList<CachedWorker>> eldest) {
+				if( size() > MAX_CACHED_BODIES ) {
+					for( CachedWorker worker : eldest.getValue() )
+						worker.release();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+	
 	private boolean _initialized = false;
-	private String  _prog = null;
+	private byte[]  _prog = null;
+	private String  _cacheKey = null;
 	private boolean _caching = true;
+	private LocalVariableMap _inputs = null; //initial symbol table of configured worker
+	private int     _numCalls = 0;
 	
 	private Accumulator<Integer> _aTasks = null;
 	private Accumulator<Integer> _aIters = null;
 	
-	public RemoteParForSparkWorker(String program, boolean cpCaching, Accumulator<Integer> atasks, Accumulator<Integer> aiters) 
+	public RemoteParForSparkWorker(String jobID, byte[] program, boolean cpCaching, Accumulator<Integer> atasks, Accumulator<Integer> aiters) 
 		throws DMLRuntimeException, DMLUnsupportedOperationException
 	{
 		//keep inputs (unfortunately, spark does not expose task ids and it would be implementation-dependent
 		//when this constructor is actually called; hence, we do lazy initialization on task execution)
 		_initialized = false;
 		_prog = program;
+		_cacheKey = jobID + "_" + ProgramConverter.getParForBodyBinaryHash(program);
 		_caching = cpCaching;
 		
 		//setup spark accumulators
@@ -66,9 +111,12 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 	public Iterable<Tuple2<Long, String>> call(Task arg0)
 		throws Exception 
 	{
-		//lazy parworker initialization
-		if( !_initialized )
-			configureWorker( TaskContext.get().taskAttemptId() ); //requires Spark 1.3
+		boolean reuse = ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER;
+		long taskID = TaskContext.get().taskAttemptId(); //requires Spark 1.3
+		
+		//lazy parworker initialization (reuse of idle configured worker, if possible)
+		if( !_initialized && !(reuse && reuseCachedWorker()) )
+			configureWorker( taskID );
 		
 		//execute a single task
 		long numIter = getExecutedIterations();
@@ -80,14 +128,97 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 		
 		//write output if required (matrix indexed write) 
 		//note: this copy is necessary for environments without spark libraries
+		//(without reuse, results accumulate in the worker's symbol table and later
+		//exports replace earlier exports; with reuse, results are exported per task)
+		long resultID = reuse ? IDHandler.concatIntIDsToLong((int)taskID, _numCalls++) : _workerID;
 		ArrayList<Tuple2<Long,String>> ret = new ArrayList<Tuple2<Long,String>>();
-		ArrayList<String> tmp = RemoteParForUtils.exportResultVariables( _workerID, _ec.getVariables(), _resultVars );
+		ArrayList<String> tmp = RemoteParForUtils.exportResultVariables( resultID, _ec.getVariables(), _resultVars );
 		for( String val : tmp )
-			ret.add(new Tuple2<Long,String>(_workerID, val));
-			
+			ret.add(new Tuple2<Long,String>(resultID, val));
+		
+		//return reset worker to pool (only on successful task execution)
+		if( reuse )
+			returnCachedWorker();
+		
 		return ret;
 	}
 	
+	/**
+	 * Probes the pool for an idle worker of the same parfor job and body, and
+	 * takes over its configured state (body, symbol table, worker id).
+	 * 
+	 * @return true if an idle worker was reused
+	 */
+	private boolean reuseCachedWorker()
+	{
+		CachedWorker tmp = null;
+		synchronized( _sCache ) {
+			LinkedList<CachedWorker> workers = _sCache.get(_cacheKey);
+			if( workers != null && !workers.isEmpty() )
+				tmp = workers.removeFirst();
+		}
+		
+		if( tmp != null ) {
+			_workerID    = tmp.workerID;
+			_childBlocks = tmp.childBlocks;
+			_ec          = tmp.ec;
+			_inputs      = tmp.inputs;
+			_resultVars  = tmp.resultVars;
+			_initialized = true;
+			LOG.trace("reuse configured RemoteParForSparkWorker "+_workerID);
+		}
+		
+		return _initialized;
+	}
+	
+	/**
+	 * Resets the symbol table of this worker to the initial parfor inputs, 
+	 * releases the data of all other matrices (incl. already exported results),
+	 * and returns its configured state to the pool (if not exceeding the max 
+	 * number of idle workers per parfor body). The state is detached from this
+	 * function object in order to prevent concurrent use by subsequent tasks.
+	 * 
+	 * @throws DMLRuntimeException
+	 */
+	private void returnCachedWorker() 
+		throws DMLRuntimeException
+	{
+		//reset symbol table and release intermediates/results
+		LocalVariableMap vars = _ec.getVariables();
+		for( String var : vars.keySet() ) {
+			Data dat = vars.get(var);
+			if( dat instanceof MatrixObject && !_inputs.hasReferences(dat) ) {
+				MatrixObject mo = (MatrixObject) dat;
+				mo.enableCleanup(true); //unpin results
+				mo.clearData();
+			}
+		}
+		vars.removeAll();
+		vars.putAll(_inputs);
+		
+		//return detached state to bounded pool
+		CachedWorker worker = new CachedWorker(_workerID, _childBlocks, _ec, _inputs, _resultVars);
+		boolean pooled = false;
+		synchronized( _sCache ) {
+			if( !_sCache.containsKey(_cacheKey) )
+				_sCache.put(_cacheKey, new LinkedList<CachedWorker>());
+			LinkedList<CachedWorker> workers = _sCache.get(_cacheKey);
+			if( workers.size() < MAX_CACHED_WORKERS ) {
+				workers.add(worker);
+				pooled = true;
+			}
+		}
+		if( !pooled )
+			worker.release();
+		
+		//detach state from this function object
+		_childBlocks = null;
+		_ec          = null;
+		_inputs      = null;
+		_resultVars  = null;
+		_initialized = false;
+	}
+	
 	/**
 	 * 
 	 * @param ID
@@ -101,7 +232,7 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 		_workerID = ID;
 		
 		//parse and setup parfor body program
-		ParForBody body = ProgramConverter.parseParForBody(_prog, (int)_workerID);
+		ParForBody body = ProgramConverter.parseParForBodyBinary(_prog, (int)_workerID);
 		_childBlocks = body.getChildBlocks();
 		_ec          = body.getEc();				
 		_resultVars  = body.getResultVarNames();
@@ -121,6 +252,9 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 		//ensure that resultvar files are not removed
 		super.pinResultVariables();
 		
+		//keep initial symbol table for reset before reuse
+		_inputs = new LocalVariableMap( _ec.getVariables() );
+		
 		//enable/disable caching (if required)
 		if( !_caching )
 			CacheableData.disableCaching();
@@ -128,4 +262,46 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 		//make as lazily intialized
 		_initialized = true;
 	}
+	
+	/**
+	 * Configured state of an idle worker in the pool.
+	 */
+	private static class CachedWorker
+	{
+		private final long workerID;
+		private final ArrayList<ProgramBlock> childBlocks;
+		private final ExecutionContext ec;
+		private final LocalVariableMap inputs;
+		private final ArrayList<String> resultVars;
+		
+		public CachedWorker( long id, ArrayList<ProgramBlock> pbs, ExecutionContext ec, LocalVariableMap inputs, ArrayList<String> rvars ) {
+			this.workerID = id;
+			this.childBlocks = pbs;
+			this.ec = ec;
+			this.inputs = inputs;
+			this.resultVars = rvars;
+		}
+		
+		/**
+		 * Releases the data of all matrices of a worker that is dropped from the pool.
+		 */
+		public void release()
+		{
+			try {
+				for( String var : inputs.keySet() ) {
+					Data dat = inputs.get(var);
+					if( dat instanceof MatrixObject ) {
+						MatrixObject mo = (MatrixObject) dat;
+						mo.enableCleanup(true);
+						mo.clearData();
+					}
+				}
+				inputs.removeAll();
+				ec.getVariables().removeAll();
+			}
+			catch(DMLRuntimeException ex) {
+				LOG.warn("Failed to release RemoteParForSparkWorker "+workerID+".", ex);
+			}
+		}
+	}
 }
@@ -68,8 +68,14 @@ public class ResultMergeLocalAutomatic extends ResultMerge
 		long rows = mc.getRows();
 		long cols = mc.getCols();
 		
+		//parallel in-memory merge pins all inputs, otherwise fallback to serial 
+		//in-memory merge before falling back to the file-based result merge
 		if( OptimizerRuleBased.isInMemoryResultMerge(par * rows, cols, OptimizerUtils.getLocalMemBudget()) )
 			_rm = new ResultMergeLocalMemory( _output, _inputs, _outputFName );
+		else if( OptimizerRuleBased.isInMemoryResultMerge(rows, cols, OptimizerUtils.getLocalMemBudget()) ) {
+			_rm = new ResultMergeLocalMemory( _output, _inputs, _outputFName );
+			return _rm.executeSerialMerge();
+		}
 		else
 			_rm = new ResultMergeLocalFile( _output, _inputs, _outputFName );
 		
@@ -18,7 +18,13 @@
 package com.ibm.bi.dml.runtime.controlprogram.parfor;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.parser.Expression.DataType;
 import com.ibm.bi.dml.parser.Expression.ValueType;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
@@ -29,6 +35,7 @@ import com.ibm.bi.dml.runtime.matrix.MatrixFormatMetaData;
 import com.ibm.bi.dml.runtime.matrix.data.InputInfo;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.data.OutputInfo;
+import com.ibm.bi.dml.runtime.matrix.data.SparseRow;
 import com.ibm.bi.dml.runtime.util.DataConverter;
 
 /**
@@ -143,58 +150,74 @@ public class ResultMergeLocalMemory extends ResultMerge
 	{		
 		MatrixObject moNew = null; //always create new matrix object (required for nested parallelism)
 	
-		//Timing time = null;
 		LOG.trace("ResultMerge (local, in-memory): Execute parallel (par="+par+") merge for output "+_output.getVarName()+" (fname="+_output.getFileName()+")");
-		//	time = new Timing();
-		//	time.start();
 		
-
+		ArrayList<MatrixObject> inMO = new ArrayList<MatrixObject>();
+		for( MatrixObject in : _inputs )
+		{
+			//check for empty inputs (no iterations executed)
+			if( in !=null && in != _output ) 
+				inMO.add( in );
+		}
+		
+		//graceful degradation to serial merge (if all inputs do not fit in memory)
+		int numThreads = Math.min(par, InfrastructureAnalyzer.getLocalParallelism()); //ensure robustness for remote exec
+		if( numThreads <= 1 || !isInMemoryParallelMerge(inMO) )
+			return executeSerialMerge();
+		
 		try
 		{
 			//get matrix blocks through caching 
 			MatrixBlock outMB = _output.acquireRead();
-			ArrayList<MatrixObject> inMO = new ArrayList<MatrixObject>();
-			for( MatrixObject in : _inputs )
-			{
-				//check for empty inputs (no iterations executed)
-				if( in !=null && in != _output ) 
-					inMO.add( in );
-			}
 			
 			if( !inMO.isEmpty() ) //if there exist something to merge
 			{
-				//get old output matrix from cache for compare
-				//NOTE: always in dense representation in order to allow for parallel unsynchronized access 
-				long rows = outMB.getNumRows();
-				long cols = outMB.getNumColumns();
-				MatrixBlock outMBNew = new MatrixBlock((int)rows, (int)cols, false);
-				outMBNew.allocateDenseBlockUnsafe((int)rows, (int)cols);
-				
-				//create compare matrix if required (existing data in result)
-				_compare = createCompareMatrix(outMB);
-				if( _compare != null )
-					outMBNew.copy(outMB);
+				//pin all inputs (required for row-partitioned merge over all inputs)
+				MatrixBlock[] inMB = new MatrixBlock[inMO.size()];
+				for( int i=0; i<inMB.length; i++ ) {
+					LOG.trace("ResultMerge (local, in-memory): Pin input "+inMO.get(i).getVarName()+" (fname="+inMO.get(i).getFileName()+")");
+					inMB[i] = inMO.get(i).acquireRead(); //incl. implicit read from HDFS
+				}
 				
-				//parallel merge of all inputs
-
-				int numThreads = Math.min(par, inMO.size()); //number of inputs can be lower than par
-				numThreads = Math.min(numThreads, InfrastructureAnalyzer.getLocalParallelism()); //ensure robustness for remote exec
-				Thread[] threads = new Thread[ numThreads ];
-				for( int k=0; k<inMO.size(); k+=numThreads ) //multiple waves if necessary
-				{
-					//create and start threads
-					for( int i=0; i<threads.length; i++ )
-					{
-						ResultMergeWorker rmw = new ResultMergeWorker(inMO.get(k+i), outMBNew);
-						threads[i] = new Thread(rmw);
-						threads[i].setPriority(Thread.MAX_PRIORITY);
-						threads[i].start(); // start execution
-					}	
-					//wait for all workers to finish
-					for( int i=0; i<threads.length; i++ )
-					{
-						threads[i].join();
+				//create dense output (allows for parallel unsynchronized writes to disjoint rows)
+				//and dense compare block if required (existing data in result)
+				int rows = outMB.getNumRows();
+				int cols = outMB.getNumColumns();
+				MatrixBlock outMBNew = new MatrixBlock(rows, cols, false);
+				MatrixBlock compare = null;
+				if( outMB.getNonZeros() > 0 ) {
+					compare = outMB;
+					if( compare.isInSparseFormat() ) {
+						compare = new MatrixBlock(rows, cols, false);
+						compare.copy(outMB, false);
 					}
+					outMBNew.copy(compare, false);
+				}
+				else
+					outMBNew.allocateDenseBlockUnsafe(rows, cols);
+				
+				//parallel merge of all inputs, partitioned by row blocks of the output
+				int brlen = Math.max(1, _output.getMatrixCharacteristics().getRowsPerBlock());
+				int numBlks = (int)Math.ceil((double)rows/brlen);
+				int blklen = (int)Math.ceil((double)numBlks/numThreads) * brlen;
+				ExecutorService pool = Executors.newFixedThreadPool( numThreads );
+				ArrayList<ResultMergeRowsTask> tasks = new ArrayList<ResultMergeRowsTask>();
+				for( int i=0; i<numThreads && i*blklen<rows; i++ )
+					tasks.add(new ResultMergeRowsTask(inMB, outMBNew, compare, brlen, 
+							i*blklen, Math.min((i+1)*blklen, rows)));
+				List<Future<Long>> rtasks = pool.invokeAll(tasks);	
+				pool.shutdown();
+				
+				//aggregate partial nnz (maintained per row partition)
+				long nnz = 0;
+				for( Future<Long> rtask : rtasks )
+					nnz += rtask.get();
+				outMBNew.setNonZeros(nnz);
+				
+				//unpin and clear in-memory inputs
+				for( MatrixObject in : inMO ) {
+					in.release();
+					in.clearData();
 				}
 				
 				//create new output matrix 
@@ -209,18 +232,39 @@ public class ResultMergeLocalMemory extends ResultMerge
 			
 			//release old output, and all inputs
 			_output.release();			
-			//_output.clearData(); //save, since it respects pin/unpin  
 		}
 		catch(Exception ex)
 		{
 			throw new DMLRuntimeException(ex);
 		}
 		
-		//LOG.trace("ResultMerge (local, in-memory): Executed parallel (par="+par+") merge for output "+_output.getVarName()+" (fname="+_output.getFileName()+") in "+time.stop()+"ms");
-
 		return moNew;		
 	}
-
+	
+	/**
+	 * Checks if the output, its dense copy for compare, and all pinned inputs
+	 * fit into the local memory budget.
+	 * 
+	 * @param inMO
+	 * @return
+	 */
+	private boolean isInMemoryParallelMerge( ArrayList<MatrixObject> inMO )
+	{
+		MatrixCharacteristics mc = _output.getMatrixCharacteristics();
+		if( !mc.dimsKnown() )
+			return false;
+		
+		//2x dense output (incl compare), 1x output, and all inputs
+		double mem = 3 * MatrixBlock.estimateSizeDenseInMemory(mc.getRows(), mc.getCols());
+		for( MatrixObject in : inMO ) {
+			MatrixCharacteristics mcIn = in.getMatrixCharacteristics();
+			double sp = mcIn.nnzKnown() ? OptimizerUtils.getSparsity(mc.getRows(), mc.getCols(), mcIn.getNonZeros()) : 1.0;
+			mem += MatrixBlock.estimateSizeInMemory(mc.getRows(), mc.getCols(), sp);
+		}
+		
+		return ( mem < OptimizerUtils.getLocalMemBudget() );
+	}
+	
 	/**
 	 * 
 	 * @param output
@@ -302,37 +346,154 @@ public class ResultMergeLocalMemory extends ResultMerge
 	
 	
 	/**
-	 * NOTE: only used if matrix in dense
+	 * Merges all inputs for a row range [rl,ru) directly into the shared dense output.
+	 * Returns the number of non-zeros in the row range.
+	 * 
+	 * NOTE: only used if output in dense
 	 */
-	private class ResultMergeWorker implements Runnable
+	private static class ResultMergeRowsTask implements Callable<Long>
 	{
-		private MatrixObject _inMO  = null;
-		private MatrixBlock  _outMB = null;
+		private MatrixBlock[] _in = null;
+		private MatrixBlock _out = null;
+		private MatrixBlock _compare = null;
+		private int _brlen = -1;
+		private int _rl = -1;
+		private int _ru = -1;
 		
-		public ResultMergeWorker(MatrixObject inMO, MatrixBlock outMB)
+		protected ResultMergeRowsTask( MatrixBlock[] in, MatrixBlock out, MatrixBlock compare, int brlen, int rl, int ru )
 		{
-			_inMO  = inMO;
-			_outMB = outMB;
+			_in = in;
+			_out = out;
+			_compare = compare;
+			_brlen = brlen;
+			_rl = rl;
+			_ru = ru;
 		}
 
 		@Override
-		public void run() 
+		public Long call() 
+			throws DMLRuntimeException
 		{
-			//read each input if required
-			try
+			double[] c = _out.getDenseArray();
+			int n = _out.getNumColumns();
+			
+			for( int bi=_rl; bi<_ru; bi+=_brlen )
 			{
-				LOG.trace("ResultMerge (local, in-memory): Merge input "+_inMO.getVarName()+" (fname="+_inMO.getFileName()+")");
+				int bimin = Math.min(_ru, bi+_brlen);
 				
-				MatrixBlock inMB = _inMO.acquireRead(); //incl. implicit read from HDFS
-				merge( _outMB, inMB, false );
-				_inMO.release();
-				_inMO.clearData();
+				if( _compare == null ) //merge w/o compare
+				{
+					for( MatrixBlock in : _in )
+						if( !in.isEmptyBlock(false) )
+							mergeWithoutComp(in, c, n, bi, bimin);
+				}
+				else //merge w/ compare
+				{
+					double[] cmp = _compare.getDenseArray();
+					for( MatrixBlock in : _in )
+						mergeWithComp(in, c, cmp, n, bi, bimin);
+				}
+			}
+			
+			//count non-zeros of row range
+			long nnz = 0;
+			for( int i=_rl*n; i<_ru*n; i++ )
+				nnz += (c[i]!=0) ? 1 : 0;
+			
+			return nnz;
+		}
+		
+		/**
+		 * 
+		 * @param in
+		 * @param c
+		 * @param n
+		 * @param rl
+		 * @param ru
+		 */
+		private static void mergeWithoutComp( MatrixBlock in, double[] c, int n, int rl, int ru )
+		{
+			if( in.isInSparseFormat() ) //sparse input format
+			{
+				SparseRow[] a = in.getSparseRows();
+				for( int i=rl, cix=rl*n; i<ru; i++, cix+=n )
+					if( a[i] != null && !a[i].isEmpty() ) {
+						int alen = a[i].size();
+						int[] aix = a[i].getIndexContainer();
+						double[] avals = a[i].getValueContainer();
+						for( int j=0; j<alen; j++ )
+							if( avals[j] != 0 )
+								c[cix+aix[j]] = avals[j];
+					}
 			}
-			catch(Exception ex)
+			else //dense input format
 			{
-				throw new RuntimeException("Failed to parallel merge result.", ex);
+				double[] a = in.getDenseArray();
+				for( int i=rl*n; i<ru*n; i++ )
+					if( a[i] != 0 )
+						c[i] = a[i];
 			}
 		}
 		
+		/**
+		 * Sparse-safe merge with compare (see ResultMerge.mergeWithComp for semantics).
+		 * 
+		 * @param in
+		 * @param c
+		 * @param cmp
+		 * @param n
+		 * @param rl
+		 * @param ru
+		 */
+		private static void mergeWithComp( MatrixBlock in, double[] c, double[] cmp, int n, int rl, int ru )
+		{
+			if( in.isInSparseFormat() ) //sparse input format
+			{
+				//iterate over all cells in order to compare values set to 0
+				SparseRow[] a = in.getSparseRows();
+				for( int i=rl, cix=rl*n; i<ru; i++, cix+=n ) 
+				{
+					SparseRow arow = (a!=null) ? a[i] : null;
+					int alen = (arow!=null) ? arow.size() : 0;
+					int[] aix = (alen>0) ? arow.getIndexContainer() : null;
+					double[] avals = (alen>0) ? arow.getValueContainer() : null;
+					for( int j=0, apos=0; j<n; j++ ) {
+						double value = 0;
+						if( apos<alen && aix[apos]==j )
+							value = avals[apos++];
+						if( isNewValue(value, cmp[cix+j]) )
+							c[cix+j] = value;
+					}
+				}
+			}
+			else //dense input format
+			{
+				double[] a = in.getDenseArray();
+				if( a == null ) //empty dense block
+				{
+					for( int i=rl*n; i<ru*n; i++ )
+						if( isNewValue(0, cmp[i]) )
+							c[i] = 0;
+				}
+				else
+				{
+					for( int i=rl*n; i<ru*n; i++ )
+						if( isNewValue(a[i], cmp[i]) )
+							c[i] = a[i];
+				}
+			}
+		}
+		
+		/**
+		 * 
+		 * @param value
+		 * @param compare
+		 * @return
+		 */
+		private static boolean isNewValue( double value, double compare )
+		{
+			return (value != compare && !Double.isNaN(value) )      //for new values only (div)
+				|| Double.isNaN(value) != Double.isNaN(compare); //NaN awareness
+		}
 	}
 }
@@ -0,0 +1,49 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package com.ibm.bi.dml.runtime.controlprogram.parfor;
+
+import com.ibm.bi.dml.runtime.instructions.cp.IntObject;
+
+/**
+ * This work-stealing task partitioner is used for local parfor execution with a
+ * LocalWorkStealingScheduler, where local workers split remaining iteration ranges on
+ * demand. For task creation in advance (e.g., remote parfor), it falls back to factoring 
+ * because dynamic range splitting is only possible for workers in the same JVM.
+ * 
+ */
+public class TaskPartitionerWorkStealing extends TaskPartitionerFactoring
+{
+	
+	private int _numThreads = -1;
+	
+	public TaskPartitionerWorkStealing( long taskSize, int numThreads, String iterVarName, IntObject fromVal, IntObject toVal, IntObject incrVal ) 
+	{
+		super(taskSize, numThreads, iterVarName, fromVal, toVal, incrVal);
+		
+		_numThreads = numThreads;
+	}
+	
+	/**
+	 * Creates a lock-free work-stealing scheduler over the iteration space.
+	 * 
+	 * @return
+	 */
+	public LocalWorkStealingScheduler createScheduler()
+	{
+		return new LocalWorkStealingScheduler(_numThreads, _iterVarName, _fromVal, _toVal, _incrVal);
+	}
+}
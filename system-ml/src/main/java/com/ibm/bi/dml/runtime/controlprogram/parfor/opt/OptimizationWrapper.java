@@ -37,6 +37,7 @@ import com.ibm.bi.dml.hops.rewrite.ProgramRewriter;
 import com.ibm.bi.dml.hops.rewrite.RewriteConstantFolding;
 import com.ibm.bi.dml.hops.rewrite.RewriteRemoveUnnecessaryBranches;
 import com.ibm.bi.dml.hops.rewrite.StatementBlockRewriteRule;
+import com.ibm.bi.dml.hops.recompile.RecompileMemo;
 import com.ibm.bi.dml.hops.recompile.Recompiler;
 import com.ibm.bi.dml.parser.DMLProgram;
 import com.ibm.bi.dml.parser.ForStatement;
@@ -172,6 +173,9 @@ public class OptimizationWrapper
 		//execute optimizer
 		optimize( type, ck, cm, sb, pb, ec, monitor );
 		
+		//invalidate memoized recompiled instructions (in-place hop modifications)
+		RecompileMemo.invalidateAll();
+		
 		double timeVal = time.stop();
 		LOG.debug("ParFOR Opt: Finished optimization for PARFOR("+pb.getID()+") in "+timeVal+"ms.");
 		//System.out.println("ParFOR Opt: Finished optimization for PARFOR("+pb.getID()+") in "+timeVal+"ms.");
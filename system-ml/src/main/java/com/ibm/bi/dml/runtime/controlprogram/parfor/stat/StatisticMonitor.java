@@ -56,7 +56,7 @@ public class StatisticMonitor
 	 * @param pfid
 	 * @param pwid
 	 */
-	public static void putPfPwMapping( long pfid, long pwid )
+	public static synchronized void putPfPwMapping( long pfid, long pwid )
 	{
 		if( _disabled )
 			return; // do nothing
@@ -71,7 +71,7 @@ public class StatisticMonitor
 	 * @param type
 	 * @param s
 	 */
-	public static void putPFStat( long id, Stat type, double s)
+	public static synchronized void putPFStat( long id, Stat type, double s)
 	{
 		if( _disabled )
 			return; // do nothing
@@ -97,7 +97,7 @@ public class StatisticMonitor
 	 * @param type
 	 * @param s
 	 */
-	public static void putPWStat( long id, Stat type, double s)
+	public static synchronized void putPWStat( long id, Stat type, double s)
 	{
 		if( _disabled )
 			return; // do nothing
@@ -51,7 +51,7 @@ public class Builtin extends ValueFunction
 	public enum BuiltinFunctionCode { INVALID, SIN, COS, TAN, ASIN, ACOS, ATAN, LOG, LOG_NZ, MIN, MAX, ABS, SQRT, EXP, PLOGP, PRINT, NROW, NCOL, LENGTH, ROUND, MAXINDEX, MININDEX, STOP, CEIL, FLOOR, CUMSUM, CUMPROD, CUMMIN, CUMMAX, INVERSE, SPROP, SIGMOID, SELP };
 	public BuiltinFunctionCode bFunc;
 	
-	private static final boolean FASTMATH = true;
+	public static final boolean FASTMATH = true;
 	
 	static public HashMap<String, BuiltinFunctionCode> String2BuiltinFunctionCode;
 	static {
@@ -59,6 +59,7 @@ import com.ibm.bi.dml.runtime.instructions.cp.VariableCPInstruction;
 import com.ibm.bi.dml.runtime.instructions.cp.CPInstruction.CPINSTRUCTION_TYPE;
 import com.ibm.bi.dml.runtime.instructions.cpfile.MatrixIndexingCPFileInstruction;
 import com.ibm.bi.dml.runtime.instructions.cpfile.ParameterizedBuiltinCPFileInstruction;
+import com.ibm.bi.dml.runtime.util.UtilFunctions;
 
 public class CPInstructionParser extends InstructionParser 
 {
@@ -348,8 +349,8 @@ public class CPInstructionParser extends InstructionParser
 		case Builtin: 
 			String []parts = InstructionUtils.getInstructionPartsWithValueType(str);
 			if ( parts[0].equals("log") || parts[0].equals("log_nz") ) {
-				if ( parts.length == 3 ) {
-					// B=log(A), y=log(x)
+				if ( parts.length == 3 || (parts.length == 4 && UtilFunctions.isIntegerNumber(parts[3])) ) {
+					// B=log(A), y=log(x), incl optional number of threads
 					return (CPInstruction) BuiltinUnaryCPInstruction.parseInstruction(str);
 				} else if ( parts.length == 4 ) {
 					// B=log(A,10), y=log(x,10)
@@ -28,7 +28,7 @@ import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
 
 
-public abstract class Instruction 
+public abstract class Instruction implements Cloneable
 {
 	public enum INSTRUCTION_TYPE { 
 		CONTROL_PROGRAM, 
@@ -141,6 +141,26 @@ public abstract class Instruction
 		return instID;
 	}
 
+	/**
+	 * Creates a shallow copy of this instruction, which shares operands and
+	 * operators with the original instruction but has its own meta data such
+	 * as the instruction string and script positions. This is only safe for
+	 * instructions without mutable state (see InstructionParseCache).
+	 * 
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	protected Instruction shallowCopy() 
+		throws DMLRuntimeException
+	{
+		try {
+			return (Instruction) clone();
+		}
+		catch(CloneNotSupportedException ex) {
+			throw new DMLRuntimeException(ex);
+		}
+	}
+	
 	public void printMe() {
 		LOG.debug(instString);
 	}
@@ -0,0 +1,281 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.runtime.instructions;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import com.ibm.bi.dml.lops.Lop;
+import com.ibm.bi.dml.lops.LopProperties.ExecType;
+import com.ibm.bi.dml.runtime.DMLRuntimeException;
+import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
+import com.ibm.bi.dml.runtime.instructions.cp.AggregateBinaryCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.AggregateUnaryCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.BooleanBinaryCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.BooleanUnaryCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.CPInstruction.CPINSTRUCTION_TYPE;
+import com.ibm.bi.dml.runtime.instructions.cp.CPOperand;
+import com.ibm.bi.dml.runtime.instructions.cp.ComputationCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.MMChainCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.MMTSJCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.MatrixBuiltinCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.MatrixMatrixArithmeticCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.MatrixMatrixBuiltinCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.MatrixMatrixRelationalCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.ScalarBuiltinCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.ScalarScalarArithmeticCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.ScalarScalarBuiltinCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.ScalarScalarRelationalCPInstruction;
+
+/**
+ * Cache of parsed runtime instructions in order to avoid the repeated string
+ * parsing of generated instructions (e.g., during dynamic recompilation).
+ *
+ * Since generated instructions refer to unique names of intermediate variables
+ * (e.g., _mVar12), the cache is keyed by a normalized instruction string where
+ * these names are replaced by positional placeholders. On a cache hit, we create
+ * a shallow copy of the cached prototype and bind the actual variable names. The
+ * original instruction string is retained for explain and serialization.
+ *
+ * Note: We only cache control program instructions whose state is fully given
+ * by their operands and (immutable) operators. For example, scalar-matrix
+ * instructions are excluded because they modify their scalar operator on execution,
+ * and reorg instructions because rsort has additional operands and modifies its
+ * reorg operator on execution.
+ */
+public class InstructionParseCache
+{
+	//enables the reuse of parsed instructions
+	public static final boolean ALLOW_PARSE_CACHE = true;
+
+	//max number of cached instruction prototypes (LRU)
+	private static final int MAX_ENTRIES = 4096;
+
+	//prefix of positional placeholders for intermediate variable names
+	private static final String PLACEHOLDER_PREFIX = "_cVar@";
+
+	//instruction types considered for caching (prefilter before parsing)
+	private static final HashSet<CPINSTRUCTION_TYPE> _cptypes = new HashSet<CPINSTRUCTION_TYPE>();
+
+	//instruction classes without mutable state and additional operands
+	private static final HashSet<Class<?>> _classes = new HashSet<Class<?>>();
+
+	private static LinkedHashMap<String, Instruction> _cache = null;
+
+	static
+	{
+		_cptypes.add(CPINSTRUCTION_TYPE.AggregateUnary);
+		_cptypes.add(CPINSTRUCTION_TYPE.AggregateBinary);
+		_cptypes.add(CPINSTRUCTION_TYPE.ArithmeticBinary);
+		_cptypes.add(CPINSTRUCTION_TYPE.RelationalBinary);
+		_cptypes.add(CPINSTRUCTION_TYPE.BooleanBinary);
+		_cptypes.add(CPINSTRUCTION_TYPE.BooleanUnary);
+		_cptypes.add(CPINSTRUCTION_TYPE.BuiltinBinary);
+		_cptypes.add(CPINSTRUCTION_TYPE.BuiltinUnary);
+		_cptypes.add(CPINSTRUCTION_TYPE.MMTSJ);
+		_cptypes.add(CPINSTRUCTION_TYPE.MMChain);
+
+		_classes.add(ScalarScalarArithmeticCPInstruction.class);
+		_classes.add(MatrixMatrixArithmeticCPInstruction.class);
+		_classes.add(ScalarScalarRelationalCPInstruction.class);
+		_classes.add(MatrixMatrixRelationalCPInstruction.class);
+		_classes.add(BooleanBinaryCPInstruction.class);
+		_classes.add(BooleanUnaryCPInstruction.class);
+		_classes.add(ScalarScalarBuiltinCPInstruction.class);
+		_classes.add(MatrixMatrixBuiltinCPInstruction.class);
+		_classes.add(ScalarBuiltinCPInstruction.class);
+		_classes.add(MatrixBuiltinCPInstruction.class);
+		_classes.add(AggregateUnaryCPInstruction.class);
+		_classes.add(AggregateBinaryCPInstruction.class);
+		_classes.add(MMTSJCPInstruction.class);
+		_classes.add(MMChainCPInstruction.class);
+
+		_cache = new LinkedHashMap<String, Instruction>(MAX_ENTRIES, 0.75f, true) {
+			private static final long serialVersionUID = 3581420683412573127L;
+			@Override
+			protected boolean removeEldestEntry(Entry<String, Instruction> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Parses the given instruction string, where applicable via a shallow copy
+	 * of a previously parsed instruction of the same normalized string.
+	 *
+	 * @param str
+	 * @return
+	 * @throws DMLUnsupportedOperationException
+	 * @throws DMLRuntimeException
+	 */
+	public static Instruction parseSingleInstruction( String str )
+		throws DMLUnsupportedOperationException, DMLRuntimeException
+	{
+		if( !ALLOW_PARSE_CACHE || !isCacheCandidate(str) )
+			return InstructionParser.parseSingleInstruction(str);
+
+		//normalize names of intermediate variables
+		ArrayList<String> names = new ArrayList<String>();
+		String key = normalize(str, names);
+
+		//probe cache for existing prototype
+		Instruction proto = null;
+		boolean exists = false;
+		synchronized( _cache ) {
+			exists = _cache.containsKey(key);
+			proto = _cache.get(key);
+		}
+
+		//parse prototype from normalized string on cache miss
+		if( !exists ) {
+			Instruction tmp = InstructionParser.parseSingleInstruction(key);
+			proto = _classes.contains(tmp.getClass()) ? tmp : null;
+			synchronized( _cache ) {
+				_cache.put(key, proto); //null for non-cacheable
+			}
+		}
+
+		//parse non-cacheable instruction from original string
+		if( proto == null )
+			return InstructionParser.parseSingleInstruction(str);
+
+		return bindInstruction(proto, str, names);
+	}
+
+	/**
+	 * Clears all cached instruction prototypes.
+	 */
+	public static void clear()
+	{
+		synchronized( _cache ) {
+			_cache.clear();
+		}
+	}
+
+	/**
+	 *
+	 * @param str
+	 * @return
+	 * @throws DMLUnsupportedOperationException
+	 */
+	private static boolean isCacheCandidate( String str )
+		throws DMLUnsupportedOperationException
+	{
+		if( str == null || str.isEmpty()
+			|| !str.startsWith(ExecType.CP.toString()+Instruction.OPERAND_DELIM) )
+			return false;
+
+		CPINSTRUCTION_TYPE cptype = InstructionUtils.getCPType(str);
+		return (cptype != null && _cptypes.contains(cptype));
+	}
+
+	/**
+	 * Replaces all operand names of intermediate variables with positional
+	 * placeholders and collects the original names in order of occurrence.
+	 *
+	 * @param str
+	 * @param names
+	 * @return
+	 */
+	private static String normalize( String str, ArrayList<String> names )
+	{
+		StringBuilder sb = new StringBuilder(str.length());
+		int pos = 0;
+		int ix = str.indexOf(Instruction.OPERAND_DELIM);
+		while( ix >= 0 ) {
+			int start = ix + 1;
+			int end = str.indexOf(Instruction.OPERAND_DELIM, start);
+			int tend = (end >= 0) ? end : str.length();
+			int nend = str.indexOf(Instruction.VALUETYPE_PREFIX, start);
+			if( nend > start && nend < tend && isIntermediateName(str, start, nend) ) {
+				sb.append(str, pos, start);
+				sb.append(PLACEHOLDER_PREFIX);
+				sb.append(names.size());
+				names.add(str.substring(start, nend));
+				pos = nend;
+			}
+			ix = end;
+		}
+		sb.append(str, pos, str.length());
+
+		return sb.toString();
+	}
+
+	/**
+	 *
+	 * @param str
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	private static boolean isIntermediateName( String str, int start, int end )
+	{
+		int plen = 0;
+		if( str.startsWith(Lop.MATRIX_VAR_NAME_PREFIX, start) )
+			plen = Lop.MATRIX_VAR_NAME_PREFIX.length();
+		else if( str.startsWith(Lop.SCALAR_VAR_NAME_PREFIX, start) )
+			plen = Lop.SCALAR_VAR_NAME_PREFIX.length();
+		else
+			return false;
+
+		if( start + plen >= end )
+			return false;
+		for( int i=start+plen; i<end; i++ )
+			if( !Character.isDigit(str.charAt(i)) )
+				return false;
+		return true;
+	}
+
+	/**
+	 *
+	 * @param proto
+	 * @param str
+	 * @param names
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static Instruction bindInstruction( Instruction proto, String str, ArrayList<String> names )
+		throws DMLRuntimeException
+	{
+		ComputationCPInstruction inst = (ComputationCPInstruction) proto.shallowCopy();
+		inst.instString = str;
+		inst.input1 = bindOperand(inst.input1, names);
+		inst.input2 = bindOperand(inst.input2, names);
+		inst.input3 = bindOperand(inst.input3, names);
+		inst.output = bindOperand(inst.output, names);
+
+		return inst;
+	}
+
+	/**
+	 *
+	 * @param op
+	 * @param names
+	 * @return
+	 */
+	private static CPOperand bindOperand( CPOperand op, ArrayList<String> names )
+	{
+		if( op == null || op.getName() == null || !op.getName().startsWith(PLACEHOLDER_PREFIX) )
+			return op;
+
+		int pos = Integer.parseInt(op.getName().substring(PLACEHOLDER_PREFIX.length()));
+		return new CPOperand(names.get(pos), op.getValueType(), op.getDataType(), op.isLiteral());
+	}
+}
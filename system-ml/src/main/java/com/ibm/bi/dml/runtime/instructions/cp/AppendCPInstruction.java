@@ -89,11 +89,15 @@ public class AppendCPInstruction extends BinaryCPInstruction
 											  + " with different number of rows: "+matBlock1.getNumRows()+" vs "+matBlock2.getNumRows());
 			}
 				
-			//execute append operations (append both inputs to initially empty output)
-			MatrixBlock ret = matBlock1.appendOperations(matBlock2, new MatrixBlock(), true);
+			//execute append operations (in-place append to pinned loop variable, or append 
+			//both inputs to initially empty output, which remains private to the loop variable)
+			boolean inplace = ec.getMatrixObject(input1.getName()).isUpdateInPlaceEnabled();
+			MatrixBlock ret = inplace ? matBlock1.appendOperationsInPlace(matBlock2, true) : null;
+			if( ret == null )
+				ret = matBlock1.appendOperations(matBlock2, new MatrixBlock(), true);
 			
 			//set output and release inputs 
-			ec.setMatrixOutput(output.getName(), ret);
+			ec.setMatrixOutput(output.getName(), ret, inplace);
 			ec.releaseMatrixInput(input1.getName());
 			ec.releaseMatrixInput(input2.getName());
 		}
@@ -110,11 +114,15 @@ public class AppendCPInstruction extends BinaryCPInstruction
 											  + " with different number of columns: "+matBlock1.getNumColumns()+" vs "+matBlock2.getNumColumns());
 			}
 			
-			//execute append operations (append both inputs to initially empty output)
-			MatrixBlock ret = matBlock1.appendOperations(matBlock2, new MatrixBlock(), false);
+			//execute append operations (in-place append to pinned loop variable, or append 
+			//both inputs to initially empty output, which remains private to the loop variable)
+			boolean inplace = ec.getMatrixObject(input1.getName()).isUpdateInPlaceEnabled();
+			MatrixBlock ret = inplace ? matBlock1.appendOperationsInPlace(matBlock2, false) : null;
+			if( ret == null )
+				ret = matBlock1.appendOperations(matBlock2, new MatrixBlock(), false);
 			
 			//set output and release inputs 
-			ec.setMatrixOutput(output.getName(), ret);
+			ec.setMatrixOutput(output.getName(), ret, inplace);
 			ec.releaseMatrixInput(input1.getName());
 			ec.releaseMatrixInput(input2.getName());
 		}
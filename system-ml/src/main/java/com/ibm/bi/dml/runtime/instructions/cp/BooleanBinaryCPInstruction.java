@@ -59,12 +59,12 @@ public class BooleanBinaryCPInstruction extends BinaryCPInstruction
 	public void processInstruction(ExecutionContext ec) 
 		throws DMLRuntimeException 
 	{
-		ScalarObject so1 = ec.getScalarInput( input1.getName(), input1.getValueType(), input1.isLiteral() );
-		ScalarObject so2 = ec.getScalarInput( input2.getName(), input2.getValueType(), input2.isLiteral() );
+		ScalarObject so1 = ec.getScalarInput(input1);
+		ScalarObject so2 = ec.getScalarInput(input2);
 		
 		BinaryOperator dop = (BinaryOperator) _optr;
 		boolean rval = dop.fn.execute(so1.getBooleanValue(), so2.getBooleanValue());
-		ScalarObject sores = (ScalarObject) new BooleanObject(rval);
+		ScalarObject sores = BooleanObject.valueOf(rval);
 		
 		ec.setScalarOutput(output.getName(), sores);
 	}
@@ -25,6 +25,10 @@ public class BooleanObject extends ScalarObject
 
 	private static final long serialVersionUID = -4506242165735516984L;
 
+	//shared immutable instances for unnamed results
+	public static final BooleanObject TRUE = new BooleanObject(true);
+	public static final BooleanObject FALSE = new BooleanObject(false);
+	
 	private boolean _value;
 
 	public BooleanObject(boolean val){
@@ -35,6 +39,17 @@ public class BooleanObject extends ScalarObject
 		super(name, ValueType.BOOLEAN);
 		_value = val;
 	}
+	
+	/**
+	 * Returns the shared unnamed boolean object of the given value, 
+	 * which avoids allocations for boolean results of scalar operations.
+	 * 
+	 * @param val
+	 * @return
+	 */
+	public static BooleanObject valueOf(boolean val) {
+		return val ? TRUE : FALSE;
+	}
 
 	@Override
 	public boolean getBooleanValue(){
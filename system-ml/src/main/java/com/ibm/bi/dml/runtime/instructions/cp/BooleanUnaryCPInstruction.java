@@ -55,13 +55,13 @@ public class BooleanUnaryCPInstruction extends UnaryCPInstruction
 		throws DMLRuntimeException 
 	{
 		// 1) Obtain data objects associated with inputs 
-		ScalarObject so = ec.getScalarInput(input1.getName(), input1.getValueType(), input1.isLiteral());
+		ScalarObject so = ec.getScalarInput(input1);
 		
 		// 2) Compute the result value & make an appropriate data object 
 		SimpleOperator dop = (SimpleOperator) _optr;
 		boolean rval = dop.fn.execute(so.getBooleanValue());
 		
-		ScalarObject sores = (ScalarObject) new BooleanObject(rval);
+		ScalarObject sores = BooleanObject.valueOf(rval);
 		
 		// 3) Put the result value into ProgramBlock
 		ec.setScalarOutput(output.getName(), sores);
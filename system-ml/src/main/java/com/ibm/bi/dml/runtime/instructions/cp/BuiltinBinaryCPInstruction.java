@@ -24,6 +24,7 @@ import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.functionobjects.Builtin;
 import com.ibm.bi.dml.runtime.functionobjects.ValueFunction;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
+import com.ibm.bi.dml.runtime.instructions.InstructionUtils;
 import com.ibm.bi.dml.runtime.matrix.operators.BinaryOperator;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 import com.ibm.bi.dml.runtime.matrix.operators.RightScalarOperator;
@@ -50,6 +51,18 @@ public abstract class BuiltinBinaryCPInstruction extends BinaryCPInstruction
 		CPOperand in1 = new CPOperand("", ValueType.UNKNOWN, DataType.UNKNOWN);
 		CPOperand in2 = new CPOperand("", ValueType.UNKNOWN, DataType.UNKNOWN);
 		CPOperand out = new CPOperand("", ValueType.UNKNOWN, DataType.UNKNOWN);
+		
+		//special case solve w/ num threads
+		String[] parts = InstructionUtils.getInstructionPartsWithValueType(str);
+		if( parts.length==5 && parts[0].equals("solve") ) {
+			in1.split(parts[1]);
+			in2.split(parts[2]);
+			out.split(parts[3]);
+			int k = Integer.parseInt(parts[4]);
+			return new MatrixMatrixBuiltinCPInstruction(new BinaryOperator(Builtin.getBuiltinFnObject(parts[0])), 
+					in1, in2, out, parts[0], k, str);
+		}
+		
 		String opcode = parseBinaryInstruction(str, in1, in2, out);
 		
 		ValueFunction func = Builtin.getBuiltinFnObject(opcode);
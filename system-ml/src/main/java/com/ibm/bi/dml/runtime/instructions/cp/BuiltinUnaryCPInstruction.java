@@ -28,6 +28,7 @@ import com.ibm.bi.dml.runtime.instructions.InstructionUtils;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 import com.ibm.bi.dml.runtime.matrix.operators.SimpleOperator;
 import com.ibm.bi.dml.runtime.matrix.operators.UnaryOperator;
+import com.ibm.bi.dml.runtime.util.UtilFunctions;
 
 
 public abstract class BuiltinUnaryCPInstruction extends UnaryCPInstruction 
@@ -56,7 +57,17 @@ public abstract class BuiltinUnaryCPInstruction extends UnaryCPInstruction
 		String opcode = null;
 		ValueFunction func = null;
 		
-		if( parts.length==4 ) //print or stop
+		if( parts.length==4 && UtilFunctions.isIntegerNumber(parts[3]) ) //cumulative aggregates, cell-wise builtins and inverse w/ num threads
+		{
+			opcode = parts[0];
+			in.split(parts[1]);
+			out.split(parts[2]);
+			int k = Integer.parseInt(parts[3]);
+			func = Builtin.getBuiltinFnObject(opcode);
+			
+			return new MatrixBuiltinCPInstruction(new UnaryOperator(func, k), in, out, opcode, str);
+		}
+		else if( parts.length==4 ) //print or stop
 		{
 			opcode = parts[0];
 			in.split(parts[1]);
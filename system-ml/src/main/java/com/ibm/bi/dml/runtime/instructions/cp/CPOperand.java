@@ -29,6 +29,7 @@ public class CPOperand
 	private ValueType _valueType;
 	private DataType _dataType;
 	private boolean _isLiteral;
+	private ScalarObject _literal = null; //cached literal value
 	
 	public CPOperand() {
 		this("", ValueType.UNKNOWN, DataType.UNKNOWN);
@@ -66,12 +67,29 @@ public class CPOperand
 		return _isLiteral;
 	}
 	
+	/**
+	 * Gets the cached scalar object of a literal operand, or null if not
+	 * created yet. Since scalar objects are immutable, the literal can be 
+	 * reused across executions of the instruction (no parsing and allocation).
+	 * 
+	 * @return
+	 */
+	public ScalarObject getLiteral() {
+		return _literal;
+	}
+	
+	public void setLiteral(ScalarObject literal) {
+		_literal = literal;
+	}
+	
 	public void set_name(String name) {
 		_name = name;
+		_literal = null;
 	}
 	
 	public void setValueType(ValueType vt) {
 		_valueType = vt;
+		_literal = null;
 	}
 	
 	public void setDataType(DataType dt) {
@@ -80,6 +98,7 @@ public class CPOperand
 	
 	public void set_literal(boolean literal) {
 		_isLiteral = literal;
+		_literal = null;
 	}
 	
 	public void split_by_value_type_prefix ( String str ) {
@@ -112,5 +131,6 @@ public class CPOperand
 		_name = o.getName();
 		_valueType = o.getValueType();
 		_dataType = o.getDataType();
+		_literal = null;
 	}
 }
@@ -25,6 +25,16 @@ public class IntObject extends ScalarObject
 
 	private static final long serialVersionUID = 353170585998999528L;
 
+	//shared immutable instances for unnamed results of small values
+	private static final int CACHE_LOW = -128;
+	private static final int CACHE_HIGH = 1024;
+	private static final IntObject[] CACHE = new IntObject[CACHE_HIGH - CACHE_LOW + 1];
+	
+	static {
+		for( int i=0; i<CACHE.length; i++ )
+			CACHE[i] = new IntObject(CACHE_LOW + i);
+	}
+	
 	//we use consistently to the compiler long in terms of integer (8 byte)
 	private long _value;
 
@@ -39,6 +49,21 @@ public class IntObject extends ScalarObject
 		_value = val;
 	}
 
+	/**
+	 * Returns a shared unnamed int object for small values (e.g., loop indexes 
+	 * and counters), and a new object otherwise. This avoids allocations for 
+	 * int results of scalar operations; sharing is safe because scalar objects
+	 * are immutable.
+	 * 
+	 * @param val
+	 * @return
+	 */
+	public static IntObject valueOf(long val) {
+		if( val >= CACHE_LOW && val <= CACHE_HIGH )
+			return CACHE[(int)(val - CACHE_LOW)];
+		return new IntObject(val);
+	}
+	
 	@Override
 	public boolean getBooleanValue(){
 		return (_value!=0);
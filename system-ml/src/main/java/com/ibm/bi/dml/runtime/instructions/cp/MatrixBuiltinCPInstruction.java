@@ -22,6 +22,7 @@ import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
 import com.ibm.bi.dml.runtime.matrix.data.LibCommonsMath;
+import com.ibm.bi.dml.runtime.matrix.data.LibMatrixLinAlg;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 import com.ibm.bi.dml.runtime.matrix.operators.UnaryOperator;
@@ -42,7 +43,13 @@ public class MatrixBuiltinCPInstruction extends BuiltinUnaryCPInstruction
 		MatrixBlock resultBlock = null;
 		
 		String opcode = getOpcode();
-		if(LibCommonsMath.isSupportedUnaryOperation(opcode)) {
+		if(LibMatrixLinAlg.isSupportedUnaryOperation(opcode)) {
+			MatrixBlock matBlock = ec.getMatrixInput(input1.getName());
+			resultBlock = LibMatrixLinAlg.unaryOperations(matBlock, opcode, u_op.getNumThreads());
+			ec.releaseMatrixInput(input1.getName());
+			ec.setMatrixOutput(output_name, resultBlock);
+		}
+		else if(LibCommonsMath.isSupportedUnaryOperation(opcode)) {
 			resultBlock = LibCommonsMath.unaryOperations((MatrixObject)ec.getVariable(input1.getName()),getOpcode());
 			ec.setMatrixOutput(output_name, resultBlock);
 		}
@@ -22,6 +22,7 @@ import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
 import com.ibm.bi.dml.runtime.matrix.data.LibCommonsMath;
+import com.ibm.bi.dml.runtime.matrix.data.LibMatrixLinAlg;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.operators.BinaryOperator;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
@@ -29,6 +30,8 @@ import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 
 public class MatrixMatrixBuiltinCPInstruction extends BuiltinBinaryCPInstruction
 {
+	//cp-specific parameters (e.g., for solve)
+	private int _numThreads = 1;
 	
 	public MatrixMatrixBuiltinCPInstruction(Operator op, 
 											   CPOperand in1, 
@@ -36,7 +39,13 @@ public class MatrixMatrixBuiltinCPInstruction extends BuiltinBinaryCPInstruction
 											   CPOperand out, 
 											   String opcode,
 											   String istr){
+		this(op, in1, in2, out, opcode, 1, istr);
+	}
+	
+	public MatrixMatrixBuiltinCPInstruction(Operator op, CPOperand in1, CPOperand in2, CPOperand out, 
+			String opcode, int k, String istr){
 		super(op, in1, in2, out, 2, opcode, istr);
+		_numThreads = k;
 	}
 	
 	@Override
@@ -45,7 +54,16 @@ public class MatrixMatrixBuiltinCPInstruction extends BuiltinBinaryCPInstruction
 
 		String opcode = getOpcode();
         
-        if ( LibCommonsMath.isSupportedMatrixMatrixOperation(opcode) ) {
+        if ( LibMatrixLinAlg.isSupportedMatrixMatrixOperation(opcode) ) {
+        	MatrixBlock matBlock1 = ec.getMatrixInput(input1.getName());
+        	MatrixBlock matBlock2 = ec.getMatrixInput(input2.getName());
+        	MatrixBlock solution = LibMatrixLinAlg.matrixMatrixOperations(matBlock1, matBlock2, opcode, _numThreads);
+        	ec.releaseMatrixInput(input1.getName());
+        	ec.releaseMatrixInput(input2.getName());
+        	ec.setMatrixOutput(output.getName(), solution);
+        	return;
+        }
+        else if ( LibCommonsMath.isSupportedMatrixMatrixOperation(opcode) ) {
         	MatrixBlock solution = LibCommonsMath.matrixMatrixOperations((MatrixObject)ec.getVariable(input1.getName()), (MatrixObject)ec.getVariable(input2.getName()), opcode);
     		ec.setMatrixOutput(output.getName(), solution);
         	return;
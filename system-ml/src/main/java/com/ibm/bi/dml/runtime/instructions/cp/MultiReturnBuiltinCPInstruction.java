@@ -27,6 +27,7 @@ import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.InstructionUtils;
 import com.ibm.bi.dml.runtime.matrix.data.LibCommonsMath;
+import com.ibm.bi.dml.runtime.matrix.data.LibMatrixLinAlg;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 
@@ -36,12 +37,19 @@ public class MultiReturnBuiltinCPInstruction extends ComputationCPInstruction
 	
 	int arity;
 	protected ArrayList<CPOperand> _outputs;
+	private int _numThreads = 1;
 	
 	public MultiReturnBuiltinCPInstruction(Operator op, CPOperand input1, ArrayList<CPOperand> outputs, String opcode, String istr )
+	{
+		this(op, input1, outputs, opcode, 1, istr);
+	}
+	
+	public MultiReturnBuiltinCPInstruction(Operator op, CPOperand input1, ArrayList<CPOperand> outputs, String opcode, int k, String istr )
 	{
 		super(op, input1, null, outputs.get(0), opcode, istr);
 		_cptype = CPINSTRUCTION_TYPE.MultiReturnBuiltin;
 		_outputs = outputs;
+		_numThreads = k;
 	}
 
 	public int getArity() {
@@ -66,8 +74,9 @@ public class MultiReturnBuiltinCPInstruction extends ComputationCPInstruction
 			CPOperand in1 = new CPOperand(parts[1]);
 			outputs.add ( new CPOperand(parts[2], ValueType.DOUBLE, DataType.MATRIX) );
 			outputs.add ( new CPOperand(parts[3], ValueType.DOUBLE, DataType.MATRIX) );
+			int k = (parts.length==5) ? Integer.parseInt(parts[4]) : 1;
 			
-			return new MultiReturnBuiltinCPInstruction(null, in1, outputs, opcode, str);
+			return new MultiReturnBuiltinCPInstruction(null, in1, outputs, opcode, k, str);
 		}
 		else if ( opcode.equalsIgnoreCase("lu") ) {
 			CPOperand in1 = new CPOperand(parts[1]);
@@ -76,8 +85,9 @@ public class MultiReturnBuiltinCPInstruction extends ComputationCPInstruction
 			outputs.add ( new CPOperand(parts[2], ValueType.DOUBLE, DataType.MATRIX) );
 			outputs.add ( new CPOperand(parts[3], ValueType.DOUBLE, DataType.MATRIX) );
 			outputs.add ( new CPOperand(parts[4], ValueType.DOUBLE, DataType.MATRIX) );
+			int k = (parts.length==6) ? Integer.parseInt(parts[5]) : 1;
 			
-			return new MultiReturnBuiltinCPInstruction(null, in1, outputs, opcode, str);
+			return new MultiReturnBuiltinCPInstruction(null, in1, outputs, opcode, k, str);
 			
 		}
 		else if ( opcode.equalsIgnoreCase("eigen") ) {
@@ -100,11 +110,17 @@ public class MultiReturnBuiltinCPInstruction extends ComputationCPInstruction
 		throws DMLRuntimeException, DMLUnsupportedOperationException 
 	{
 		String opcode = getOpcode();
-		MatrixObject mo = (MatrixObject) ec.getVariable(input1.getName());
 		MatrixBlock[] out = null;
 		
-		if(LibCommonsMath.isSupportedMultiReturnOperation(opcode))
+		if(LibMatrixLinAlg.isSupportedMultiReturnOperation(opcode)) {
+			MatrixBlock in = ec.getMatrixInput(input1.getName());
+			out = LibMatrixLinAlg.multiReturnOperations(in, opcode, _numThreads);
+			ec.releaseMatrixInput(input1.getName());
+		}
+		else if(LibCommonsMath.isSupportedMultiReturnOperation(opcode)) {
+			MatrixObject mo = (MatrixObject) ec.getVariable(input1.getName());
 			out = LibCommonsMath.multiReturnOperations(mo, opcode);
+		}
 		else 
 			throw new DMLRuntimeException("Invalid opcode in MultiReturnBuiltin instruction: " + opcode);
 
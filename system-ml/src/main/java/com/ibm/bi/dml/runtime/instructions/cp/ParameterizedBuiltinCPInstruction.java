@@ -19,6 +19,7 @@ package com.ibm.bi.dml.runtime.instructions.cp;
 
 import java.util.HashMap;
 
+import com.ibm.bi.dml.lops.GroupedAggregate;
 import com.ibm.bi.dml.lops.Lop;
 import com.ibm.bi.dml.parser.Statement;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
@@ -155,9 +156,13 @@ public class ParameterizedBuiltinCPInstruction extends ComputationCPInstruction
 			if ( params.get(Statement.GAGG_NUM_GROUPS) != null) {
 				ngroups = (int) Double.parseDouble(params.get(Statement.GAGG_NUM_GROUPS));
 			}
+			int k = 1;
+			if ( params.get(GroupedAggregate.NUMTHREADS) != null ) {
+				k = Integer.parseInt(params.get(GroupedAggregate.NUMTHREADS));
+			}
 			
 			// compute the result
-			MatrixBlock soresBlock = (MatrixBlock) (groups.groupedAggOperations(target, weights, new MatrixBlock(), ngroups, _optr));
+			MatrixBlock soresBlock = (MatrixBlock) (groups.groupedAggOperations(target, weights, new MatrixBlock(), ngroups, _optr, k));
 			
 			ec.setMatrixOutput(output.getName(), soresBlock);
 			// release locks
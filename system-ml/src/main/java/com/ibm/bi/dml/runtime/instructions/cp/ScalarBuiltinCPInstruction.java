@@ -44,7 +44,7 @@ public class ScalarBuiltinCPInstruction extends BuiltinUnaryCPInstruction
 		ScalarObject so = null;
 		
 		//get the scalar input 
-		so = ec.getScalarInput( input1.getName(), input1.getValueType(), input1.isLiteral() );
+		so = ec.getScalarInput(input1);
 			
 		//core execution
 		if ( opcode.equalsIgnoreCase("print") ) {
@@ -67,7 +67,7 @@ public class ScalarBuiltinCPInstruction extends BuiltinUnaryCPInstruction
 			if ( so instanceof IntObject  && output.getValueType() == ValueType.INT )
 			{
 				long rval = (long) dop.fn.execute(so.getLongValue());
-				sores = (ScalarObject) new IntObject(rval);
+				sores = IntObject.valueOf(rval);
 			}
 			else 
 			{
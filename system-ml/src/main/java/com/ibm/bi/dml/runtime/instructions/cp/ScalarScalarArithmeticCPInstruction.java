@@ -41,8 +41,8 @@ public class ScalarScalarArithmeticCPInstruction extends ArithmeticBinaryCPInstr
 	@Override
 	public void processInstruction(ExecutionContext ec) throws DMLRuntimeException{
 		// 1) Obtain data objects associated with inputs 
-		ScalarObject so1 = ec.getScalarInput(input1.getName(), input1.getValueType(), input1.isLiteral());
-		ScalarObject so2 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral() );
+		ScalarObject so1 = ec.getScalarInput(input1);
+		ScalarObject so2 = ec.getScalarInput(input2);
 		ScalarObject sores = null;
 		
 		
@@ -73,7 +73,7 @@ public class ScalarScalarArithmeticCPInstruction extends ArithmeticBinaryCPInstr
 				if( tmpVal > Long.MAX_VALUE )
 					throw new DMLRuntimeException("Integer operation created numerical result overflow ("+tmpVal+" > "+Long.MAX_VALUE+").");
 				long rval = (long) tmpVal; 
-				sores = (ScalarObject) new IntObject(rval);
+				sores = IntObject.valueOf(rval);
 			}
 		}
 		
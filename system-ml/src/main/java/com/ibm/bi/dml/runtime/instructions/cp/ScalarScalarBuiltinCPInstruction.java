@@ -43,8 +43,8 @@ public class ScalarScalarBuiltinCPInstruction extends BuiltinBinaryCPInstruction
 		String opcode = getOpcode();
 		ScalarObject sores = null;
 		
-		ScalarObject so1 = ec.getScalarInput( input1.getName(), input1.getValueType(), input1.isLiteral() );
-		ScalarObject so2 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral() );
+		ScalarObject so1 = ec.getScalarInput(input1);
+		ScalarObject so2 = ec.getScalarInput(input2);
 		
 		if ( opcode.equalsIgnoreCase("print") ) {
 			String buffer = "";
@@ -78,7 +78,7 @@ public class ScalarScalarBuiltinCPInstruction extends BuiltinBinaryCPInstruction
 					&& so2 instanceof IntObject 
 					&& output.getValueType() == ValueType.INT) {
 				long rval = (long) dop.fn.execute(so1.getLongValue(), so2.getLongValue());
-				sores = (ScalarObject) new IntObject(rval);
+				sores = IntObject.valueOf(rval);
 			}
 			else {
 				double rval = dop.fn.execute(so1.getDoubleValue(), so2.getDoubleValue());
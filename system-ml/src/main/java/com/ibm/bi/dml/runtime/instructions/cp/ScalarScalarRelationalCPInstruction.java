@@ -39,35 +39,35 @@ public class ScalarScalarRelationalCPInstruction extends RelationalBinaryCPInstr
 	public void processInstruction(ExecutionContext ec) 
 		throws DMLRuntimeException
 	{
-		ScalarObject so1 = ec.getScalarInput(input1.getName(), input1.getValueType(), input1.isLiteral());
-		ScalarObject so2 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral() );
+		ScalarObject so1 = ec.getScalarInput(input1);
+		ScalarObject so2 = ec.getScalarInput(input2);
 		ScalarObject sores = null;
 		
 		BinaryOperator dop = (BinaryOperator) _optr;
 		
 		if ( so1 instanceof IntObject && so2 instanceof IntObject ) {
 			boolean rval = dop.fn.compare ( so1.getLongValue(), so2.getLongValue() );
-			sores = (ScalarObject) new BooleanObject(rval); 
+			sores = BooleanObject.valueOf(rval); 
 		}
 		else if ( so1 instanceof DoubleObject && so2 instanceof DoubleObject ) {
 			boolean rval = dop.fn.compare ( so1.getDoubleValue(), so2.getDoubleValue() );
-			sores = (ScalarObject) new BooleanObject(rval); 
+			sores = BooleanObject.valueOf(rval); 
 		}
 		else if ( so1 instanceof IntObject && so2 instanceof DoubleObject) {
 			boolean rval = dop.fn.compare ( so1.getLongValue(), so2.getDoubleValue() );
-			sores = (ScalarObject) new BooleanObject(rval); 
+			sores = BooleanObject.valueOf(rval); 
 		}
 		else if ( so1 instanceof DoubleObject && so2 instanceof IntObject ) {
 			boolean rval = dop.fn.compare ( so1.getDoubleValue(), so2.getLongValue() );
-			sores = (ScalarObject) new BooleanObject(rval); 
+			sores = BooleanObject.valueOf(rval); 
 		}
 		else if ( so1 instanceof BooleanObject && so2 instanceof BooleanObject ) {
 			boolean rval = dop.fn.compare ( so1.getBooleanValue(), so2.getBooleanValue() );
-			sores = (ScalarObject) new BooleanObject(rval); 
+			sores = BooleanObject.valueOf(rval); 
 		}
 		else if ( so1 instanceof StringObject && so2 instanceof StringObject ) {
 			boolean rval = dop.fn.compare ( so1.getStringValue(), so2.getStringValue() );
-			sores = (ScalarObject) new BooleanObject(rval); 
+			sores = BooleanObject.valueOf(rval); 
 		}
 		else throw new DMLRuntimeException("compare(): Invalid combination of value types.");
 		
@@ -26,6 +26,7 @@ import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.InstructionUtils;
 import com.ibm.bi.dml.runtime.matrix.data.CTableMap;
+import com.ibm.bi.dml.runtime.matrix.data.LibMatrixCTable;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 import com.ibm.bi.dml.runtime.matrix.operators.SimpleOperator;
@@ -41,10 +42,18 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 	private boolean _dim2Literal;
 	private boolean _isExpand;
 	private boolean _ignoreZeros;
+	private int _numThreads;
 	
 	public TernaryCPInstruction(Operator op, CPOperand in1, CPOperand in2, CPOperand in3, CPOperand out, 
 							 String outputDim1, boolean dim1Literal,String outputDim2, boolean dim2Literal, 
 							 boolean isExpand, boolean ignoreZeros, String opcode, String istr )
+	{
+		this(op, in1, in2, in3, out, outputDim1, dim1Literal, outputDim2, dim2Literal, isExpand, ignoreZeros, 1, opcode, istr);
+	}
+	
+	public TernaryCPInstruction(Operator op, CPOperand in1, CPOperand in2, CPOperand in3, CPOperand out, 
+							 String outputDim1, boolean dim1Literal,String outputDim2, boolean dim2Literal, 
+							 boolean isExpand, boolean ignoreZeros, int numThreads, String opcode, String istr )
 	{
 		super(op, in1, in2, in3, out, opcode, istr);
 		_outDim1 = outputDim1;
@@ -53,13 +62,15 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 		_dim2Literal = dim2Literal;
 		_isExpand = isExpand;
 		_ignoreZeros = ignoreZeros;
+		_numThreads = numThreads;
 	}
 
 	public static TernaryCPInstruction parseInstruction(String inst) 
 		throws DMLRuntimeException
 	{
 		String[] parts = InstructionUtils.getInstructionPartsWithValueType(inst);
-		InstructionUtils.checkNumFields ( parts, 7 );
+		if( parts.length != 9 ) //w/ number of threads
+			InstructionUtils.checkNumFields ( parts, 7 );
 		
 		String opcode = parts[0];
 		
@@ -80,9 +91,10 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 
 		CPOperand out = new CPOperand(parts[6]);
 		boolean ignoreZeros = Boolean.parseBoolean(parts[7]);
+		int numThreads = (parts.length == 9) ? Integer.parseInt(parts[8]) : 1;
 		
 		// ctable does not require any operator, so we simply pass-in a dummy operator with null functionobject
-		return new TernaryCPInstruction(new SimpleOperator(null), in1, in2, in3, out, dim1Fields[0], Boolean.parseBoolean(dim1Fields[1]), dim2Fields[0], Boolean.parseBoolean(dim2Fields[1]), isExpand, ignoreZeros, opcode, inst);
+		return new TernaryCPInstruction(new SimpleOperator(null), in1, in2, in3, out, dim1Fields[0], Boolean.parseBoolean(dim1Fields[1]), dim2Fields[0], Boolean.parseBoolean(dim2Fields[1]), isExpand, ignoreZeros, numThreads, opcode, inst);
 	}
 
 	private Ternary.OperationTypes findCtableOperation() {
@@ -127,13 +139,13 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 			// F=ctable(A,B,W)
 			matBlock2 = ec.getMatrixInput(input2.getName());
 			wtBlock = ec.getMatrixInput(input3.getName());
-			matBlock1.ternaryOperations((SimpleOperator)_optr, matBlock2, wtBlock, resultMap, resultBlock);
+			LibMatrixCTable.ctable(matBlock1, matBlock2, 0, wtBlock, 0, false, resultMap, resultBlock, _numThreads);
 			break;
 		case CTABLE_TRANSFORM_SCALAR_WEIGHT: //(VECTOR/MATRIX)
 			// F = ctable(A,B) or F = ctable(A,B,1)
 			matBlock2 = ec.getMatrixInput(input2.getName());
 			cst1 = ec.getScalarInput(input3.getName(), input3.getValueType(), input3.isLiteral()).getDoubleValue();
-			matBlock1.ternaryOperations((SimpleOperator)_optr, matBlock2, cst1, _ignoreZeros, resultMap, resultBlock);
+			LibMatrixCTable.ctable(matBlock1, matBlock2, 0, null, cst1, _ignoreZeros, resultMap, resultBlock, _numThreads);
 			break;
 		case CTABLE_EXPAND_SCALAR_WEIGHT: //(VECTOR)
 			// F = ctable(seq,A) or F = ctable(seq,B,1)
@@ -146,13 +158,13 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 			// F=ctable(A,1) or F = ctable(A,1,1)
 			cst1 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral()).getDoubleValue();
 			cst2 = ec.getScalarInput(input3.getName(), input3.getValueType(), input3.isLiteral()).getDoubleValue();
-			matBlock1.ternaryOperations((SimpleOperator)_optr, cst1, cst2, resultMap, resultBlock);
+			LibMatrixCTable.ctable(matBlock1, null, cst1, null, cst2, false, resultMap, resultBlock, _numThreads);
 			break;
 		case CTABLE_TRANSFORM_WEIGHTED_HISTOGRAM: //(VECTOR)
 			// F=ctable(A,1,W)
 			wtBlock = ec.getMatrixInput(input3.getName());
 			cst1 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral()).getDoubleValue();
-			matBlock1.ternaryOperations((SimpleOperator)_optr, cst1, wtBlock, resultMap, resultBlock);
+			LibMatrixCTable.ctable(matBlock1, null, cst1, wtBlock, 0, false, resultMap, resultBlock, _numThreads);
 			break;
 		
 		default:
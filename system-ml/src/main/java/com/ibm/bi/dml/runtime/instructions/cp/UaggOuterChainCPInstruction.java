@@ -37,14 +37,21 @@ public class UaggOuterChainCPInstruction extends UnaryCPInstruction
 	//operators
 	private AggregateUnaryOperator _uaggOp = null;
 	private BinaryOperator _bOp = null;
+	private int _numThreads = 1;
 
 	public UaggOuterChainCPInstruction(BinaryOperator bop, AggregateUnaryOperator uaggop, AggregateOperator aggop, CPOperand in1, CPOperand in2, CPOperand out, String opcode, String istr )
+	{
+		this(bop, uaggop, aggop, in1, in2, out, opcode, 1, istr);
+	}
+	
+	public UaggOuterChainCPInstruction(BinaryOperator bop, AggregateUnaryOperator uaggop, AggregateOperator aggop, CPOperand in1, CPOperand in2, CPOperand out, String opcode, int k, String istr )
 	{
 		super(bop, in1, in2, out, opcode, istr);
 		_cptype = CPINSTRUCTION_TYPE.UaggOuterChain;
 		
 		_uaggOp = uaggop;
 		_bOp = bop;
+		_numThreads = k;
 			
 		instString = istr;
 	}
@@ -69,7 +76,10 @@ public class UaggOuterChainCPInstruction extends UnaryCPInstruction
 			String corrExists = (corrLoc != CorrectionLocationType.NONE) ? "true" : "false";
 			AggregateOperator aop = InstructionUtils.parseAggregateOperator(aopcode, corrExists, corrLoc.toString());
 
-			return new UaggOuterChainCPInstruction(bop, uaggop, aop, in1, in2, out, opcode, str);
+			//number of threads (optional for backwards compatibility)
+			int k = (parts.length > 6) ? Integer.parseInt(parts[6]) : 1;
+
+			return new UaggOuterChainCPInstruction(bop, uaggop, aop, in1, in2, out, opcode, k, str);
 		} 
 		else {
 			throw new DMLRuntimeException("UaggOuterChainCPInstruction.parseInstruction():: Unknown opcode " + opcode);
@@ -95,7 +105,7 @@ public class UaggOuterChainCPInstruction extends UnaryCPInstruction
 			mbRight = ec.getMatrixInput(input1.getName());
 		}
 		
-		mbOut = mbLeft.uaggouterchainOperations(mbLeft, mbRight, mbOut, _bOp, _uaggOp);
+		mbOut = mbLeft.uaggouterchainOperations(mbLeft, mbRight, mbOut, _bOp, _uaggOp, _numThreads);
 
 		//release locks
 		ec.releaseMatrixInput(input1.getName());
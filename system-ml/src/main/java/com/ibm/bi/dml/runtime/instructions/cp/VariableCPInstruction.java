@@ -519,18 +519,18 @@ public class VariableCPInstruction extends CPInstruction
 			break;
 		}
 		case CastAsDoubleVariable:{ 
-			ScalarObject scalarInput = ec.getScalarInput(input1.getName(), input1.getValueType(), input1.isLiteral());
+			ScalarObject scalarInput = ec.getScalarInput(input1);
 			ec.setScalarOutput(output.getName(), new DoubleObject(scalarInput.getDoubleValue()));
 			break;
 		}
 		case CastAsIntegerVariable:{ 
-			ScalarObject scalarInput = ec.getScalarInput(input1.getName(), input1.getValueType(), input1.isLiteral());
-			ec.setScalarOutput(output.getName(), new IntObject(scalarInput.getLongValue()));
+			ScalarObject scalarInput = ec.getScalarInput(input1);
+			ec.setScalarOutput(output.getName(), IntObject.valueOf(scalarInput.getLongValue()));
 			break;
 		}
 		case CastAsBooleanVariable:{ 
-			ScalarObject scalarInput = ec.getScalarInput(input1.getName(), input1.getValueType(), input1.isLiteral());
-			ec.setScalarOutput(output.getName(), new BooleanObject(scalarInput.getBooleanValue()));
+			ScalarObject scalarInput = ec.getScalarInput(input1);
+			ec.setScalarOutput(output.getName(), BooleanObject.valueOf(scalarInput.getBooleanValue()));
 			break;
 		}
 			
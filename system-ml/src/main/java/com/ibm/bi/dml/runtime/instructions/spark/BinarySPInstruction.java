@@ -34,6 +34,7 @@ import com.ibm.bi.dml.runtime.instructions.spark.functions.MatrixScalarUnaryFunc
 import com.ibm.bi.dml.runtime.instructions.spark.functions.MatrixVectorBinaryOpPartitionFunction;
 import com.ibm.bi.dml.runtime.instructions.spark.functions.OuterVectorBinaryOpFunction;
 import com.ibm.bi.dml.runtime.instructions.spark.functions.ReplicateVectorFunction;
+import com.ibm.bi.dml.runtime.instructions.spark.utils.SparkUtils;
 import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixIndexes;
@@ -124,9 +125,9 @@ public abstract class BinarySPInstruction extends ComputationSPInstruction
 		if( numRepRight > 1 )
 			in2 = in2.flatMapToPair(new ReplicateVectorFunction(rowvector, numRepRight));
 		
-		//execute binary operation
-		JavaPairRDD<MatrixIndexes,MatrixBlock> out = in1
-				.join(in2)
+		//execute binary operation (w/o shuffle of partitioned inputs)
+		JavaPairRDD<MatrixIndexes,MatrixBlock> out = SparkUtils
+				.joinPartitioningAware(in1, in2)
 				.mapValues(new MatrixMatrixBinaryOpFunction(bop));
 		
 		//set output RDD
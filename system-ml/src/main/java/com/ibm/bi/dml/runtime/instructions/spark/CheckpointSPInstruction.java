@@ -31,6 +31,7 @@ import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.InstructionUtils;
 import com.ibm.bi.dml.runtime.instructions.cp.BooleanObject;
 import com.ibm.bi.dml.runtime.instructions.cp.CPOperand;
+import com.ibm.bi.dml.runtime.instructions.spark.data.BlockPartitioner;
 import com.ibm.bi.dml.runtime.instructions.spark.data.RDDObject;
 import com.ibm.bi.dml.runtime.instructions.spark.functions.CopyBlockFunction;
 import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
@@ -44,26 +45,31 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 	//default storage level
 	private StorageLevel _level = null;
 	
-	public CheckpointSPInstruction(Operator op, CPOperand in, CPOperand out, StorageLevel level, String opcode, String istr){
+	//range partitioning by block index (for indexed inputs)
+	private boolean _partition = false;
+	
+	public CheckpointSPInstruction(Operator op, CPOperand in, CPOperand out, StorageLevel level, boolean partition, String opcode, String istr){
 		super(op, in, out, opcode, istr);
 		_sptype = SPINSTRUCTION_TYPE.Reorg;
 		
 		_level = level;
+		_partition = partition;
 	}
 	
 	public static Instruction parseInstruction ( String str ) 
 		throws DMLRuntimeException 
 	{
 		String[] parts = InstructionUtils.getInstructionPartsWithValueType(str);
-		InstructionUtils.checkNumFields(parts, 3);
+		InstructionUtils.checkNumFields(parts, 4);
 		
 		String opcode = parts[0];
 		CPOperand in = new CPOperand(parts[1]);
 		CPOperand out = new CPOperand(parts[2]);
 
 		StorageLevel level = StorageLevel.fromString(parts[3]);
+		boolean partition = Boolean.parseBoolean(parts[4]);
 
-		return new CheckpointSPInstruction(null, in, out, level, opcode, str);
+		return new CheckpointSPInstruction(null, in, out, level, partition, opcode, str);
 	}
 	
 	@Override
@@ -106,13 +112,20 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 			}
 			
 			//checkpoint pre-processing rdd operations
-			if( coalesce ) {
+			if( _partition && isBlockPartitioningApplicable(in, mcIn) ) {
+				//range partitioning by block index (for partition pruning on indexing),
+				//only for inputs that are indexed by the program because it requires a shuffle
+				int numParts = (numPartitions > 0) ? numPartitions : in.partitions().size();
+				out = in.partitionBy( new BlockPartitioner(mcIn, numParts) );
+			}
+			else if( coalesce && !isBlockPartitioned(in) ) {
 				//merge partitions without shuffle if too many partitions
 				out = in.coalesce( numPartitions );
 			}
 			else {
 				//since persist is an in-place marker for a storage level, we 
 				//apply a narrow shallow copy to allow for short-circuit collects 
+				//(mapValues also preserves an existing partitioner, e.g., from reblock)
 				out = in.mapValues(new CopyBlockFunction(false));	
 			}
 				
@@ -142,5 +155,33 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 		}
 		sec.setVariable( output.getName(), mo);
 	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @param mcIn
+	 * @return
+	 */
+	private static boolean isBlockPartitioningApplicable(JavaPairRDD<MatrixIndexes,MatrixBlock> in, MatrixCharacteristics mcIn)
+	{
+		//only for multi-block matrices that are not yet range-partitioned
+		return OptimizerUtils.ALLOW_BLOCK_PARTITIONED_RDDS 
+			&& BlockPartitioner.isApplicable(mcIn)
+			&& mcIn.getNumRowBlocks() * mcIn.getNumColBlocks() > 1
+			&& !isBlockPartitioned(in);
+	}
+	
+	/**
+	 * Indicates if the given rdd is already range-partitioned by block index 
+	 * (e.g., as a byproduct of the shuffle of a preceding reblock).
+	 * 
+	 * @param in
+	 * @return
+	 */
+	private static boolean isBlockPartitioned(JavaPairRDD<MatrixIndexes,MatrixBlock> in)
+	{
+		return in.partitioner().isPresent() 
+			&& in.partitioner().get() instanceof BlockPartitioner;
+	}
 }
 
@@ -17,16 +17,23 @@
 
 package com.ibm.bi.dml.runtime.instructions.spark;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.rdd.PartitionPruningRDD;
 
 import scala.Tuple2;
+import scala.reflect.ClassManifestFactory;
+import scala.runtime.AbstractFunction1;
 
 import com.ibm.bi.dml.hops.AggBinaryOp.SparkAggType;
+import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
@@ -34,6 +41,7 @@ import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.InstructionUtils;
 import com.ibm.bi.dml.runtime.instructions.cp.CPOperand;
+import com.ibm.bi.dml.runtime.instructions.spark.data.BlockPartitioner;
 import com.ibm.bi.dml.runtime.instructions.spark.data.LazyIterableIterator;
 import com.ibm.bi.dml.runtime.instructions.spark.data.PartitionedBroadcastMatrix;
 import com.ibm.bi.dml.runtime.instructions.spark.functions.IsBlockInRange;
@@ -163,7 +171,24 @@ public class MatrixIndexingSPInstruction  extends UnarySPInstruction
 				out = in1.mapPartitionsToPair(
 						new SliceBlockPartitionFunction(ixrange, mcOut), true);
 			}
-			else{
+			else if( isPartitionPruningRightIndexing(in1) 
+				&& isSingleNodeRightIndexing(mcIn, mcOut, ixrange) ) 
+			{
+				//collect blocks of pruned partitions and slice in driver (no job over all partitions)
+				in1 = createPartitionPruningRDD(in1, ixrange);
+				List<Tuple2<MatrixIndexes,MatrixBlock>> blocks = 
+						in1.filter(new IsBlockInRange(rl, ru, cl, cu, mcOut)).collect();
+				MatrixBlock mbout = sliceBlocksLocally(blocks, ixrange, mcIn, mcOut);
+				
+				//put output matrix block into symbol table (no rdd lineage)
+				sec.setMatrixOutput(output.getName(), mbout);
+				return;
+			}
+			else {
+				//prune partitions that do not contain requested blocks (if range-partitioned)
+				if( isPartitionPruningRightIndexing(in1) )
+					in1 = createPartitionPruningRDD(in1, ixrange);
+				
 				out = in1.filter(new IsBlockInRange(rl, ru, cl, cu, mcOut))
 			             .flatMapToPair(new SliceBlock(ixrange, mcOut));
 				
@@ -210,15 +235,22 @@ public class MatrixIndexingSPInstruction  extends UnarySPInstruction
 						new LeftIndexPartitionFunction(broadcastIn2, ixrange, mcOut), true);
 			}
 			else {
-				// Zero-out LHS
-				in1 = in1.mapToPair(new ZeroOutLHS(false, mcLeft.getRowsPerBlock(), 
-								mcLeft.getColsPerBlock(), rl, ru, cl, cu));
+				// Zero-out LHS (partitioning-preserving, no key change)
+				in1 = in1.mapPartitionsToPair(new ZeroOutLHSPartitionFunction(new ZeroOutLHS(false, 
+						mcLeft.getRowsPerBlock(), mcLeft.getColsPerBlock(), rl, ru, cl, cu)), true);
 				
 				// Slice RHS to merge for LHS
 				in2 = sec.getBinaryBlockRDDHandleForVariable( input2.getName() )
 					    .flatMapToPair(new SliceRHSForLeftIndexing(rl, cl, mcLeft.getRowsPerBlock(), mcLeft.getColsPerBlock(), mcLeft.getRows(), mcLeft.getCols()));
 				
-				out = RDDAggregateUtils.mergeByKey(in1.union(in2));
+				if( in1.partitioner().isPresent() ) {
+					//partition RHS like LHS, and merge co-partitioned inputs w/o shuffle of LHS
+					in2 = RDDAggregateUtils.mergeByKey(in2, in1.partitioner().get());
+					out = RDDAggregateUtils.mergeByKey(in1, in2);
+				}
+				else {
+					out = RDDAggregateUtils.mergeByKey(in1.union(in2));
+				}
 			}
 			
 			sec.setRDDHandleForVariable(output.getName(), out);
@@ -259,6 +291,144 @@ public class MatrixIndexingSPInstruction  extends UnarySPInstruction
 	}
 	
 	
+	/**
+	 * Indicates if the input rdd is range-partitioned by block index, which 
+	 * allows to prune partitions that do not contain any requested blocks.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	private static boolean isPartitionPruningRightIndexing(JavaPairRDD<MatrixIndexes,MatrixBlock> in)
+	{
+		return in.partitioner().isPresent() 
+			&& in.partitioner().get() instanceof BlockPartitioner;
+	}
+	
+	/**
+	 * Indicates if both the block-aligned input range and the output fit into 
+	 * the driver memory budget, in which case the output is created in the driver.
+	 * 
+	 * @param mcIn
+	 * @param mcOut
+	 * @param ixrange
+	 * @return
+	 */
+	private static boolean isSingleNodeRightIndexing(MatrixCharacteristics mcIn, MatrixCharacteristics mcOut, IndexRange ixrange)
+	{
+		int brlen = mcIn.getRowsPerBlock();
+		int bclen = mcIn.getColsPerBlock();
+		long rlen = Math.min(((ixrange.rowEnd-1)/brlen + 1) * brlen, mcIn.getRows()) - ((ixrange.rowStart-1)/brlen) * brlen;
+		long clen = Math.min(((ixrange.colEnd-1)/bclen + 1) * bclen, mcIn.getCols()) - ((ixrange.colStart-1)/bclen) * bclen;
+		double sp = OptimizerUtils.getSparsity(mcIn.getRows(), mcIn.getCols(), mcIn.getNonZeros());
+		
+		double memIn = OptimizerUtils.estimateSizeExactSparsity(rlen, clen, sp);
+		double memOut = OptimizerUtils.estimateSizeExactSparsity(mcOut.getRows(), mcOut.getCols(), sp);
+		
+		return memIn + memOut < OptimizerUtils.getLocalMemBudget()
+			&& mcOut.getRows() <= Integer.MAX_VALUE && mcOut.getCols() <= Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Wraps the given range-partitioned rdd into a partition pruning rdd, which 
+	 * only computes the partitions that contain blocks of the given index range.
+	 * 
+	 * @param in
+	 * @param ixrange
+	 * @return
+	 */
+	public static JavaPairRDD<MatrixIndexes,MatrixBlock> createPartitionPruningRDD(JavaPairRDD<MatrixIndexes,MatrixBlock> in, IndexRange ixrange)
+	{
+		BlockPartitioner partitioner = (BlockPartitioner) in.partitioner().get();
+		HashSet<Integer> parts = partitioner.getPartitions(ixrange);
+		
+		//create partition pruning rdd (w/o shuffle, narrow dependency)
+		PartitionPruningRDD<Tuple2<MatrixIndexes,MatrixBlock>> prdd = 
+				PartitionPruningRDD.create(in.rdd(), new PartitionPruningFunction(parts));
+		
+		return JavaPairRDD.fromRDD(prdd, 
+				ClassManifestFactory.fromClass(MatrixIndexes.class), 
+				ClassManifestFactory.fromClass(MatrixBlock.class));
+	}
+	
+	/**
+	 * Slices the given input blocks and assembles them into the output matrix 
+	 * block, where all index computations are 0-based within blocks.
+	 * 
+	 * @param blocks
+	 * @param ixrange
+	 * @param mcIn
+	 * @param mcOut
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock sliceBlocksLocally(List<Tuple2<MatrixIndexes,MatrixBlock>> blocks, IndexRange ixrange, 
+			MatrixCharacteristics mcIn, MatrixCharacteristics mcOut) 
+		throws DMLRuntimeException
+	{
+		int brlen = mcIn.getRowsPerBlock();
+		int bclen = mcIn.getColsPerBlock();
+		int rlen = (int)mcOut.getRows();
+		int clen = (int)mcOut.getCols();
+		
+		//determine target sparse/dense representation
+		double sp = OptimizerUtils.getSparsity(mcIn.getRows(), mcIn.getCols(), mcIn.getNonZeros());
+		boolean sparse = MatrixBlock.evalSparseFormatInMemory(rlen, clen, (long)(sp*rlen*clen));
+		MatrixBlock out = new MatrixBlock(rlen, clen, sparse);
+		
+		for( Tuple2<MatrixIndexes,MatrixBlock> kv : blocks )
+		{
+			MatrixIndexes ix = kv._1();
+			MatrixBlock block = kv._2();
+			
+			//compute intersection of block and index range (global, 1-based)
+			long rowOffset = (ix.getRowIndex()-1)*brlen;
+			long colOffset = (ix.getColumnIndex()-1)*bclen;
+			long grl = Math.max(ixrange.rowStart, rowOffset+1);
+			long gru = Math.min(ixrange.rowEnd, rowOffset+block.getNumRows());
+			long gcl = Math.max(ixrange.colStart, colOffset+1);
+			long gcu = Math.min(ixrange.colEnd, colOffset+block.getNumColumns());
+			if( grl > gru || gcl > gcu || block.isEmptyBlock(false) )
+				continue;
+			
+			//slice block and copy into output
+			MatrixBlock tmp = block.sliceOperations((int)(grl-rowOffset-1), (int)(gru-rowOffset-1), 
+					(int)(gcl-colOffset-1), (int)(gcu-colOffset-1), new MatrixBlock());
+			int orl = (int)(grl-ixrange.rowStart);
+			int ocl = (int)(gcl-ixrange.colStart);
+			if( sparse ) //note: requires final sort of sparse rows
+				out.appendToSparse(tmp, orl, ocl);
+			else
+				out.copy(orl, orl+tmp.getNumRows()-1, ocl, ocl+tmp.getNumColumns()-1, tmp, false);
+		}
+		
+		//post-processing output matrix
+		if( sparse )
+			out.sortSparseRows();
+		out.recomputeNonZeros();
+		out.examSparsity();
+		
+		return out;
+	}
+	
+	/**
+	 * 
+	 */
+	private static class PartitionPruningFunction extends AbstractFunction1<Object,Object> implements Serializable 
+	{
+		private static final long serialVersionUID = -9114299718258329951L;
+		
+		private HashSet<Integer> _parts = null;
+		
+		public PartitionPruningFunction(HashSet<Integer> parts) {
+			_parts = parts;
+		}
+		
+		@Override
+		public Object apply(Object partIndex) {
+			return _parts.contains((Integer)partIndex);
+		}
+	}
+	
 	/**
 	 * 
 	 */
@@ -378,6 +548,41 @@ public class MatrixIndexingSPInstruction  extends UnarySPInstruction
 		
 	}
 	
+	/**
+	 * 
+	 */
+	private static class ZeroOutLHSPartitionFunction implements PairFlatMapFunction<Iterator<Tuple2<MatrixIndexes,MatrixBlock>>, MatrixIndexes, MatrixBlock> 
+	{
+		private static final long serialVersionUID = -2672267231152496854L;
+		
+		private ZeroOutLHS _zeroOut = null;
+		
+		public ZeroOutLHSPartitionFunction(ZeroOutLHS zeroOut) {
+			_zeroOut = zeroOut;
+		}
+
+		@Override
+		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<MatrixIndexes, MatrixBlock>> arg0)
+			throws Exception 
+		{
+			return new ZeroOutLHSPartitionIterator(arg0);
+		}	
+		
+		private class ZeroOutLHSPartitionIterator extends LazyIterableIterator<Tuple2<MatrixIndexes, MatrixBlock>>
+		{
+			public ZeroOutLHSPartitionIterator(Iterator<Tuple2<MatrixIndexes, MatrixBlock>> in) {
+				super(in);
+			}
+
+			@Override
+			protected Tuple2<MatrixIndexes, MatrixBlock> computeNext(Tuple2<MatrixIndexes, MatrixBlock> arg)
+				throws Exception
+			{
+				return _zeroOut.call(arg);
+			}			
+		}
+	}
+	
 	/**
 	 * 
 	 */
@@ -54,6 +54,7 @@ import com.ibm.bi.dml.runtime.matrix.data.MatrixCell;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixIndexes;
 import com.ibm.bi.dml.runtime.matrix.data.RandomMatrixGenerator;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
+import com.ibm.bi.dml.runtime.util.UniformPRNGenerator;
 import com.ibm.bi.dml.runtime.util.UtilFunctions;
 import com.ibm.bi.dml.utils.Statistics;
 
@@ -576,7 +577,7 @@ public class RandSPInstruction extends UnarySPInstruction
 				}
 				else 
 				{
-					Random rnd = new Random(t.seed);
+					UniformPRNGenerator rnd = new UniformPRNGenerator(t.seed);
 					for(long i=st; i <=end; i++) 
 						if ( rnd.nextDouble() < _frac )
 							retList.add((double) i);
@@ -17,6 +17,7 @@
 
 package com.ibm.bi.dml.runtime.instructions.spark;
 
+import com.ibm.bi.dml.api.DMLScript;
 import com.ibm.bi.dml.api.MLContext;
 import com.ibm.bi.dml.api.MLContextProxy;
 import com.ibm.bi.dml.lops.runtime.RunMRJobs;
@@ -27,7 +28,9 @@ import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.SPInstructionParser;
 import com.ibm.bi.dml.runtime.matrix.operators.Operator;
+import com.ibm.bi.dml.utils.Explain;
 import com.ibm.bi.dml.utils.Statistics;
+import com.ibm.bi.dml.utils.Explain.ExplainType;
 
 /**
  * 
@@ -132,6 +135,14 @@ public abstract class SPInstruction extends Instruction
 		//maintain statistics
 		Statistics.incrementNoOfExecutedSPInst();
 		
+		//maintain runtime partitioning report (if explain enabled)
+		if(    DMLScript.EXPLAIN != ExplainType.NONE 
+			&& this instanceof ComputationSPInstruction
+			&& ec instanceof SparkExecutionContext )
+		{
+			Explain.maintainPartitioningReport((SparkExecutionContext)ec, (ComputationSPInstruction)this);
+		}
+		
 		//default post-process behavior
 		super.postprocessInstruction(ec);
 	}
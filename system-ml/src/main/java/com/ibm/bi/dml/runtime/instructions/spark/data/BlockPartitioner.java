@@ -0,0 +1,130 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.ibm.bi.dml.runtime.instructions.spark.data;
+
+import java.util.HashSet;
+
+import org.apache.spark.Partitioner;
+
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixIndexes;
+import com.ibm.bi.dml.runtime.util.IndexRange;
+
+/**
+ * Range partitioner for binary block rdds, which assigns contiguous ranges of
+ * blocks (in row-major order of the block grid) to partitions. In contrast to
+ * the default hash partitioner, this allows to determine the partitions that 
+ * contain a given index range and hence, pruning partitions for indexing.
+ * 
+ */
+public class BlockPartitioner extends Partitioner
+{
+	private static final long serialVersionUID = 3207938407732880324L;
+	
+	private int _numParts = -1;
+	private long _ncblks = -1;
+	private long _blksPerPart = -1;
+	private int _brlen = -1;
+	private int _bclen = -1;
+	
+	/**
+	 * 
+	 * @param mc
+	 * @param numParts
+	 */
+	public BlockPartitioner(MatrixCharacteristics mc, int numParts) 
+	{
+		long nblks = mc.getNumRowBlocks() * mc.getNumColBlocks();
+		
+		_ncblks = mc.getNumColBlocks();
+		_brlen = mc.getRowsPerBlock();
+		_bclen = mc.getColsPerBlock();
+		_blksPerPart = (long) Math.max(Math.ceil((double)nblks/Math.max(numParts,1)), 1);
+		_numParts = (int) Math.max(Math.ceil((double)nblks/_blksPerPart), 1);
+	}
+	
+	/**
+	 * Indicates if the given matrix characteristics allow for range partitioning.
+	 * 
+	 * @param mc
+	 * @return
+	 */
+	public static boolean isApplicable(MatrixCharacteristics mc)
+	{
+		return mc.dimsKnown() && mc.getRowsPerBlock() > 0 && mc.getColsPerBlock() > 0;
+	}
+	
+	@Override
+	public int getPartition(Object key) 
+	{
+		MatrixIndexes ix = (MatrixIndexes) key;
+		long lix = (ix.getRowIndex()-1) * _ncblks + (ix.getColumnIndex()-1);
+		return (int) Math.min(lix / _blksPerPart, _numParts-1);
+	}
+
+	@Override
+	public int numPartitions() 
+	{
+		return _numParts;
+	}
+	
+	/**
+	 * Obtains the ids of all partitions that contain blocks of the given 
+	 * index range (1-based, inclusive).
+	 * 
+	 * @param ixrange
+	 * @return
+	 */
+	public HashSet<Integer> getPartitions(IndexRange ixrange)
+	{
+		HashSet<Integer> ret = new HashSet<Integer>();
+		
+		long rbl = (ixrange.rowStart-1) / _brlen;
+		long rbu = (ixrange.rowEnd-1) / _brlen;
+		long cbl = (ixrange.colStart-1) / _bclen;
+		long cbu = (ixrange.colEnd-1) / _bclen;
+		
+		//each row block maps to a contiguous range of partitions
+		for( long rb=rbl; rb<=rbu && ret.size()<_numParts; rb++ ) {
+			int pl = (int) Math.min((rb * _ncblks + cbl) / _blksPerPart, _numParts-1);
+			int pu = (int) Math.min((rb * _ncblks + cbu) / _blksPerPart, _numParts-1);
+			for( int p=pl; p<=pu; p++ )
+				ret.add(p);
+		}
+		
+		return ret;
+	}
+	
+	@Override
+	public boolean equals(Object obj) 
+	{
+		if( !(obj instanceof BlockPartitioner) )
+			return false;
+		
+		BlockPartitioner that = (BlockPartitioner) obj;
+		return _numParts == that._numParts && _ncblks == that._ncblks 
+			&& _blksPerPart == that._blksPerPart 
+			&& _brlen == that._brlen && _bclen == that._bclen;
+	}
+	
+	@Override
+	public int hashCode() 
+	{
+		return (int)(31 * (31 * _numParts + _ncblks) + _blksPerPart);
+	}
+}
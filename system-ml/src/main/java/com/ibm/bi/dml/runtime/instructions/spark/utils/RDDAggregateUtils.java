@@ -17,16 +17,22 @@
 
 package com.ibm.bi.dml.runtime.instructions.spark.utils;
 
+import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.Function2;
 
+import scala.Tuple2;
+
+import com.ibm.bi.dml.hops.OptimizerUtils;
 import com.ibm.bi.dml.lops.PartialAggregate.CorrectionLocationType;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.functionobjects.KahanPlus;
 import com.ibm.bi.dml.runtime.instructions.cp.KahanObject;
+import com.ibm.bi.dml.runtime.instructions.spark.data.BlockPartitioner;
 import com.ibm.bi.dml.runtime.instructions.spark.data.CorrMatrixBlock;
 import com.ibm.bi.dml.runtime.instructions.spark.data.RowMatrixBlock;
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.matrix.data.MatrixIndexes;
 import com.ibm.bi.dml.runtime.matrix.data.OperationsOnMatrixValues;
@@ -194,6 +200,51 @@ public class RDDAggregateUtils
 				new MergeBlocksFunction());
 	}
 	
+	/**
+	 * Merges disjoint data of all blocks per key, where the output is range-partitioned
+	 * by block index (if the dimensions are known) in order to allow partition pruning
+	 * for subsequent indexing operations. Note that this reuses the required shuffle.
+	 * 
+	 * @param in
+	 * @param mc
+	 * @return
+	 */
+	public static JavaPairRDD<MatrixIndexes, MatrixBlock> mergeByKey( JavaPairRDD<MatrixIndexes, MatrixBlock> in, MatrixCharacteristics mc )
+	{
+		if( OptimizerUtils.ALLOW_BLOCK_PARTITIONED_RDDS && BlockPartitioner.isApplicable(mc) )
+			return mergeByKey(in, new BlockPartitioner(mc, in.partitions().size()));
+		
+		return mergeByKey(in);
+	}
+	
+	/**
+	 * Merges disjoint data of all blocks per key, where the output is partitioned 
+	 * with the given partitioner (e.g., for co-partitioning with another rdd).
+	 * 
+	 * @param in
+	 * @param partitioner
+	 * @return
+	 */
+	public static JavaPairRDD<MatrixIndexes, MatrixBlock> mergeByKey( JavaPairRDD<MatrixIndexes, MatrixBlock> in, Partitioner partitioner )
+	{
+		return in.reduceByKey(
+				partitioner, new MergeBlocksFunction());
+	}
+	
+	/**
+	 * Merges disjoint data of all blocks per key of two rdds. If both inputs are 
+	 * co-partitioned, this cogroup is a narrow dependency and hence, requires no shuffle.
+	 * 
+	 * @param in1
+	 * @param in2
+	 * @return
+	 */
+	public static JavaPairRDD<MatrixIndexes, MatrixBlock> mergeByKey( JavaPairRDD<MatrixIndexes, MatrixBlock> in1, JavaPairRDD<MatrixIndexes, MatrixBlock> in2 )
+	{
+		return in1.cogroup(in2)
+				  .mapValues(new MergeCoGroupedBlocksFunction());
+	}
+	
 	/**
 	 * Merges disjoint data of all blocks per key.
 	 * 
@@ -703,6 +754,31 @@ public class RDDAggregateUtils
 
 	}
 	
+	/**
+	 * 
+	 */
+	private static class MergeCoGroupedBlocksFunction implements Function<Tuple2<Iterable<MatrixBlock>,Iterable<MatrixBlock>>, MatrixBlock> 
+	{
+		private static final long serialVersionUID = 5315296357567385815L;
+		
+		private MergeBlocksFunction _merge = new MergeBlocksFunction();
+		
+		@Override
+		public MatrixBlock call(Tuple2<Iterable<MatrixBlock>, Iterable<MatrixBlock>> arg0) 
+			throws Exception 
+		{
+			MatrixBlock ret = null;
+			
+			//merge all blocks of both inputs (at least one block per key)
+			for( MatrixBlock mb : arg0._1() )
+				ret = (ret == null) ? mb : _merge.call(ret, mb);
+			for( MatrixBlock mb : arg0._2() )
+				ret = (ret == null) ? mb : _merge.call(ret, mb);
+			
+			return ret;
+		}
+	}
+	
 	/**
 	 * 
 	 */
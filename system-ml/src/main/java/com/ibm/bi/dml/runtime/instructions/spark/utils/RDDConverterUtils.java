@@ -78,8 +78,8 @@ public class RDDConverterUtils
 				SparkUtils.getEmptyBlockRDD(sc, mcOut) );
 		}
 		
-		//aggregate partial matrix blocks
-		out = RDDAggregateUtils.mergeByKey( out ); 
+		//aggregate partial matrix blocks (range-partitioned)
+		out = RDDAggregateUtils.mergeByKey( out, mcOut ); 
 		
 		return out;
 	}
@@ -107,8 +107,8 @@ public class RDDConverterUtils
 				SparkUtils.getEmptyBlockRDD(sc, mcOut) );
 		}
 		
-		//aggregate partial matrix blocks
-		out = RDDAggregateUtils.mergeByKey( out ); 
+		//aggregate partial matrix blocks (range-partitioned)
+		out = RDDAggregateUtils.mergeByKey( out, mcOut ); 
 		
 		return out;
 	}
@@ -200,8 +200,8 @@ public class RDDConverterUtils
 				prepinput.mapPartitionsToPair(
 					new CSVToBinaryBlockFunction(mcOut, delim, fill, fillValue));
 		
-		//aggregate partial matrix blocks
-		out = RDDAggregateUtils.mergeByKey( out ); 
+		//aggregate partial matrix blocks (range-partitioned)
+		out = RDDAggregateUtils.mergeByKey( out, mcOut ); 
 		
 		return out;
 	}
@@ -47,6 +47,39 @@ public class SparkUtils
 	//internal configuration
 	public static final StorageLevel DEFAULT_TMP = Checkpoint.DEFAULT_STORAGE_LEVEL;
 	
+	/**
+	 * Indicates if both rdds have the same partitioner, in which case joins 
+	 * and cogroups are narrow dependencies and hence, require no shuffle.
+	 * 
+	 * @param in1
+	 * @param in2
+	 * @return
+	 */
+	public static boolean isCoPartitioned( JavaPairRDD<?,?> in1, JavaPairRDD<?,?> in2 ) {
+		return in1.partitioner().isPresent() && in2.partitioner().isPresent()
+			&& in1.partitioner().get().equals(in2.partitioner().get());
+	}
+	
+	/**
+	 * Joins the given rdds, where we reuse the partitioner of one of the inputs 
+	 * (if available) in order to shuffle only the other, non-partitioned input. 
+	 * For co-partitioned inputs, this join requires no shuffle at all.
+	 * 
+	 * @param in1
+	 * @param in2
+	 * @return
+	 */
+	public static JavaPairRDD<MatrixIndexes,Tuple2<MatrixBlock,MatrixBlock>> joinPartitioningAware( 
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in1, JavaPairRDD<MatrixIndexes,MatrixBlock> in2 ) 
+	{
+		if( in1.partitioner().isPresent() )
+			return in1.join(in2, in1.partitioner().get());
+		else if( in2.partitioner().isPresent() )
+			return in1.join(in2, in2.partitioner().get());
+		else
+			return in1.join(in2);
+	}
+	
 	/**
 	 * 
 	 * @param in
@@ -58,6 +58,7 @@ import com.ibm.bi.dml.runtime.instructions.mr.UaggOuterChainInstruction;
 import com.ibm.bi.dml.runtime.instructions.mr.UnaryInstruction;
 import com.ibm.bi.dml.runtime.instructions.mr.UnaryMRInstructionBase;
 import com.ibm.bi.dml.runtime.instructions.mr.ZeroOutInstruction;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
 import com.ibm.bi.dml.runtime.matrix.operators.AggregateBinaryOperator;
 import com.ibm.bi.dml.runtime.matrix.operators.AggregateUnaryOperator;
 import com.ibm.bi.dml.runtime.matrix.operators.ReorgOperator;
@@ -73,6 +74,7 @@ public class MatrixCharacteristics implements Serializable
 	private int numRowsPerBlock = 1;
 	private int numColumnsPerBlock = 1;
 	private long nonZero = -1;
+	private DensityMap dmap = null; //optional sparsity sketch
 	
 	public MatrixCharacteristics() {
 	
@@ -91,6 +93,7 @@ public class MatrixCharacteristics implements Serializable
 	public MatrixCharacteristics(MatrixCharacteristics that)
 	{
 		set(that.numRows, that.numColumns, that.numRowsPerBlock, that.numColumnsPerBlock, that.nonZero);
+		dmap = that.dmap;
 	}
 
 	public void set(long nr, long nc, int bnr, int bnc) {
@@ -114,6 +117,7 @@ public class MatrixCharacteristics implements Serializable
 		numRowsPerBlock = that.numRowsPerBlock;
 		numColumnsPerBlock = that.numColumnsPerBlock;
 		nonZero = that.nonZero;
+		dmap = that.dmap;
 	}
 	
 	public long getRows(){
@@ -174,6 +178,27 @@ public class MatrixCharacteristics implements Serializable
 		return nonZero;
 	}
 	
+	public void setDensityMap(DensityMap map) {
+		dmap = map;
+	}
+	
+	/**
+	 * Gets the density map if it is consistent with the current dimensions and
+	 * number of non-zeros (density maps are not maintained on metadata updates
+	 * and hence, we ignore outdated maps).
+	 * 
+	 * @return density map or null if not available
+	 */
+	public DensityMap getDensityMap() 
+	{
+		if( dmap != null && dmap.getNumRows() == numRows && dmap.getNumColumns() == numColumns
+			&& (nonZero < 0 || Math.round(dmap.getNonZeros()) == nonZero) ) 
+		{
+			return dmap;
+		}
+		return null;
+	}
+	
 	public boolean dimsKnown() {
 		return ( numRows > 0 && numColumns > 0 );
 	}
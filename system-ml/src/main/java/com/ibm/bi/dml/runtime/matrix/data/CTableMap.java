@@ -91,7 +91,23 @@ public class CTableMap
 		_maxRow = Math.max(_maxRow, row);
 		_maxCol = Math.max(_maxCol, col);
 	}
-	
+
+	/**
+	 * Aggregates all entries of the given ctable map into this map,
+	 * e.g., for merging partial ctable maps of multiple threads.
+	 *
+	 * @param that
+	 */
+	public void aggregate(CTableMap that)
+	{
+		for( LLDoubleEntry e : that._map.extractValues() )
+			_map.addValue(e.key1, e.key2, e.value);
+
+		//maintain internal summaries
+		_maxRow = Math.max(_maxRow, that._maxRow);
+		_maxCol = Math.max(_maxCol, that._maxCol);
+	}
+
 	/**
 	 * 
 	 * @param rlen
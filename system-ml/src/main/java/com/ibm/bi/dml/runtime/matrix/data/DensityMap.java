@@ -0,0 +1,359 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.runtime.matrix.data;
+
+import java.io.Serializable;
+
+import com.ibm.bi.dml.parser.DMLTranslator;
+
+/**
+ * Density map as a sketch of the non-zero structure of a matrix, i.e., a coarse
+ * grid of b x b cells, where each cell holds the (estimated) number of non-zeros
+ * of the corresponding sub matrix. Density maps are computed from sparse matrix
+ * blocks when they are read or produced, carried in the matrix characteristics,
+ * and propagated through matrix multiplications, cell-wise operations and
+ * transpose in order to estimate the output sparsity of intermediates.
+ *
+ * In contrast to the average-case estimates over entire matrices, density maps
+ * capture skew such as block-diagonal structure, sorted one-hot encodings, or
+ * empty regions. For uniformly distributed non-zeros, both are equivalent.
+ *
+ * Density maps are immutable after construction and hence, can be shared.
+ */
+public class DensityMap implements Serializable
+{
+	private static final long serialVersionUID = -2512476823713364471L;
+
+	//cell size (equivalent for all maps in order to align matrix multiplications)
+	public static final int DEFAULT_BLOCKSIZE = DMLTranslator.DMLBlockSize;
+
+	//max number of cells per map and max number of cell operations per estimate
+	private static final long MAX_NUM_CELLS = 64*1024;
+	private static final long MAX_NUM_OPS = 16*1024*1024;
+
+	private final long _rlen;
+	private final long _clen;
+	private final int _b;
+	private final int _rcells;
+	private final int _ccells;
+	private final double[] _nnz; //row-major cells
+
+	/**
+	 * Creates an empty density map for the given dimensions, which are
+	 * required to satisfy isApplicable (see factory methods).
+	 *
+	 * @param rlen
+	 * @param clen
+	 */
+	private DensityMap( long rlen, long clen )
+	{
+		_rlen = rlen;
+		_clen = clen;
+		_b = DEFAULT_BLOCKSIZE;
+		_rcells = (int)Math.ceil((double)rlen/_b);
+		_ccells = (int)Math.ceil((double)clen/_b);
+		_nnz = new double[_rcells*_ccells];
+	}
+
+	/**
+	 * Creates a uniform density map for the given dimensions and number of
+	 * non-zeros (e.g., for dense inputs or inputs without density map).
+	 * Unknown number of non-zeros (negative) are treated as dense.
+	 *
+	 * @param rlen
+	 * @param clen
+	 * @param nnz
+	 * @return density map, or null if exceeding the max number of cells
+	 */
+	public static DensityMap createUniform( long rlen, long clen, long nnz )
+	{
+		return isWithinMaxCells(rlen, clen) ? 
+			new DensityMap(rlen, clen, nnz) : null;
+	}
+	
+	/**
+	 * Creates a density map with exact non-zero counts per cell from the
+	 * given matrix block in a single pass over its non-zeros.
+	 *
+	 * @param in
+	 * @return density map, or null if not applicable
+	 */
+	public static DensityMap create( MatrixBlock in )
+	{
+		return isApplicable(in.getNumRows(), in.getNumColumns()) ? 
+			new DensityMap(in) : null;
+	}
+
+	/**
+	 * 
+	 * @param rlen
+	 * @param clen
+	 * @param nnz
+	 */
+	private DensityMap( long rlen, long clen, long nnz )
+	{
+		this(rlen, clen);
+
+		double sp = (nnz >= 0) ? Math.min((double)nnz / rlen / clen, 1.0) : 1.0;
+		for( int i=0; i<_rcells; i++ )
+			for( int j=0; j<_ccells; j++ )
+				_nnz[i*_ccells+j] = sp * getCellRows(i) * getCellCols(j);
+	}
+
+	/**
+	 * 
+	 * @param in
+	 */
+	private DensityMap( MatrixBlock in )
+	{
+		this(in.getNumRows(), in.getNumColumns());
+
+		if( in.isEmptyBlock(false) )
+			return;
+
+		final int m = in.rlen;
+		final int n = in.clen;
+
+		if( in.sparse ) //SPARSE
+		{
+			SparseRow[] a = in.sparseRows;
+			for( int i=0; i<m; i++ ) {
+				if( a[i]==null || a[i].isEmpty() )
+					continue;
+				int alen = a[i].size();
+				int[] aix = a[i].getIndexContainer();
+				int cix = (i/_b)*_ccells;
+				for( int j=0; j<alen; j++ )
+					_nnz[cix + aix[j]/_b]++;
+			}
+		}
+		else //DENSE
+		{
+			double[] a = in.denseBlock;
+			for( int i=0, aix=0; i<m; i++, aix+=n ) {
+				int cix = (i/_b)*_ccells;
+				for( int j=0; j<n; j++ )
+					if( a[aix+j] != 0 )
+						_nnz[cix + j/_b]++;
+			}
+		}
+	}
+
+	/**
+	 * Indicates if a density map of the given dimensions is within the max number
+	 * of cells and covers more than a single cell (for a single cell, the density
+	 * map is equivalent to the number of non-zeros).
+	 *
+	 * @param rlen
+	 * @param clen
+	 * @return
+	 */
+	public static boolean isApplicable( long rlen, long clen )
+	{
+		return isWithinMaxCells(rlen, clen) 
+			&& Math.ceil((double)rlen/DEFAULT_BLOCKSIZE) * Math.ceil((double)clen/DEFAULT_BLOCKSIZE) > 1;
+	}
+	
+	/**
+	 * Indicates if a density map of the given dimensions is within the max number 
+	 * of cells (computed without integer overflow).
+	 * 
+	 * @param rlen
+	 * @param clen
+	 * @return
+	 */
+	private static boolean isWithinMaxCells( long rlen, long clen )
+	{
+		long rcells = (long)Math.ceil((double)rlen/DEFAULT_BLOCKSIZE);
+		long ccells = (long)Math.ceil((double)clen/DEFAULT_BLOCKSIZE);
+		return ( rlen > 0 && clen > 0 && rcells <= MAX_NUM_CELLS 
+			&& ccells <= MAX_NUM_CELLS / rcells );
+	}
+	
+	/**
+	 * Indicates if a matrix multiplication estimate for inputs of dimensions
+	 * m x cd and cd x n is applicable, i.e., if all density maps are within the
+	 * max number of cells, the output density map is applicable, and the estimate 
+	 * is within the max number of cell operations. This check should precede the 
+	 * creation of (uniform) input density maps.
+	 *
+	 * @param m
+	 * @param cd
+	 * @param n
+	 * @return
+	 */
+	public static boolean isApplicableMatMult( long m, long cd, long n )
+	{
+		long rcells = (long)Math.ceil((double)m/DEFAULT_BLOCKSIZE);
+		long cdcells = (long)Math.ceil((double)cd/DEFAULT_BLOCKSIZE);
+		long ccells = (long)Math.ceil((double)n/DEFAULT_BLOCKSIZE);
+		return ( isWithinMaxCells(m, cd) && isWithinMaxCells(cd, n) && isApplicable(m, n)
+			&& rcells * cdcells <= MAX_NUM_OPS / ccells );
+	}
+
+	public long getNumRows() {
+		return _rlen;
+	}
+
+	public long getNumColumns() {
+		return _clen;
+	}
+
+	/**
+	 * Gets the (estimated) number of non-zeros of the entire matrix.
+	 *
+	 * @return
+	 */
+	public double getNonZeros()
+	{
+		double ret = 0;
+		for( int i=0; i<_nnz.length; i++ )
+			ret += _nnz[i];
+		return ret;
+	}
+
+	/**
+	 * Gets the (estimated) sparsity of the entire matrix.
+	 *
+	 * @return
+	 */
+	public double getSparsity() {
+		return Math.min(getNonZeros() / _rlen / _clen, 1.0);
+	}
+
+	/**
+	 * Gets a signature of the dimensions and the 64bit hash of all cells, which
+	 * distinguishes density maps of different non-zero structure (e.g., for 
+	 * the memo of recompiled instructions).
+	 *
+	 * @return
+	 */
+	public String getSignature()
+	{
+		long hash = 0;
+		for( int i=0; i<_nnz.length; i++ )
+			hash = 31 * hash + Double.doubleToLongBits(_nnz[i]);
+		return _rlen+"x"+_clen+"#"+Long.toHexString(hash);
+	}
+
+	/**
+	 *
+	 * @return
+	 */
+	public DensityMap transpose()
+	{
+		DensityMap ret = new DensityMap(_clen, _rlen);
+		for( int i=0; i<_rcells; i++ )
+			for( int j=0; j<_ccells; j++ )
+				ret._nnz[j*_rcells+i] = _nnz[i*_ccells+j];
+		return ret;
+	}
+
+	/**
+	 * Estimates the density map of the matrix multiplication m1 %*% m2. For
+	 * each pair of input cells, we assume uniformly distributed non-zeros within
+	 * the cells, and we combine the probabilities of non-zero outputs over all
+	 * common cells as independent events.
+	 *
+	 * @param m1
+	 * @param m2
+	 * @return density map of the output, or null if not applicable
+	 */
+	public static DensityMap estimateMatMult( DensityMap m1, DensityMap m2 )
+	{
+		if( m1 == null || m2 == null || m1._clen != m2._rlen
+			|| !isApplicableMatMult(m1._rlen, m1._clen, m2._clen) )
+			return null;
+
+		DensityMap ret = new DensityMap(m1._rlen, m2._clen);
+		final int cd = m1._ccells;
+
+		for( int i=0; i<ret._rcells; i++ ) {
+			long ri = ret.getCellRows(i);
+			for( int j=0; j<ret._ccells; j++ ) {
+				long cj = ret.getCellCols(j);
+				double sp = 0;
+				for( int k=0; k<cd; k++ ) {
+					long lk = m1.getCellCols(k);
+					double sp1 = m1._nnz[i*cd+k] / ri / lk;
+					double sp2 = m2._nnz[k*m2._ccells+j] / lk / cj;
+					if( sp1 == 0 || sp2 == 0 )
+						continue;
+					double v = 1 - Math.pow(1 - sp1 * sp2, lk);
+					sp = sp + v - sp * v;
+				}
+				ret._nnz[i*ret._ccells+j] = sp * ri * cj;
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Estimates the density map of cell-wise operations, i.e., the intersection
+	 * of non-zeros for multiply, and the union of non-zeros for plus or minus.
+	 * Since the non-zero patterns of cell-wise operations are often correlated 
+	 * (e.g., X * (X!=0)), we use upper bounds per cell instead of average-case
+	 * estimates, which is still much tighter than bounds over entire matrices.
+	 *
+	 * @param m1
+	 * @param m2
+	 * @param union
+	 * @return density map of the output, or null if not applicable
+	 */
+	public static DensityMap estimateCellwise( DensityMap m1, DensityMap m2, boolean union )
+	{
+		if( m1 == null || m2 == null || m1._rlen != m2._rlen || m1._clen != m2._clen )
+			return null;
+
+		DensityMap ret = new DensityMap(m1._rlen, m1._clen);
+		for( int i=0; i<ret._rcells; i++ ) {
+			for( int j=0; j<ret._ccells; j++ ) {
+				int ix = i*ret._ccells+j;
+				double cells = (double)ret.getCellRows(i) * ret.getCellCols(j);
+				ret._nnz[ix] = union ? Math.min(m1._nnz[ix] + m2._nnz[ix], cells) 
+						: Math.min(m1._nnz[ix], m2._nnz[ix]);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param i
+	 * @return
+	 */
+	private long getCellRows( int i ) {
+		return Math.min(_b, _rlen - (long)i*_b);
+	}
+
+	/**
+	 *
+	 * @param j
+	 * @return
+	 */
+	private long getCellCols( int j ) {
+		return Math.min(_b, _clen - (long)j*_b);
+	}
+
+	@Override
+	public String toString() {
+		return "DensityMap ["+_rlen+" x "+_clen+", cells "+_rcells+" x "+_ccells+", nnz="+getNonZeros()+"]";
+	}
+}
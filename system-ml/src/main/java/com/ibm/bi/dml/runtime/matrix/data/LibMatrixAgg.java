@@ -19,15 +19,18 @@ package com.ibm.bi.dml.runtime.matrix.data;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.ibm.bi.dml.lops.PartialAggregate.CorrectionLocationType;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.functionobjects.Builtin;
 import com.ibm.bi.dml.runtime.functionobjects.Builtin.BuiltinFunctionCode;
+import com.ibm.bi.dml.runtime.functionobjects.CM;
 import com.ibm.bi.dml.runtime.functionobjects.IndexFunction;
 import com.ibm.bi.dml.runtime.functionobjects.KahanPlus;
 import com.ibm.bi.dml.runtime.functionobjects.Mean;
@@ -37,9 +40,13 @@ import com.ibm.bi.dml.runtime.functionobjects.ReduceCol;
 import com.ibm.bi.dml.runtime.functionobjects.ReduceDiag;
 import com.ibm.bi.dml.runtime.functionobjects.ReduceRow;
 import com.ibm.bi.dml.runtime.functionobjects.ValueFunction;
+import com.ibm.bi.dml.runtime.instructions.cp.CM_COV_Object;
+import com.ibm.bi.dml.runtime.instructions.cp.Data;
 import com.ibm.bi.dml.runtime.instructions.cp.KahanObject;
 import com.ibm.bi.dml.runtime.matrix.operators.AggregateOperator;
 import com.ibm.bi.dml.runtime.matrix.operators.AggregateUnaryOperator;
+import com.ibm.bi.dml.runtime.matrix.operators.CMOperator;
+import com.ibm.bi.dml.runtime.matrix.operators.Operator;
 import com.ibm.bi.dml.runtime.matrix.operators.UnaryOperator;
 import com.ibm.bi.dml.runtime.util.UtilFunctions;
 
@@ -309,6 +316,85 @@ public class LibMatrixAgg
 		//System.out.println("uop ("+in.rlen+","+in.clen+","+in.sparse+") in "+time.stop()+"ms.");
 	}
 	
+	/**
+	 * Multi-threaded cumulative aggregate (cumsum, cumprod, cummin, cummax) via a
+	 * two-pass blocked scan: (1) parallel partial aggregates per row block, (2) 
+	 * sequential cumulative aggregation of these partial aggregates into offsets 
+	 * per row block, and (3) parallel scan per row block starting from its offsets.
+	 * For cumsum, the offsets and scans maintain Kahan corrections.
+	 * 
+	 * @param in
+	 * @param out
+	 * @param uop
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	public static void aggregateUnaryMatrix(MatrixBlock in, MatrixBlock out, UnaryOperator uop, int k) 
+		throws DMLRuntimeException
+	{
+		//fall back to sequential version if necessary
+		if(    k <= 1 || (long)in.rlen*in.clen < PAR_NUMCELL_THRESHOLD || in.rlen <= k
+			|| (long)in.clen*8*2*k > PAR_INTERMEDIATE_SIZE_THRESHOLD ) {
+			aggregateUnaryMatrix(in, out, uop);
+			return;
+		}
+		
+		//prepare meta data 
+		AggType aggtype = getAggType(uop);
+		final int m = in.rlen;
+		final int n = in.clen;
+		final int m2 = out.rlen;
+		final int n2 = out.clen;
+		
+		//filter empty input blocks (incl special handling for sparse-unsafe operations)
+		if( in.isEmptyBlock(false) ){
+			aggregateUnaryMatrixEmpty(in, out, aggtype, null);
+			return;
+		}	
+		
+		//Timing time = new Timing(true);
+		
+		//allocate output arrays (if required)
+		out.reset(m2, n2, false); //always dense
+		out.allocateDenseBlock();
+		
+		//core multi-threaded cumulative aggregate computation
+		//(currently: always parallelization over number of rows)
+		try {
+			ExecutorService pool = Executors.newFixedThreadPool( k );
+			int blklen = (int)(Math.ceil((double)m/k));
+			
+			//step 1: partial aggregates per row block
+			ArrayList<CumAggTask> tasks = new ArrayList<CumAggTask>();
+			for( int i=0; i<k & i*blklen<m; i++ )
+				tasks.add( new CumAggTask(in, null, null, aggtype, uop, i*blklen, Math.min((i+1)*blklen, m)) );
+			List<Future<Object>> rtasks = pool.invokeAll(tasks);	
+			
+			//step 2: offsets per row block (cumulative aggregate of partial aggregates)
+			ArrayList<CumAggTask> tasks2 = new ArrayList<CumAggTask>();
+			double[] off = null;
+			for( int i=0; i<tasks.size(); i++ ) {
+				tasks2.add( new CumAggTask(in, off, out, aggtype, uop, i*blklen, Math.min((i+1)*blklen, m)) );
+				off = cumaggregateOffsets(off, (double[])rtasks.get(i).get(), aggtype, uop.fn, n);
+			}
+			
+			//step 3: cumulative aggregates per row block w/ offsets
+			List<Future<Object>> rtasks2 = pool.invokeAll(tasks2);	
+			pool.shutdown();
+			for( Future<Object> rtask : rtasks2 )
+				rtask.get(); //error handling
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+		
+		//cleanup output and change representation (if necessary)
+		out.recomputeNonZeros();
+		out.examSparsity();
+		
+		//System.out.println("uop k="+k+" ("+in.rlen+","+in.clen+","+in.sparse+") in "+time.stop()+"ms.");
+	}
+	
 	/**
 	 * 
 	 * @param in1
@@ -381,6 +467,84 @@ public class LibMatrixAgg
 		return val;			
 	}
 	
+	/**
+	 * Grouped aggregate, i.e., aggregate(target, groups, weights, fn), where sum is computed
+	 * via kahan plus and all other functions (count, mean, variance, central moments) via 
+	 * central moment objects per group. The multi-threaded version partitions the rows and 
+	 * computes partial group aggregates per thread, which are then merged into the result.
+	 * 
+	 * @param groups
+	 * @param target
+	 * @param weights
+	 * @param result
+	 * @param numGroups
+	 * @param op
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	public static void groupedAggregate(MatrixBlock groups, MatrixBlock target, MatrixBlock weights, MatrixBlock result, int numGroups, Operator op, int k) 
+		throws DMLRuntimeException
+	{
+		if( !(op instanceof CMOperator || op instanceof AggregateOperator) )
+			throw new DMLRuntimeException("Invalid operator (" + op + ") encountered while processing groupedAggregate.");
+		
+		//skip empty blocks (sparse-safe operation)
+		if( op instanceof AggregateOperator && target.isEmptyBlock(false) ) 
+			return;
+		
+		//determine degree of parallelism (constrained by size of partial aggregates)
+		final int m = groups.rlen;
+		long size = (long)numGroups * 8 * ((op instanceof CMOperator) ? 5 : 2);
+		k = (int)Math.min(k, PAR_INTERMEDIATE_SIZE_THRESHOLD / Math.max(size, 1));
+		
+		Data[] buffer = null;
+		
+		//fall back to sequential version if necessary
+		if( k <= 1 || m < PAR_NUMCELL_THRESHOLD || m <= k ) {
+			buffer = groupedAggregate(groups, target, weights, numGroups, op, 0, m);
+		}
+		else {
+			//core multi-threaded grouped aggregate computation
+			//(currently: always parallelization over number of rows)
+			try {
+				ExecutorService pool = Executors.newFixedThreadPool( k );
+				ArrayList<GrpAggTask> tasks = new ArrayList<GrpAggTask>();
+				int blklen = (int)(Math.ceil((double)m/k));
+				for( int i=0; i<k & i*blklen<m; i++ )
+					tasks.add( new GrpAggTask(groups, target, weights, numGroups, op, i*blklen, Math.min((i+1)*blklen, m)) );
+				List<Future<Object>> rtasks = pool.invokeAll(tasks);	
+				pool.shutdown();
+				
+				//merge partial group aggregates
+				ValueFunction fn = (op instanceof CMOperator) ? 
+					CM.getCMFnObject(((CMOperator)op).getAggOpType()) : ((AggregateOperator)op).increOp.fn;
+				for( Future<Object> rtask : rtasks ) {
+					Data[] part = (Data[]) rtask.get();
+					if( buffer == null ) {
+						buffer = part;
+						continue;
+					}
+					for( int i=0; i<numGroups; i++ ) {
+						if( op instanceof CMOperator )
+							fn.execute(buffer[i], part[i]);
+						else
+							fn.execute(buffer[i], ((KahanObject)part[i])._sum, ((KahanObject)part[i])._correction);
+					}
+				}
+			}
+			catch(Exception ex) {
+				throw new DMLRuntimeException(ex);
+			}
+		}
+		
+		//extract the results from group buffers
+		for( int i=0; i<numGroups; i++ ) {
+			double val = (op instanceof CMOperator) ? 
+				((CM_COV_Object)buffer[i]).getRequiredResult(op) : ((KahanObject)buffer[i])._sum;
+			result.quickSetValue(i, 0, val);
+		}
+	}
+	
 	/**
 	 * 
 	 * @param op
@@ -997,22 +1161,11 @@ public class LibMatrixAgg
 				break;
 			}
 			case CUM_KAHAN_SUM: //CUMSUM
+			case CUM_PROD:      //CUMPROD
+			case CUM_MIN:       //CUMMIN
+			case CUM_MAX:       //CUMMAX
 			{
-				KahanObject kbuff = new KahanObject(0, 0);
-				KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
-				d_ucumkp(a, c, m, n, kbuff, kplus);
-				break;
-			}
-			case CUM_PROD: //CUMPROD
-			{
-				d_ucumm(a, c, m, n);
-				break;
-			}
-			case CUM_MIN:
-			case CUM_MAX:
-			{
-				double init = Double.MAX_VALUE * ((optype==AggType.CUM_MAX)?-1:1);
-				d_ucummxx(a, c, m, n, init, (Builtin)vFn);
+				cumaggregateUnaryMatrixDense(in, c, optype, vFn, null, rl, ru);
 				break;
 			}
 			case MIN: 
@@ -1105,22 +1258,11 @@ public class LibMatrixAgg
 				break;
 			}
 			case CUM_KAHAN_SUM: //CUMSUM
+			case CUM_PROD:      //CUMPROD
+			case CUM_MIN:       //CUMMIN
+			case CUM_MAX:       //CUMMAX
 			{
-				KahanObject kbuff = new KahanObject(0, 0);
-				KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
-				s_ucumkp(a, c, m, n, kbuff, kplus);
-				break;
-			}
-			case CUM_PROD: //CUMPROD
-			{
-				s_ucumm(a, c, m, n);
-				break;
-			}
-			case CUM_MIN:
-			case CUM_MAX:
-			{
-				double init = Double.MAX_VALUE * ((optype==AggType.CUM_MAX)?-1:1);
-				s_ucummxx(a, c, m, n, init, (Builtin)vFn);
+				cumaggregateUnaryMatrixSparse(in, c, optype, vFn, null, rl, ru);
 				break;
 			}
 			case MIN:
@@ -1177,6 +1319,142 @@ public class LibMatrixAgg
 		}
 	}
 
+	/**
+	 * Cumulative aggregate of the given row range of a dense input, starting from
+	 * the given initial aggregates (or neutral values, if null).
+	 * 
+	 * @param in
+	 * @param c output array (null for partial aggregation only)
+	 * @param optype
+	 * @param vFn
+	 * @param agg
+	 * @param rl
+	 * @param ru
+	 * @return final aggregates of the row range
+	 * @throws DMLRuntimeException
+	 */
+	private static double[] cumaggregateUnaryMatrixDense(MatrixBlock in, double[] c, AggType optype, ValueFunction vFn, double[] agg, int rl, int ru) 
+		throws DMLRuntimeException
+	{
+		final int m = in.rlen;
+		final int n = in.clen;
+		double[] a = in.getDenseArray();
+		
+		switch( optype )
+		{
+			case CUM_KAHAN_SUM: //CUMSUM
+			{
+				KahanObject kbuff = new KahanObject(0, 0);
+				KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
+				return d_ucumkp(a, agg, c, m, n, kbuff, kplus, rl, ru);
+			}
+			case CUM_PROD: //CUMPROD
+			{
+				return d_ucumm(a, agg, c, m, n, rl, ru);
+			}
+			case CUM_MIN:
+			case CUM_MAX:
+			{
+				double init = Double.MAX_VALUE * ((optype==AggType.CUM_MAX)?-1:1);
+				return d_ucummxx(a, agg, c, m, n, init, (Builtin)vFn, rl, ru);
+			}
+			default:
+				throw new DMLRuntimeException("Unsupported cumulative aggregation type: "+optype);
+		}
+	}
+	
+	/**
+	 * Cumulative aggregate of the given row range of a sparse input, starting from
+	 * the given initial aggregates (or neutral values, if null).
+	 * 
+	 * @param in
+	 * @param c output array (null for partial aggregation only)
+	 * @param optype
+	 * @param vFn
+	 * @param agg
+	 * @param rl
+	 * @param ru
+	 * @return final aggregates of the row range
+	 * @throws DMLRuntimeException
+	 */
+	private static double[] cumaggregateUnaryMatrixSparse(MatrixBlock in, double[] c, AggType optype, ValueFunction vFn, double[] agg, int rl, int ru) 
+		throws DMLRuntimeException
+	{
+		final int m = in.rlen;
+		final int n = in.clen;
+		SparseRow[] a = in.getSparseRows();
+		
+		switch( optype )
+		{
+			case CUM_KAHAN_SUM: //CUMSUM
+			{
+				KahanObject kbuff = new KahanObject(0, 0);
+				KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
+				return s_ucumkp(a, agg, c, m, n, kbuff, kplus, rl, ru);
+			}
+			case CUM_PROD: //CUMPROD
+			{
+				return s_ucumm(a, agg, c, m, n, rl, ru);
+			}
+			case CUM_MIN:
+			case CUM_MAX:
+			{
+				double init = Double.MAX_VALUE * ((optype==AggType.CUM_MAX)?-1:1);
+				return s_ucummxx(a, agg, c, m, n, init, (Builtin)vFn, rl, ru);
+			}
+			default:
+				throw new DMLRuntimeException("Unsupported cumulative aggregation type: "+optype);
+		}
+	}
+	
+	/**
+	 * Combines the offsets of the previous row blocks with the partial aggregates 
+	 * of the current row block into the offsets of the next row block. 
+	 * 
+	 * @param off offsets of the current row block (null for first block)
+	 * @param agg partial aggregates of the current row block
+	 * @param optype
+	 * @param vFn
+	 * @param n
+	 * @return offsets of the next row block
+	 * @throws DMLRuntimeException
+	 */
+	private static double[] cumaggregateOffsets(double[] off, double[] agg, AggType optype, ValueFunction vFn, int n) 
+		throws DMLRuntimeException
+	{
+		if( off == null ) //first block
+			return agg;
+		
+		double[] ret = off.clone();
+		switch( optype )
+		{
+			case CUM_KAHAN_SUM: { //sum w/ correction
+				KahanObject kbuff = new KahanObject(0, 0);
+				KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
+				for( int j=0; j<n; j++ ) {
+					kbuff.set(ret[j], ret[j+n]);
+					kplus.execute(kbuff, agg[j], agg[j+n]);
+					ret[j] = kbuff._sum;
+					ret[j+n] = kbuff._correction;
+				}
+				break;
+			}
+			case CUM_PROD:
+				for( int j=0; j<n; j++ )
+					ret[j] *= agg[j];
+				break;
+			case CUM_MIN:
+			case CUM_MAX:
+				for( int j=0; j<n; j++ )
+					ret[j] = ((Builtin)vFn).execute2(ret[j], agg[j]);
+				break;
+			default:
+				throw new DMLRuntimeException("Unsupported cumulative aggregation type: "+optype);
+		}
+		
+		return ret;
+	}
+
 	/**
 	 * 
 	 * @param in
@@ -1298,68 +1576,95 @@ public class LibMatrixAgg
 	 * CUMSUM, opcode: ucumk+, dense input.
 	 * 
 	 * @param a
-	 * @param c
+	 * @param agg initial sums/corrections (null for neutral 0)
+	 * @param c output array (null for partial aggregation only)
 	 * @param m
 	 * @param n
 	 * @param kbuff
 	 * @param kplus
+	 * @param rl
+	 * @param ru
+	 * @return final sums/corrections of the row range
 	 */
-	private static void d_ucumkp( double[] a, double[] c, int m, int n, KahanObject kbuff, KahanPlus kplus ) 
+	private static double[] d_ucumkp( double[] a, double[] agg, double[] c, int m, int n, KahanObject kbuff, KahanPlus kplus, int rl, int ru ) 
 	{
-		//init current row sum/correction arrays w/ neutral 0
+		//init current row sum/correction arrays w/ neutral 0 or given offsets
 		double[] csums = new double[ 2*n ]; 
-		Arrays.fill(csums, 0); 
+		if( agg != null )
+			System.arraycopy(agg, 0, csums, 0, 2*n);
 		
 		//scan once and compute prefix sums
-		for( int i=0, aix=0; i<m; i++, aix+=n ) {
+		for( int i=rl, aix=rl*n; i<ru; i++, aix+=n ) {
 			sumAgg( a, csums, aix, 0, n, kbuff, kplus );
-			System.arraycopy(csums, 0, c, aix, n);	
-		}			
+			if( c != null )
+				System.arraycopy(csums, 0, c, aix, n);	
+		}
+		
+		return csums;
 	}
 	
 	/**
 	 * CUMPROD, opcode: ucum*, dense input.
 	 * 
 	 * @param a
-	 * @param c
+	 * @param agg initial products (null for neutral 1)
+	 * @param c output array (null for partial aggregation only)
 	 * @param m
 	 * @param n
-	 * @param kbuff
-	 * @param kplus
+	 * @param rl
+	 * @param ru
+	 * @return final products of the row range
 	 */
-	private static void d_ucumm( double[] a, double[] c, int m, int n ) 
+	private static double[] d_ucumm( double[] a, double[] agg, double[] c, int m, int n, int rl, int ru ) 
 	{	
-		//init current row product array w/ neutral 1
+		//init current row product array w/ neutral 1 or given offsets
 		double[] cprods = new double[ n ]; 
-		Arrays.fill(cprods, 1);
+		if( agg != null )
+			System.arraycopy(agg, 0, cprods, 0, n);
+		else
+			Arrays.fill(cprods, 1);
 		
 		//scan once and compute prefix products
-		for( int i=0, aix=0; i<m; i++, aix+=n ) {
+		for( int i=rl, aix=rl*n; i<ru; i++, aix+=n ) {
 			productAgg( a, cprods, aix, 0, n );
-			System.arraycopy(cprods, 0, c, aix, n);
-		}			
+			if( c != null )
+				System.arraycopy(cprods, 0, c, aix, n);
+		}
+		
+		return cprods;
 	}
 	
 	/**
 	 * CUMMIN/CUMMAX, opcode: ucummin/ucummax, dense input.
 	 * 
 	 * @param a
-	 * @param c
+	 * @param agg initial min/max values (null for extreme value init)
+	 * @param c output array (null for partial aggregation only)
 	 * @param m
 	 * @param n
+	 * @param init
 	 * @param builtin
+	 * @param rl
+	 * @param ru
+	 * @return final min/max values of the row range
 	 */
-	private static void d_ucummxx( double[] a, double[] c, int m, int n, double init, Builtin builtin )
+	private static double[] d_ucummxx( double[] a, double[] agg, double[] c, int m, int n, double init, Builtin builtin, int rl, int ru )
 	{
-		//init current row min/max array w/ extreme value 
+		//init current row min/max array w/ extreme value or given offsets
 		double[] cmxx = new double[ n ]; 
-		Arrays.fill(cmxx, init);
+		if( agg != null )
+			System.arraycopy(agg, 0, cmxx, 0, n);
+		else
+			Arrays.fill(cmxx, init);
 				
 		//scan once and compute prefix min/max
-		for( int i=0, aix=0; i<m; i++, aix+=n ) {
+		for( int i=rl, aix=rl*n; i<ru; i++, aix+=n ) {
 			builtinAgg( a, cmxx, aix, n, builtin );
-			System.arraycopy(cmxx, 0, c, aix, n);
+			if( c != null )
+				System.arraycopy(cmxx, 0, c, aix, n);
 		}
+		
+		return cmxx;
 	}
 	/**
 	 * TRACE, opcode: uaktrace 
@@ -1633,20 +1938,25 @@ public class LibMatrixAgg
 	 * CUMSUM, opcode: ucumk+, sparse input.
 	 * 
 	 * @param a
-	 * @param c
+	 * @param agg initial sums/corrections (null for neutral 0)
+	 * @param c output array (null for partial aggregation only)
 	 * @param m
 	 * @param n
 	 * @param kbuff
 	 * @param kplus
+	 * @param rl
+	 * @param ru
+	 * @return final sums/corrections of the row range
 	 */
-	private static void s_ucumkp( SparseRow[] a, double[] c, int m, int n, KahanObject kbuff, KahanPlus kplus )
+	private static double[] s_ucumkp( SparseRow[] a, double[] agg, double[] c, int m, int n, KahanObject kbuff, KahanPlus kplus, int rl, int ru )
 	{
-		//init current row sum/correction arrays w/ neutral 0
+		//init current row sum/correction arrays w/ neutral 0 or given offsets
 		double[] csums = new double[ 2*n ]; 
-		Arrays.fill(csums, 0);
+		if( agg != null )
+			System.arraycopy(agg, 0, csums, 0, 2*n);
 		
 		//scan once and compute prefix sums
-		for( int i=0, ix=0; i<m; i++, ix+=n )
+		for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
 		{
 			SparseRow arow = a[i];
 			if( arow!=null && !arow.isEmpty() )
@@ -1657,30 +1967,40 @@ public class LibMatrixAgg
 				sumAgg( avals, csums, aix, alen, n, kbuff, kplus );
 			}
 			//always copy current sum (not sparse-safe)
-			System.arraycopy(csums, 0, c, ix, n);
+			if( c != null )
+				System.arraycopy(csums, 0, c, ix, n);
 		}
+		
+		return csums;
 	}
 	
 	/**
 	 * CUMPROD, opcode: ucum*, sparse input.
 	 * 
 	 * @param a
-	 * @param c
+	 * @param agg initial products (null for neutral 1)
+	 * @param c output array (null for partial aggregation only)
 	 * @param m
 	 * @param n
+	 * @param rl
+	 * @param ru
+	 * @return final products of the row range
 	 */
-	private static void s_ucumm( SparseRow[] a, double[] c, int m, int n )
+	private static double[] s_ucumm( SparseRow[] a, double[] agg, double[] c, int m, int n, int rl, int ru )
 	{
-		//init current row prod arrays w/ neutral 1
+		//init current row prod arrays w/ neutral 1 or given offsets
 		double[] cprod = new double[ n ]; 
-		Arrays.fill(cprod, 1);
+		if( agg != null )
+			System.arraycopy(agg, 0, cprod, 0, n);
+		else
+			Arrays.fill(cprod, 1);
 		
 		//init count arrays (helper, see correction)
 		int[] cnt = new int[ n ]; 
 		Arrays.fill(cnt, 0); //init count array
 				
 		//scan once and compute prefix products
-		for( int i=0, ix=0; i<m; i++, ix+=n )
+		for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
 		{
 			SparseRow arow = a[i];
 			
@@ -1696,36 +2016,46 @@ public class LibMatrixAgg
 			//correction (not sparse-safe and cumulative)
 			//note: we need to determine if there are only nnz in a column
 			for( int j=0; j<n; j++ )
-				if( cnt[j] < i+1 ) //no dense column
+				if( cnt[j] < i-rl+1 ) //no dense column
 					cprod[j] *= 0;
 			
 			//always copy current sum (not sparse-safe)
-			System.arraycopy(cprod, 0, c, ix, n);
-		}	
+			if( c != null )
+				System.arraycopy(cprod, 0, c, ix, n);
+		}
+		
+		return cprod;
 	}
 	
 	/**
 	 * CUMMIN/CUMMAX, opcode: ucummin/ucummax, sparse input.
 	 * 
 	 * @param a
-	 * @param c
+	 * @param agg initial min/max values (null for extreme value init)
+	 * @param c output array (null for partial aggregation only)
 	 * @param m
 	 * @param n
 	 * @param init
 	 * @param builtin
+	 * @param rl
+	 * @param ru
+	 * @return final min/max values of the row range
 	 */
-	private static void s_ucummxx( SparseRow[] a, double[] c, int m, int n, double init, Builtin builtin ) 
+	private static double[] s_ucummxx( SparseRow[] a, double[] agg, double[] c, int m, int n, double init, Builtin builtin, int rl, int ru ) 
 	{
-		//init current row min/max array w/ extreme value 
+		//init current row min/max array w/ extreme value or given offsets
 		double[] cmxx = new double[ n ]; 
-		Arrays.fill(cmxx, init);
+		if( agg != null )
+			System.arraycopy(agg, 0, cmxx, 0, n);
+		else
+			Arrays.fill(cmxx, init);
 				
 		//init count arrays (helper, see correction)
 		int[] cnt = new int[ n ]; 
 		Arrays.fill(cnt, 0); //init count array
 		
 		//compute column aggregates min/max
-		for( int i=0, ix=0; i<m; i++, ix+=n )
+		for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
 		{
 			SparseRow arow = a[i];
 			if( arow!=null && !arow.isEmpty() )
@@ -1740,12 +2070,15 @@ public class LibMatrixAgg
 			//correction (not sparse-safe and cumulative)
 			//note: we need to determine if there are only nnz in a column
 			for( int j=0; j<n; j++ )
-				if( cnt[j] < i+1 ) //no dense column
+				if( cnt[j] < i-rl+1 ) //no dense column
 					cmxx[j] = builtin.execute2(cmxx[j], 0);
 			
 			//always copy current sum (not sparse-safe)
-			System.arraycopy(cmxx, 0, c, ix, n);
+			if( c != null )
+				System.arraycopy(cmxx, 0, c, ix, n);
 		}
+		
+		return cmxx;
 	}
 	
 	/**
@@ -2118,6 +2451,155 @@ public class LibMatrixAgg
 	}
 	
 	
+	/**
+	 * Computes the partial group aggregates of the given row range [rl,ru).
+	 * 
+	 * @param groups
+	 * @param target
+	 * @param weights
+	 * @param numGroups
+	 * @param op
+	 * @param rl
+	 * @param ru
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static Data[] groupedAggregate(MatrixBlock groups, MatrixBlock target, MatrixBlock weights, int numGroups, Operator op, int rl, int ru) 
+		throws DMLRuntimeException
+	{
+		//CM operator for count, mean, variance
+		//note: current support only for column vectors
+		if( op instanceof CMOperator ) {
+			CM_COV_Object[] cmValues = new CM_COV_Object[numGroups];
+			for( int i=0; i < numGroups; i++ )
+				cmValues[i] = new CM_COV_Object();
+			groupedAggregateCM(groups, target, weights, cmValues, numGroups, (CMOperator)op, rl, ru);
+			return cmValues;
+		}
+		//Aggregate operator for sum (via kahan sum)
+		//note: support for row/column vectors and dense/sparse
+		else {
+			AggregateOperator aggop = (AggregateOperator) op;
+			KahanObject[] buffer = new KahanObject[numGroups];
+			for( int i=0; i < numGroups; i++ )
+				buffer[i] = new KahanObject(aggop.initialValue, 0);
+			groupedAggregateKahanPlus(groups, target, weights, buffer, numGroups, aggop, rl, ru);
+			return buffer;
+		}
+	}
+	
+	/**
+	 * Grouped count, mean, variance, and central moments via central moment objects.
+	 * 
+	 * @param groups
+	 * @param target
+	 * @param weights
+	 * @param cmValues
+	 * @param numGroups
+	 * @param cmop
+	 * @param rl
+	 * @param ru
+	 * @throws DMLRuntimeException
+	 */
+	private static void groupedAggregateCM( MatrixBlock groups, MatrixBlock target, MatrixBlock weights, CM_COV_Object[] cmValues, int numGroups, CMOperator cmop, int rl, int ru ) 
+		throws DMLRuntimeException
+	{
+		//note: new cm object per call for thread-safety (internal buffers)
+		CM cmFn = CM.getCMFnObject(cmop.getAggOpType());
+		double w = 1; //default weight
+		
+		for( int i=rl; i < ru; i++ ) {
+			int g = (int) groups.quickGetValue(i, 0);
+			if ( g > numGroups )
+				continue;
+			double d = target.quickGetValue(i,0);
+			if ( weights != null )
+				w = weights.quickGetValue(i,0);
+			// cmValues is 0-indexed, whereas range of values for g = [1,numGroups]
+			cmFn.execute(cmValues[g-1], d, w); 
+		}
+	}
+	
+	/**
+	 * This is a specific implementation for aggregate(fn="sum"), where we use KahanPlus for numerical
+	 * stability. In contrast to other functions of aggregate, this implementation supports row and column
+	 * vectors for target and exploits sparse representations since KahanPlus is sparse-safe.
+	 * 
+	 * @param groups
+	 * @param target
+	 * @param weights
+	 * @param buffer
+	 * @param numGroups
+	 * @param aggop
+	 * @param rl
+	 * @param ru
+	 * @throws DMLRuntimeException
+	 */
+	private static void groupedAggregateKahanPlus( MatrixBlock groups, MatrixBlock target, MatrixBlock weights, KahanObject[] buffer, int numGroups, AggregateOperator aggop, int rl, int ru ) 
+		throws DMLRuntimeException
+	{
+		boolean rowVector = target.getNumColumns()>1;
+		double w = 1; //default weight
+		
+		if( rowVector ) //target is rowvector
+		{	
+			if( target.sparse ) //SPARSE target
+			{
+				if( target.sparseRows[0]!=null )
+				{
+					SparseRow arow = target.sparseRows[0];
+					int len = arow.size();
+					int[] aix = arow.getIndexContainer();
+					double[] avals = arow.getValueContainer();
+					int pos = (rl==0) ? 0 : arow.searchIndexesFirstGTE(rl);
+					for( int j=pos; pos>=0 && j<len && aix[j]<ru; j++ ) //for each nnz in range
+					{
+						int g = (int) groups.quickGetValue(aix[j], 0);		
+						if ( g > numGroups )
+							continue;
+						if ( weights != null )
+							w = weights.quickGetValue(aix[j],0);
+						aggop.increOp.fn.execute(buffer[g-1], avals[j]*w);						
+					}
+				}
+			}
+			else //DENSE target
+			{
+				double[] a = target.denseBlock;
+				for ( int i=rl; i < ru; i++ ) {
+					double d = a[ i ];
+					if( d != 0 ) //sparse-safe
+					{
+						int g = (int) groups.quickGetValue(i, 0);		
+						if ( g > numGroups )
+							continue;
+						if ( weights != null )
+							w = weights.quickGetValue(i,0);
+						// buffer is 0-indexed, whereas range of values for g = [1,numGroups]
+						aggop.increOp.fn.execute(buffer[g-1], d*w);
+					}
+				}
+			}
+		}
+		else //column vector (always dense, but works for sparse as well)
+		{
+			for ( int i=rl; i < ru; i++ ) 
+			{
+				double d = target.quickGetValue(i,0);
+				if( d != 0 ) //sparse-safe
+				{
+					int g = (int) groups.quickGetValue(i, 0);		
+					if ( g > numGroups )
+						continue;
+					if ( weights != null )
+						w = weights.quickGetValue(i,0);
+					// buffer is 0-indexed, whereas range of values for g = [1,numGroups]
+					aggop.increOp.fn.execute(buffer[g-1], d*w);
+				}
+			}
+		}
+	}
+	
 	////////////////////////////////////////////
 	// performance-relevant utility functions //
 	////////////////////////////////////////////
@@ -2548,6 +3030,75 @@ public class LibMatrixAgg
 		}
 	}
 	
+	/**
+	 * Task for cumulative aggregates over a row block, which computes either
+	 * the partial aggregates (without output) or the final cumulative aggregates 
+	 * starting from the given offsets.
+	 */
+	private static class CumAggTask extends AggTask 
+	{
+		private MatrixBlock _in  = null;
+		private double[] _agg = null;
+		private MatrixBlock _ret = null;
+		private AggType _aggtype = null;
+		private UnaryOperator _uop = null;		
+		private int _rl = -1;
+		private int _ru = -1;
+
+		protected CumAggTask( MatrixBlock in, double[] agg, MatrixBlock ret, AggType aggtype, UnaryOperator uop, int rl, int ru ) 
+		{
+			_in = in;
+			_agg = agg;
+			_ret = ret;
+			_aggtype = aggtype;
+			_uop = uop;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			double[] c = (_ret != null) ? _ret.getDenseArray() : null;
+			
+			if( !_in.sparse )
+				return cumaggregateUnaryMatrixDense(_in, c, _aggtype, _uop.fn, _agg, _rl, _ru);
+			else
+				return cumaggregateUnaryMatrixSparse(_in, c, _aggtype, _uop.fn, _agg, _rl, _ru);
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	private static class GrpAggTask extends AggTask 
+	{
+		private MatrixBlock _groups  = null;
+		private MatrixBlock _target  = null;
+		private MatrixBlock _weights = null;
+		private int _numGroups = -1;
+		private Operator _op = null;
+		private int _rl = -1;
+		private int _ru = -1;
+
+		protected GrpAggTask( MatrixBlock groups, MatrixBlock target, MatrixBlock weights, int numGroups, Operator op, int rl, int ru ) 
+		{
+			_groups = groups;
+			_target = target;
+			_weights = weights;
+			_numGroups = numGroups;
+			_op = op;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			return groupedAggregate(_groups, _target, _weights, _numGroups, _op, _rl, _ru);
+		}
+	}
+	
 	/**
 	 * 
 	 */
@@ -0,0 +1,259 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.runtime.matrix.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.ibm.bi.dml.runtime.DMLRuntimeException;
+import com.ibm.bi.dml.runtime.functionobjects.CTable;
+
+/**
+ * Library for the control program contingency table computation (ctable)
+ * over matrix inputs, i.e., F=ctable(A,B,W), F=ctable(A,B,w), F=ctable(A,v,w),
+ * and F=ctable(A,v,W), where lower-case inputs denote scalars.
+ *
+ * The multi-threaded version partitions the input rows and computes partial
+ * contingency tables per thread, which are then merged into the result. If the
+ * output dimensions are known and the output is dense, the first thread writes
+ * directly into the dense output block and all other threads into dense partial
+ * blocks, otherwise each thread uses its own ctable map (hash group-by).
+ */
+public class LibMatrixCTable
+{
+	//internal configuration parameters
+	private static final long PAR_NUMCELL_THRESHOLD = 1024*1024;   //Min 1M elements
+	private static final long PAR_INTERMEDIATE_SIZE_THRESHOLD = 32*1024*1024; //Max 32MB
+
+	private LibMatrixCTable() {
+		//prevent instantiation via private constructor
+	}
+
+	/**
+	 * Computes the contingency table of the given inputs into either the given
+	 * ctable map or the given result block (if not null). The second and third input
+	 * are optional matrices; if null, the scalar values v2 and w are used instead.
+	 *
+	 * @param A first input matrix
+	 * @param B second input matrix or null
+	 * @param v2 second input scalar (if B is null)
+	 * @param W weight matrix or null
+	 * @param w weight scalar (if W is null)
+	 * @param ignoreZeros
+	 * @param resultMap
+	 * @param resultBlock
+	 * @param k number of threads
+	 * @throws DMLRuntimeException
+	 */
+	public static void ctable( MatrixBlock A, MatrixBlock B, double v2, MatrixBlock W, double w, boolean ignoreZeros,
+			CTableMap resultMap, MatrixBlock resultBlock, int k )
+		throws DMLRuntimeException
+	{
+		//determine degree of parallelism (constrained by size of dense partial results)
+		if( resultBlock != null ) {
+			long size = (long)resultBlock.getNumRows() * resultBlock.getNumColumns() * 8;
+			k = (int)Math.min(k, PAR_INTERMEDIATE_SIZE_THRESHOLD / Math.max(size, 1));
+		}
+
+		//fall back to sequential version if necessary
+		if(    k <= 1 || (long)A.rlen * A.clen < PAR_NUMCELL_THRESHOLD || A.rlen <= k ) {
+			ctable(A, B, v2, W, w, ignoreZeros, resultMap, resultBlock, 0, A.rlen);
+			if( resultBlock != null )
+				resultBlock.recomputeNonZeros();
+			return;
+		}
+
+		//core multi-threaded ctable computation
+		//(currently: always parallelization over number of rows)
+		try {
+			ExecutorService pool = Executors.newFixedThreadPool( k );
+			ArrayList<CTableTask> tasks = new ArrayList<CTableTask>();
+			int blklen = (int)(Math.ceil((double)A.rlen/k));
+			for( int i=0; i<k & i*blklen<A.rlen; i++ ) {
+				//first task writes directly into the result, others into partial results
+				CTableMap map = (resultBlock == null) ? ((i==0) ? resultMap : new CTableMap()) : null;
+				MatrixBlock blk = (resultBlock != null) ? ((i==0) ? resultBlock :
+					new MatrixBlock(resultBlock.getNumRows(), resultBlock.getNumColumns(), false)) : null;
+				tasks.add( new CTableTask(A, B, v2, W, w, ignoreZeros, map, blk, i*blklen, Math.min((i+1)*blklen, A.rlen)) );
+			}
+			List<Future<Object>> rtasks = pool.invokeAll(tasks);
+			pool.shutdown();
+			for( Future<Object> rtask : rtasks )
+				rtask.get(); //error handling
+
+			//merge partial results into the result
+			for( int i=1; i<tasks.size(); i++ ) {
+				if( resultBlock == null )
+					resultMap.aggregate(tasks.get(i).getResultMap());
+				else
+					mergeDense(resultBlock, tasks.get(i).getResultBlock());
+			}
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+
+		//maintain nnz (if necessary)
+		if( resultBlock != null )
+			resultBlock.recomputeNonZeros();
+	}
+
+	/**
+	 *
+	 * @param A
+	 * @param B
+	 * @param v2
+	 * @param W
+	 * @param w
+	 * @param ignoreZeros
+	 * @param resultMap
+	 * @param resultBlock
+	 * @param rl
+	 * @param ru
+	 * @throws DMLRuntimeException
+	 */
+	private static void ctable( MatrixBlock A, MatrixBlock B, double v2, MatrixBlock W, double w, boolean ignoreZeros,
+			CTableMap resultMap, MatrixBlock resultBlock, int rl, int ru )
+		throws DMLRuntimeException
+	{
+		CTable ctable = CTable.getCTableFnObject();
+
+		if( ignoreZeros && B != null && W == null //SPARSE-SAFE & SPARSE INPUTS
+			&& A.sparse && B.sparse )
+		{
+			//note: only used if both inputs have aligned zeros, which
+			//allows us to infer that the nnz both inputs are equivalent
+
+			//early abort on empty blocks possible
+			if( A.isEmptyBlock(false) && B.isEmptyBlock(false) )
+				return;
+
+			SparseRow[] a = A.sparseRows;
+			SparseRow[] b = B.sparseRows;
+			for( int i=rl; i<ru; i++ )
+			{
+				SparseRow arow = a[i];
+				SparseRow brow = b[i];
+				if( arow != null && !arow.isEmpty() )
+				{
+					int alen = arow.size();
+					double[] avals = arow.getValueContainer();
+					double[] bvals = brow.getValueContainer();
+
+					if( resultBlock == null ) {
+						for( int j=0; j<alen; j++ )
+							ctable.execute(avals[j], bvals[j], w, ignoreZeros, resultMap);
+					}
+					else {
+						for( int j=0; j<alen; j++ )
+							ctable.execute(avals[j], bvals[j], w, ignoreZeros, resultBlock);
+					}
+				}
+			}
+		}
+		else //SPARSE-UNSAFE | GENERIC INPUTS
+		{
+			//sparse-unsafe ctable execution
+			//(because input values of 0 are invalid and have to result in errors)
+			int n = A.clen;
+			for( int i=rl; i<ru; i++ )
+				for( int j=0; j<n; j++ )
+				{
+					double v1 = A.quickGetValue(i, j);
+					double vb = (B != null) ? B.quickGetValue(i, j) : v2;
+					double vw = (W != null) ? W.quickGetValue(i, j) : w;
+					if( resultBlock == null )
+						ctable.execute(v1, vb, vw, ignoreZeros, resultMap);
+					else
+						ctable.execute(v1, vb, vw, ignoreZeros, resultBlock);
+				}
+		}
+	}
+
+	/**
+	 * Adds the values of the given dense partial result to the dense result.
+	 *
+	 * @param ret
+	 * @param part
+	 */
+	private static void mergeDense( MatrixBlock ret, MatrixBlock part )
+	{
+		//skip empty partial results (dense block allocated on demand)
+		if( part.denseBlock == null )
+			return;
+
+		ret.allocateDenseBlock(false);
+		double[] c = ret.denseBlock;
+		double[] p = part.denseBlock;
+		int len = ret.rlen * ret.clen;
+		for( int i=0; i<len; i++ )
+			c[i] += p[i];
+	}
+
+	/**
+	 *
+	 */
+	private static class CTableTask implements Callable<Object>
+	{
+		private MatrixBlock _A = null;
+		private MatrixBlock _B = null;
+		private double _v2 = -1;
+		private MatrixBlock _W = null;
+		private double _w = -1;
+		private boolean _ignoreZeros = false;
+		private CTableMap _resultMap = null;
+		private MatrixBlock _resultBlock = null;
+		private int _rl = -1;
+		private int _ru = -1;
+
+		protected CTableTask( MatrixBlock A, MatrixBlock B, double v2, MatrixBlock W, double w, boolean ignoreZeros,
+				CTableMap resultMap, MatrixBlock resultBlock, int rl, int ru )
+		{
+			_A = A;
+			_B = B;
+			_v2 = v2;
+			_W = W;
+			_w = w;
+			_ignoreZeros = ignoreZeros;
+			_resultMap = resultMap;
+			_resultBlock = resultBlock;
+			_rl = rl;
+			_ru = ru;
+		}
+
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			ctable(_A, _B, _v2, _W, _w, _ignoreZeros, _resultMap, _resultBlock, _rl, _ru);
+
+			return null;
+		}
+
+		public CTableMap getResultMap() {
+			return _resultMap;
+		}
+
+		public MatrixBlock getResultBlock() {
+			return _resultBlock;
+		}
+	}
+}
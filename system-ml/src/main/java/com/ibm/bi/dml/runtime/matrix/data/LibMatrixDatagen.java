@@ -518,7 +518,7 @@ public class LibMatrixDatagen
 			for(int i=1; i <= size; i++) 
 				out.setValueDenseUnsafe(i-1, 0, i );
 			
-			Random rand = new Random(seed);
+			UniformPRNGenerator rand = new UniformPRNGenerator(seed);
 			for(int i=size+1; i <= range; i++) 
 			{
 				if(rand.nextInt(i) < size)
@@ -541,9 +541,9 @@ public class LibMatrixDatagen
 		}
 		else 
 		{
-			Random r = new Random(seed);
+			UniformPRNGenerator r = new UniformPRNGenerator(seed);
 			for(int i=0; i < size; i++) 
-				out.setValueDenseUnsafe(i, 0, 1+nextLong(r, range) );
+				out.setValueDenseUnsafe(i, 0, 1+r.nextLong(range) );
 		}
 		
 		out.recomputeNonZeros();
@@ -740,22 +740,6 @@ public class LibMatrixDatagen
 			throw new DMLRuntimeException("Invalid matrix characteristics: "+rows+"x"+cols+", "+sp);
 	}
 	
-	// modified version of java.util.nextInt
-    private static long nextLong(Random r, long n) {
-        if (n <= 0)
-            throw new IllegalArgumentException("n must be positive");
-
-        //if ((n & -n) == n)  // i.e., n is a power of 2
-        //    return ((n * (long)r.nextLong()) >> 31);
-
-        long bits, val;
-        do {
-            bits = (r.nextLong() << 1) >>> 1;
-            val = bits % n;
-        } while (bits - val + (n-1) < 0L);
-        return val;
-    }
-    
 
 	/**
 	 * 
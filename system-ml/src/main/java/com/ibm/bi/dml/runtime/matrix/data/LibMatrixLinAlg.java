@@ -0,0 +1,1096 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.runtime.matrix.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.runtime.DMLRuntimeException;
+
+/**
+ * Library for native dense linear algebra operations on matrix blocks, i.e.,
+ * solve, matrix inverse, and the LU and QR decompositions. In contrast to
+ * LibCommonsMath, this library directly works on row-major dense arrays
+ * (no conversion to double[][]) and uses cache-blocked, multi-threaded
+ * factorizations:
+ *
+ * - Cholesky: right-looking blocked factorization (used for symmetric positive
+ *   definite systems like t(X)%*%X + lambda*I), parallel over rows of the panel
+ *   and the trailing matrix.
+ * - LU: right-looking blocked factorization with partial pivoting, parallel over
+ *   columns of the U12 block and rows of the trailing matrix.
+ * - QR: householder QR (compatible to commons-math output), parallel over the
+ *   columns updated per householder reflection.
+ *
+ * Triangular solves with multiple right-hand sides are parallelized over columns.
+ */
+public class LibMatrixLinAlg
+{
+	//internal configuration parameters
+	private static final int BLOCKSIZE = 64; //block size of panels
+	private static final long PAR_NUMCELL_THRESHOLD = 64*1024; //Min 64K elements (e.g., 256x256)
+
+	private LibMatrixLinAlg() {
+		//prevent instantiation via private constructor
+	}
+
+	public static boolean isSupportedUnaryOperation( String opcode ) {
+		return OptimizerUtils.ALLOW_NATIVE_LINALG && opcode.equals("inverse");
+	}
+
+	public static boolean isSupportedMultiReturnOperation( String opcode ) {
+		return OptimizerUtils.ALLOW_NATIVE_LINALG && (opcode.equals("qr") || opcode.equals("lu"));
+	}
+
+	public static boolean isSupportedMatrixMatrixOperation( String opcode ) {
+		return OptimizerUtils.ALLOW_NATIVE_LINALG && opcode.equals("solve");
+	}
+
+	/**
+	 *
+	 * @param in
+	 * @param opcode
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock unaryOperations(MatrixBlock in, String opcode, int k)
+		throws DMLRuntimeException
+	{
+		if( opcode.equals("inverse") )
+			return computeInverse(in, k);
+
+		throw new DMLRuntimeException("Unsupported native linear algebra operation: "+opcode);
+	}
+
+	/**
+	 *
+	 * @param in
+	 * @param opcode
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock[] multiReturnOperations(MatrixBlock in, String opcode, int k)
+		throws DMLRuntimeException
+	{
+		if( opcode.equals("qr") )
+			return computeQR(in, k);
+		else if( opcode.equals("lu") )
+			return computeLU(in, k);
+
+		throw new DMLRuntimeException("Unsupported native linear algebra operation: "+opcode);
+	}
+
+	/**
+	 *
+	 * @param in1
+	 * @param in2
+	 * @param opcode
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock matrixMatrixOperations(MatrixBlock in1, MatrixBlock in2, String opcode, int k)
+		throws DMLRuntimeException
+	{
+		if( opcode.equals("solve") )
+			return computeSolve(in1, in2, k);
+
+		throw new DMLRuntimeException("Unsupported native linear algebra operation: "+opcode);
+	}
+
+	/**
+	 * Solves the system of equations A x = B. Square systems are solved via Cholesky
+	 * (if A is symmetric positive definite) or LU decomposition, all other systems
+	 * via householder QR (least squares).
+	 *
+	 * @param A
+	 * @param B
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static MatrixBlock computeSolve(MatrixBlock A, MatrixBlock B, int k)
+		throws DMLRuntimeException
+	{
+		int m = A.getNumRows();
+		int n = A.getNumColumns();
+		int r = B.getNumColumns();
+		if( B.getNumRows() != m )
+			throw new DMLRuntimeException("Dimension mismatch in solve: A is "+m+"x"+n+", b is "+B.getNumRows()+"x"+r+".");
+
+		ExecutorService pool = createThreadPool((long)m*n, k);
+		try
+		{
+			double[] x = null;
+			if( m == n ) {
+				//SPD fast path (e.g., t(X)%*%X + lambda*I), w/ fallback to LU
+				double[] a = getDenseCopy(A);
+				x = getDenseCopy(B);
+				if( isSymmetric(a, n) && choleskyFactorize(a, n, pool, k) ) {
+					solveTriangular(a, n, x, r, null, pool, k);
+				}
+				else {
+					a = getDenseCopy(A);
+					int[] perm = new int[n];
+					if( !luFactorize(a, n, perm, pool, k) )
+						throw new DMLRuntimeException("Solve failed: matrix A is singular.");
+					x = permuteRows(x, perm, n, r);
+					solveTriangular(a, n, x, r, perm, pool, k);
+				}
+			}
+			else {
+				double[] qrt = getDenseCopyTranspose(A);
+				double[] rDiag = householderQR(qrt, m, n, pool, k);
+				x = solveQR(qrt, rDiag, m, n, getDenseCopy(B), r);
+			}
+
+			return createResult(x, n, r);
+		}
+		finally {
+			if( pool != null )
+				pool.shutdown();
+		}
+	}
+
+	/**
+	 * Computes the inverse of a square matrix via Cholesky (if symmetric positive
+	 * definite) or LU decomposition and subsequent triangular solves.
+	 *
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static MatrixBlock computeInverse(MatrixBlock A, int k)
+		throws DMLRuntimeException
+	{
+		int n = A.getNumRows();
+		if( n != A.getNumColumns() )
+			throw new DMLRuntimeException("Input to inv() must be square matrix -- given: a " + n + "x" + A.getNumColumns() + " matrix.");
+
+		ExecutorService pool = createThreadPool((long)n*n, k);
+		try
+		{
+			double[] a = getDenseCopy(A);
+			double[] x = new double[n*n];
+			if( isSymmetric(a, n) && choleskyFactorize(a, n, pool, k) ) {
+				for( int i=0; i<n; i++ )
+					x[i*n+i] = 1;
+				solveTriangular(a, n, x, n, null, pool, k);
+			}
+			else {
+				a = getDenseCopy(A);
+				int[] perm = new int[n];
+				if( !luFactorize(a, n, perm, pool, k) )
+					throw new DMLRuntimeException("Matrix inverse failed: matrix is singular.");
+				for( int i=0; i<n; i++ ) //permuted identity
+					x[i*n+perm[i]] = 1;
+				solveTriangular(a, n, x, n, perm, pool, k);
+			}
+
+			return createResult(x, n, n);
+		}
+		finally {
+			if( pool != null )
+				pool.shutdown();
+		}
+	}
+
+	/**
+	 * Computes the LU decomposition with partial pivoting P A = L U, and
+	 * returns the matrices P, L, and U.
+	 *
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static MatrixBlock[] computeLU(MatrixBlock A, int k)
+		throws DMLRuntimeException
+	{
+		int n = A.getNumRows();
+		if( n != A.getNumColumns() )
+			throw new DMLRuntimeException("LU Decomposition can only be done on a square matrix. Input matrix is rectangular (rows=" + n + ", cols="+ A.getNumColumns() +")");
+
+		ExecutorService pool = createThreadPool((long)n*n, k);
+		try
+		{
+			double[] a = getDenseCopy(A);
+			int[] perm = new int[n];
+			luFactorize(a, n, perm, pool, k);
+
+			//extract permutation, lower and upper triangular matrices
+			double[] p = new double[n*n];
+			double[] l = new double[n*n];
+			double[] u = new double[n*n];
+			for( int i=0, ix=0; i<n; i++, ix+=n ) {
+				p[ix+perm[i]] = 1;
+				System.arraycopy(a, ix, l, ix, i);
+				l[ix+i] = 1;
+				System.arraycopy(a, ix+i, u, ix+i, n-i);
+			}
+
+			return new MatrixBlock[] { createResult(p, n, n),
+				createResult(l, n, n), createResult(u, n, n) };
+		}
+		finally {
+			if( pool != null )
+				pool.shutdown();
+		}
+	}
+
+	/**
+	 * Computes the householder QR decomposition and returns the matrix of
+	 * householder vectors H and the upper triangular matrix R (equivalent
+	 * to commons-math getH() and getR()).
+	 *
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static MatrixBlock[] computeQR(MatrixBlock A, int k)
+		throws DMLRuntimeException
+	{
+		int m = A.getNumRows();
+		int n = A.getNumColumns();
+
+		ExecutorService pool = createThreadPool((long)m*n, k);
+		try
+		{
+			double[] qrt = getDenseCopyTranspose(A);
+			double[] rDiag = householderQR(qrt, m, n, pool, k);
+
+			//extract householder vectors and upper triangular matrix
+			int p = Math.min(m, n);
+			double[] h = new double[m*n];
+			double[] r = new double[m*n];
+			for( int i=0; i<m; i++ )
+				for( int j=0; j<Math.min(i+1, n); j++ )
+					h[i*n+j] = qrt[j*m+i] / -rDiag[j];
+			for( int i=0; i<p; i++ ) {
+				r[i*n+i] = rDiag[i];
+				for( int j=i+1; j<n; j++ )
+					r[i*n+j] = qrt[j*m+i];
+			}
+
+			return new MatrixBlock[] { createResult(h, m, n), createResult(r, m, n) };
+		}
+		finally {
+			if( pool != null )
+				pool.shutdown();
+		}
+	}
+
+
+	/////////////////////////////////////////////
+	// core factorizations and solves (drivers)
+	/////////////////////////////////////////////
+
+	/**
+	 * Blocked, right-looking in-place Cholesky factorization A = L t(L) of a
+	 * symmetric matrix, where only the lower triangle is accessed.
+	 *
+	 * @param a row-major dense n x n matrix, overwritten with L
+	 * @param n
+	 * @param pool thread pool or null (single-threaded)
+	 * @param k
+	 * @return false if the matrix is not positive definite
+	 * @throws DMLRuntimeException
+	 */
+	private static boolean choleskyFactorize(double[] a, int n, ExecutorService pool, int k)
+		throws DMLRuntimeException
+	{
+		for( int kb=0; kb<n; kb+=BLOCKSIZE )
+		{
+			int ke = Math.min(kb+BLOCKSIZE, n);
+
+			//factorize diagonal block
+			if( !choleskyDiag(a, n, kb, ke) )
+				return false;
+
+			//compute panel below the diagonal block and update trailing matrix
+			if( pool != null && n-ke >= k ) {
+				ArrayList<CholeskyTask> tasks = new ArrayList<CholeskyTask>();
+				int blklen = (int)(Math.ceil((double)(n-ke)/k));
+				for( int i=0; i<k & ke+i*blklen<n; i++ )
+					tasks.add(new CholeskyTask(a, n, kb, ke, ke+i*blklen, Math.min(ke+(i+1)*blklen, n), true));
+				executeTasks(pool, tasks);
+
+				//triangle-aware row partitioning for balanced work
+				tasks.clear();
+				for( int i=0; i<k; i++ ) {
+					int rl = ke + (int)((n-ke)*Math.sqrt((double)i/k));
+					int ru = ke + (int)((n-ke)*Math.sqrt((double)(i+1)/k));
+					if( rl < ru )
+						tasks.add(new CholeskyTask(a, n, kb, ke, rl, ru, false));
+				}
+				executeTasks(pool, tasks);
+			}
+			else {
+				choleskyPanel(a, n, kb, ke, ke, n);
+				choleskyUpdate(a, n, kb, ke, ke, n);
+			}
+		}
+
+		//clear upper triangle
+		for( int i=0, ix=0; i<n; i++, ix+=n )
+			Arrays.fill(a, ix+i+1, ix+n, 0);
+
+		return true;
+	}
+
+	/**
+	 * Blocked, right-looking in-place LU factorization with partial pivoting, where
+	 * the unit lower triangular L and upper triangular U are stored in a.
+	 *
+	 * @param a row-major dense n x n matrix, overwritten with L and U
+	 * @param n
+	 * @param perm output row permutation (row i of PA is row perm[i] of A)
+	 * @param pool thread pool or null (single-threaded)
+	 * @param k
+	 * @return false if the matrix is singular
+	 * @throws DMLRuntimeException
+	 */
+	private static boolean luFactorize(double[] a, int n, int[] perm, ExecutorService pool, int k)
+		throws DMLRuntimeException
+	{
+		boolean nonsingular = true;
+		for( int i=0; i<n; i++ )
+			perm[i] = i;
+
+		for( int kb=0; kb<n; kb+=BLOCKSIZE )
+		{
+			int ke = Math.min(kb+BLOCKSIZE, n);
+
+			//factorize panel (incl row interchanges of entire rows)
+			nonsingular &= luPanel(a, n, perm, kb, ke);
+
+			//compute U12 and update trailing matrix
+			if( pool != null && n-ke >= k ) {
+				ArrayList<LUTask> tasks = new ArrayList<LUTask>();
+				int blklen = (int)(Math.ceil((double)(n-ke)/k));
+				for( int i=0; i<k & ke+i*blklen<n; i++ )
+					tasks.add(new LUTask(a, n, kb, ke, ke+i*blklen, Math.min(ke+(i+1)*blklen, n), true));
+				executeTasks(pool, tasks);
+				tasks.clear();
+				for( int i=0; i<k & ke+i*blklen<n; i++ )
+					tasks.add(new LUTask(a, n, kb, ke, ke+i*blklen, Math.min(ke+(i+1)*blklen, n), false));
+				executeTasks(pool, tasks);
+			}
+			else {
+				luSolveU12(a, n, kb, ke, ke, n);
+				luUpdate(a, n, kb, ke, ke, n);
+			}
+		}
+
+		return nonsingular;
+	}
+
+	/**
+	 * Solves the triangular systems of a Cholesky (perm==null) or LU factorization
+	 * for the given right-hand sides, which are overwritten with the solution. For LU,
+	 * the rows of x are expected to be already permuted.
+	 *
+	 * @param a
+	 * @param n
+	 * @param x row-major dense n x r matrix of right-hand sides
+	 * @param r
+	 * @param perm
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void solveTriangular(double[] a, int n, double[] x, int r, int[] perm, ExecutorService pool, int k)
+		throws DMLRuntimeException
+	{
+		if( pool != null && r >= k ) {
+			ArrayList<SolveTask> tasks = new ArrayList<SolveTask>();
+			int blklen = (int)(Math.ceil((double)r/k));
+			for( int i=0; i<k & i*blklen<r; i++ )
+				tasks.add(new SolveTask(a, n, x, r, perm==null, i*blklen, Math.min((i+1)*blklen, r)));
+			executeTasks(pool, tasks);
+		}
+		else if( perm == null )
+			choleskySolve(a, n, x, r, 0, r);
+		else
+			luSolve(a, n, x, r, 0, r);
+	}
+
+	/**
+	 * Householder QR decomposition (same algorithm as commons-math QRDecomposition)
+	 * on the transposed input, which makes all column accesses contiguous.
+	 *
+	 * @param qrt row-major dense n x m matrix (transpose of A), overwritten with the factorization
+	 * @param m
+	 * @param n
+	 * @param pool
+	 * @param k
+	 * @return diagonal of R
+	 * @throws DMLRuntimeException
+	 */
+	private static double[] householderQR(double[] qrt, int m, int n, ExecutorService pool, int k)
+		throws DMLRuntimeException
+	{
+		int p = Math.min(m, n);
+		double[] rDiag = new double[p];
+
+		for( int minor=0; minor<p; minor++ )
+		{
+			int qm = minor*m;
+			double xNormSqr = 0;
+			for( int row=minor; row<m; row++ )
+				xNormSqr += qrt[qm+row] * qrt[qm+row];
+			double a = (qrt[qm+minor] > 0) ? -Math.sqrt(xNormSqr) : Math.sqrt(xNormSqr);
+			rDiag[minor] = a;
+
+			if( a != 0 ) {
+				qrt[qm+minor] -= a;
+
+				//apply householder reflection to all remaining columns
+				int len = n-minor-1;
+				if( pool != null && len >= k && (long)len*(m-minor) >= PAR_NUMCELL_THRESHOLD ) {
+					ArrayList<QRTask> tasks = new ArrayList<QRTask>();
+					int blklen = (int)(Math.ceil((double)len/k));
+					for( int i=0; i<k & i*blklen<len; i++ )
+						tasks.add(new QRTask(qrt, m, minor, a, minor+1+i*blklen, minor+1+Math.min((i+1)*blklen, len)));
+					executeTasks(pool, tasks);
+				}
+				else
+					householderUpdate(qrt, m, minor, a, minor+1, n);
+			}
+		}
+
+		return rDiag;
+	}
+
+	/**
+	 * Least squares solve via householder QR (same algorithm as commons-math
+	 * QRDecomposition solver), i.e., y = t(Q) b and R x = y.
+	 *
+	 * @param qrt
+	 * @param rDiag
+	 * @param m
+	 * @param n
+	 * @param y row-major dense m x r matrix of right-hand sides (modified)
+	 * @param r
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static double[] solveQR(double[] qrt, double[] rDiag, int m, int n, double[] y, int r)
+		throws DMLRuntimeException
+	{
+		int p = rDiag.length;
+		for( int j=0; j<p; j++ )
+			if( rDiag[j] == 0 )
+				throw new DMLRuntimeException("Solve failed: matrix A is singular.");
+
+		//apply householder reflections y = t(Q) b
+		for( int minor=0; minor<p; minor++ ) {
+			int qm = minor*m;
+			double factor = 1.0 / (rDiag[minor] * qrt[qm+minor]);
+			for( int c=0; c<r; c++ ) {
+				double dot = 0;
+				for( int row=minor; row<m; row++ )
+					dot += qrt[qm+row] * y[row*r+c];
+				dot *= factor;
+				for( int row=minor; row<m; row++ )
+					y[row*r+c] += dot * qrt[qm+row];
+			}
+		}
+
+		//back substitution R x = y
+		double[] x = new double[n*r];
+		for( int j=p-1; j>=0; j-- ) {
+			int jx = j*r;
+			for( int c=0; c<r; c++ )
+				x[jx+c] = y[jx+c] / rDiag[j];
+			for( int i=0; i<j; i++ ) {
+				double qji = qrt[j*m+i];
+				for( int c=0, ix=i*r; c<r; c++ )
+					y[ix+c] -= x[jx+c] * qji;
+			}
+		}
+
+		return x;
+	}
+
+
+	/////////////////////////////////////////////
+	// core kernels of factorizations and solves
+	/////////////////////////////////////////////
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param kb
+	 * @param ke
+	 * @return
+	 */
+	private static boolean choleskyDiag(double[] a, int n, int kb, int ke)
+	{
+		for( int j=kb, jx=kb*n; j<ke; j++, jx+=n ) {
+			double d = a[jx+j];
+			for( int p=kb; p<j; p++ )
+				d -= a[jx+p] * a[jx+p];
+			if( !(d > 0) ) //incl NaN
+				return false;
+			d = Math.sqrt(d);
+			a[jx+j] = d;
+			for( int i=j+1, ix=(j+1)*n; i<ke; i++, ix+=n ) {
+				double s = a[ix+j];
+				for( int p=kb; p<j; p++ )
+					s -= a[ix+p] * a[jx+p];
+				a[ix+j] = s / d;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param kb
+	 * @param ke
+	 * @param rl
+	 * @param ru
+	 */
+	private static void choleskyPanel(double[] a, int n, int kb, int ke, int rl, int ru)
+	{
+		for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
+			for( int j=kb, jx=kb*n; j<ke; j++, jx+=n ) {
+				double s = a[ix+j];
+				for( int p=kb; p<j; p++ )
+					s -= a[ix+p] * a[jx+p];
+				a[ix+j] = s / a[jx+j];
+			}
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param kb
+	 * @param ke
+	 * @param rl
+	 * @param ru
+	 */
+	private static void choleskyUpdate(double[] a, int n, int kb, int ke, int rl, int ru)
+	{
+		//lower triangle of trailing matrix (dot products of contiguous panel rows)
+		for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
+			for( int j=ke, jx=ke*n; j<=i; j++, jx+=n ) {
+				double s = 0;
+				for( int p=kb; p<ke; p++ )
+					s += a[ix+p] * a[jx+p];
+				a[ix+j] -= s;
+			}
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param perm
+	 * @param kb
+	 * @param ke
+	 * @return
+	 */
+	private static boolean luPanel(double[] a, int n, int[] perm, int kb, int ke)
+	{
+		boolean nonsingular = true;
+		for( int j=kb, jx=kb*n; j<ke; j++, jx+=n )
+		{
+			//find pivot (max absolute value, first occurrence)
+			int piv = j;
+			double max = Math.abs(a[jx+j]);
+			for( int i=j+1, ix=(j+1)*n; i<n; i++, ix+=n )
+				if( Math.abs(a[ix+j]) > max ) {
+					max = Math.abs(a[ix+j]);
+					piv = i;
+				}
+
+			//interchange entire rows
+			if( piv != j ) {
+				for( int c=0, px=piv*n; c<n; c++ ) {
+					double tmp = a[jx+c];
+					a[jx+c] = a[px+c];
+					a[px+c] = tmp;
+				}
+				int tmp = perm[j]; perm[j] = perm[piv]; perm[piv] = tmp;
+			}
+
+			//compute multipliers and update remaining panel columns
+			double d = a[jx+j];
+			if( d != 0 ) {
+				for( int i=j+1, ix=(j+1)*n; i<n; i++, ix+=n ) {
+					double lij = (a[ix+j] /= d);
+					if( lij != 0 )
+						for( int c=j+1; c<ke; c++ )
+							a[ix+c] -= lij * a[jx+c];
+				}
+			}
+			else
+				nonsingular = false;
+		}
+
+		return nonsingular;
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param kb
+	 * @param ke
+	 * @param cl
+	 * @param cu
+	 */
+	private static void luSolveU12(double[] a, int n, int kb, int ke, int cl, int cu)
+	{
+		//forward substitution with unit lower triangular L11
+		for( int j=kb+1, jx=(kb+1)*n; j<ke; j++, jx+=n )
+			for( int p=kb, px=kb*n; p<j; p++, px+=n ) {
+				double ljp = a[jx+p];
+				if( ljp != 0 )
+					for( int c=cl; c<cu; c++ )
+						a[jx+c] -= ljp * a[px+c];
+			}
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param kb
+	 * @param ke
+	 * @param rl
+	 * @param ru
+	 */
+	private static void luUpdate(double[] a, int n, int kb, int ke, int rl, int ru)
+	{
+		//A22 = A22 - L21 %*% U12 (row-wise axpy over contiguous rows)
+		for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
+			for( int p=kb, px=kb*n; p<ke; p++, px+=n ) {
+				double lip = a[ix+p];
+				if( lip != 0 )
+					for( int c=ke; c<n; c++ )
+						a[ix+c] -= lip * a[px+c];
+			}
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param x
+	 * @param r
+	 * @param cl
+	 * @param cu
+	 */
+	private static void choleskySolve(double[] a, int n, double[] x, int r, int cl, int cu)
+	{
+		//forward substitution L y = b
+		for( int i=0, ix=0, xi=0; i<n; i++, ix+=n, xi+=r ) {
+			for( int p=0, xp=0; p<i; p++, xp+=r ) {
+				double lip = a[ix+p];
+				if( lip != 0 )
+					for( int c=cl; c<cu; c++ )
+						x[xi+c] -= lip * x[xp+c];
+			}
+			double d = a[ix+i];
+			for( int c=cl; c<cu; c++ )
+				x[xi+c] /= d;
+		}
+
+		//backward substitution t(L) x = y
+		for( int i=n-1, ix=(n-1)*n, xi=(n-1)*r; i>=0; i--, ix-=n, xi-=r ) {
+			double d = a[ix+i];
+			for( int c=cl; c<cu; c++ )
+				x[xi+c] /= d;
+			for( int p=0, xp=0; p<i; p++, xp+=r ) {
+				double lip = a[ix+p];
+				if( lip != 0 )
+					for( int c=cl; c<cu; c++ )
+						x[xp+c] -= lip * x[xi+c];
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @param x
+	 * @param r
+	 * @param cl
+	 * @param cu
+	 */
+	private static void luSolve(double[] a, int n, double[] x, int r, int cl, int cu)
+	{
+		//forward substitution with unit lower triangular L
+		for( int i=0, ix=0, xi=0; i<n; i++, ix+=n, xi+=r )
+			for( int p=0, xp=0; p<i; p++, xp+=r ) {
+				double lip = a[ix+p];
+				if( lip != 0 )
+					for( int c=cl; c<cu; c++ )
+						x[xi+c] -= lip * x[xp+c];
+			}
+
+		//backward substitution with upper triangular U
+		for( int i=n-1, ix=(n-1)*n, xi=(n-1)*r; i>=0; i--, ix-=n, xi-=r ) {
+			for( int p=i+1, xp=(i+1)*r; p<n; p++, xp+=r ) {
+				double uip = a[ix+p];
+				if( uip != 0 )
+					for( int c=cl; c<cu; c++ )
+						x[xi+c] -= uip * x[xp+c];
+			}
+			double d = a[ix+i];
+			for( int c=cl; c<cu; c++ )
+				x[xi+c] /= d;
+		}
+	}
+
+	/**
+	 *
+	 * @param qrt
+	 * @param m
+	 * @param minor
+	 * @param a
+	 * @param cl
+	 * @param cu
+	 */
+	private static void householderUpdate(double[] qrt, int m, int minor, double a, int cl, int cu)
+	{
+		int qm = minor*m;
+		double div = a * qrt[qm+minor];
+		for( int col=cl, cx=cl*m; col<cu; col++, cx+=m ) {
+			double alpha = 0;
+			for( int row=minor; row<m; row++ )
+				alpha -= qrt[cx+row] * qrt[qm+row];
+			alpha /= div;
+			for( int row=minor; row<m; row++ )
+				qrt[cx+row] -= alpha * qrt[qm+row];
+		}
+	}
+
+
+	/////////////////////////////////////////////
+	// utility functions
+	/////////////////////////////////////////////
+
+	/**
+	 *
+	 * @param cells
+	 * @param k
+	 * @return
+	 */
+	private static ExecutorService createThreadPool(long cells, int k) {
+		return (k > 1 && cells >= PAR_NUMCELL_THRESHOLD) ?
+			Executors.newFixedThreadPool(k) : null;
+	}
+
+	/**
+	 *
+	 * @param pool
+	 * @param tasks
+	 * @throws DMLRuntimeException
+	 */
+	private static void executeTasks(ExecutorService pool, ArrayList<? extends Callable<Object>> tasks)
+		throws DMLRuntimeException
+	{
+		try {
+			for( Future<Object> rtask : pool.invokeAll(tasks) )
+				rtask.get(); //error handling
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param n
+	 * @return
+	 */
+	private static boolean isSymmetric(double[] a, int n)
+	{
+		for( int i=0, ix=0; i<n; i++, ix+=n )
+			for( int j=0; j<i; j++ )
+				if( a[ix+j] != a[j*n+i] )
+					return false;
+
+		return true;
+	}
+
+	/**
+	 *
+	 * @param x
+	 * @param perm
+	 * @param n
+	 * @param r
+	 * @return
+	 */
+	private static double[] permuteRows(double[] x, int[] perm, int n, int r)
+	{
+		double[] ret = new double[n*r];
+		for( int i=0; i<n; i++ )
+			System.arraycopy(x, perm[i]*r, ret, i*r, r);
+
+		return ret;
+	}
+
+	/**
+	 * Creates a row-major dense copy of the given matrix block.
+	 *
+	 * @param in
+	 * @return
+	 */
+	private static double[] getDenseCopy(MatrixBlock in)
+	{
+		int m = in.getNumRows();
+		int n = in.getNumColumns();
+		double[] ret = new double[m*n];
+
+		if( in.isEmptyBlock(false) )
+			return ret;
+
+		if( !in.sparse ) {
+			System.arraycopy(in.denseBlock, 0, ret, 0, m*n);
+		}
+		else {
+			for( int i=0, ix=0; i<m; i++, ix+=n ) {
+				SparseRow arow = in.sparseRows[i];
+				if( arow != null && !arow.isEmpty() ) {
+					int alen = arow.size();
+					int[] aix = arow.getIndexContainer();
+					double[] avals = arow.getValueContainer();
+					for( int j=0; j<alen; j++ )
+						ret[ix+aix[j]] = avals[j];
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Creates a row-major dense copy of the transpose of the given matrix block.
+	 *
+	 * @param in
+	 * @return
+	 */
+	private static double[] getDenseCopyTranspose(MatrixBlock in)
+	{
+		int m = in.getNumRows();
+		int n = in.getNumColumns();
+		double[] ret = new double[m*n];
+
+		if( in.isEmptyBlock(false) )
+			return ret;
+
+		if( !in.sparse ) {
+			double[] a = in.denseBlock;
+			for( int i=0, ix=0; i<m; i++, ix+=n )
+				for( int j=0; j<n; j++ )
+					ret[j*m+i] = a[ix+j];
+		}
+		else {
+			for( int i=0; i<m; i++ ) {
+				SparseRow arow = in.sparseRows[i];
+				if( arow != null && !arow.isEmpty() ) {
+					int alen = arow.size();
+					int[] aix = arow.getIndexContainer();
+					double[] avals = arow.getValueContainer();
+					for( int j=0; j<alen; j++ )
+						ret[aix[j]*m+i] = avals[j];
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param a
+	 * @param m
+	 * @param n
+	 * @return
+	 */
+	private static MatrixBlock createResult(double[] a, int m, int n)
+	{
+		MatrixBlock ret = new MatrixBlock(m, n, false);
+		ret.denseBlock = a;
+		ret.recomputeNonZeros();
+		ret.examSparsity();
+
+		return ret;
+	}
+
+
+	/////////////////////////////////////////////
+	// task implementations
+	/////////////////////////////////////////////
+
+	/**
+	 *
+	 */
+	private static class CholeskyTask implements Callable<Object>
+	{
+		private double[] _a = null;
+		private int _n = -1;
+		private int _kb = -1;
+		private int _ke = -1;
+		private int _rl = -1;
+		private int _ru = -1;
+		private boolean _panel = false;
+
+		protected CholeskyTask( double[] a, int n, int kb, int ke, int rl, int ru, boolean panel ) {
+			_a = a;
+			_n = n;
+			_kb = kb;
+			_ke = ke;
+			_rl = rl;
+			_ru = ru;
+			_panel = panel;
+		}
+
+		@Override
+		public Object call()
+		{
+			if( _panel )
+				choleskyPanel(_a, _n, _kb, _ke, _rl, _ru);
+			else
+				choleskyUpdate(_a, _n, _kb, _ke, _rl, _ru);
+
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 */
+	private static class LUTask implements Callable<Object>
+	{
+		private double[] _a = null;
+		private int _n = -1;
+		private int _kb = -1;
+		private int _ke = -1;
+		private int _l = -1;
+		private int _u = -1;
+		private boolean _u12 = false;
+
+		protected LUTask( double[] a, int n, int kb, int ke, int l, int u, boolean u12 ) {
+			_a = a;
+			_n = n;
+			_kb = kb;
+			_ke = ke;
+			_l = l;
+			_u = u;
+			_u12 = u12;
+		}
+
+		@Override
+		public Object call()
+		{
+			if( _u12 ) //column range
+				luSolveU12(_a, _n, _kb, _ke, _l, _u);
+			else       //row range
+				luUpdate(_a, _n, _kb, _ke, _l, _u);
+
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 */
+	private static class SolveTask implements Callable<Object>
+	{
+		private double[] _a = null;
+		private int _n = -1;
+		private double[] _x = null;
+		private int _r = -1;
+		private boolean _cholesky = false;
+		private int _cl = -1;
+		private int _cu = -1;
+
+		protected SolveTask( double[] a, int n, double[] x, int r, boolean cholesky, int cl, int cu ) {
+			_a = a;
+			_n = n;
+			_x = x;
+			_r = r;
+			_cholesky = cholesky;
+			_cl = cl;
+			_cu = cu;
+		}
+
+		@Override
+		public Object call()
+		{
+			if( _cholesky )
+				choleskySolve(_a, _n, _x, _r, _cl, _cu);
+			else
+				luSolve(_a, _n, _x, _r, _cl, _cu);
+
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 */
+	private static class QRTask implements Callable<Object>
+	{
+		private double[] _qrt = null;
+		private int _m = -1;
+		private int _minor = -1;
+		private double _alpha = 0;
+		private int _cl = -1;
+		private int _cu = -1;
+
+		protected QRTask( double[] qrt, int m, int minor, double alpha, int cl, int cu ) {
+			_qrt = qrt;
+			_m = m;
+			_minor = minor;
+			_alpha = alpha;
+			_cl = cl;
+			_cu = cu;
+		}
+
+		@Override
+		public Object call()
+		{
+			householderUpdate(_qrt, _m, _minor, _alpha, _cl, _cu);
+
+			return null;
+		}
+	}
+}
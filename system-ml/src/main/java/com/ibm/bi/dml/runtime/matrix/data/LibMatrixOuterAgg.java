@@ -17,7 +17,12 @@
 
 package com.ibm.bi.dml.runtime.matrix.data;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
@@ -48,6 +53,7 @@ import com.ibm.bi.dml.runtime.util.SortUtils;
  */
 public class LibMatrixOuterAgg 
 {
+	private static final long PAR_NUMCELL_THRESHOLD = 64*1024; //Min 64K vector elements
 
 	private LibMatrixOuterAgg() {
 		//prevent instantiation via private constructor
@@ -327,60 +333,151 @@ public class LibMatrixOuterAgg
 	public static void aggregateMatrix(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, int[] bvi, BinaryOperator bOp, AggregateUnaryOperator uaggOp) 
 			throws DMLRuntimeException
 	{		
+		aggregateMatrix(in1Val, outVal, bv, bvi, bOp, uaggOp, 0, getVectorLength(in1Val, uaggOp));
+	}
+
+	/**
+	 * Multi-threaded unary aggregate outer chain. The sorted vector and its
+	 * index arrays (see prepareRowIndices) are read-only and hence shared
+	 * across threads, while the input vector is partitioned into ranges.
+	 * Full aggregates are computed into partial outputs per thread and
+	 * merged afterwards.
+	 *
+	 * @param in1Val
+	 * @param outVal
+	 * @param bv
+	 * @param bvi
+	 * @param bOp
+	 * @param uaggOp
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	public static void aggregateMatrix(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, int[] bvi, BinaryOperator bOp, AggregateUnaryOperator uaggOp, int k)
+			throws DMLRuntimeException
+	{
+		int len = getVectorLength(in1Val, uaggOp);
+
+		//fall back to sequential version if necessary
+		if(    k <= 1 || len < PAR_NUMCELL_THRESHOLD || len <= k
+			|| (uaggOp.indexFn instanceof ReduceRow && in1Val.isInSparseFormat()) ) {
+			aggregateMatrix(in1Val, outVal, bv, bvi, bOp, uaggOp);
+			return;
+		}
+
+		//core multi-threaded unary aggregate outer chain
+		boolean fullAgg = (uaggOp.indexFn instanceof ReduceAll);
+		if( !fullAgg ) //for disjoint writes of all tasks
+			outVal.allocateDenseBlock();
+
+		try
+		{
+			ExecutorService pool = Executors.newFixedThreadPool( k );
+			ArrayList<OuterAggTask> tasks = new ArrayList<OuterAggTask>();
+			int blklen = (int)(Math.ceil((double)len/k));
+			for( int i=0; i<k & i*blklen<len; i++ ) {
+				MatrixBlock out = fullAgg ? new MatrixBlock(outVal.getNumRows(), outVal.getNumColumns(), false) : outVal;
+				tasks.add( new OuterAggTask(in1Val, out, bv, bvi, bOp, uaggOp, i*blklen, Math.min((i+1)*blklen, len)) );
+			}
+			for( Future<Object> rtask : pool.invokeAll(tasks) )
+				rtask.get(); //error handling
+			pool.shutdown();
+
+			//aggregate partial results
+			if( fullAgg ) {
+				double sum = 0;
+				for( OuterAggTask task : tasks )
+					sum += task.getOutput().quickGetValue(0, 0);
+				outVal.quickSetValue(0, 0, sum);
+			}
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+
+		//maintain nnz (not maintained by disjoint writes)
+		if( !fullAgg )
+			outVal.recomputeNonZeros();
+	}
+
+	/**
+	 *
+	 * @param in1Val
+	 * @param uaggOp
+	 * @return
+	 */
+	private static int getVectorLength(MatrixBlock in1Val, AggregateUnaryOperator uaggOp) {
+		return (uaggOp.indexFn instanceof ReduceRow) ? in1Val.getNumColumns() : in1Val.getNumRows();
+	}
+
+	/**
+	 *
+	 * @param in1Val
+	 * @param outVal
+	 * @param bv
+	 * @param bvi
+	 * @param bOp
+	 * @param uaggOp
+	 * @param rl
+	 * @param ru
+	 * @throws DMLRuntimeException
+	 */
+	private static void aggregateMatrix(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, int[] bvi, BinaryOperator bOp, AggregateUnaryOperator uaggOp, int rl, int ru)
+			throws DMLRuntimeException
+	{
 		// compute unary aggregate outer chain
 		if(isRowIndexMax(uaggOp)) 
 		{
 			if(bOp.fn instanceof LessThan) {
-				uaRIMLt(in1Val, outVal, bv, bvi, bOp);
+				uaRIMLt(in1Val, outVal, bv, bvi, bOp, rl, ru);
 			} else if(bOp.fn instanceof LessThanEquals) {
-				uaRIMLe(in1Val, outVal, bv, bvi, bOp);
+				uaRIMLe(in1Val, outVal, bv, bvi, bOp, rl, ru);
 			} else if(bOp.fn instanceof GreaterThan) { 
-				uaRIMGt(in1Val, outVal, bv, bvi, bOp);
+				uaRIMGt(in1Val, outVal, bv, bvi, bOp, rl, ru);
 			} else if(bOp.fn instanceof GreaterThanEquals) {
-				uaRIMGe(in1Val, outVal, bv, bvi, bOp);
+				uaRIMGe(in1Val, outVal, bv, bvi, bOp, rl, ru);
 			} else if(bOp.fn instanceof Equals){ 
-				uaRIMEq(in1Val, outVal, bv, bvi, bOp);	
+				uaRIMEq(in1Val, outVal, bv, bvi, bOp, rl, ru);	
 			} else if (bOp.fn instanceof NotEquals) {
-				uaRIMNe(in1Val, outVal, bv, bvi, bOp);
+				uaRIMNe(in1Val, outVal, bv, bvi, bOp, rl, ru);
 			}
 		} else if(isRowIndexMin(uaggOp)) 
 		{
 				if(bOp.fn instanceof LessThan) {
-					uaRIMinLt(in1Val, outVal, bv, bvi, bOp);
+					uaRIMinLt(in1Val, outVal, bv, bvi, bOp, rl, ru);
 				} else if(bOp.fn instanceof LessThanEquals) {
-					uaRIMinLe(in1Val, outVal, bv, bvi, bOp);
+					uaRIMinLe(in1Val, outVal, bv, bvi, bOp, rl, ru);
 				} else if(bOp.fn instanceof GreaterThan) { 
-					uaRIMinGt(in1Val, outVal, bv, bvi, bOp);
+					uaRIMinGt(in1Val, outVal, bv, bvi, bOp, rl, ru);
 				} else if(bOp.fn instanceof GreaterThanEquals) {
-					uaRIMinGe(in1Val, outVal, bv, bvi, bOp);
+					uaRIMinGe(in1Val, outVal, bv, bvi, bOp, rl, ru);
 				} else if(bOp.fn instanceof Equals){ 
-					uaRIMinEq(in1Val, outVal, bv, bvi, bOp);	
+					uaRIMinEq(in1Val, outVal, bv, bvi, bOp, rl, ru);	
 				} else if (bOp.fn instanceof NotEquals) {
-					uaRIMinNe(in1Val, outVal, bv, bvi, bOp);
+					uaRIMinNe(in1Val, outVal, bv, bvi, bOp, rl, ru);
 				}
 		} else if(uaggOp.indexFn instanceof ReduceCol) {
 			if(bOp.fn instanceof LessThan || bOp.fn instanceof GreaterThanEquals) {
-				uaRowSumLtGe(in1Val, outVal, bv, bOp);
+				uaRowSumLtGe(in1Val, outVal, bv, bOp, rl, ru);
 			} else if(bOp.fn instanceof GreaterThan || bOp.fn instanceof LessThanEquals) {
-				uaRowSumGtLe(in1Val, outVal, bv, bOp);
+				uaRowSumGtLe(in1Val, outVal, bv, bOp, rl, ru);
 			} else if(bOp.fn instanceof Equals || bOp.fn instanceof NotEquals) {
-				uaRowSumEqNe(in1Val, outVal, bv, bOp);
+				uaRowSumEqNe(in1Val, outVal, bv, bOp, rl, ru);
 			}
 		} else if(uaggOp.indexFn instanceof ReduceRow) {
 			if(bOp.fn instanceof LessThan || bOp.fn instanceof GreaterThanEquals) {
-				uaColSumLtGe(in1Val, outVal, bv, bOp);
+				uaColSumLtGe(in1Val, outVal, bv, bOp, rl, ru);
 			} else if(bOp.fn instanceof GreaterThan || bOp.fn instanceof LessThanEquals) {
-				uaColSumGtLe(in1Val, outVal, bv, bOp);
+				uaColSumGtLe(in1Val, outVal, bv, bOp, rl, ru);
 			} else if(bOp.fn instanceof Equals || bOp.fn instanceof NotEquals) {
-				uaColSumEqNe(in1Val, outVal, bv, bOp);
+				uaColSumEqNe(in1Val, outVal, bv, bOp, rl, ru);
 			}
 		} else if(uaggOp.indexFn instanceof ReduceAll) {
 			if(bOp.fn instanceof LessThan || bOp.fn instanceof GreaterThanEquals) {
-				uaSumLtGe(in1Val, outVal, bv, bOp);
+				uaSumLtGe(in1Val, outVal, bv, bOp, rl, ru);
 			} else if(bOp.fn instanceof GreaterThan || bOp.fn instanceof LessThanEquals) {
-				uaSumGtLe(in1Val, outVal, bv, bOp);
+				uaSumGtLe(in1Val, outVal, bv, bOp, rl, ru);
 			} else if(bOp.fn instanceof Equals || bOp.fn instanceof NotEquals) {
-				uaSumEqNe(in1Val, outVal, bv, bOp);
+				uaSumEqNe(in1Val, outVal, bv, bOp, rl, ru);
 			}
 		}
 	}
@@ -394,13 +491,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRowSumLtGe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void uaRowSumLtGe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumRowSumLtGeColSumGtLe(0.0, bv, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int cnt = (ai == 0) ? agg0: sumRowSumLtGeColSumGtLe(ai, bv, bOp);
 			out.quickSetValue(i, 0, cnt);
@@ -416,13 +511,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRowSumGtLe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void uaRowSumGtLe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumRowSumGtLeColSumLtGe(0.0, bv, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int cnt = (ai == 0) ? agg0: sumRowSumGtLeColSumLtGe(ai, bv, bOp);
 			out.quickSetValue(i, 0, cnt);
@@ -439,13 +532,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRowSumEqNe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void uaRowSumEqNe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumEqNe(0.0, bv, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int cnt = (ai == 0) ? agg0: sumEqNe(ai, bv, bOp);
 			out.quickSetValue(i, 0, cnt);
@@ -461,13 +552,13 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaColSumLtGe(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, BinaryOperator bOp) 
+	private static void uaColSumLtGe(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		if (in1Val.isInSparseFormat())
 			s_uaColSumLtGe(in1Val, outVal, bv, bOp);
 		else
-			d_uaColSumLtGe(in1Val, outVal, bv, bOp);
+			d_uaColSumLtGe(in1Val, outVal, bv, bOp, rl, ru);
 	}
 
 	/**
@@ -479,13 +570,13 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaColSumGtLe(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, BinaryOperator bOp) 
+	private static void uaColSumGtLe(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		if (in1Val.isInSparseFormat())
 			s_uaColSumGtLe(in1Val, outVal, bv, bOp);
 		else
-			d_uaColSumGtLe(in1Val, outVal, bv, bOp);
+			d_uaColSumGtLe(in1Val, outVal, bv, bOp, rl, ru);
 	}
 
 	
@@ -498,13 +589,13 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaColSumEqNe(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, BinaryOperator bOp) 
+	private static void uaColSumEqNe(MatrixBlock in1Val, MatrixBlock outVal, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		if (in1Val.isInSparseFormat())
 			s_uaColSumEqNe(in1Val, outVal, bv, bOp);
 		else
-			d_uaColSumEqNe(in1Val, outVal, bv, bOp);
+			d_uaColSumEqNe(in1Val, outVal, bv, bOp, rl, ru);
 	}
 
 	
@@ -517,13 +608,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaSumLtGe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void uaSumLtGe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumRowSumLtGeColSumGtLe(0.0, bv, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int cnt = (ai == 0) ? agg0: sumRowSumLtGeColSumGtLe(ai, bv, bOp);
 			cnt += (int)out.quickGetValue(0, 0);
@@ -540,13 +629,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaSumGtLe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void uaSumGtLe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumRowSumGtLeColSumLtGe(0.0, bv, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int cnt = (ai == 0) ? agg0: sumRowSumGtLeColSumLtGe(ai, bv, bOp);
 			cnt += (int)out.quickGetValue(0, 0);
@@ -564,13 +651,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaSumEqNe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void uaSumEqNe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumEqNe(0.0, bv, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int cnt = (ai == 0) ? agg0: sumEqNe(ai, bv, bOp);
 			cnt += (int)out.quickGetValue(0, 0);
@@ -588,13 +673,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMLt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMLt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uarimaxLt(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uarimaxLt(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -610,13 +693,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMLe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMLe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uarimaxLe(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uarimaxLe(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -632,13 +713,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMGt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMGt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uarimaxGt(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uarimaxGt(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -655,13 +734,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMGe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMGe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uarimaxGe(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uarimaxGe(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -678,13 +755,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMEq(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMEq(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uarimaxEq(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uarimaxEq(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -702,13 +777,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMNe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMNe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uarimaxNe(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uarimaxNe(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -725,13 +798,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMinLt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMinLt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uariminLt(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uariminLt(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -747,13 +818,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMinLe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMinLe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uariminLe(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uariminLe(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -769,13 +838,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMinGt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMinGt(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uariminGt(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uariminGt(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -792,13 +859,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMinGe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMinGe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uariminGe(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uariminGe(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -815,13 +880,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMinEq(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMinEq(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uariminEq(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uariminEq(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -839,13 +902,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void uaRIMinNe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp) 
+	private static void uaRIMinNe(MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int ind0 = uariminNe(0.0, bv, bvi, bOp);
-		int m = in.rlen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(i, 0);
 			int ind = (ai == 0) ? ind0: uariminNe(ai, bv, bvi, bOp);
 			out.quickSetValue(i, 0, ind);
@@ -863,13 +924,11 @@ public class LibMatrixOuterAgg
 	 * @throws DMLRuntimeException
 	 */
 	private static void d_uaColSumLtGe(MatrixBlock in, MatrixBlock out, double[] bv, 
-			BinaryOperator bOp) 
+			BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{
 		int agg0 = sumRowSumGtLeColSumLtGe(0.0, bv, bOp);
-		int m = in.clen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(0, i);
 			int cnt = (ai == 0) ? agg0: sumRowSumGtLeColSumLtGe(ai, bv, bOp);
 			out.quickSetValue(0, i, cnt);
@@ -923,13 +982,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void d_uaColSumGtLe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void d_uaColSumGtLe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{
 		int agg0 = sumRowSumLtGeColSumGtLe(0.0, bv, bOp);
-		int m = in.clen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(0, i);
 			int cnt = (ai == 0) ? agg0: sumRowSumLtGeColSumGtLe(ai, bv, bOp);
 			out.quickSetValue(0, i, cnt);
@@ -983,13 +1040,11 @@ public class LibMatrixOuterAgg
 	 * @param bOp
 	 * @throws DMLRuntimeException
 	 */
-	private static void d_uaColSumEqNe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp) 
+	private static void d_uaColSumEqNe(MatrixBlock in, MatrixBlock out, double[] bv, BinaryOperator bOp, int rl, int ru) 
 			throws DMLRuntimeException
 	{		
 		int agg0 = sumEqNe(0.0, bv, bOp);
-		int m = in.clen;
-		
-		for( int i=0; i<m; i++ ) {
+		for( int i=rl; i<ru; i++ ) {
 			double ai = in.quickGetValue(0, i);
 			int cnt = (ai == 0) ? agg0: sumEqNe(ai, bv, bOp);
 			out.quickSetValue(0, i, cnt);
@@ -1596,4 +1651,41 @@ public class LibMatrixOuterAgg
     	}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * 
+	 */
+	private static class OuterAggTask implements Callable<Object>
+	{
+		private MatrixBlock _in = null;
+		private MatrixBlock _out = null;
+		private double[] _bv = null;
+		private int[] _bvi = null;
+		private BinaryOperator _bOp = null;
+		private AggregateUnaryOperator _uaggOp = null;
+		private int _rl = -1;
+		private int _ru = -1;
+
+		protected OuterAggTask( MatrixBlock in, MatrixBlock out, double[] bv, int[] bvi, BinaryOperator bOp, AggregateUnaryOperator uaggOp, int rl, int ru ) {
+			_in = in;
+			_out = out;
+			_bv = bv;
+			_bvi = bvi;
+			_bOp = bOp;
+			_uaggOp = uaggOp;
+			_rl = rl;
+			_ru = ru;
+		}
+
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			aggregateMatrix(_in, _out, _bv, _bvi, _bOp, _uaggOp, _rl, _ru);
+
+			return null;
+		}
+
+		public MatrixBlock getOutput() {
+			return _out;
+		}
+	}
+}
@@ -0,0 +1,356 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.runtime.matrix.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.util.FastMath;
+
+import com.ibm.bi.dml.runtime.DMLRuntimeException;
+import com.ibm.bi.dml.runtime.functionobjects.Builtin;
+import com.ibm.bi.dml.runtime.matrix.operators.UnaryOperator;
+
+/**
+ * Library for cell-wise unary builtin functions (e.g., exp, log, sqrt, abs,
+ * round, sigmoid) on matrix blocks. In contrast to the generic unary operations
+ * in MatrixBlock, which call Builtin.execute per cell, this library dispatches
+ * once per row range to specialized inner loops (no virtual call and switch per
+ * cell), and supports multi-threaded execution over row partitions with nnz
+ * maintenance per partition.
+ *
+ * The semantics are identical to Builtin.execute(double), including the use of
+ * FastMath if enabled.
+ */
+public class LibMatrixUnary
+{
+	private static final long PAR_NUMCELL_THRESHOLD = 1024*1024; //Min 1M elements
+
+	private LibMatrixUnary() {
+		//prevent instantiation via private constructor
+	}
+
+	/**
+	 * Indicates if the given unary operator is a cell-wise builtin function
+	 * supported by this library.
+	 *
+	 * @param op
+	 * @return
+	 */
+	public static boolean isSupportedUnaryOperator( UnaryOperator op )
+	{
+		if( !(op.fn instanceof Builtin) )
+			return false;
+
+		switch( ((Builtin)op.fn).bFunc ) {
+			case SIN: case COS: case TAN: case ASIN: case ACOS: case ATAN:
+			case LOG: case LOG_NZ: case ABS: case SQRT: case PLOGP: case EXP:
+			case ROUND: case CEIL: case FLOOR: case SPROP: case SIGMOID: case SELP:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Single-threaded unary operation. The output block is expected to be
+	 * reset to the input dimensions and the target representation (sparse
+	 * only if the input is sparse and the operation is sparse-safe).
+	 *
+	 * @param in
+	 * @param ret
+	 * @param op
+	 * @throws DMLRuntimeException
+	 */
+	public static void unaryOperations(MatrixBlock in, MatrixBlock ret, UnaryOperator op)
+		throws DMLRuntimeException
+	{
+		Builtin fn = (Builtin)op.fn;
+		double val0 = fn.execute(0);
+
+		//early abort for empty inputs
+		if( in.isEmptyBlock(false) ) {
+			if( val0 != 0 )
+				ret.init(val0, in.rlen, in.clen);
+			return;
+		}
+
+		//allocate output and core unary operation
+		allocateOutput(ret);
+		ret.nonZeros = unaryOperations(in, ret, fn, val0, 0, in.rlen);
+	}
+
+	/**
+	 * Multi-threaded unary operation over row partitions. See the
+	 * single-threaded version for the expected output block.
+	 *
+	 * @param in
+	 * @param ret
+	 * @param op
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	public static void unaryOperations(MatrixBlock in, MatrixBlock ret, UnaryOperator op, int k)
+		throws DMLRuntimeException
+	{
+		//fall back to sequential version if necessary
+		if(    k <= 1 || (long)in.rlen*in.clen < PAR_NUMCELL_THRESHOLD || in.rlen <= k
+			|| in.isEmptyBlock(false) ) {
+			unaryOperations(in, ret, op);
+			return;
+		}
+
+		Builtin fn = (Builtin)op.fn;
+		double val0 = fn.execute(0);
+
+		//allocate output (tasks write disjoint row ranges)
+		allocateOutput(ret);
+
+		//core multi-threaded unary operation
+		try
+		{
+			ExecutorService pool = Executors.newFixedThreadPool( k );
+			ArrayList<UnaryTask> tasks = new ArrayList<UnaryTask>();
+			int blklen = (int)(Math.ceil((double)in.rlen/k));
+			for( int i=0; i<k & i*blklen<in.rlen; i++ )
+				tasks.add(new UnaryTask(in, ret, fn, val0, i*blklen, Math.min((i+1)*blklen, in.rlen)));
+			List<Future<Long>> rtasks = pool.invokeAll(tasks);
+			pool.shutdown();
+
+			//aggregate nnz of all row partitions, incl error handling
+			long nnz = 0;
+			for( Future<Long> rtask : rtasks )
+				nnz += rtask.get();
+			ret.nonZeros = nnz;
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param ret
+	 */
+	private static void allocateOutput(MatrixBlock ret)
+	{
+		if( ret.sparse )
+			ret.allocateSparseRowsBlock();
+		else
+			ret.allocateDenseBlock();
+	}
+
+	/**
+	 *
+	 * @param in
+	 * @param ret
+	 * @param fn
+	 * @param val0
+	 * @param rl
+	 * @param ru
+	 * @return number of non-zeros in the output row range
+	 * @throws DMLRuntimeException
+	 */
+	private static long unaryOperations(MatrixBlock in, MatrixBlock ret, Builtin fn, double val0, int rl, int ru)
+		throws DMLRuntimeException
+	{
+		final int n = in.clen;
+		long nnz = 0;
+
+		if( !in.sparse ) //DENSE <- DENSE
+		{
+			double[] a = in.denseBlock;
+			double[] c = ret.denseBlock;
+
+			unaryOperation(fn, a, rl*n, c, rl*n, (ru-rl)*n);
+			nnz = countNonZeros(c, rl*n, (ru-rl)*n);
+		}
+		else if( ret.sparse ) //SPARSE <- SPARSE (sparse-safe)
+		{
+			SparseRow[] a = in.sparseRows;
+			SparseRow[] c = ret.sparseRows;
+			double[] cvals = null;
+
+			for( int i=rl; i<ru; i++ ) {
+				if( a[i]==null || a[i].isEmpty() )
+					continue;
+				int alen = a[i].size();
+				int[] aix = a[i].getIndexContainer();
+				double[] avals = a[i].getValueContainer();
+				if( cvals == null || cvals.length < alen )
+					cvals = new double[alen];
+
+				//compute values and append non-zeros
+				unaryOperation(fn, avals, 0, cvals, 0, alen);
+				SparseRow crow = new SparseRow(alen, n);
+				for( int j=0; j<alen; j++ )
+					crow.append(aix[j], cvals[j]);
+				if( !crow.isEmpty() ) {
+					c[i] = crow;
+					nnz += crow.size();
+				}
+			}
+		}
+		else //DENSE <- SPARSE
+		{
+			SparseRow[] a = in.sparseRows;
+			double[] c = ret.denseBlock;
+			double[] cvals = null;
+
+			//init with f(0) and overwrite non-zero input cells
+			if( val0 != 0 )
+				Arrays.fill(c, rl*n, ru*n, val0);
+			for( int i=rl, cix=rl*n; i<ru; i++, cix+=n ) {
+				if( a[i]==null || a[i].isEmpty() )
+					continue;
+				int alen = a[i].size();
+				int[] aix = a[i].getIndexContainer();
+				double[] avals = a[i].getValueContainer();
+				if( cvals == null || cvals.length < alen )
+					cvals = new double[alen];
+
+				unaryOperation(fn, avals, 0, cvals, 0, alen);
+				for( int j=0; j<alen; j++ )
+					c[cix+aix[j]] = cvals[j];
+			}
+			nnz = countNonZeros(c, rl*n, (ru-rl)*n);
+		}
+
+		return nnz;
+	}
+
+	/**
+	 * Specialized inner loops per builtin function, i.e., c[ci:ci+len] = fn(a[ai:ai+len]).
+	 *
+	 * @param fn
+	 * @param a
+	 * @param ai
+	 * @param c
+	 * @param ci
+	 * @param len
+	 * @throws DMLRuntimeException
+	 */
+	private static void unaryOperation(Builtin fn, double[] a, int ai, double[] c, int ci, final int len)
+		throws DMLRuntimeException
+	{
+		final boolean fm = Builtin.FASTMATH;
+
+		switch( fn.bFunc )
+		{
+			case EXP:
+				if( fm ) for( int j=0; j<len; j++ ) c[ci+j] = FastMath.exp(a[ai+j]);
+				else     for( int j=0; j<len; j++ ) c[ci+j] = Math.exp(a[ai+j]);
+				break;
+			case LOG:
+				if( fm ) for( int j=0; j<len; j++ ) c[ci+j] = FastMath.log(a[ai+j]);
+				else     for( int j=0; j<len; j++ ) c[ci+j] = Math.log(a[ai+j]);
+				break;
+			case LOG_NZ:
+				for( int j=0; j<len; j++ ) {
+					double aval = a[ai+j];
+					c[ci+j] = (aval==0) ? 0 : fm ? FastMath.log(aval) : Math.log(aval);
+				}
+				break;
+			case SQRT:
+				for( int j=0; j<len; j++ ) c[ci+j] = Math.sqrt(a[ai+j]);
+				break;
+			case ABS:
+				for( int j=0; j<len; j++ ) c[ci+j] = Math.abs(a[ai+j]);
+				break;
+			case ROUND:
+				for( int j=0; j<len; j++ ) c[ci+j] = Math.round(a[ai+j]);
+				break;
+			case CEIL:
+				if( fm ) for( int j=0; j<len; j++ ) c[ci+j] = FastMath.ceil(a[ai+j]);
+				else     for( int j=0; j<len; j++ ) c[ci+j] = Math.ceil(a[ai+j]);
+				break;
+			case FLOOR:
+				if( fm ) for( int j=0; j<len; j++ ) c[ci+j] = FastMath.floor(a[ai+j]);
+				else     for( int j=0; j<len; j++ ) c[ci+j] = Math.floor(a[ai+j]);
+				break;
+			case SPROP:
+				for( int j=0; j<len; j++ ) {
+					double aval = a[ai+j];
+					c[ci+j] = aval * (1 - aval);
+				}
+				break;
+			case SIGMOID:
+				if( fm ) for( int j=0; j<len; j++ ) c[ci+j] = 1 / (1 + FastMath.exp(-a[ai+j]));
+				else     for( int j=0; j<len; j++ ) c[ci+j] = 1 / (1 + Math.exp(-a[ai+j]));
+				break;
+			case SELP:
+				for( int j=0; j<len; j++ ) {
+					double aval = a[ai+j];
+					c[ci+j] = (aval > 0) ? aval : 0;
+				}
+				break;
+			default:
+				//generic builtin function (e.g., sin, cos)
+				for( int j=0; j<len; j++ )
+					c[ci+j] = fn.execute(a[ai+j]);
+		}
+	}
+
+	/**
+	 *
+	 * @param c
+	 * @param ci
+	 * @param len
+	 * @return
+	 */
+	private static long countNonZeros(double[] c, int ci, int len)
+	{
+		long nnz = 0;
+		for( int j=ci; j<ci+len; j++ )
+			nnz += (c[j] != 0) ? 1 : 0;
+		return nnz;
+	}
+
+	/**
+	 *
+	 */
+	private static class UnaryTask implements Callable<Long>
+	{
+		private MatrixBlock _in = null;
+		private MatrixBlock _ret = null;
+		private Builtin _fn = null;
+		private double _val0 = -1;
+		private int _rl = -1;
+		private int _ru = -1;
+
+		protected UnaryTask( MatrixBlock in, MatrixBlock ret, Builtin fn, double val0, int rl, int ru ) {
+			_in = in;
+			_ret = ret;
+			_fn = fn;
+			_val0 = val0;
+			_rl = rl;
+			_ru = ru;
+		}
+
+		@Override
+		public Long call() throws DMLRuntimeException
+		{
+			return unaryOperations(_in, _ret, _fn, _val0, _rl, _ru);
+		}
+	}
+}
@@ -45,7 +45,6 @@ import com.ibm.bi.dml.parser.DMLTranslator;
 import com.ibm.bi.dml.runtime.DMLRuntimeException;
 import com.ibm.bi.dml.runtime.DMLUnsupportedOperationException;
 import com.ibm.bi.dml.runtime.functionobjects.Builtin;
-import com.ibm.bi.dml.runtime.functionobjects.CM;
 import com.ibm.bi.dml.runtime.functionobjects.CTable;
 import com.ibm.bi.dml.runtime.functionobjects.DiagIndex;
 import com.ibm.bi.dml.runtime.functionobjects.Divide;
@@ -2976,7 +2975,18 @@ public class MatrixBlock extends MatrixValue implements Externalizable
 		if( LibMatrixAgg.isSupportedUnaryOperator(op) ) 
 		{
 			//e.g., cumsum/cumprod/cummin/cumax
-			LibMatrixAgg.aggregateUnaryMatrix(this, ret, op);
+			if( op.getNumThreads() > 1 )
+				LibMatrixAgg.aggregateUnaryMatrix(this, ret, op, op.getNumThreads());
+			else
+				LibMatrixAgg.aggregateUnaryMatrix(this, ret, op);
+		}
+		else if( LibMatrixUnary.isSupportedUnaryOperator(op) )
+		{
+			//e.g., exp/log/sqrt/abs/round/sigmoid (specialized kernels)
+			if( op.getNumThreads() > 1 )
+				LibMatrixUnary.unaryOperations(this, ret, op, op.getNumThreads());
+			else
+				LibMatrixUnary.unaryOperations(this, ret, op);
 		}
 		else
 		{
@@ -3707,6 +3717,103 @@ public class MatrixBlock extends MatrixValue implements Externalizable
 		return result;
 	}
 
+	/**
+	 * Appends the given matrix in-place to this matrix block (e.g., for repeated
+	 * rbind/cbind to the same variable in loops). The dense block and the array of
+	 * sparse rows grow with capacity doubling, and individual sparse rows grow by
+	 * 1.1x on append (bounded by the new number of columns). Returns null if in-place
+	 * append is not applicable (dense cbind, a required change of the dense/sparse 
+	 * representation, self-append, or exceeding the maximum array size), in which 
+	 * case the caller is expected to fall back to the regular append.
+	 * 
+	 * @param that
+	 * @param cbind
+	 * @return this matrix block or null if not applicable
+	 */
+	public MatrixBlock appendOperationsInPlace( MatrixBlock that, boolean cbind )
+	{
+		final int m = cbind ? rlen : rlen+that.rlen;
+		final int n = cbind ? clen+that.clen : clen;
+		final long nnz = nonZeros+that.nonZeros;
+		
+		//check applicability (no row-major dense cbind, no format change)
+		if( that == this || (long)m*n > Integer.MAX_VALUE 
+			|| evalSparseFormatInMemory(m, n, nnz) != sparse 
+			|| (cbind && !sparse) )
+			return null;
+		
+		if( !sparse ) //DENSE rbind
+		{
+			int len1 = rlen * clen;
+			int len2 = m * n;
+			
+			//grow dense block with capacity doubling
+			if( denseBlock == null || denseBlock.length < len2 ) {
+				int cap = (int)Math.min(Integer.MAX_VALUE, 
+					Math.max(len2, 2L * ((denseBlock!=null) ? denseBlock.length : 0)));
+				double[] tmp = new double[cap];
+				if( denseBlock != null )
+					System.arraycopy(denseBlock, 0, tmp, 0, len1);
+				denseBlock = tmp;
+			}
+			else {
+				Arrays.fill(denseBlock, len1, len2, 0);
+			}
+			
+			//copy appended rows
+			if( !that.isEmptyBlock(false) ) {
+				if( that.sparse ) {
+					for( int i=0, cix=len1; i<that.rlen; i++, cix+=n ) {
+						SparseRow brow = that.sparseRows[i];
+						if( brow==null || brow.isEmpty() ) continue;
+						int blen = brow.size();
+						int[] bix = brow.getIndexContainer();
+						double[] bval = brow.getValueContainer();
+						for( int j=0; j<blen; j++ )
+							denseBlock[cix+bix[j]] = bval[j];
+					}
+				}
+				else {
+					System.arraycopy(that.denseBlock, 0, denseBlock, len1, that.rlen*that.clen);
+				}
+			}
+			rlen = m;
+		}
+		else //SPARSE rbind/cbind
+		{
+			//grow array of sparse rows with capacity doubling
+			//(sparse rows themselves grow by 1.1x on append)
+			if( !cbind && sparseRows != null && sparseRows.length < m ) {
+				SparseRow[] tmp = new SparseRow[(int)Math.min(Integer.MAX_VALUE, 
+					Math.max(m, 2L * sparseRows.length))];
+				System.arraycopy(sparseRows, 0, tmp, 0, rlen);
+				sparseRows = tmp;
+			}
+			else if( !cbind && sparseRows != null ) {
+				Arrays.fill(sparseRows, rlen, m, null);
+			}
+			
+			//raise capacity bound of existing rows to the new number of columns
+			//(otherwise, rows that are full at the old width cannot grow)
+			if( cbind && sparseRows != null ) {
+				for( int i=0; i<rlen; i++ )
+					if( sparseRows[i] != null )
+						sparseRows[i].setMaxNnzs(n);
+			}
+			
+			int rowoffset = cbind ? 0 : rlen;
+			int coloffset = cbind ? clen : 0;
+			rlen = m;
+			clen = n;
+			appendToSparse(that, rowoffset, coloffset);
+		}
+		
+		//update meta data
+		nonZeros = nnz;
+		
+		return this;
+	}
+	
 	/**
 	 * 
 	 * @param out
@@ -5190,6 +5297,25 @@ public class MatrixBlock extends MatrixValue implements Externalizable
 	 */
 	public MatrixBlock  uaggouterchainOperations(MatrixBlock mbLeft, MatrixBlock mbRight, MatrixBlock mbOut, BinaryOperator bOp, AggregateUnaryOperator uaggOp) 
 		throws DMLRuntimeException, DMLUnsupportedOperationException
+	{
+		//single-threaded unary aggregate outer chain
+		return uaggouterchainOperations(mbLeft, mbRight, mbOut, bOp, uaggOp, 1);
+	}
+	
+	/**
+	 * 
+	 * @param mbLeft
+	 * @param mbRight
+	 * @param mbOut
+	 * @param bOp
+	 * @param uaggOp
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 * @throws DMLUnsupportedOperationException
+	 */
+	public MatrixBlock  uaggouterchainOperations(MatrixBlock mbLeft, MatrixBlock mbRight, MatrixBlock mbOut, BinaryOperator bOp, AggregateUnaryOperator uaggOp, int k) 
+		throws DMLRuntimeException, DMLUnsupportedOperationException
 	{
 		double bv[] = DataConverter.convertToDoubleVector(mbRight);
 		int bvi[] = null;
@@ -5211,7 +5337,10 @@ public class MatrixBlock extends MatrixValue implements Externalizable
 			else
 				mbOut.reset(iRows, iCols, false);
 
-			LibMatrixOuterAgg.aggregateMatrix(mbLeft, mbOut, bv, bvi, bOp, uaggOp);
+			if( k > 1 )
+				LibMatrixOuterAgg.aggregateMatrix(mbLeft, mbOut, bv, bvi, bOp, uaggOp, k);
+			else
+				LibMatrixOuterAgg.aggregateMatrix(mbLeft, mbOut, bv, bvi, bOp, uaggOp);
 		} else
 			throw new DMLRuntimeException("Unsupported operator for unary aggregate operations.");
 		
@@ -5239,6 +5368,25 @@ public class MatrixBlock extends MatrixValue implements Externalizable
 	 */
 	public MatrixValue groupedAggOperations(MatrixValue tgt, MatrixValue wghts, MatrixValue ret, int ngroups, Operator op) 
 		throws DMLRuntimeException, DMLUnsupportedOperationException 
+	{
+		//single-threaded grouped aggregate 
+		return groupedAggOperations(tgt, wghts, ret, ngroups, op, 1);
+	}
+	
+	/**
+	 * 
+	 * @param tgt
+	 * @param wghts
+	 * @param ret
+	 * @param ngroups
+	 * @param op
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 * @throws DMLUnsupportedOperationException
+	 */
+	public MatrixValue groupedAggOperations(MatrixValue tgt, MatrixValue wghts, MatrixValue ret, int ngroups, Operator op, int k) 
+		throws DMLRuntimeException, DMLUnsupportedOperationException 
 	{
 		//setup input matrices
 		// this <- groups
@@ -5281,137 +5429,11 @@ public class MatrixBlock extends MatrixValue implements Externalizable
 		else
 			result.reset(numGroups, 1, result_sparsity);
 
-		// Compute the result
-		double w = 1; // default weight
-		
-		//CM operator for count, mean, variance
-		//note: current support only for column vectors
-		if(op instanceof CMOperator) {
-			// initialize required objects for storing the result of CM operations
-			CM cmFn = CM.getCMFnObject(((CMOperator) op).getAggOpType());
-			CM_COV_Object[] cmValues = new CM_COV_Object[numGroups];
-			for ( int i=0; i < numGroups; i++ )
-				cmValues[i] = new CM_COV_Object();
-			
-			for ( int i=0; i < this.getNumRows(); i++ ) {
-				int g = (int) this.quickGetValue(i, 0);
-				if ( g > numGroups )
-					continue;
-				double d = target.quickGetValue(i,0);
-				if ( weights != null )
-					w = weights.quickGetValue(i,0);
-				// cmValues is 0-indexed, whereas range of values for g = [1,numGroups]
-				cmFn.execute(cmValues[g-1], d, w); 
-			}
-			
-			// extract the required value from each CM_COV_Object
-			for ( int i=0; i < numGroups; i++ )
-				// result is 0-indexed, so is cmValues
-				result.quickSetValue(i, 0, cmValues[i].getRequiredResult(op));
-		}
-		//Aggregate operator for sum (via kahan sum)
-		//note: support for row/column vectors and dense/sparse
-		else if( op instanceof AggregateOperator ) 
-		{
-			//the only aggregate operator that is supported here is sum,
-			//furthermore, we always use KahanPlus and hence aggop.correctionExists is true
-			
-			AggregateOperator aggop = (AggregateOperator) op;
-				
-			//default case for aggregate(sum)
-			groupedAggregateKahanPlus(target, weights, result, aggop);
-		}
-		else
-			throw new DMLRuntimeException("Invalid operator (" + op + ") encountered while processing groupedAggregate.");
+		// Compute the result (sequential or multi-threaded)
+		LibMatrixAgg.groupedAggregate(this, target, weights, result, numGroups, op, k);
 		
 		return result;
 	}
-	
-
-	/**
-	 * This is a specific implementation for aggregate(fn="sum"), where we use KahanPlus for numerical
-	 * stability. In contrast to other functions of aggregate, this implementation supports row and column
-	 * vectors for target and exploits sparse representations since KahanPlus is sparse-safe.
-	 * 
-	 * @param target
-	 * @param weights
-	 * @param op
-	 * @throws DMLRuntimeException 
-	 */
-	private void groupedAggregateKahanPlus( MatrixBlock target, MatrixBlock weights, MatrixBlock result, AggregateOperator aggop ) throws DMLRuntimeException
-	{
-		boolean rowVector = target.getNumColumns()>1;
-		double w = 1; //default weight
-		
-		//skip empty blocks (sparse-safe operation)
-		if( target.isEmptyBlock(false) ) 
-			return;
-		
-		//init group buffers
-		KahanObject[] buffer = new KahanObject[numGroups];
-		for(int i=0; i < numGroups; i++ )
-			buffer[i] = new KahanObject(aggop.initialValue, 0);
-			
-		if( rowVector ) //target is rowvector
-		{	
-			if( target.sparse ) //SPARSE target
-			{
-				if( target.sparseRows[0]!=null )
-				{
-					int len = target.sparseRows[0].size();
-					int[] aix = target.sparseRows[0].getIndexContainer();
-					double[] avals = target.sparseRows[0].getValueContainer();	
-					for( int j=0; j<len; j++ ) //for each nnz
-					{
-						int g = (int) this.quickGetValue(aix[j], 0);		
-						if ( g > numGroups )
-							continue;
-						if ( weights != null )
-							w = weights.quickGetValue(aix[j],0);
-						aggop.increOp.fn.execute(buffer[g-1], avals[j]*w);						
-					}
-				}
-					
-			}
-			else //DENSE target
-			{
-				for ( int i=0; i < target.getNumColumns(); i++ ) {
-					double d = target.denseBlock[ i ];
-					if( d != 0 ) //sparse-safe
-					{
-						int g = (int) this.quickGetValue(i, 0);		
-						if ( g > numGroups )
-							continue;
-						if ( weights != null )
-							w = weights.quickGetValue(i,0);
-						// buffer is 0-indexed, whereas range of values for g = [1,numGroups]
-						aggop.increOp.fn.execute(buffer[g-1], d*w);
-					}
-				}
-			}
-		}
-		else //column vector (always dense, but works for sparse as well)
-		{
-			for ( int i=0; i < this.getNumRows(); i++ ) 
-			{
-				double d = target.quickGetValue(i,0);
-				if( d != 0 ) //sparse-safe
-				{
-					int g = (int) this.quickGetValue(i, 0);		
-					if ( g > numGroups )
-						continue;
-					if ( weights != null )
-						w = weights.quickGetValue(i,0);
-					// buffer is 0-indexed, whereas range of values for g = [1,numGroups]
-					aggop.increOp.fn.execute(buffer[g-1], d*w);
-				}
-			}
-		}
-		
-		// extract the results from group buffers
-		for ( int i=0; i < numGroups; i++ )
-			result.quickSetValue(i, 0, buffer[i]._sum);
-	}
 
 	/**
 	 * 
@@ -145,6 +145,17 @@ public class SparseRow implements Serializable
 		size = 0;
 	}
 	
+	/**
+	 * Sets the maximum number of non-zeros (capacity bound), e.g., after 
+	 * increasing the number of columns of the enclosing matrix block.
+	 * 
+	 * @param maxnnz
+	 */
+	public void setMaxNnzs(int maxnnz)
+	{
+		maxNzs = maxnnz;
+	}
+	
 	/**
 	 * 
 	 * @param newCap
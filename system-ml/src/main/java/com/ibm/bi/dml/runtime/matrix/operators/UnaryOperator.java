@@ -27,9 +27,19 @@ public class UnaryOperator extends Operator
 	private static final long serialVersionUID = 2441990876648978637L;
 
 	public ValueFunction fn;
+	private int k; //num threads
+	
 	public UnaryOperator(ValueFunction p)
+	{
+		//default degree of parallelism is 1 
+		//(for example in MR/Spark because we parallelize over the number of blocks)
+		this( p, 1 );
+	}
+	
+	public UnaryOperator(ValueFunction p, int numThreads)
 	{
 		fn = p;
+		k = numThreads;
 		sparseSafe = false;
 		
 		if(fn instanceof Builtin)
@@ -38,10 +48,16 @@ public class UnaryOperator extends Operator
 			if(f.bFunc==Builtin.BuiltinFunctionCode.SIN || f.bFunc==Builtin.BuiltinFunctionCode.TAN 
 					|| f.bFunc==Builtin.BuiltinFunctionCode.ROUND || f.bFunc==Builtin.BuiltinFunctionCode.ABS
 					|| f.bFunc==Builtin.BuiltinFunctionCode.SQRT || f.bFunc==Builtin.BuiltinFunctionCode.SPROP
-					|| f.bFunc==Builtin.BuiltinFunctionCode.SELP || f.bFunc==Builtin.BuiltinFunctionCode.LOG_NZ )
+					|| f.bFunc==Builtin.BuiltinFunctionCode.SELP || f.bFunc==Builtin.BuiltinFunctionCode.LOG_NZ
+					|| f.bFunc==Builtin.BuiltinFunctionCode.CEIL || f.bFunc==Builtin.BuiltinFunctionCode.FLOOR
+					|| f.bFunc==Builtin.BuiltinFunctionCode.ASIN || f.bFunc==Builtin.BuiltinFunctionCode.ATAN )
 			{
 				sparseSafe = true;
 			}
 		}
 	}
+	
+	public int getNumThreads() {
+		return k;
+	}
 }
@@ -280,6 +280,21 @@ public class MapReduceTool
 		return ret;
 	}
 	
+	/**
+	 * Returns the modification time of the given file or directory on hdfs,
+	 * which is used to detect changes of persisted files.
+	 * 
+	 * @param fname
+	 * @return
+	 * @throws IOException
+	 */
+	public static long getModificationTimeOnHDFS( String fname ) 
+		throws IOException
+	{
+		FileSystem fs = FileSystem.get(_rJob);
+		return fs.getFileStatus(new Path(fname)).getModificationTime();
+	}
+	
 	private static BufferedReader setupInputFile ( String filename ) throws IOException {
         Path pt=new Path(filename);
         FileSystem fs = FileSystem.get(_rJob);
@@ -12,61 +12,103 @@
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
- * 
- */
+ *
+ */
 
 package com.ibm.bi.dml.runtime.util;
 
-import java.util.Random;
 
 
 /**
- * Class that can generate a stream of random numbers from standard 
- * normal distribution N(0,1). This class internally makes use of 
- * RandNPair, which uses Box-Muller method.
+ * Class that can generate a stream of random numbers from standard
+ * normal distribution N(0,1). This class internally uses the ziggurat
+ * method (Marsaglia and Tsang, with Doornik's improvements ZIGNOR) with
+ * 128 layers on top of the xoroshiro128++ generator. In the common case,
+ * a number is obtained from a single 64bit random number, a table lookup
+ * and a multiplication, i.e., without log/sqrt/sin/cos as in Box-Muller.
  */
-
-
 public class NormalPRNGenerator extends PRNGenerator
 {
-	//private long seed;
-	Random r;
-	private RandNPair pair;
-	boolean flag = false; // we use pair.N1 if flag=false, and pair.N2 otherwise
-	
+	//ziggurat configuration and tables (shared, read-only)
+	private static final int ZIG_C = 128;
+	private static final double ZIG_R = 3.442619855899;
+	private static final double ZIG_V = 9.91256303526217e-3;
+	private static final double[] ZIG_X = new double[ZIG_C + 1];
+	private static final double[] ZIG_RATIO = new double[ZIG_C];
+
+	static {
+		double f = Math.exp(-0.5 * ZIG_R * ZIG_R);
+		ZIG_X[0] = ZIG_V / f; //[0] is bottom block: V / f(R)
+		ZIG_X[1] = ZIG_R;
+		ZIG_X[ZIG_C] = 0;
+		for( int i=2; i<ZIG_C; i++ ) {
+			ZIG_X[i] = Math.sqrt(-2 * Math.log(ZIG_V / ZIG_X[i-1] + f));
+			f = Math.exp(-0.5 * ZIG_X[i] * ZIG_X[i]);
+		}
+		for( int i=0; i<ZIG_C; i++ )
+			ZIG_RATIO[i] = ZIG_X[i+1] / ZIG_X[i];
+	}
+
+	Xoroshiro128PlusPlus r = null;
+
 	public NormalPRNGenerator() {
 		super();
 	}
-	
+
 	public NormalPRNGenerator(long sd) {
 		super();
 		setSeed(sd);
 	}
-	
-	/*public NormalPRNGenerator(Random random) {
-		init(random);
-	}*/
-	
+
 	public void setSeed(long sd) {
-		//seed = s;
 		seed = sd;
-		r = new Random(seed);
-		pair = new RandNPair();
-		flag = false;
-		pair.compute(r);
+		if( r == null )
+			r = new Xoroshiro128PlusPlus(seed);
+		else
+			r.setSeed(seed);
 	}
-	
-	public double nextDouble() {
-		double d;
-		if (!flag) {
-			d = pair.getFirst();
-		}
-		else {
-			d = pair.getSecond();
-			pair.compute(r);
+
+	public double nextDouble()
+	{
+		while( true )
+		{
+			//layer from low 7 bits, uniform in [-1,1) from high 53 bits
+			long bits = r.nextLong();
+			int i = (int)(bits & (ZIG_C-1));
+			double u = 2 * ((bits >>> 11) * 0x1.0p-53) - 1;
+
+			//fast path: inside the rectangle of layer i
+			if( Math.abs(u) < ZIG_RATIO[i] )
+				return u * ZIG_X[i];
+
+			//base layer: sample from the tail
+			if( i == 0 )
+				return nextTail(u < 0);
+
+			//wedge: rejection sampling against the density
+			double x = u * ZIG_X[i];
+			double f0 = Math.exp(-0.5 * (ZIG_X[i] * ZIG_X[i] - x * x));
+			double f1 = Math.exp(-0.5 * (ZIG_X[i+1] * ZIG_X[i+1] - x * x));
+			if( f1 + r.nextDouble() * (f0 - f1) < 1.0 )
+				return x;
 		}
-		flag = !flag;
-		return d;
 	}
 
+	/**
+	 * Samples from the tail beyond ZIG_R (Marsaglia's method).
+	 *
+	 * @param neg
+	 * @return
+	 */
+	private double nextTail(boolean neg)
+	{
+		double x, y;
+		do {
+			x = Math.log(r.nextDouble()) / ZIG_R;
+			y = Math.log(r.nextDouble());
+		}
+		while( -2 * y < x * x );
+
+		return neg ? x - ZIG_R : ZIG_R - x;
+	}
 }
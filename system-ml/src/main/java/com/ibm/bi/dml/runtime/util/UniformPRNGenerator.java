@@ -12,23 +12,29 @@
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
- * 
- */
+ *
+ */
 
 package com.ibm.bi.dml.runtime.util;
 
-import java.util.Random;
-
 
+/**
+ * Class that can generate a stream of random numbers from uniform
+ * distribution U[0,1). This class internally makes use of the
+ * non-synchronized xoroshiro128++ generator.
+ */
 public class UniformPRNGenerator extends PRNGenerator {
 
-	Random runif = null;
-	
+	Xoroshiro128PlusPlus runif = null;
+
 	public void setSeed(long sd) {
 		seed = sd;
-		runif = new Random(seed);
+		if( runif == null )
+			runif = new Xoroshiro128PlusPlus(seed);
+		else
+			runif.setSeed(seed);
 	}
-	
+
 	public UniformPRNGenerator(long sd) {
 		super();
 		setSeed(sd);
@@ -46,4 +52,8 @@ public class UniformPRNGenerator extends PRNGenerator {
 	public int nextInt(int n) {
 		return runif.nextInt(n);
 	}
+
+	public long nextLong(long n) {
+		return runif.nextLong(n);
+	}
 }
@@ -0,0 +1,128 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.runtime.util;
+
+/**
+ * Fast, non-synchronized pseudo random number generator xoroshiro128++
+ * (Blackman and Vigna) with a period of 2^128-1. The 128bit state is
+ * initialized from a 64bit seed via splitmix64. In contrast to java.util.Random,
+ * there is no atomic state update per number. Independent streams per block are
+ * obtained via the existing block-level seeds (see LibMatrixDatagen), which keeps
+ * the generated blocks consistent across CP, MR and Spark.
+ *
+ * Note: instances are not thread-safe and should be used per thread (or block).
+ */
+public class Xoroshiro128PlusPlus
+{
+	private long _s0;
+	private long _s1;
+
+	public Xoroshiro128PlusPlus(long seed) {
+		setSeed(seed);
+	}
+
+	/**
+	 *
+	 * @param seed
+	 */
+	public void setSeed(long seed)
+	{
+		//splitmix64 for seed expansion (never creates an all-zero state)
+		long x = seed;
+		x += 0x9e3779b97f4a7c15L;
+		_s0 = mix64(x);
+		x += 0x9e3779b97f4a7c15L;
+		_s1 = mix64(x);
+	}
+
+	/**
+	 *
+	 * @return
+	 */
+	public long nextLong()
+	{
+		final long s0 = _s0;
+		long s1 = _s1;
+		final long result = Long.rotateLeft(s0 + s1, 17) + s0;
+
+		s1 ^= s0;
+		_s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+		_s1 = Long.rotateLeft(s1, 28);
+
+		return result;
+	}
+
+	/**
+	 * Returns a uniformly distributed double in [0,1) with 53bit precision.
+	 *
+	 * @return
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Returns a uniformly distributed int in [0,n), without bias
+	 * (same rejection scheme as java.util.Random).
+	 *
+	 * @param n
+	 * @return
+	 */
+	public int nextInt(int n)
+	{
+		if( n <= 0 )
+			throw new IllegalArgumentException("n must be positive");
+
+		int r = (int)(nextLong() >>> 33);
+		int m = n - 1;
+		if( (n & m) == 0 ) //power of 2
+			return (int)((n * (long)r) >> 31);
+		for( int u = r; u - (r = u % n) + m < 0; u = (int)(nextLong() >>> 33) );
+		return r;
+	}
+
+	/**
+	 * Returns a uniformly distributed long in [0,n), without bias.
+	 *
+	 * @param n
+	 * @return
+	 */
+	public long nextLong(long n)
+	{
+		if( n <= 0 )
+			throw new IllegalArgumentException("n must be positive");
+
+		long bits, val;
+		do {
+			bits = nextLong() >>> 1;
+			val = bits % n;
+		} while( bits - val + (n-1) < 0L );
+		return val;
+	}
+
+	/**
+	 *
+	 * @param z
+	 * @return
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -49,6 +49,7 @@ public class Matrix extends FunctionParameter
 	private long 		 _cols;
 	private ValueType 	 _vType;
 	private MatrixObject _mo;
+	private MatrixBlock  _mb; //pinned input block
 
 	public enum ValueType {
 		Double, 
@@ -168,6 +169,70 @@ public class Matrix extends FunctionParameter
 
 	}
 
+	/**
+	 * Method to get the matrix as matrix block without copy. For CP and in-memory 
+	 * external functions, the block is pinned in the buffer pool until the function 
+	 * returns (or releaseMatrixBlock is called) and hence, must not be modified.
+	 * 
+	 * @return
+	 */
+	public MatrixBlock getMatrixBlock() 
+	{
+		try 
+		{
+			if( _mb == null ) {
+				if( _mo != null ) { //CP or in-memory ext function
+					_mb = _mo.acquireRead();
+				}
+				else { //traditional ext function (matrix file produced by reblock)
+					MatrixReader reader = MatrixReaderFactory.createMatrixReader(InputInfo.TextCellInputInfo);
+					_mb = reader.readMatrixFromHDFS(this.getFilePath(), _rows, _cols, -1, -1, -1);
+				}
+			}
+		}
+		catch(Exception ex)
+		{
+			throw new PackageRuntimeException(ex);
+		}
+		
+		return _mb;
+	}
+	
+	/**
+	 * Method to release a matrix block obtained via getMatrixBlock. 
+	 * 
+	 * @throws PackageRuntimeException
+	 */
+	public void releaseMatrixBlock()
+	{
+		if( _mb == null )
+			return;
+		
+		try {
+			if( _mo != null )
+				_mo.release();
+		}
+		catch(Exception ex) {
+			throw new PackageRuntimeException(ex);
+		}
+		finally {
+			_mb = null;
+		}
+	}
+	
+	/**
+	 * Method to set the matrix as matrix block without copy. The block is passed
+	 * in-memory to the invoking program and hence, must not be modified afterwards.
+	 * 
+	 * @param mb
+	 * @throws IOException
+	 */
+	public void setMatrixBlock(MatrixBlock mb) 
+		throws IOException
+	{
+		setMatrixDoubleArray(mb, OutputInfo.BinaryBlockOutputInfo, InputInfo.BinaryBlockInputInfo);
+	}
+	
 	/**
 	 * Method to set matrix as double array. This should only be used if the
 	 * user knows the matrix fits in memory. We are using the dense
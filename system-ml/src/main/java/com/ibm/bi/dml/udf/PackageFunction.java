@@ -24,6 +24,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.ibm.bi.dml.runtime.controlprogram.parfor.util.IDSequence;
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
 
 /**
  * Abstract class that should be extended to implement a package function.
@@ -176,6 +177,35 @@ public abstract class PackageFunction implements Serializable
 	}
 	
 
+	/**
+	 * Indicates if this function supports the in-memory calling convention, i.e., 
+	 * it accesses its matrix inputs and outputs only via the Matrix API (e.g., 
+	 * getMatrixBlock, setMatrixBlock) but never directly via their files. If true,
+	 * matrices are passed as pinned in-memory blocks without export and reblock,
+	 * unless the inputs, outputs, and intermediates exceed the memory budget. 
+	 * Functions should override this method to opt in.
+	 * 
+	 * @return
+	 */
+	public boolean supportsInMemoryInvocation()
+	{
+		return false;
+	}
+	
+	/**
+	 * Returns the memory estimate of intermediates that this function creates
+	 * during in-memory invocation in addition to its pinned inputs and outputs
+	 * (e.g., double[][] copies of its inputs), given the characteristics of its
+	 * matrix inputs in order of the function inputs.
+	 * 
+	 * @param inputs
+	 * @return
+	 */
+	public double getInMemoryIntermediateSize( ArrayList<MatrixCharacteristics> inputs )
+	{
+		return 0;
+	}
+	
 	/**
 	 * Method that will be executed to perform this function.
 	 */
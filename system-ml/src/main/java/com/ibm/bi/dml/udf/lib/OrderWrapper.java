@@ -17,9 +17,11 @@
 
 package com.ibm.bi.dml.udf.lib;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
 import com.ibm.bi.dml.udf.FunctionParameter;
 import com.ibm.bi.dml.udf.Matrix;
 import com.ibm.bi.dml.udf.PackageFunction;
@@ -54,6 +56,21 @@ public class OrderWrapper extends PackageFunction
 		throw new PackageRuntimeException("Invalid function output being requested");
 	}
 
+	@Override
+	public boolean supportsInMemoryInvocation() 
+	{
+		//matrix access via Matrix API only
+		return true;
+	}
+	
+	@Override
+	public double getInMemoryIntermediateSize( ArrayList<MatrixCharacteristics> inputs )
+	{
+		//double[][] copy of the input matrix (row arrays and array of row references)
+		MatrixCharacteristics mc = inputs.get(0);
+		return mc.getRows() * (8d * mc.getCols() + 16 + 8);
+	}
+	
 	@Override
 	public void execute() 
 	{ 
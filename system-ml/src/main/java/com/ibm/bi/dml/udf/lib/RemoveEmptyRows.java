@@ -34,6 +34,7 @@ import org.apache.hadoop.mapred.Reporter;
 import org.apache.hadoop.mapred.TextInputFormat;
 
 import com.ibm.bi.dml.conf.ConfigurationManager;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
 import com.ibm.bi.dml.runtime.util.MapReduceTool;
 import com.ibm.bi.dml.udf.FunctionParameter;
 import com.ibm.bi.dml.udf.Matrix;
@@ -66,12 +67,36 @@ public class RemoveEmptyRows extends PackageFunction
 		return _ret;
 	}
 
+	@Override
+	public boolean supportsInMemoryInvocation() 
+	{
+		return true;
+	}
+	
 	@Override
 	public void execute() 
 	{
 		Matrix mat = (Matrix) this.getFunctionInput(0);
 		String fnameOld = mat.getFilePath(); 
 		
+		//in-memory invocation (pinned input block)
+		if( mat.getMatrixObject() != null ) 
+		{
+			try
+			{
+				MatrixBlock mb = mat.getMatrixBlock();
+				MatrixBlock out = mb.removeEmptyOperations(new MatrixBlock(), true);
+				_ret = new Matrix(createOutputFilePathAndName( OUTPUT_FILE ), 
+						out.getNumRows(), out.getNumColumns(), ValueType.Double);
+				_ret.setMatrixBlock(out);
+			}
+			catch(Exception ex)
+			{
+				throw new RuntimeException( "Unable to execute external function.", ex );
+			}
+			return;
+		}
+		
 		HashMap<Long,Long> keyMap = new HashMap<Long,Long>(); //old,new rowID
 			
 		try
@@ -20,9 +20,18 @@ package com.ibm.bi.dml.utils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.spark.Dependency;
+import org.apache.spark.ShuffleDependency;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.storage.StorageLevel;
+
+import scala.collection.JavaConversions;
+
 import com.ibm.bi.dml.api.DMLException;
 import com.ibm.bi.dml.hops.FunctionOp;
 import com.ibm.bi.dml.hops.Hop;
@@ -56,12 +65,16 @@ import com.ibm.bi.dml.runtime.controlprogram.ParForProgramBlock;
 import com.ibm.bi.dml.runtime.controlprogram.Program;
 import com.ibm.bi.dml.runtime.controlprogram.ProgramBlock;
 import com.ibm.bi.dml.runtime.controlprogram.WhileProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
 import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
 import com.ibm.bi.dml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
 import com.ibm.bi.dml.runtime.instructions.Instruction;
 import com.ibm.bi.dml.runtime.instructions.MRJobInstruction;
 import com.ibm.bi.dml.runtime.instructions.cp.CPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.CPOperand;
+import com.ibm.bi.dml.runtime.instructions.cp.Data;
 import com.ibm.bi.dml.runtime.instructions.spark.CSVReblockSPInstruction;
+import com.ibm.bi.dml.runtime.instructions.spark.ComputationSPInstruction;
 import com.ibm.bi.dml.runtime.instructions.spark.ReblockSPInstruction;
 import com.ibm.bi.dml.runtime.instructions.spark.SPInstruction;
 import com.ibm.bi.dml.yarn.ropt.YarnClusterAnalyzer;
@@ -90,6 +103,10 @@ public class Explain
 		public int numReblocks = 0;
 	}
 	
+	//runtime partitioning report of spark instructions (maintained if explain enabled)
+	private static final LinkedHashMap<String,PartitioningRecord> _partReport = 
+			new LinkedHashMap<String,PartitioningRecord>();
+	
 	//////////////
 	// public explain interface
 	
@@ -509,6 +526,84 @@ public class Explain
 		return counts;		
 	}
 	
+	/**
+	 * Maintains the runtime partitioning report for the output rdd of the given
+	 * spark instruction, i.e., its partitioner and the number of shuffles between
+	 * the instruction inputs and its output.
+	 * 
+	 * @param sec
+	 * @param inst
+	 */
+	public static void maintainPartitioningReport( SparkExecutionContext sec, ComputationSPInstruction inst )
+	{
+		JavaPairRDD<?,?> out = getRDDHandle(sec, inst.output);
+		if( out == null )
+			return;
+		
+		//collect input rdds (stop points of lineage traversal)
+		HashSet<Integer> inputs = new HashSet<Integer>();
+		for( CPOperand in : new CPOperand[]{inst.input1, inst.input2, inst.input3} ) {
+			JavaPairRDD<?,?> rin = getRDDHandle(sec, in);
+			if( rin != null && rin.rdd().id() != out.rdd().id() )
+				inputs.add(rin.rdd().id());
+		}
+		
+		int shuffles = countShuffles(out.rdd(), out.rdd(), inputs, new HashSet<Integer>());
+		String partitioner = out.partitioner().isPresent() ? 
+				out.partitioner().get().getClass().getSimpleName() + "(" + out.partitions().size() + ")" : "none";
+		
+		synchronized( _partReport ) {
+			String key = inst.getOpcode() + " " + inst.output.getName();
+			PartitioningRecord rec = _partReport.get(key);
+			if( rec == null ) {
+				rec = new PartitioningRecord();
+				_partReport.put(key, rec);
+			}
+			rec.partitioner = partitioner;
+			rec.shuffles += shuffles;
+			rec.count++;
+		}
+	}
+	
+	/**
+	 * Explains the runtime partitioning report of all executed spark instructions 
+	 * with rdd outputs in order of their first execution.
+	 * 
+	 * @return
+	 */
+	public static String explainPartitioningReport()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("EXPLAIN (PARTITIONING: instruction, output partitioner, shuffles, executions):\n");
+		
+		synchronized( _partReport ) {
+			for( Entry<String,PartitioningRecord> e : _partReport.entrySet() ) {
+				PartitioningRecord rec = e.getValue();
+				sb.append("-- ");
+				sb.append(e.getKey());
+				sb.append(" \t");
+				sb.append(rec.partitioner);
+				sb.append(" \t");
+				sb.append(rec.shuffles);
+				sb.append(" \t");
+				sb.append(rec.count);
+				sb.append("\n");
+			}
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * 
+	 */
+	public static void resetPartitioningReport()
+	{
+		synchronized( _partReport ) {
+			_partReport.clear();
+		}
+	}
+	
 	/**
 	 * 
 	 * @param arg
@@ -547,6 +642,62 @@ public class Explain
 		return createOffset(level);
 	}
 	
+	//////////////
+	// internal explain PARTITIONING
+	
+	/**
+	 * 
+	 * @param sec
+	 * @param op
+	 * @return
+	 */
+	private static JavaPairRDD<?,?> getRDDHandle( SparkExecutionContext sec, CPOperand op )
+	{
+		if( op == null || op.getName() == null )
+			return null;
+		
+		Data dat = sec.getVariable(op.getName());
+		if( dat instanceof MatrixObject && ((MatrixObject)dat).getRDDHandle() != null )
+			return ((MatrixObject)dat).getRDDHandle().getRDD();
+		
+		return null;
+	}
+	
+	/**
+	 * Counts the shuffle dependencies in the lineage of the given rdd, where 
+	 * we stop at instruction inputs and persisted intermediates.
+	 * 
+	 * @param rdd
+	 * @param root
+	 * @param inputs
+	 * @param memo
+	 * @return
+	 */
+	private static int countShuffles( RDD<?> rdd, RDD<?> root, HashSet<Integer> inputs, HashSet<Integer> memo )
+	{
+		if( inputs.contains(rdd.id()) || !memo.add(rdd.id()) 
+			|| (rdd != root && !rdd.getStorageLevel().equals(StorageLevel.NONE())) )
+			return 0;
+		
+		int ret = 0;
+		for( Dependency<?> dep : JavaConversions.seqAsJavaList(rdd.dependencies()) ) {
+			if( dep instanceof ShuffleDependency )
+				ret++;
+			ret += countShuffles(dep.rdd(), root, inputs, memo);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 */
+	private static class PartitioningRecord {
+		public String partitioner = null;
+		public long shuffles = 0;
+		public long count = 0;
+	}
+	
 	//////////////
 	// internal explain HOPS
 
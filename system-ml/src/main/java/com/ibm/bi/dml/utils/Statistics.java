@@ -20,12 +20,15 @@ package com.ibm.bi.dml.utils;
 import java.lang.management.CompilationMXBean;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.ibm.bi.dml.api.DMLScript;
@@ -52,22 +55,23 @@ public class Statistics
 	public static long execTime = 0;
 
 	// number of compiled/executed MR jobs
-	private static int iNoOfExecutedMRJobs = 0;
-	private static int iNoOfCompiledMRJobs = 0;
+	private static AtomicInteger iNoOfExecutedMRJobs = new AtomicInteger(0);
+	private static AtomicInteger iNoOfCompiledMRJobs = new AtomicInteger(0);
 
 	// number of compiled/executed SP instructions
-	private static int iNoOfExecutedSPInst = 0;
-	private static int iNoOfCompiledSPInst = 0;
+	private static AtomicInteger iNoOfExecutedSPInst = new AtomicInteger(0);
+	private static AtomicInteger iNoOfCompiledSPInst = new AtomicInteger(0);
 
 	//JVM stats
-	private static long jitCompileTime = 0; //in milli sec
-	private static long jvmGCTime = 0; //in milli sec
-	private static long jvmGCCount = 0; //count
+	private static AtomicLong jitCompileTime = new AtomicLong(0); //in milli sec
+	private static AtomicLong jvmGCTime = new AtomicLong(0); //in milli sec
+	private static AtomicLong jvmGCCount = new AtomicLong(0); //count
 	
 	//HOP DAG recompile stats (potentially high update frequency)
 	private static AtomicLong hopRecompileTime = new AtomicLong(0); //in nano sec
 	private static AtomicLong hopRecompilePred = new AtomicLong(0); //count
 	private static AtomicLong hopRecompileSB = new AtomicLong(0);   //count
+	private static AtomicLong hopRecompileMemoHits = new AtomicLong(0); //count
 
 	//Function recompile stats 
 	private static AtomicLong funRecompileTime = new AtomicLong(0); //in nano sec
@@ -77,69 +81,77 @@ public class Statistics
 	private static long sparkCtxCreateTime = 0; 
 
 	//PARFOR optimization stats 
-	private static long parforOptTime = 0; //in milli sec
-	private static long parforOptCount = 0; //count
-	private static long parforInitTime = 0; //in milli sec
-	private static long parforMergeTime = 0; //in milli sec
-	
-	//heavy hitter counts and times 
-	private static HashMap<String,Long> _cpInstTime   =  new HashMap<String, Long>();
-	private static HashMap<String,Long> _cpInstCounts =  new HashMap<String, Long>();
-	
-	public static synchronized void setNoOfExecutedMRJobs(int iNoOfExecutedMRJobs) {
-		Statistics.iNoOfExecutedMRJobs = iNoOfExecutedMRJobs;
+	private static AtomicLong parforOptTime = new AtomicLong(0); //in milli sec
+	private static AtomicLong parforOptCount = new AtomicLong(0); //count
+	private static AtomicLong parforInitTime = new AtomicLong(0); //in milli sec
+	private static AtomicLong parforMergeTime = new AtomicLong(0); //in milli sec
+	
+	//heavy hitter counts and times (per-thread tables, merged on read; 
+	//a new epoch invalidates all tables on reset w/o touching them;
+	//tables of terminated threads are folded into a single retired table)
+	private static final ConcurrentLinkedQueue<HeavyHitterTable> _cpInstTables = 
+			new ConcurrentLinkedQueue<HeavyHitterTable>();
+	private static final ThreadLocal<HeavyHitterTable> _cpInstTable = new ThreadLocal<HeavyHitterTable>();
+	private static volatile int _cpInstEpoch = 0;
+	private static HeavyHitterTable _cpInstRetired = new HeavyHitterTable(0, null);
+	
+	//note: all counters are maintained via atomics (compare and swap) instead 
+	//of synchronized methods, to avoid monitor contention with local parfor
+	
+	public static void setNoOfExecutedMRJobs(int iNoOfExecutedMRJobs) {
+		Statistics.iNoOfExecutedMRJobs.set(iNoOfExecutedMRJobs);
 	}
 
-	public static synchronized int getNoOfExecutedMRJobs() {
-		return iNoOfExecutedMRJobs;
+	public static int getNoOfExecutedMRJobs() {
+		return iNoOfExecutedMRJobs.get();
 	}
 	
-	public static synchronized void incrementNoOfExecutedMRJobs() {
-		iNoOfExecutedMRJobs ++;
+	public static void incrementNoOfExecutedMRJobs() {
+		iNoOfExecutedMRJobs.incrementAndGet();
 	}
 	
-	public static synchronized void decrementNoOfExecutedMRJobs() {
-		iNoOfExecutedMRJobs --;
+	public static void decrementNoOfExecutedMRJobs() {
+		iNoOfExecutedMRJobs.decrementAndGet();
 	}
 
-	public static synchronized void setNoOfCompiledMRJobs(int numJobs) {
-		iNoOfCompiledMRJobs = numJobs;
+	public static void setNoOfCompiledMRJobs(int numJobs) {
+		iNoOfCompiledMRJobs.set(numJobs);
 	}
 
-	public static synchronized int getNoOfCompiledMRJobs() {
-		return iNoOfCompiledMRJobs;
+	public static int getNoOfCompiledMRJobs() {
+		return iNoOfCompiledMRJobs.get();
 	}
 	
-	public static synchronized void incrementNoOfCompiledMRJobs() {
-		iNoOfCompiledMRJobs ++;
+	public static void incrementNoOfCompiledMRJobs() {
+		iNoOfCompiledMRJobs.incrementAndGet();
 	}
 
-	public static synchronized void setNoOfExecutedSPInst(int numJobs) {
-		iNoOfExecutedSPInst = numJobs;
+	public static void setNoOfExecutedSPInst(int numJobs) {
+		iNoOfExecutedSPInst.set(numJobs);
 	}
 	
-	public static synchronized int getNoOfExecutedSPInst() {
-		return iNoOfExecutedSPInst;
+	public static int getNoOfExecutedSPInst() {
+		return iNoOfExecutedSPInst.get();
 	}
 	
-	public static synchronized void incrementNoOfExecutedSPInst() {
-		iNoOfExecutedSPInst ++;
+	public static void incrementNoOfExecutedSPInst() {
+		iNoOfExecutedSPInst.incrementAndGet();
 	}
 	
-	public static synchronized void decrementNoOfExecutedSPInst() {
-		iNoOfExecutedSPInst --;
+	public static void decrementNoOfExecutedSPInst() {
+		iNoOfExecutedSPInst.decrementAndGet();
 	}
 	
-	public static synchronized void setNoOfCompiledSPInst(int numJobs) {
-		iNoOfCompiledSPInst = numJobs;
+	public static void setNoOfCompiledSPInst(int numJobs) {
+		iNoOfCompiledSPInst.set(numJobs);
 	}
 
-	public static synchronized int getNoOfCompiledSPInst() {
-		return iNoOfCompiledSPInst;
+	public static int getNoOfCompiledSPInst() {
+		return iNoOfCompiledSPInst.get();
 	}
 
-	public static synchronized void incrementNoOfCompiledSPInst() {
-		iNoOfCompiledSPInst ++;
+	public static void incrementNoOfCompiledSPInst() {
+		iNoOfCompiledSPInst.incrementAndGet();
 	}
 	
 	/**
@@ -178,16 +190,16 @@ public class Statistics
 		}
 	}
 	
-	public static synchronized void incrementJITCompileTime( long time ) {
-		jitCompileTime += time;
+	public static void incrementJITCompileTime( long time ) {
+		jitCompileTime.addAndGet(time);
 	}
 	
-	public static synchronized void incrementJVMgcTime( long time ) {
-		jvmGCTime += time;
+	public static void incrementJVMgcTime( long time ) {
+		jvmGCTime.addAndGet(time);
 	}
 	
-	public static synchronized void incrementJVMgcCount( long delta ) {
-		jvmGCCount += delta;
+	public static void incrementJVMgcCount( long delta ) {
+		jvmGCCount.addAndGet(delta);
 	}
 	
 	public static void incrementHOPRecompileTime( long delta ) {
@@ -215,6 +227,11 @@ public class Statistics
 		hopRecompileSB.addAndGet(delta);
 	}
 
+	public static void incrementHOPRecompileMemoHits() {
+		//note: not synchronized due to use of atomics
+		hopRecompileMemoHits.incrementAndGet();
+	}
+
 	public static void incrementFunRecompileTime( long delta ) {
 		//note: not synchronized due to use of atomics
 		funRecompileTime.addAndGet(delta);
@@ -225,20 +242,20 @@ public class Statistics
 		funRecompiles.incrementAndGet();
 	}
 	
-	public static synchronized void incrementParForOptimCount(){
-		parforOptCount ++;
+	public static void incrementParForOptimCount(){
+		parforOptCount.incrementAndGet();
 	}
 	
-	public static synchronized void incrementParForOptimTime( long time ) {
-		parforOptTime += time;
+	public static void incrementParForOptimTime( long time ) {
+		parforOptTime.addAndGet(time);
 	}
 	
-	public static synchronized void incrementParForInitTime( long time ) {
-		parforInitTime += time;
+	public static void incrementParForInitTime( long time ) {
+		parforInitTime.addAndGet(time);
 	}
 	
-	public static synchronized void incrementParForMergeTime( long time ) {
-		parforMergeTime += time;
+	public static void incrementParForMergeTime( long time ) {
+		parforMergeTime.addAndGet(time);
 	}
 
 	public static void startCompileTimer() {
@@ -285,11 +302,12 @@ public class Statistics
 		hopRecompileTime.set(0);
 		hopRecompilePred.set(0);
 		hopRecompileSB.set(0);
+		hopRecompileMemoHits.set(0);
 		
-		parforOptCount = 0;
-		parforOptTime = 0;
-		parforInitTime = 0;
-		parforMergeTime = 0;
+		parforOptCount.set(0);
+		parforOptTime.set(0);
+		parforInitTime.set(0);
+		parforMergeTime.set(0);
 		
 		resetJITCompileTime();
 		resetJVMgcTime();
@@ -301,23 +319,25 @@ public class Statistics
 	 * 
 	 */
 	public static void resetJITCompileTime(){
-		jitCompileTime = -1 * getJITCompileTime();
+		jitCompileTime.set(-1 * getJITCompileTime());
 	}
 	
 	public static void resetJVMgcTime(){
-		jvmGCTime = -1 * getJVMgcTime();
+		jvmGCTime.set(-1 * getJVMgcTime());
 	}
 	
 	public static void resetJVMgcCount(){
-		jvmGCTime = -1 * getJVMgcCount();
+		jvmGCTime.set(-1 * getJVMgcCount());
 	}
 	
 	/**
 	 * 
 	 */
-	public static void resetCPHeavyHitters(){
-		_cpInstTime.clear();
-		_cpInstCounts.clear();
+	public static synchronized void resetCPHeavyHitters(){
+		//invalidate all per-thread tables (lazily replaced on next update)
+		_cpInstEpoch++;
+		_cpInstTables.clear();
+		_cpInstRetired = new HeavyHitterTable(_cpInstEpoch, null);
 	}
 	
 	/**
@@ -359,20 +379,106 @@ public class Statistics
 		return opcode;
 	}
 	
-	public synchronized static void maintainCPHeavyHitters( String key, long timeNanos )
+	/**
+	 * Maintains the heavy hitter statistics of the given instruction opcode
+	 * in the table of the current thread (no contention across threads).
+	 * 
+	 * @param key
+	 * @param timeNanos
+	 */
+	public static void maintainCPHeavyHitters( String key, long timeNanos )
 	{
-		Long oldVal = _cpInstTime.get(key);
-		Long newVal = timeNanos + ((oldVal!=null) ? oldVal : 0);
-		_cpInstTime.put(key, newVal);
-
-		Long oldCnt = _cpInstCounts.get(key);
-		Long newCnt = 1 + ((oldCnt!=null) ? oldCnt : 0);
-		_cpInstCounts.put(key, newCnt);
+		//get or create table of current thread and epoch
+		HeavyHitterTable table = _cpInstTable.get();
+		int epoch = _cpInstEpoch;
+		if( table == null || table._epoch != epoch ) {
+			table = new HeavyHitterTable(epoch, Thread.currentThread());
+			_cpInstTable.set(table);
+			registerCPHeavyHitterTable(table);
+		}
+		
+		table.maintain(key, timeNanos);
+	}
+	
+	/**
+	 * Registers a new per-thread table (once per thread and epoch), and drops 
+	 * the tables of terminated threads in order to bound the number of tables
+	 * by the number of live threads.
+	 * 
+	 * @param table
+	 */
+	private static synchronized void registerCPHeavyHitterTable( HeavyHitterTable table )
+	{
+		_cpInstTables.add(table);
+		retireCPHeavyHitterTables();
+	}
+	
+	/**
+	 * Folds the tables of terminated threads (e.g., parfor workers) into the
+	 * retired table of the current epoch and removes them, as well as stale 
+	 * tables of previous epochs. Requires the class lock.
+	 */
+	private static void retireCPHeavyHitterTables()
+	{
+		int epoch = _cpInstEpoch;
+		Iterator<HeavyHitterTable> iter = _cpInstTables.iterator();
+		while( iter.hasNext() ) {
+			HeavyHitterTable table = iter.next();
+			if( table._epoch != epoch )
+				iter.remove();
+			else if( !table.isOwnerAlive() ) {
+				table.mergeInto(_cpInstRetired._stats);
+				iter.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of registered per-thread heavy hitter tables.
+	 * 
+	 * @return
+	 */
+	public static synchronized int getNumCPHeavyHitterTables()
+	{
+		retireCPHeavyHitterTables();
+		return _cpInstTables.size();
 	}
 	
+	/**
+	 * 
+	 * @return
+	 */
 	public static Set<String> getCPHeavyHitterOpCodes()
 	{
-		return _cpInstTime.keySet();
+		return getMergedCPHeavyHitters().keySet();
+	}
+	
+	/**
+	 * Gets the number of executed CP instructions with the given opcode.
+	 * 
+	 * @param opcode
+	 * @return
+	 */
+	public static long getCPHeavyHitterCount( String opcode )
+	{
+		HeavyHitter hh = getMergedCPHeavyHitters().get(opcode);
+		return (hh != null) ? hh._count : 0;
+	}
+	
+	/**
+	 * Merges the per-thread heavy hitter tables of the current epoch.
+	 * 
+	 * @return
+	 */
+	private static synchronized HashMap<String,HeavyHitter> getMergedCPHeavyHitters()
+	{
+		retireCPHeavyHitterTables();
+		
+		HashMap<String,HeavyHitter> ret = new HashMap<String,HeavyHitter>();
+		_cpInstRetired.mergeInto(ret);
+		for( HeavyHitterTable table : _cpInstTables )
+			table.mergeInto(ret);
+		return ret;
 	}
 	
 	/**
@@ -380,32 +486,36 @@ public class Statistics
 	 * @param num
 	 * @return
 	 */
-	@SuppressWarnings("unchecked")
 	public static String getHeavyHitters( int num )
 	{
-		int len = _cpInstTime.size();
+		HashMap<String,HeavyHitter> stats = getMergedCPHeavyHitters();
+		int len = stats.size();
 		if( num <= 0 || len <= 0 )
 			return "-";
 		
 		//get top k via sort
-		Entry<String,Long>[] tmp = _cpInstTime.entrySet().toArray(new Entry[len]);
-		Arrays.sort(tmp, new Comparator<Entry<String, Long>>() {
-		    public int compare(Entry<String, Long> e1, Entry<String, Long> e2) {
-		        return e1.getValue().compareTo(e2.getValue());
+		HeavyHitter[] tmp = stats.values().toArray(new HeavyHitter[len]);
+		Arrays.sort(tmp, new Comparator<HeavyHitter>() {
+		    public int compare(HeavyHitter e1, HeavyHitter e2) {
+		        return Long.valueOf(e1._time).compareTo(e2._time);
 		    }
 		});
 		
 		//prepare output string
 		StringBuilder sb = new StringBuilder();
 		for( int i=0; i<Math.min(num, len); i++ ){
-			String key = tmp[len-1-i].getKey();
+			HeavyHitter hh = tmp[len-1-i];
 			sb.append("-- "+(i+1)+") \t");
-			sb.append(key);
+			sb.append(hh._key);
+			sb.append(" \t");
+			sb.append(String.format("%.3f", ((double)hh._time)/1000000000));
+			sb.append(" sec \t");
+			sb.append(hh._count);
 			sb.append(" \t");
-			sb.append(String.format("%.3f", ((double)tmp[len-1-i].getValue())/1000000000));
+			sb.append(String.format("%.6f", ((double)hh._time)/hh._count/1000000000));
 			sb.append(" sec \t");
-			sb.append(_cpInstCounts.get(key));
-			sb.append("\n");
+			sb.append(String.format("%.6f", ((double)hh._maxTime)/1000000000));
+			sb.append(" sec\n");
 		}
 		
 		return sb.toString();
@@ -422,7 +532,7 @@ public class Statistics
 		if( cmx.isCompilationTimeMonitoringSupported() )
 		{
 			ret = cmx.getTotalCompilationTime();
-			ret += jitCompileTime; //add from remote processes
+			ret += jitCompileTime.get(); //add from remote processes
 		}
 		return ret;
 	}
@@ -435,7 +545,7 @@ public class Statistics
 		for( GarbageCollectorMXBean gcx : gcxs )
 			ret += gcx.getCollectionTime();
 		if( ret>0 )
-			ret += jvmGCTime;
+			ret += jvmGCTime.get();
 		
 		return ret;
 	}
@@ -448,7 +558,7 @@ public class Statistics
 		for( GarbageCollectorMXBean gcx : gcxs )
 			ret += gcx.getCollectionCount();
 		if( ret>0 )
-			ret += jvmGCCount;
+			ret += jvmGCCount.get();
 		
 		return ret;
 	}
@@ -465,6 +575,10 @@ public class Statistics
 		return hopRecompileSB.get();
 	}
 	
+	public static long getHopRecompileMemoHits(){
+		return hopRecompileMemoHits.get();
+	}
+	
 	public static long getFunRecompileTime(){
 		return funRecompileTime.get();
 	}
@@ -474,19 +588,19 @@ public class Statistics
 	}
 		
 	public static long getParforOptCount(){
-		return parforOptCount;
+		return parforOptCount.get();
 	}
 	
 	public static long getParforOptTime(){
-		return parforOptTime;
+		return parforOptTime.get();
 	}
 	
 	public static long getParforInitTime(){
-		return parforInitTime;
+		return parforInitTime.get();
 	}
 	
 	public static long getParforMergeTime(){
-		return parforMergeTime;
+		return parforMergeTime.get();
 	}
 
 	/**
@@ -521,8 +635,11 @@ public class Statistics
 			sb.append("Cache hits (Mem, WB, FS, HDFS):\t" + CacheStatistics.displayHits() + ".\n");
 			sb.append("Cache writes (WB, FS, HDFS):\t" + CacheStatistics.displayWrites() + ".\n");
 			sb.append("Cache times (ACQr/m, RLS, EXP):\t" + CacheStatistics.displayTime() + " sec.\n");
+			sb.append("Cache discards, restore time:\t" + CacheStatistics.displayEvictions() + " sec.\n");
 			sb.append("HOP DAGs recompiled (PRED, SB):\t" + getHopRecompiledPredDAGs() + "/" + getHopRecompiledSBDAGs() + ".\n");
 			sb.append("HOP DAGs recompile time:\t" + String.format("%.3f", ((double)getHopRecompileTime())/1000000000) + " sec.\n");
+			if( getHopRecompileMemoHits()>0 )
+				sb.append("HOP DAGs recompile memo hits:\t" + getHopRecompileMemoHits() + ".\n");
 			if( getFunRecompiles()>0 ) {
 				sb.append("Functions recompiled:\t\t" + getFunRecompiles() + ".\n");
 				sb.append("Functions recompile time:\t" + String.format("%.3f", ((double)getFunRecompileTime())/1000000000) + " sec.\n");	
@@ -532,7 +649,7 @@ public class Statistics
 				sb.append("Spark ctx create time "+lazy+":\t"+
 						String.format("%.3f", ((double)sparkCtxCreateTime)*1e-9)  + " sec.\n" ); // nanoSec --> sec
 			}
-			if( parforOptCount>0 ){
+			if( getParforOptCount()>0 ){
 				sb.append("ParFor loops optimized:\t\t" + getParforOptCount() + ".\n");
 				sb.append("ParFor optimize time:\t\t" + String.format("%.3f", ((double)getParforOptTime())/1000) + " sec.\n");	
 				sb.append("ParFor initialize time:\t\t" + String.format("%.3f", ((double)getParforInitTime())/1000) + " sec.\n");	
@@ -541,9 +658,72 @@ public class Statistics
 			sb.append("Total JIT compile time:\t\t" + ((double)getJITCompileTime())/1000 + " sec.\n");
 			sb.append("Total JVM GC count:\t\t" + getJVMgcCount() + ".\n");
 			sb.append("Total JVM GC time:\t\t" + ((double)getJVMgcTime())/1000 + " sec.\n");
-			sb.append("Heavy hitter instructions (name, time, count):\n" + getHeavyHitters(10));
+			sb.append("Heavy hitter instructions (name, time, count, avg, max):\n" + getHeavyHitters(10));
 		}
 		
 		return sb.toString();
 	}
+	
+	/**
+	 * Aggregated statistics of a single instruction opcode.
+	 */
+	private static class HeavyHitter
+	{
+		private final String _key;
+		private long _time = 0;    //total time in nano sec
+		private long _count = 0;   //number of invocations
+		private long _maxTime = 0; //max time in nano sec
+		
+		public HeavyHitter( String key ) {
+			_key = key;
+		}
+	}
+	
+	/**
+	 * Heavy hitter table of a single thread. Updates and merges synchronize on
+	 * the table, which is uncontended except while statistics are reported.
+	 * The owner thread is weakly referenced in order to detect terminated threads.
+	 */
+	private static class HeavyHitterTable
+	{
+		private final int _epoch;
+		private final WeakReference<Thread> _owner;
+		private final HashMap<String,HeavyHitter> _stats = new HashMap<String,HeavyHitter>();
+		
+		public HeavyHitterTable( int epoch, Thread owner ) {
+			_epoch = epoch;
+			_owner = new WeakReference<Thread>(owner);
+		}
+		
+		public boolean isOwnerAlive() {
+			Thread owner = _owner.get();
+			return owner != null && owner.isAlive();
+		}
+		
+		public synchronized void maintain( String key, long timeNanos ) 
+		{
+			HeavyHitter hh = _stats.get(key);
+			if( hh == null ) {
+				hh = new HeavyHitter(key);
+				_stats.put(key, hh);
+			}
+			hh._time += timeNanos;
+			hh._count++;
+			hh._maxTime = Math.max(hh._maxTime, timeNanos);
+		}
+		
+		public synchronized void mergeInto( HashMap<String,HeavyHitter> ret ) 
+		{
+			for( HeavyHitter hh : _stats.values() ) {
+				HeavyHitter agg = ret.get(hh._key);
+				if( agg == null ) {
+					agg = new HeavyHitter(hh._key);
+					ret.put(hh._key, agg);
+				}
+				agg._time += hh._time;
+				agg._count += hh._count;
+				agg._maxTime = Math.max(agg._maxTime, hh._maxTime);
+			}
+		}
+	}
 }
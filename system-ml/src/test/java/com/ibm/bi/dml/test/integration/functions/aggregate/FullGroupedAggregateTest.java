@@ -47,6 +47,7 @@ public class FullGroupedAggregateTest extends AutomatedTestBase
 	private final static double eps = 1e-10;
 	
 	private final static int rows = 17654;
+	private final static int rows2 = 1234567; //multi-threaded cp
 	private final static int cols = 1;
 	private final static double sparsity1 = 0.1;
 	private final static double sparsity2 = 0.7;
@@ -383,6 +384,48 @@ public class FullGroupedAggregateTest extends AutomatedTestBase
 	}
 	*/
 	
+	@Test
+	public void testGroupedAggSumDenseLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.SUM, false, false, false, ExecType.CP, rows2);
+	}
+	
+	@Test
+	public void testGroupedAggSumSparseWeightsLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.SUM, true, true, false, ExecType.CP, rows2);
+	}
+	
+	@Test
+	public void testGroupedAggSumSparseTransposeLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.SUM, true, false, true, ExecType.CP, rows2);
+	}
+	
+	@Test
+	public void testGroupedAggCountDenseLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.COUNT, false, false, false, ExecType.CP, rows2);
+	}
+	
+	@Test
+	public void testGroupedAggMeanDenseWeightsLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.MEAN, false, true, false, ExecType.CP, rows2);
+	}
+	
+	@Test
+	public void testGroupedAggVarianceSparseLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.VARIANCE, true, false, false, ExecType.CP, rows2);
+	}
+	
+	@Test
+	public void testGroupedAggMoment4DenseLargeCP() 
+	{
+		runGroupedAggregateOperationTest(OpType.MOMENT4, false, false, false, ExecType.CP, rows2);
+	}
+	
 	@Test
 	public void testGroupedAggSumDenseMR() 
 	{
@@ -541,6 +584,20 @@ public class FullGroupedAggregateTest extends AutomatedTestBase
 	 * @throws IOException 
 	 */
 	private void runGroupedAggregateOperationTest( OpType type, boolean sparse, boolean weights, boolean transpose, ExecType instType) 
+	{
+		runGroupedAggregateOperationTest(type, sparse, weights, transpose, instType, rows);
+	}
+	
+	/**
+	 * 
+	 * @param type
+	 * @param sparse
+	 * @param weights
+	 * @param transpose
+	 * @param instType
+	 * @param rows
+	 */
+	private void runGroupedAggregateOperationTest( OpType type, boolean sparse, boolean weights, boolean transpose, ExecType instType, int rows) 
 	{
 		//rtplatform for MR
 		RUNTIME_PLATFORM platformOld = rtplatform;
@@ -0,0 +1,149 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package com.ibm.bi.dml.test.integration.functions.append;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+public class AppendLoopUpdateInPlaceTest extends AutomatedTestBase
+{	
+	private final static String TEST_NAME1 = "AppendLoopRBindTest"; 
+	private final static String TEST_NAME2 = "AppendLoopCBindTest"; 
+	private final static String TEST_DIR = "functions/append/";
+
+	private final static double epsilon=0.0000000001;
+	
+	private final static int rows = 173;
+	private final static int cols = 41;
+		
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.05;
+	
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME1, new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] {"R"}));
+		addTestConfiguration(TEST_NAME2, new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] {"R"}));
+	}
+
+	@Test
+	public void testRBindLoopDense() {
+		runAppendLoopTest(TEST_NAME1, false);
+	}
+	
+	@Test
+	public void testRBindLoopSparse() {
+		runAppendLoopTest(TEST_NAME1, true);
+	}
+	
+	@Test
+	public void testCBindLoopDense() {
+		runAppendLoopTest(TEST_NAME2, false);
+	}
+	
+	@Test
+	public void testCBindLoopSparse() {
+		runAppendLoopTest(TEST_NAME2, true);
+	}
+	
+	@Test
+	public void testCBindInPlaceSparseFullRows() {
+		runAppendInPlaceFullRowsTest();
+	}
+	
+	/**
+	 * 
+	 * @param testname
+	 * @param sparse
+	 */
+	public void runAppendLoopTest(String testname, boolean sparse)
+	{		
+		String TEST_NAME = testname;
+		TestConfiguration config = getTestConfiguration(TEST_NAME);
+		double sparsity = (sparse) ? sparsity2 : sparsity1; 
+		
+		String RI_HOME = SCRIPT_DIR + TEST_DIR;
+		fullDMLScriptName = RI_HOME + TEST_NAME + ".dml";
+		programArgs = new String[]{"-args",  RI_HOME + INPUT_DIR + "A" , 
+	                                         RI_HOME + OUTPUT_DIR + "R" };
+		fullRScriptName = RI_HOME + TEST_NAME + ".R";
+		rCmd = "Rscript" + " " + fullRScriptName + " " + 
+		       RI_HOME + INPUT_DIR + " "+ RI_HOME + EXPECTED_DIR;
+
+		loadTestConfiguration(config);
+		
+		double[][] A = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+		writeInputMatrixWithMTD("A", A, true);
+		
+		//execute dml and r scripts
+		runTest(true, false, null, -1);
+		runRScript(true);
+
+		//compare results
+		HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+		HashMap<CellIndex, Double> rfile = readRMatrixFromFS("R");
+		TestUtils.compareMatrices(dmlfile, rfile, epsilon, "DML", "R");
+	}
+	
+	/**
+	 * Repeated in-place cbind to a sparse block where some rows are full 
+	 * (i.e., at the capacity bound of the old number of columns), compared 
+	 * against the regular append.
+	 */
+	public void runAppendInPlaceFullRowsTest()
+	{
+		try
+		{
+			//sparse block with 10 full rows, all other rows empty
+			MatrixBlock R = new MatrixBlock(rows, cols, true);
+			for( int i=0; i<10; i++ )
+				for( int j=0; j<cols; j++ )
+					R.quickSetValue(i, j, i*cols+j+1);
+			Assert.assertTrue(R.isInSparseFormat());
+		
+			for( int k=0; k<20; k++ ) 
+			{
+				//column with non-zeros in full and empty rows
+				MatrixBlock A = new MatrixBlock(rows, 1, true);
+				for( int i=0; i<rows; i+=7 )
+					A.quickSetValue(i, 0, k+i+1);
+			
+				MatrixBlock expected = R.appendOperations(A, new MatrixBlock(), true);
+				MatrixBlock ret = R.appendOperationsInPlace(A, true);
+				Assert.assertTrue("In-place cbind not applied.", ret == R);
+				Assert.assertTrue(R.isInSparseFormat());
+				Assert.assertEquals(expected.getNumColumns(), R.getNumColumns());
+				Assert.assertEquals(expected.getNonZeros(), R.getNonZeros());
+				for( int i=0; i<rows; i++ )
+					for( int j=0; j<R.getNumColumns(); j++ )
+						Assert.assertEquals(expected.quickGetValue(i, j), R.quickGetValue(i, j), epsilon);
+			}
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+}
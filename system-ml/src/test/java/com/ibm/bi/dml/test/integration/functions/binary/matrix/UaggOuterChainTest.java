@@ -47,6 +47,7 @@ public class UaggOuterChainTest extends AutomatedTestBase
 	private final static double eps = 1e-8;
 	
 	private final static int rows = 1468;
+	private final static int rows2 = 70013; //multi-threaded cp
 	private final static int cols1 = 73; //single block
 	private final static int cols2 = 1052; //multi block
 	
@@ -1203,6 +1204,25 @@ public class UaggOuterChainTest extends AutomatedTestBase
 		runBinUaggTest(TEST_NAME1, Type.GREATER_EQUALS, false, true, SumType.SUM_ALL, true, ExecType.CP);
 	}
 	
+	// Uagg outer chains over large vectors -- CP (multi-threaded)
+	@Test
+	public void testUaggOuterChainRowSumsLargeSingleDenseCP() 
+	{
+		runBinUaggTest(TEST_NAME1, Type.LESS, true, false, SumType.ROW_SUM, false, rows2, ExecType.CP);
+	}
+	
+	@Test
+	public void testLessEqualsUaggOuterChainRowIndexMaxLargeSingleDenseCP() 
+	{
+		runBinUaggTest(TEST_NAME1, Type.LESS_EQUALS, true, false, SumType.ROW_INDEX_MAX, false, rows2, ExecType.CP);
+	}
+	
+	@Test
+	public void testGreaterUaggOuterChainSumsLargeSingleSparseCP() 
+	{
+		runBinUaggTest(TEST_NAME1, Type.GREATER, true, true, SumType.SUM_ALL, false, rows2, ExecType.CP);
+	}
+	
 
 
 	/**
@@ -1212,6 +1232,22 @@ public class UaggOuterChainTest extends AutomatedTestBase
 	 * @param instType
 	 */
 	private void runBinUaggTest( String testname, Type type, boolean singleBlock, boolean sparse, SumType sumType, boolean bEmptyBlock, ExecType instType)
+	{
+		runBinUaggTest(testname, type, singleBlock, sparse, sumType, bEmptyBlock, rows, instType);
+	}
+	
+	/**
+	 * 
+	 * @param testname
+	 * @param type
+	 * @param singleBlock
+	 * @param sparse
+	 * @param sumType
+	 * @param bEmptyBlock
+	 * @param numRows
+	 * @param instType
+	 */
+	private void runBinUaggTest( String testname, Type type, boolean singleBlock, boolean sparse, SumType sumType, boolean bEmptyBlock, int numRows, ExecType instType)
 	{
 		//rtplatform for MR
 		RUNTIME_PLATFORM platformOld = rtplatform;
@@ -1295,7 +1331,7 @@ public class UaggOuterChainTest extends AutomatedTestBase
 				
 					
 			//generate actual datasets
-			double[][] A = getRandomMatrix(rows, 1, dAMinVal, dAMaxVal, sparse?sparsity2:sparsity1, 235);
+			double[][] A = getRandomMatrix(numRows, 1, dAMinVal, dAMaxVal, sparse?sparsity2:sparsity1, 235);
 			writeInputMatrixWithMTD("A", A, true);
 			double[][] B = getRandomMatrix(1, singleBlock?cols1:cols2, dBMinVal, dBMaxVal, sparse?sparsity2:sparsity1, 124);
 			writeInputMatrixWithMTD("B", B, true);
@@ -1309,7 +1345,7 @@ public class UaggOuterChainTest extends AutomatedTestBase
 			TestUtils.compareMatrices(dmlfile, rfile, eps, "Stat-DML", "Stat-R");
 			
 			if(sumType == SumType.ROW_SUM)
-				checkDMLMetaDataFile("C", new MatrixCharacteristics(rows,1,1,1)); //rowsums
+				checkDMLMetaDataFile("C", new MatrixCharacteristics(numRows,1,1,1)); //rowsums
 			else if(sumType == SumType.COL_SUM)
 				checkDMLMetaDataFile("C", new MatrixCharacteristics(1,singleBlock?cols1:cols2,1,1)); //colsums
 			if(sumType == SumType.SUM_ALL)
@@ -0,0 +1,247 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.caching;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.runtime.controlprogram.caching.CacheStatistics;
+import com.ibm.bi.dml.runtime.controlprogram.caching.CacheableData;
+import com.ibm.bi.dml.runtime.controlprogram.caching.LazyWriteBuffer;
+import com.ibm.bi.dml.runtime.controlprogram.caching.LazyWriteBuffer.RPolicy;
+import com.ibm.bi.dml.runtime.controlprogram.caching.LazyWriteBuffer.TraceEntry;
+import com.ibm.bi.dml.runtime.controlprogram.caching.LazyWriteBuffer.TraceType;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.runtime.util.LocalFileUtils;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for the buffer pool eviction policies, which select the policy via the
+ * config (cp.caching.policy), record the buffer pool trace of a real script and
+ * replay it with a small buffer size (in order to enforce evictions, restores
+ * and, for the cost-aware policy, discards of persisted matrices). Every read
+ * is checked cell-wise against the written matrix, where discarded matrices
+ * are restored from their persisted copies.
+ *
+ */
+public class CachingEvictionPolicyTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME = "eviction";
+	private final static String TEST_DIR = "functions/caching/";
+
+	private final static int rows = 2000;
+	private final static int cols = 100;
+	private final static double sparsity = 0.9;
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, new TestConfiguration(TEST_DIR, TEST_NAME, new String[] { "w" }) );
+	}
+
+	@Test
+	public void testEvictionPolicyFIFO()
+	{
+		runEvictionPolicyTest( RPolicy.FIFO );
+	}
+
+	@Test
+	public void testEvictionPolicyLRU()
+	{
+		runEvictionPolicyTest( RPolicy.LRU );
+	}
+
+	@Test
+	public void testEvictionPolicyCost()
+	{
+		runEvictionPolicyTest( RPolicy.COST );
+	}
+
+	/**
+	 *
+	 * @param policy
+	 */
+	private void runEvictionPolicyTest( RPolicy policy )
+	{
+		RPolicy oldPolicy = CacheableData.CACHING_BUFFER_POLICY;
+		long oldLimit = LazyWriteBuffer.getWriteBufferLimit();
+		boolean oldStats = DMLScript.STATISTICS;
+
+		try
+		{
+			TestConfiguration config = getTestConfiguration(TEST_NAME);
+
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			programArgs = new String[]{"-args", HOME + INPUT_DIR + "X",
+					                            HOME + OUTPUT_DIR + "w" };
+			loadTestConfiguration(config);
+
+			//select eviction policy via the test config
+			File conf = getCurConfigFile();
+			String contents = FileUtils.readFileToString(conf, "UTF-8");
+			FileUtils.write(conf, contents.replace("<cp.caching.policy>fifo</cp.caching.policy>",
+				"<cp.caching.policy>"+policy.name().toLowerCase()+"</cp.caching.policy>"), "UTF-8");
+
+			double[][] X = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+			writeInputMatrixWithMTD("X", X, true);
+
+			//run script and record buffer pool trace
+			LazyWriteBuffer.startTrace();
+			runTest(true, false, null, -1);
+			List<TraceEntry> trace = LazyWriteBuffer.stopTrace();
+			Assert.assertEquals(policy, CacheableData.CACHING_BUFFER_POLICY);
+			Assert.assertTrue("Empty buffer pool trace.", trace != null && !trace.isEmpty());
+
+			//replay trace under the configured policy
+			String dir = HOME + OUTPUT_DIR + "cache_" + policy.name();
+			LocalFileUtils.createLocalFileIfNotExist(dir);
+			DMLScript.STATISTICS = true;
+			replayTrace(trace, dir);
+			LocalFileUtils.deleteFileIfExists(dir);
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			CacheableData.CACHING_BUFFER_POLICY = oldPolicy;
+			DMLScript.STATISTICS = oldStats;
+			LazyWriteBuffer.setWriteBufferLimit(oldLimit);
+			LazyWriteBuffer.cleanup();
+		}
+	}
+
+	/**
+	 * Replays the given trace with a buffer size of twice the largest matrix,
+	 * and checks that all reads return the written matrices. Persist requests
+	 * write a copy of the matrix (as the persisted copy on hdfs), which is read
+	 * if the buffer pool discarded the matrix on eviction.
+	 *
+	 * @param trace
+	 * @param dir
+	 * @throws Exception
+	 */
+	private void replayTrace( List<TraceEntry> trace, String dir )
+		throws Exception
+	{
+		//create input matrix blocks per written file
+		HashMap<String, MatrixBlock> blocks = new HashMap<String, MatrixBlock>();
+		long maxSize = 0;
+		for( TraceEntry entry : trace )
+			if( entry.type == TraceType.WRITE && entry.rows > 0 && entry.cols > 0 ) {
+				double sp = Math.max((double)entry.nnz / entry.rows / entry.cols, 0);
+				MatrixBlock mb = MatrixBlock.randOperations(entry.rows, entry.cols, sp, 0, 1, "uniform", 7);
+				blocks.put(entry.fname, mb);
+				maxSize = Math.max(maxSize, mb.getExactSizeOnDisk());
+			}
+
+		LazyWriteBuffer.init();
+		LazyWriteBuffer.setWriteBufferLimit(2 * maxSize + 1);
+		CacheStatistics.reset();
+
+		//replay buffer pool requests (reads only of live files)
+		HashMap<String, MatrixBlock> live = new HashMap<String, MatrixBlock>();
+		HashSet<String> persisted = new HashSet<String>();
+		int reads = 0;
+		for( TraceEntry entry : trace )
+		{
+			String fname = dir + File.separator + new File(entry.fname).getName();
+			switch( entry.type ) {
+				case WRITE:
+					if( blocks.containsKey(entry.fname) ) {
+						LazyWriteBuffer.writeMatrix(fname, blocks.get(entry.fname));
+						live.put(fname, blocks.get(entry.fname));
+						persisted.remove(fname);
+					}
+					break;
+				case READ:
+					if( live.containsKey(fname) ) {
+						MatrixBlock mb = LazyWriteBuffer.readMatrix(fname);
+						if( mb == null ) {
+							//discarded on eviction, read persisted copy
+							Assert.assertTrue("Discarded non-persisted matrix "+fname, persisted.contains(fname));
+							mb = LocalFileUtils.readMatrixBlockFromLocal(getPersistedFileName(fname));
+							CacheStatistics.incrementHDFSHits();
+						}
+						compareMatrixBlocks(live.get(fname), mb, fname);
+						reads++;
+					}
+					break;
+				case DELETE:
+					if( live.remove(fname) != null ) {
+						LazyWriteBuffer.deleteMatrix(fname);
+						if( persisted.remove(fname) )
+							LocalFileUtils.deleteFileIfExists(getPersistedFileName(fname));
+					}
+					break;
+				case PERSIST:
+					if( live.containsKey(fname) && persisted.add(fname) )
+						LocalFileUtils.writeMatrixBlockToLocal(getPersistedFileName(fname), live.get(fname));
+					LazyWriteBuffer.setPersisted(fname, true);
+					break;
+			}
+		}
+
+		//check that every read was served, and discards only under the cost-aware policy
+		Assert.assertEquals(reads, CacheStatistics.getFSBuffHits()
+			+ CacheStatistics.getFSHits() + CacheStatistics.getHDFSHits());
+		if( CacheableData.CACHING_BUFFER_POLICY != RPolicy.COST ) {
+			Assert.assertEquals(0, CacheStatistics.getFSDiscards());
+			Assert.assertEquals(0, CacheStatistics.getHDFSHits());
+		}
+	}
+
+	/**
+	 *
+	 * @param fname
+	 * @return
+	 */
+	private static String getPersistedFileName( String fname )
+	{
+		return fname + "_persisted";
+	}
+
+	/**
+	 *
+	 * @param expected
+	 * @param actual
+	 * @param fname
+	 */
+	private static void compareMatrixBlocks( MatrixBlock expected, MatrixBlock actual, String fname )
+	{
+		Assert.assertEquals(expected.getNumRows(), actual.getNumRows());
+		Assert.assertEquals(expected.getNumColumns(), actual.getNumColumns());
+		Assert.assertEquals(expected.getNonZeros(), actual.getNonZeros());
+		for( int i=0; i<expected.getNumRows(); i++ )
+			for( int j=0; j<expected.getNumColumns(); j++ )
+				Assert.assertEquals("Mismatch of "+fname+" at ("+i+","+j+")",
+					expected.quickGetValue(i, j), actual.quickGetValue(i, j), 0);
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.data;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.runtime.util.NormalPRNGenerator;
+import com.ibm.bi.dml.runtime.util.UniformPRNGenerator;
+import com.ibm.bi.dml.runtime.util.Xoroshiro128PlusPlus;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for the pseudo random number generators of rand and sample, i.e., the
+ * xoroshiro128++ generator against the output of the reference implementation
+ * (Blackman and Vigna, incl splitmix64 seeding), bounded integers, and the
+ * distribution of the ziggurat (ZIGNOR) normal generator.
+ *
+ */
+public class PRNGeneratorTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME = "PRNGenerator";
+	private final static String TEST_DIR = "functions/data/";
+
+	private final static int numSamples = 1000000;
+
+	//first outputs of the reference implementation for seeds 0, 7, -1
+	private final static long[] seeds = new long[]{0, 7, -1};
+	private final static long[][] refLongs = new long[][]{
+		{0x6f68e1e7e2646ee1L, 0xbf971b7f454094adL, 0x48f2de556f30de38L, 0x6ea7c59f89bbfc75L, 0x765437c08f02e2f5L},
+		{0xa1447cc14118de07L, 0x1ea857a7c6ab040aL, 0x63681fe2faa9123cL, 0xba3cae13357e689bL, 0x29f1ab3c50625254L},
+		{0xb897602e7938c912L, 0x92ac733c00c69e74L, 0x79077f68c57fd4f5L, 0xc2236f3f6278b151L, 0x157f5de82353f0d1L}};
+	private final static double[] refDoubles = new double[]{
+		0.62995128362772179, 0.11975620123000041, 0.38830756465418781}; //seed 7
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME,
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] {}) );
+	}
+
+	@Test
+	public void testXoroshiroReferenceLongs()
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+		for( int i=0; i<seeds.length; i++ ) {
+			Xoroshiro128PlusPlus r = new Xoroshiro128PlusPlus(seeds[i]);
+			for( int j=0; j<refLongs[i].length; j++ )
+				Assert.assertEquals("Wrong number "+j+" for seed "+seeds[i], refLongs[i][j], r.nextLong());
+
+			//reseed restarts the sequence
+			r.setSeed(seeds[i]);
+			Assert.assertEquals(refLongs[i][0], r.nextLong());
+		}
+	}
+
+	@Test
+	public void testXoroshiroReferenceDoubles()
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+		UniformPRNGenerator r = new UniformPRNGenerator(7);
+		for( int j=0; j<refDoubles.length; j++ )
+			Assert.assertEquals(refDoubles[j], r.nextDouble(), 0);
+	}
+
+	@Test
+	public void testXoroshiroBoundedInts()
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+		Xoroshiro128PlusPlus r = new Xoroshiro128PlusPlus(7);
+		for( int n : new int[]{1, 7, 8, 1000, Integer.MAX_VALUE} ) {
+			int[] counts = new int[Math.min(n, 1000)];
+			for( int i=0; i<numSamples/10; i++ ) {
+				int val = r.nextInt(n);
+				Assert.assertTrue("Out of range: "+val, val >= 0 && val < n);
+				if( n <= 1000 )
+					counts[val]++;
+			}
+			//frequencies within 5 standard deviations
+			if( n <= 1000 ) {
+				double exp = (double)numSamples/10/n;
+				for( int c : counts )
+					Assert.assertTrue("Biased frequency: "+c+" vs "+exp,
+						Math.abs(c-exp) <= 5*Math.sqrt(exp) + 1);
+			}
+		}
+		for( long n : new long[]{3, (1L<<40)+7, Long.MAX_VALUE} )
+			for( int i=0; i<numSamples/10; i++ ) {
+				long val = r.nextLong(n);
+				Assert.assertTrue("Out of range: "+val, val >= 0 && val < n);
+			}
+	}
+
+	@Test
+	public void testZigguratNormalDistribution()
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+		NormalPRNGenerator r = new NormalPRNGenerator(7);
+		double[] vals = new double[numSamples];
+		double sum = 0, sumSq = 0;
+		int tail = 0;
+		for( int i=0; i<numSamples; i++ ) {
+			vals[i] = r.nextDouble();
+			sum += vals[i];
+			sumSq += vals[i] * vals[i];
+			tail += (Math.abs(vals[i]) > 3.442619855899) ? 1 : 0; //beyond base layer
+		}
+
+		//mean and variance (within 5 standard errors)
+		double mean = sum / numSamples;
+		double var = sumSq / numSamples - mean * mean;
+		Assert.assertEquals(0, mean, 5 / Math.sqrt(numSamples));
+		Assert.assertEquals(1, var, 5 * Math.sqrt(2d / numSamples));
+
+		//tail probability (sampled from the tail, within 5 standard deviations)
+		NormalDistribution norm = new NormalDistribution(0, 1);
+		double expTail = 2 * norm.cumulativeProbability(-3.442619855899) * numSamples;
+		Assert.assertEquals(expTail, tail, 5 * Math.sqrt(expTail));
+
+		//kolmogorov-smirnov statistic (critical value for alpha=0.001)
+		Arrays.sort(vals);
+		double maxDiff = 0;
+		for( int i=0; i<numSamples; i++ ) {
+			double cdf = norm.cumulativeProbability(vals[i]);
+			maxDiff = Math.max(maxDiff, Math.max((double)(i+1)/numSamples - cdf, cdf - (double)i/numSamples));
+		}
+		Assert.assertTrue("KS statistic too large: "+maxDiff, maxDiff < 1.95 / Math.sqrt(numSamples));
+
+		//reproducibility for a given seed
+		r.setSeed(7);
+		NormalPRNGenerator r2 = new NormalPRNGenerator(7);
+		for( int i=0; i<1000; i++ )
+			Assert.assertEquals(r.nextDouble(), r2.nextDouble(), 0);
+	}
+}
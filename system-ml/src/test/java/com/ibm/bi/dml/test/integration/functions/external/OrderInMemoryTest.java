@@ -0,0 +1,101 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.external;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Test for file-based external functions with in-memory invocation (pinned
+ * matrix blocks) and file-based invocation (export, block2cell, cell2block),
+ * where both results are compared against each other and against R.
+ *
+ */
+public class OrderInMemoryTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME = "OrderInMemory";
+	private final static String TEST_DIR = "functions/external/";
+
+	private final static int rows = 1200;
+	private final static int cols = 1100;
+	private final static int sc = 1;
+
+	private final static double sparsity = 0.7;
+	private final static double eps = 1e-10;
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME,
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] { "B" }) );
+	}
+
+	@Test
+	public void testOrderInMemoryVsFileBased()
+	{
+		boolean oldFlag = OptimizerUtils.ALLOW_INMEMORY_UDF_INVOCATION;
+
+		try
+		{
+			TestConfiguration config = getTestConfiguration(TEST_NAME);
+
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			programArgs = new String[]{"-args", HOME + INPUT_DIR + "A" ,
+					                        Integer.toString(rows),
+					                        Integer.toString(cols),
+					                        Integer.toString(sc),
+					                        HOME + OUTPUT_DIR + "B" };
+			fullRScriptName = HOME + "Order.R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " +
+			       HOME + INPUT_DIR + " " + sc + " " + HOME + EXPECTED_DIR;
+			loadTestConfiguration(config);
+
+			double[][] A = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+			writeInputMatrix("A", A, true);
+
+			//run file-based and in-memory invocation
+			OptimizerUtils.ALLOW_INMEMORY_UDF_INVOCATION = false;
+			runTest(true, false, null, -1);
+			HashMap<CellIndex, Double> dmlfile1 = readDMLMatrixFromHDFS("B");
+
+			OptimizerUtils.ALLOW_INMEMORY_UDF_INVOCATION = true;
+			runTest(true, false, null, -1);
+			HashMap<CellIndex, Double> dmlfile2 = readDMLMatrixFromHDFS("B");
+
+			runRScript(true);
+
+			//compare matrices
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("B.mtx");
+			TestUtils.compareMatrices(dmlfile1, dmlfile2, eps, "DML-file", "DML-mem");
+			TestUtils.compareMatrices(dmlfile2, rfile, eps, "DML-mem", "R");
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_INMEMORY_UDF_INVOCATION = oldFlag;
+		}
+	}
+}
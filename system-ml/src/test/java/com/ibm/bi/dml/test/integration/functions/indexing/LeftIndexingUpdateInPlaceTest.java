@@ -0,0 +1,108 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package com.ibm.bi.dml.test.integration.functions.indexing;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+public class LeftIndexingUpdateInPlaceTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME1 = "LeftIndexingUpdateInPlaceFor";
+	private final static String TEST_NAME2 = "LeftIndexingUpdateInPlaceWhile";
+	private final static String TEST_DIR = "functions/indexing/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows = 123;
+	private final static int cols = 37;  
+
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.1;
+	
+	
+	@Override
+	public void setUp() 
+	{
+		addTestConfiguration(TEST_NAME1, 
+			new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" }) );
+		addTestConfiguration(TEST_NAME2, 
+			new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testUpdateInPlaceForDense() 
+	{
+		runUpdateInPlaceTest(TEST_NAME1, false);
+	}
+	
+	@Test
+	public void testUpdateInPlaceForSparse() 
+	{
+		runUpdateInPlaceTest(TEST_NAME1, true);
+	}
+	
+	@Test
+	public void testUpdateInPlaceWhileDense() 
+	{
+		runUpdateInPlaceTest(TEST_NAME2, false);
+	}
+	
+	@Test
+	public void testUpdateInPlaceWhileSparse() 
+	{
+		runUpdateInPlaceTest(TEST_NAME2, true);
+	}
+	
+	/**
+	 * 
+	 * @param testname
+	 * @param sparse
+	 */
+	private void runUpdateInPlaceTest( String testname, boolean sparse )
+	{
+		TestConfiguration config = getTestConfiguration(testname);
+		
+		String HOME = SCRIPT_DIR + TEST_DIR;
+		fullDMLScriptName = HOME + testname + ".dml";
+		programArgs = new String[]{"-args", HOME + INPUT_DIR + "V" , 
+				                        Integer.toString(rows),
+				                        Integer.toString(cols),
+				                        HOME + OUTPUT_DIR + "R" };
+		fullRScriptName = HOME + testname + ".R";
+		rCmd = "Rscript" + " " + fullRScriptName + " " + 
+		       HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+		
+		loadTestConfiguration(config);
+
+		double sparsity = sparse ? sparsity2 : sparsity1;
+		double[][] V = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+		writeInputMatrix("V", V, true);
+
+		runTest(true, false, null, -1);
+		runRScript(true);
+		
+		//compare matrices
+		HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+		HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+		TestUtils.compareMatrices(dmlfile, rfile, eps, "DML", "R");
+	}
+}
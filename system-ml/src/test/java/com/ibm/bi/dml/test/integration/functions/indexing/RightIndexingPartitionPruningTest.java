@@ -0,0 +1,357 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.indexing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.spark.api.java.JavaPairRDD;
+import org.junit.Assert;
+import org.junit.Test;
+
+import scala.Tuple2;
+
+import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.conf.ConfigurationManager;
+import com.ibm.bi.dml.lops.Checkpoint;
+import com.ibm.bi.dml.lops.Lop;
+import com.ibm.bi.dml.parser.AParserWrapper;
+import com.ibm.bi.dml.parser.DMLProgram;
+import com.ibm.bi.dml.parser.DMLTranslator;
+import com.ibm.bi.dml.runtime.controlprogram.ForProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.ProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.WhileProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
+import com.ibm.bi.dml.runtime.instructions.Instruction;
+import com.ibm.bi.dml.runtime.instructions.spark.MatrixIndexingSPInstruction;
+import com.ibm.bi.dml.runtime.instructions.spark.data.BlockPartitioner;
+import com.ibm.bi.dml.runtime.instructions.spark.functions.IsBlockInRange;
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixIndexes;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.runtime.util.IndexRange;
+import com.ibm.bi.dml.runtime.util.MapReduceTool;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for right indexing over range-partitioned (by block index) rdds, i.e., the
+ * partitions computed by the block partitioner, the partition pruning and driver-side
+ * slicing of the pruned blocks, as well as mini-batch indexing in loops where only
+ * the checkpoints of indexed variables are range-partitioned.
+ *
+ */
+public class RightIndexingPartitionPruningTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME1 = "RightIndexingPruningTest";
+	private final static String TEST_NAME2 = "RightIndexingPruningNoIxTest";
+	private final static String TEST_DIR = "functions/indexing/";
+	private final static double eps = 1e-10;
+
+	private final static int rows = 3500;
+	private final static int cols = 1700;
+	private final static int blen = 1000;
+	private final static int bs = 500;
+
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.1;
+
+	//index ranges (1-based, inclusive): single block, row batch, col range, all, unaligned
+	private final static long[][] ranges = new long[][]{
+		{1, 10, 1, 10}, {1001, 1500, 1, 1700}, {1, 3500, 1001, 1700},
+		{1, 3500, 1, 1700}, {999, 2001, 17, 1003}, {3401, 3500, 1600, 1700} };
+
+	@Override
+	public void setUp()
+	{
+		addTestConfiguration(TEST_NAME1,
+			new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" }) );
+		addTestConfiguration(TEST_NAME2,
+			new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testBlockPartitionerGetPartitions()
+	{
+		MatrixCharacteristics mc = new MatrixCharacteristics(rows, cols, blen, blen, -1);
+		for( int numParts : new int[]{1, 2, 3, 5, 8, 100} ) {
+			BlockPartitioner partitioner = new BlockPartitioner(mc, numParts);
+			Assert.assertTrue(partitioner.numPartitions() <= Math.max(numParts, 1));
+			for( long[] r : ranges ) {
+				IndexRange ixrange = new IndexRange(r[0], r[1], r[2], r[3]);
+				Assert.assertEquals("Wrong partitions for "+ixrange+" ("+numParts+" partitions).",
+					getPartitionsOfBlocks(partitioner, mc, ixrange), partitioner.getPartitions(ixrange));
+			}
+		}
+	}
+
+	@Test
+	public void testPartitionPruningDense()
+	{
+		runPartitionPruningTest(false);
+	}
+
+	@Test
+	public void testPartitionPruningSparse()
+	{
+		runPartitionPruningTest(true);
+	}
+
+	@Test
+	public void testMiniBatchIndexingDenseSP()
+	{
+		runMiniBatchIndexingTest(TEST_NAME1, false);
+	}
+
+	@Test
+	public void testMiniBatchIndexingSparseSP()
+	{
+		runMiniBatchIndexingTest(TEST_NAME1, true);
+	}
+
+	@Test
+	public void testNoIndexingDenseSP()
+	{
+		runMiniBatchIndexingTest(TEST_NAME2, false);
+	}
+
+	/**
+	 * Creates a range-partitioned rdd and checks the pruned partitions (number of
+	 * partitions read, contained blocks) as well as the driver-side slice of the
+	 * pruned blocks against the slice of the in-memory matrix block.
+	 *
+	 * @param sparse
+	 */
+	private void runPartitionPruningTest( boolean sparse )
+	{
+		boolean oldUseSparkConfig = DMLScript.USE_LOCAL_SPARK_CONFIG;
+
+		try
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+
+			double sparsity = sparse ? sparsity2 : sparsity1;
+			MatrixBlock mb = MatrixBlock.randOperations(rows, cols, sparsity, 0, 1, "uniform", 7);
+			MatrixCharacteristics mc = new MatrixCharacteristics(rows, cols, blen, blen, mb.getNonZeros());
+			BlockPartitioner partitioner = new BlockPartitioner(mc, 5);
+
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in = SparkExecutionContext
+				.toJavaPairRDD(SparkExecutionContext.getSparkContextStatic(), mb, blen, blen)
+				.partitionBy(partitioner);
+
+			for( long[] r : ranges ) {
+				IndexRange ixrange = new IndexRange(r[0], r[1], r[2], r[3]);
+				MatrixCharacteristics mcOut = new MatrixCharacteristics(
+					r[1]-r[0]+1, r[3]-r[2]+1, blen, blen, -1);
+
+				//check number of partitions read and contained blocks
+				JavaPairRDD<MatrixIndexes,MatrixBlock> pruned =
+					MatrixIndexingSPInstruction.createPartitionPruningRDD(in, ixrange);
+				HashSet<Integer> parts = getPartitionsOfBlocks(partitioner, mc, ixrange);
+				Assert.assertEquals(parts.size(), pruned.partitions().size());
+				List<Tuple2<MatrixIndexes,MatrixBlock>> blocks =
+					pruned.filter(new IsBlockInRange(r[0], r[1], r[2], r[3], mcOut)).collect();
+				Assert.assertEquals(getNumBlocks(mc, ixrange), blocks.size());
+
+				//check driver-side slice of pruned blocks
+				MatrixBlock ret = MatrixIndexingSPInstruction.sliceBlocksLocally(blocks, ixrange, mc, mcOut);
+				MatrixBlock expected = mb.sliceOperations((int)r[0]-1, (int)r[1]-1,
+					(int)r[2]-1, (int)r[3]-1, new MatrixBlock());
+				Assert.assertEquals(expected.getNonZeros(), ret.getNonZeros());
+				for( int i=0; i<expected.getNumRows(); i++ )
+					for( int j=0; j<expected.getNumColumns(); j++ )
+						Assert.assertEquals(expected.quickGetValue(i, j), ret.quickGetValue(i, j), eps);
+			}
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = oldUseSparkConfig;
+		}
+	}
+
+	/**
+	 *
+	 * @param testname
+	 * @param sparse
+	 */
+	private void runMiniBatchIndexingTest( String testname, boolean sparse )
+	{
+		RUNTIME_PLATFORM oldRT = rtplatform;
+		boolean oldUseSparkConfig = DMLScript.USE_LOCAL_SPARK_CONFIG;
+
+		try
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			rtplatform = RUNTIME_PLATFORM.SPARK;
+
+			TestConfiguration config = getTestConfiguration(testname);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + testname + ".dml";
+			programArgs = new String[]{"-args", HOME + INPUT_DIR + "X",
+					String.valueOf(bs), HOME + OUTPUT_DIR + "R" };
+			fullRScriptName = HOME + testname + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " +
+			       HOME + INPUT_DIR + " " + bs + " " + HOME + EXPECTED_DIR;
+			loadTestConfiguration(config);
+
+			double sparsity = sparse ? sparsity2 : sparsity1;
+			double[][] X = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+			writeInputMatrixWithMTD("X", X, true);
+
+			runTest(true, false, null, -1);
+			runRScript(true);
+
+			//compare matrices
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+			TestUtils.compareMatrices(dmlfile, rfile, eps, "DML", "R");
+
+			//check that checkpoints are range-partitioned only if indexed
+			HashMap<String,String> args = new HashMap<String,String>();
+			args.put("$1", HOME + INPUT_DIR + "X");
+			args.put("$2", String.valueOf(bs));
+			args.put("$3", HOME + OUTPUT_DIR + "R");
+			ArrayList<Boolean> flags = new ArrayList<Boolean>();
+			collectCheckpointPartitionFlags(compileProgramBlocks(fullDMLScriptName, args), flags);
+			Assert.assertFalse("No checkpoints compiled.", flags.isEmpty());
+			Assert.assertEquals(testname.equals(TEST_NAME1), flags.contains(true));
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			rtplatform = oldRT;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = oldUseSparkConfig;
+		}
+	}
+
+	/**
+	 * Compiles the given script into spark runtime program blocks (w/o execution).
+	 *
+	 * @param fname
+	 * @param args
+	 * @return
+	 * @throws Exception
+	 */
+	private static ArrayList<ProgramBlock> compileProgramBlocks( String fname, HashMap<String,String> args )
+		throws Exception
+	{
+		RUNTIME_PLATFORM oldRT = DMLScript.rtplatform;
+
+		try
+		{
+			DMLScript.rtplatform = RUNTIME_PLATFORM.SPARK;
+
+			String script = MapReduceTool.readStringFromHDFSFile(fname);
+			AParserWrapper parser = AParserWrapper.createParser(false);
+			DMLProgram prog = parser.parse(fname, script, args);
+
+			DMLTranslator dmlt = new DMLTranslator(prog);
+			dmlt.liveVariableAnalysis(prog);
+			dmlt.validateParseTree(prog);
+			dmlt.constructHops(prog);
+			dmlt.rewriteHopsDAG(prog);
+			dmlt.constructLops(prog);
+
+			return prog.getRuntimeProgram(ConfigurationManager.getConfig()).getProgramBlocks();
+		}
+		finally
+		{
+			DMLScript.rtplatform = oldRT;
+		}
+	}
+
+	/**
+	 * Collects the partition flags of all checkpoint instructions.
+	 *
+	 * @param pbs
+	 * @param flags
+	 */
+	private static void collectCheckpointPartitionFlags( ArrayList<ProgramBlock> pbs, ArrayList<Boolean> flags )
+	{
+		for( ProgramBlock pb : pbs ) {
+			if( pb instanceof WhileProgramBlock )
+				collectCheckpointPartitionFlags(((WhileProgramBlock)pb).getChildBlocks(), flags);
+			else if( pb instanceof ForProgramBlock )
+				collectCheckpointPartitionFlags(((ForProgramBlock)pb).getChildBlocks(), flags);
+			else
+				for( Instruction inst : pb.getInstructions() )
+					if( inst.getOpcode().equals(Checkpoint.OPCODE) ) {
+						String[] parts = inst.toString().split(Lop.OPERAND_DELIMITOR);
+						flags.add(Boolean.parseBoolean(parts[parts.length-1]));
+					}
+		}
+	}
+
+	/**
+	 * Brute-force computation of the partitions of all blocks in the given range.
+	 *
+	 * @param partitioner
+	 * @param mc
+	 * @param ixrange
+	 * @return
+	 */
+	private static HashSet<Integer> getPartitionsOfBlocks(BlockPartitioner partitioner, MatrixCharacteristics mc, IndexRange ixrange)
+	{
+		HashSet<Integer> ret = new HashSet<Integer>();
+		for( long bi=1; bi<=mc.getNumRowBlocks(); bi++ )
+			for( long bj=1; bj<=mc.getNumColBlocks(); bj++ )
+				if( isBlockInRange(bi, bj, ixrange) )
+					ret.add(partitioner.getPartition(new MatrixIndexes(bi, bj)));
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param mc
+	 * @param ixrange
+	 * @return
+	 */
+	private static int getNumBlocks(MatrixCharacteristics mc, IndexRange ixrange)
+	{
+		int ret = 0;
+		for( long bi=1; bi<=mc.getNumRowBlocks(); bi++ )
+			for( long bj=1; bj<=mc.getNumColBlocks(); bj++ )
+				ret += isBlockInRange(bi, bj, ixrange) ? 1 : 0;
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param bi
+	 * @param bj
+	 * @param ixrange
+	 * @return
+	 */
+	private static boolean isBlockInRange(long bi, long bj, IndexRange ixrange)
+	{
+		return (bi-1)*blen < ixrange.rowEnd && bi*blen >= ixrange.rowStart
+			&& (bj-1)*blen < ixrange.colEnd && bj*blen >= ixrange.colStart;
+	}
+}
@@ -33,6 +33,7 @@ public class FunctionInliningTest extends AutomatedTestBase
 	private final static String TEST_NAME1 = "function_chain_inlining";
 	private final static String TEST_NAME2 = "function_chain_non_inlining";
 	private final static String TEST_NAME3 = "function_recursive_inlining";
+	private final static String TEST_NAME4 = "function_ipa_inlining";
 	
 	private final static long rows = 3400;
 	private final static long cols = 2700;
@@ -44,6 +45,7 @@ public class FunctionInliningTest extends AutomatedTestBase
 		addTestConfiguration( TEST_NAME1, new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "Rout" })   );
 		addTestConfiguration( TEST_NAME2, new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "Rout" })   );
 		addTestConfiguration( TEST_NAME3, new TestConfiguration(TEST_DIR, TEST_NAME3, new String[] { "Rout" })   );
+		addTestConfiguration( TEST_NAME4, new TestConfiguration(TEST_DIR, TEST_NAME4, new String[] { "Rout" })   );
 		
 	}
 
@@ -83,6 +85,18 @@ public class FunctionInliningTest extends AutomatedTestBase
 		runInliningTest(TEST_NAME3, false);
 	}
 
+	@Test
+	public void testHopLevelInliningIPA() 
+	{
+		runHopLevelInliningTest(TEST_NAME4, true);
+	}
+	
+	@Test
+	public void testHopLevelInliningNoIPA() 
+	{
+		runHopLevelInliningTest(TEST_NAME4, false);
+	}
+	
 	/**
 	 * 
 	 * @param testname
@@ -135,4 +149,50 @@ public class FunctionInliningTest extends AutomatedTestBase
 		}
 	}
 	
+	/**
+	 * Function with a single statement block after branch removal, which
+	 * is not inlined at parse time but by IPA (no function calls left).
+	 * 
+	 * @param testname
+	 * @param IPA
+	 */
+	private void runHopLevelInliningTest( String testname, boolean IPA )
+	{	
+		boolean oldIPA = OptimizerUtils.ALLOW_INTER_PROCEDURAL_ANALYSIS;
+		
+		try
+		{
+			TestConfiguration config = getTestConfiguration(testname);
+			
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + testname + ".dml";
+			programArgs = new String[]{"-stats","-args",String.valueOf(rows),
+					                           String.valueOf(cols),
+					                           String.valueOf(val),
+					                           HOME + OUTPUT_DIR + "Rout" };
+			loadTestConfiguration(config);
+
+			OptimizerUtils.ALLOW_INTER_PROCEDURAL_ANALYSIS = IPA;
+			
+			//run testcase
+			runTest(true, false, null, -1); 
+			
+			//compare output (sum over i of X*i+1)
+			double ret = MapReduceTool.readDoubleFromHDFSFile(HOME + OUTPUT_DIR + "Rout");
+			Assert.assertEquals(Double.valueOf(rows*cols*(val*55+10)), Double.valueOf(ret));
+			
+			//check executed function calls (10 loop iterations w/o inlining)
+			Assert.assertEquals("Unexpected number of function calls.", 
+					IPA ? 0 : 10, Statistics.getCPHeavyHitterCount("foo"));
+		}
+		catch(Exception ex)
+		{
+			Assert.fail("Failed to run test: "+ex.getMessage());
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_INTER_PROCEDURAL_ANALYSIS = oldIPA;
+		}
+	}
+	
 }
\ No newline at end of file
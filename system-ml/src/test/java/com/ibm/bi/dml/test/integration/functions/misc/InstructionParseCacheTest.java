@@ -0,0 +1,171 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.lops.Lop;
+import com.ibm.bi.dml.runtime.instructions.Instruction;
+import com.ibm.bi.dml.runtime.instructions.InstructionParseCache;
+import com.ibm.bi.dml.runtime.instructions.cp.ComputationCPInstruction;
+import com.ibm.bi.dml.runtime.instructions.cp.ReorgCPInstruction;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Test for the reuse of parsed instructions, which checks the binding of 
+ * operand names on cache hits and the end-to-end results of loops whose 
+ * bodies are recompiled per iteration (incl. rsort with scalar operands).
+ *
+ */
+public class InstructionParseCacheTest extends AutomatedTestBase
+{
+	private static final String TEST_NAME1 = "ParseCacheFor";
+	private static final String TEST_NAME2 = "ParseCacheParFor";
+	private static final String TEST_DIR = "functions/misc/";
+
+	private static final int rows = 123;
+	private static final int cols = 15;
+	private static final double eps = Math.pow(10, -10);
+
+	private static final String D = Lop.OPERAND_DELIMITOR;
+	private static final String P = Lop.VALUETYPE_PREFIX;
+	
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration( TEST_NAME1, new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" })   );
+		addTestConfiguration( TEST_NAME2, new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "R" })   );
+	}
+
+	@Test
+	public void testParseCacheOperandBinding()
+	{
+		try
+		{
+			InstructionParseCache.clear();
+			for( int i=0; i<3; i++ ) {
+				String str = "CP"+D+"+"+D+mvar(3*i+1)+D+mvar(3*i+2)+D+mvar(3*i+3);
+				ComputationCPInstruction inst = (ComputationCPInstruction) 
+						InstructionParseCache.parseSingleInstruction(str);
+				Assert.assertEquals(str, inst.toString());
+				Assert.assertEquals("_mVar"+(3*i+1), inst.input1.getName());
+				Assert.assertEquals("_mVar"+(3*i+2), inst.input2.getName());
+				Assert.assertEquals("_mVar"+(3*i+3), inst.output.getName());
+			}
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+	
+	@Test
+	public void testParseCacheRSortNotShared()
+	{
+		try
+		{
+			InstructionParseCache.clear();
+			String str1 = rsort(1);
+			String str2 = rsort(5);
+			Instruction inst1 = InstructionParseCache.parseSingleInstruction(str1);
+			Instruction inst2 = InstructionParseCache.parseSingleInstruction(str2);
+			Assert.assertTrue(inst1 instanceof ReorgCPInstruction);
+			Assert.assertTrue(inst2 instanceof ReorgCPInstruction);
+			Assert.assertTrue(inst1 != inst2);
+			Assert.assertEquals(str1, inst1.toString());
+			Assert.assertEquals(str2, inst2.toString());
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+	
+	@Test
+	public void testParseCacheForLoop()
+	{
+		runParseCacheTest( TEST_NAME1 );
+	}
+
+	@Test
+	public void testParseCacheParForLocal()
+	{
+		runParseCacheTest( TEST_NAME2 );
+	}
+
+	/**
+	 *
+	 * @param testname
+	 */
+	private void runParseCacheTest( String testname )
+	{
+		TestConfiguration config = getTestConfiguration(testname);
+
+		String HOME = SCRIPT_DIR + TEST_DIR;
+		fullDMLScriptName = HOME + testname + ".dml";
+		programArgs = new String[]{ "-args",
+				                  HOME + INPUT_DIR + "A",
+				                  HOME + OUTPUT_DIR + "R" };
+		fullRScriptName = HOME + TEST_NAME1 + ".R";
+		rCmd = "Rscript" + " " + fullRScriptName + " " +
+		          HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+		loadTestConfiguration(config);
+
+		//dense input to avoid ties in order
+		double[][] A = getRandomMatrix(rows, cols, -1, 1, 1.0, 7);
+		writeInputMatrixWithMTD("A", A, true);
+
+		InstructionParseCache.clear();
+		runTest(true, false, null, -1);
+		runRScript(true);
+
+		//compare matrices
+		HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+		HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+		TestUtils.compareMatrices(dmlfile, rfile, eps, "Stat-DML", "Stat-R");
+	}
+	
+	/**
+	 * 
+	 * @param id
+	 * @return
+	 */
+	private static String mvar( int id )
+	{
+		return "_mVar"+id+P+"MATRIX"+P+"DOUBLE";
+	}
+	
+	/**
+	 * 
+	 * @param id
+	 * @return
+	 */
+	private static String rsort( int id )
+	{
+		return "CP"+D+"rsort"+D+mvar(id)+D+"_Var"+(id+1)+P+"SCALAR"+P+"INT"+P+"false"
+			+D+"_Var"+(id+2)+P+"SCALAR"+P+"BOOLEAN"+P+"false"
+			+D+"FALSE"+P+"SCALAR"+P+"BOOLEAN"+P+"true"+D+mvar(id+3);
+	}
+}
@@ -0,0 +1,154 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+import com.ibm.bi.dml.utils.Statistics;
+
+/**
+ * Test for hoisting loop-invariant operations (here, t(X)) out of for/while loops,
+ * including zero-trip loops and nested loops.
+ *
+ */
+public class RewriteLoopInvariantCodeMotionTest extends AutomatedTestBase
+{
+	private static final String TEST_NAME1 = "RewriteLoopInvariantCodeMotion";  //for
+	private static final String TEST_NAME2 = "RewriteLoopInvariantCodeMotion2"; //while
+	private static final String TEST_NAME3 = "RewriteLoopInvariantCodeMotion3"; //zero-trip
+	private static final String TEST_NAME4 = "RewriteLoopInvariantCodeMotion4"; //nested
+	private static final String TEST_DIR = "functions/misc/";
+
+	private static final int rows = 1234;
+	private static final int cols = 56;
+	private static final double eps = Math.pow(10, -10);
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration( TEST_NAME1, new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" })   );
+		addTestConfiguration( TEST_NAME2, new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "R" })   );
+		addTestConfiguration( TEST_NAME3, new TestConfiguration(TEST_DIR, TEST_NAME3, new String[] { "R" })   );
+		addTestConfiguration( TEST_NAME4, new TestConfiguration(TEST_DIR, TEST_NAME4, new String[] { "R" })   );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionNoRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME1, false, 10 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME1, true, 1 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionWhileNoRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME2, false, 10 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionWhileRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME2, true, 1 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionZeroTripNoRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME3, false, 0 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionZeroTripRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME3, true, 0 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionNestedNoRewrite()
+	{
+		testRewriteLoopInvariantCodeMotion( TEST_NAME4, false, 6 );
+	}
+
+	@Test
+	public void testLoopInvariantCodeMotionNestedRewrite()
+	{
+		//hoisted out of the inner loop only (guarded, i.e., not for i=1)
+		testRewriteLoopInvariantCodeMotion( TEST_NAME4, true, 3 );
+	}
+
+	/**
+	 *
+	 * @param testname
+	 * @param rewrites
+	 * @param numTranspose expected number of executed transpose operations
+	 */
+	private void testRewriteLoopInvariantCodeMotion( String testname, boolean rewrites, int numTranspose )
+	{
+		boolean oldFlag = OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION;
+
+		try
+		{
+			TestConfiguration config = getTestConfiguration(testname);
+
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + testname + ".dml";
+			programArgs = new String[]{ "-stats","-args",
+					                  HOME + INPUT_DIR + "X",
+					                  HOME + OUTPUT_DIR + "R",
+					                  String.valueOf(rows+1) }; //out-of-bounds index (zero-trip test)
+			fullRScriptName = HOME + testname + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " +
+			          HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+			loadTestConfiguration(config);
+
+			OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION = rewrites;
+
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, 0.7d, 7);
+			writeInputMatrixWithMTD("X", X, true);
+
+			runTest(true, false, null, -1);
+			runRScript(true);
+
+			//compare matrices
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+			TestUtils.compareMatrices(dmlfile, rfile, eps, "Stat-DML", "Stat-R");
+
+			//check number of executed transpose operations (once vs per iteration)
+			Assert.assertEquals( numTranspose, Statistics.getCPHeavyHitterCount("r'") );
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION = oldFlag;
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.hops.AggBinaryOp;
+import com.ibm.bi.dml.hops.DataOp;
+import com.ibm.bi.dml.hops.Hop;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.lops.MapMultChain;
+import com.ibm.bi.dml.parser.AParserWrapper;
+import com.ibm.bi.dml.parser.DMLProgram;
+import com.ibm.bi.dml.parser.DMLTranslator;
+import com.ibm.bi.dml.parser.StatementBlock;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.runtime.util.MapReduceTool;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+import com.ibm.bi.dml.utils.Statistics;
+
+/**
+ * Tests for matrix multiplication chain shapes that mix ultra-sparse and dense
+ * factors, compiled with the sparsity-aware and the dense cost model of the
+ * matrix multiplication chain optimization. Besides the results, we check 
+ * the chosen plans: t(X)%*%diag(w)%*%X%*%v is compiled to mmchain under both
+ * models, while P%*%E%*%W with one-hot P is ordered as P%*%(E%*%W) under the 
+ * sparsity-aware and as (P%*%E)%*%W under the dense cost model.
+ * 
+ */
+public class RewriteMatrixMultChainOptTest extends AutomatedTestBase 
+{
+	private static final String TEST_NAME1 = "RewriteMMChainDiag";   //t(X) %*% diag(w) %*% X %*% v
+	private static final String TEST_NAME2 = "RewriteMMChainOneHot"; //P %*% E %*% W (one-hot P)
+	private static final String TEST_DIR = "functions/misc/";
+	
+	private static final int rows = 2000;
+	private static final int cols1 = 100;
+	private static final int cols2 = 1000;
+	private static final int cols3 = 50;
+	private static final double eps = Math.pow(10, -8);
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration( TEST_NAME1, new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" })   );
+		addTestConfiguration( TEST_NAME2, new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "R" })   );
+	}
+
+	@Test
+	public void testMMChainDiagDenseCosts()  {
+		testRewriteMatrixMultChainOpt( TEST_NAME1, false );
+	}
+	
+	@Test
+	public void testMMChainDiagSparsityAwareCosts()  {
+		testRewriteMatrixMultChainOpt( TEST_NAME1, true );
+	}
+	
+	@Test
+	public void testMMChainOneHotDenseCosts()  {
+		testRewriteMatrixMultChainOpt( TEST_NAME2, false );
+	}
+	
+	@Test
+	public void testMMChainOneHotSparsityAwareCosts()  {
+		testRewriteMatrixMultChainOpt( TEST_NAME2, true );
+	}
+	
+	/**
+	 * 
+	 * @param testname
+	 * @param sparsityAware
+	 */
+	private void testRewriteMatrixMultChainOpt( String testname, boolean sparsityAware )
+	{	
+		boolean oldFlag = OptimizerUtils.ALLOW_SPARSITY_AWARE_MMCHAIN_OPT;
+		
+		try
+		{
+			TestConfiguration config = getTestConfiguration(testname);
+			
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + testname + ".dml";
+			programArgs = new String[]{ "-stats","-args", 
+					                  HOME + INPUT_DIR + "A",
+					                  HOME + INPUT_DIR + "B",
+					                  HOME + INPUT_DIR + "C",
+					                  HOME + OUTPUT_DIR + "R" };
+			fullRScriptName = HOME + testname + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " +
+			          HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;			
+			loadTestConfiguration(config);
+
+			OptimizerUtils.ALLOW_SPARSITY_AWARE_MMCHAIN_OPT = sparsityAware;
+
+			if( testname.equals(TEST_NAME1) ) {
+				//t(X) %*% diag(w) %*% X %*% v
+				double[][] X = getRandomMatrix(rows, cols1, -1, 1, 1.0, 7);
+				writeInputMatrixWithMTD("A", X, rows*cols1, true);
+				double[][] w = getRandomMatrix(rows, 1, 0, 1, 1.0, 3);
+				writeInputMatrixWithMTD("B", w, rows, true);
+				double[][] v = getRandomMatrix(cols1, 1, -1, 1, 1.0, 5);
+				writeInputMatrixWithMTD("C", v, cols1, true);
+			}
+			else {
+				//P %*% E %*% W with one-hot encoded P (one non-zero per row)
+				double[][] P = new double[rows][cols2];
+				Random rand = new Random(7);
+				for( int i=0; i<rows; i++ )
+					P[i][rand.nextInt(cols2)] = 1;
+				writeInputMatrixWithMTD("A", P, rows, true);
+				double[][] E = getRandomMatrix(cols2, cols3, -1, 1, 1.0, 3);
+				writeInputMatrixWithMTD("B", E, cols2*cols3, true);
+				double[][] W = getRandomMatrix(cols3, cols2, -1, 1, 1.0, 5);
+				writeInputMatrixWithMTD("C", W, cols3*cols2, true);
+			}
+			
+			//run tests
+			runTest(true, false, null, -1); 
+			runRScript(true); 
+			
+			//compare matrices 
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+			TestUtils.compareMatrices(dmlfile, rfile, eps, "Stat-DML", "Stat-R");
+			
+			//check chosen plans
+			if( testname.equals(TEST_NAME1) ) {
+				Assert.assertTrue("Missing opcode mmchain", 
+					Statistics.getCPHeavyHitterOpCodes().contains(MapMultChain.OPCODE_CP));
+			}
+			else {
+				HashMap<String,String> args = new HashMap<String,String>();
+				for( int i=2; i<programArgs.length; i++ ) //skip -stats -args
+					args.put("$"+(i-1), programArgs[i]);
+				AggBinaryOp root = getRootMatrixMult(compileHops(fullDMLScriptName, args));
+				Assert.assertNotNull("Missing matrix multiplication", root);
+				Hop left = root.getInput().get(0);
+				if( sparsityAware )
+					Assert.assertTrue("Wrong plan, expected P%*%(E%*%W)", left instanceof DataOp
+						&& root.getInput().get(1) instanceof AggBinaryOp);
+				else
+					Assert.assertTrue("Wrong plan, expected (P%*%E)%*%W", left instanceof AggBinaryOp);
+			}
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_SPARSITY_AWARE_MMCHAIN_OPT = oldFlag;
+		}
+	}
+	
+	/**
+	 * Compiles the given script into hop DAGs (incl static and dynamic rewrites,
+	 * but w/o execution) and returns the roots of all statement blocks.
+	 * 
+	 * @param fname
+	 * @param args
+	 * @return
+	 * @throws Exception
+	 */
+	private static ArrayList<Hop> compileHops( String fname, HashMap<String,String> args ) 
+		throws Exception
+	{
+		String script = MapReduceTool.readStringFromHDFSFile(fname);
+		AParserWrapper parser = AParserWrapper.createParser(false);
+		DMLProgram prog = parser.parse(fname, script, args);
+		
+		DMLTranslator dmlt = new DMLTranslator(prog);
+		dmlt.liveVariableAnalysis(prog);
+		dmlt.validateParseTree(prog);
+		dmlt.constructHops(prog);
+		dmlt.rewriteHopsDAG(prog);
+		
+		ArrayList<Hop> roots = new ArrayList<Hop>();
+		for( StatementBlock sb : prog.getStatementBlocks() )
+			if( sb.get_hops() != null )
+				roots.addAll(sb.get_hops());
+		return roots;
+	}
+	
+	/**
+	 * Obtains the outer-most matrix multiplication of the given hop DAGs.
+	 * 
+	 * @param hops
+	 * @return
+	 */
+	private static AggBinaryOp getRootMatrixMult( ArrayList<Hop> hops )
+	{
+		for( Hop hop : hops ) {
+			if( hop instanceof AggBinaryOp )
+				return (AggBinaryOp) hop;
+			AggBinaryOp ret = getRootMatrixMult(hop.getInput());
+			if( ret != null )
+				return ret;
+		}
+		return null;
+	}
+}
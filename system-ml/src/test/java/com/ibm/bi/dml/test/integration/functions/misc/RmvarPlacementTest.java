@@ -0,0 +1,330 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.conf.ConfigurationManager;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.lops.Lop;
+import com.ibm.bi.dml.parser.AParserWrapper;
+import com.ibm.bi.dml.parser.DMLProgram;
+import com.ibm.bi.dml.parser.DMLTranslator;
+import com.ibm.bi.dml.parser.StatementBlock;
+import com.ibm.bi.dml.runtime.controlprogram.ForProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.FunctionProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.IfProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.Program;
+import com.ibm.bi.dml.runtime.controlprogram.ProgramBlock;
+import com.ibm.bi.dml.runtime.controlprogram.WhileProgramBlock;
+import com.ibm.bi.dml.runtime.instructions.Instruction;
+import com.ibm.bi.dml.runtime.instructions.Instruction.INSTRUCTION_TYPE;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.runtime.util.MapReduceTool;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for the placement of rmvar instructions directly after the last use
+ * of the removed variables, which checks the compiled runtime program (no
+ * reference after a rmvar, placement after the last reference) as well as
+ * the results of scripts with variable aliases (cpvar) against R. Generic
+ * blocks without hops (e.g., the cleanup block after hoisted loop invariants)
+ * must only remove variables that are not live-out.
+ *
+ */
+public class RmvarPlacementTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME1 = "RmvarPlacement";
+	private final static String TEST_NAME2 = "RmvarAlias";
+	private final static String TEST_NAME3 = "RmvarEmptyBlock";
+	private final static String TEST_DIR = "functions/misc/";
+	private final static double eps = 1e-8;
+
+	private final static int rows = 1200;
+	private final static int cols = 70;
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME1,
+			new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" }) );
+		addTestConfiguration(TEST_NAME2,
+			new TestConfiguration(TEST_DIR, TEST_NAME2, new String[] { "R" }) );
+		addTestConfiguration(TEST_NAME3,
+			new TestConfiguration(TEST_DIR, TEST_NAME3, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testRmvarPlacementEarly()
+	{
+		runRmvarPlacementTest(TEST_NAME1, true);
+	}
+
+	@Test
+	public void testRmvarPlacementEndOfBlock()
+	{
+		runRmvarPlacementTest(TEST_NAME1, false);
+	}
+
+	@Test
+	public void testRmvarAliasEarly()
+	{
+		runRmvarPlacementTest(TEST_NAME2, true);
+	}
+
+	@Test
+	public void testRmvarAliasEndOfBlock()
+	{
+		runRmvarPlacementTest(TEST_NAME2, false);
+	}
+
+	@Test
+	public void testRmvarEmptyBlockEarly()
+	{
+		runRmvarPlacementTest(TEST_NAME3, true);
+	}
+
+	@Test
+	public void testRmvarEmptyBlockEndOfBlock()
+	{
+		runRmvarPlacementTest(TEST_NAME3, false);
+	}
+
+	/**
+	 *
+	 * @param testname
+	 * @param early
+	 */
+	private void runRmvarPlacementTest( String testname, boolean early )
+	{
+		boolean oldFlag = OptimizerUtils.ALLOW_EARLY_VARIABLE_CLEANUP;
+		boolean oldFlag2 = OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION;
+
+		try
+		{
+			OptimizerUtils.ALLOW_EARLY_VARIABLE_CLEANUP = early;
+			OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION = true;
+
+			TestConfiguration config = getTestConfiguration(testname);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + testname + ".dml";
+			programArgs = new String[]{"-args", HOME + INPUT_DIR + "X",
+					                            HOME + OUTPUT_DIR + "R" };
+			fullRScriptName = HOME + testname + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " +
+			       HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+			loadTestConfiguration(config);
+
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, 0.7, 7);
+			writeInputMatrixWithMTD("X", X, true);
+
+			runTest(true, false, null, -1);
+			runRScript(true);
+
+			//compare matrices
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+			TestUtils.compareMatrices(dmlfile, rfile, eps, "DML", "R");
+
+			//check rmvar placement in compiled runtime program
+			HashMap<String,String> args = new HashMap<String,String>();
+			args.put("$1", HOME + INPUT_DIR + "X");
+			args.put("$2", HOME + OUTPUT_DIR + "R");
+			Program rtprog = compileRuntimeProgram(fullDMLScriptName, args);
+			int numEarly = checkRmvarPlacement(rtprog.getProgramBlocks());
+			if( early && testname.equals(TEST_NAME1) )
+				Assert.assertTrue("No rmvar placed before the end of the block.", numEarly > 0);
+
+			//check rmvars of generic blocks without hops (no live-out variables)
+			int numEmpty = checkRmvarEmptyBlocks(rtprog.getProgramBlocks());
+			if( testname.equals(TEST_NAME3) )
+				Assert.assertTrue("No rmvar in generic block without hops.", numEmpty > 0);
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_EARLY_VARIABLE_CLEANUP = oldFlag;
+			OptimizerUtils.ALLOW_LOOP_INVARIANT_CODE_MOTION = oldFlag2;
+		}
+	}
+
+	/**
+	 * Compiles the given script into a runtime program (w/o execution).
+	 *
+	 * @param fname
+	 * @param args
+	 * @return
+	 * @throws Exception
+	 */
+	private static Program compileRuntimeProgram( String fname, HashMap<String,String> args )
+		throws Exception
+	{
+		String script = MapReduceTool.readStringFromHDFSFile(fname);
+		AParserWrapper parser = AParserWrapper.createParser(false);
+		DMLProgram prog = parser.parse(fname, script, args);
+
+		DMLTranslator dmlt = new DMLTranslator(prog);
+		dmlt.liveVariableAnalysis(prog);
+		dmlt.validateParseTree(prog);
+		dmlt.constructHops(prog);
+		dmlt.rewriteHopsDAG(prog);
+		dmlt.constructLops(prog);
+
+		return prog.getRuntimeProgram(ConfigurationManager.getConfig());
+	}
+
+	/**
+	 * Checks that no instruction references a variable after its rmvar, and
+	 * that every rmvar directly follows (except other rmvars) the last reference
+	 * or barrier. Returns the number of rmvars placed before the end of a block.
+	 *
+	 * @param pbs
+	 * @return
+	 */
+	private static int checkRmvarPlacement( ArrayList<ProgramBlock> pbs )
+	{
+		int ret = 0;
+		for( ProgramBlock pb : pbs ) {
+			if( pb instanceof WhileProgramBlock )
+				ret += checkRmvarPlacement(((WhileProgramBlock)pb).getChildBlocks());
+			else if( pb instanceof ForProgramBlock ) //incl parfor
+				ret += checkRmvarPlacement(((ForProgramBlock)pb).getChildBlocks());
+			else if( pb instanceof IfProgramBlock ) {
+				ret += checkRmvarPlacement(((IfProgramBlock)pb).getChildBlocksIfBody());
+				ret += checkRmvarPlacement(((IfProgramBlock)pb).getChildBlocksElseBody());
+			}
+			else if( pb instanceof FunctionProgramBlock )
+				ret += checkRmvarPlacement(((FunctionProgramBlock)pb).getChildBlocks());
+			else
+				ret += checkRmvarPlacement(pb.getInstructions());
+		}
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param inst
+	 * @return
+	 */
+	private static int checkRmvarPlacement( ArrayList<Instruction> inst )
+	{
+		int ret = 0;
+		for( int i=0; i<inst.size(); i++ ) {
+			if( !isRemoveVariable(inst.get(i)) )
+				continue;
+			String var = inst.get(i).toString().split(Lop.OPERAND_DELIMITOR)[2];
+
+			//no reference after rmvar
+			boolean later = false;
+			for( int j=i+1; j<inst.size(); j++ ) {
+				Assert.assertFalse("Reference to "+var+" after rmvar: "+inst.get(j),
+					!isRemoveVariable(inst.get(j)) && isReferenceOrBarrier(inst.get(j), var));
+				later |= !isRemoveVariable(inst.get(j));
+			}
+			ret += later ? 1 : 0;
+
+			//placement directly after last reference (if early placement)
+			if( OptimizerUtils.ALLOW_EARLY_VARIABLE_CLEANUP ) {
+				int pos = i-1;
+				while( pos >= 0 && isRemoveVariable(inst.get(pos)) )
+					pos--;
+				for( int j=0; j<pos; j++ )
+					Assert.assertFalse("Rmvar of "+var+" not placed after last reference: "+inst.get(j),
+						isReferenceOrBarrier(inst.get(j), var) && !isReferenceOrBarrier(inst.get(pos), var));
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Checks that generic blocks without hops only remove variables that are
+	 * not live-out. Returns the number of rmvars in such blocks.
+	 *
+	 * @param pbs
+	 * @return
+	 * @throws Exception
+	 */
+	private static int checkRmvarEmptyBlocks( ArrayList<ProgramBlock> pbs )
+		throws Exception
+	{
+		int ret = 0;
+		for( ProgramBlock pb : pbs ) {
+			if( pb instanceof WhileProgramBlock )
+				ret += checkRmvarEmptyBlocks(((WhileProgramBlock)pb).getChildBlocks());
+			else if( pb instanceof ForProgramBlock ) //incl parfor
+				ret += checkRmvarEmptyBlocks(((ForProgramBlock)pb).getChildBlocks());
+			else if( pb instanceof IfProgramBlock ) {
+				ret += checkRmvarEmptyBlocks(((IfProgramBlock)pb).getChildBlocksIfBody());
+				ret += checkRmvarEmptyBlocks(((IfProgramBlock)pb).getChildBlocksElseBody());
+			}
+			else if( pb instanceof FunctionProgramBlock )
+				ret += checkRmvarEmptyBlocks(((FunctionProgramBlock)pb).getChildBlocks());
+			else if( pb.getStatementBlock() != null && pb.getStatementBlock().get_hops() != null
+				&& pb.getStatementBlock().get_hops().isEmpty() )
+			{
+				StatementBlock sb = pb.getStatementBlock();
+				for( Instruction inst : pb.getInstructions() )
+					if( isRemoveVariable(inst) ) {
+						String var = inst.toString().split(Lop.OPERAND_DELIMITOR)[2];
+						Assert.assertFalse("Rmvar of live-out variable "+var+" in block without hops.",
+							sb.liveOut().containsVariable(var));
+						ret++;
+					}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param inst
+	 * @return
+	 */
+	private static boolean isRemoveVariable( Instruction inst )
+	{
+		return inst.getType() == INSTRUCTION_TYPE.CONTROL_PROGRAM
+			&& inst.getOpcode().equalsIgnoreCase("rmvar");
+	}
+
+	/**
+	 *
+	 * @param inst
+	 * @param var
+	 * @return
+	 */
+	private static boolean isReferenceOrBarrier( Instruction inst, String var )
+	{
+		if( inst.getType() != INSTRUCTION_TYPE.CONTROL_PROGRAM )
+			return true;
+		String[] parts = inst.toString().split("[" + Lop.OPERAND_DELIMITOR + Lop.VALUETYPE_PREFIX
+				+ Lop.NAME_VALUE_SEPARATOR + Lop.VARIABLE_NAME_PLACEHOLDER + ",]");
+		return new HashSet<String>(Arrays.asList(parts)).contains(var);
+	}
+}
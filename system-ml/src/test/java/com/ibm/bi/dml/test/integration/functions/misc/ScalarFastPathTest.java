@@ -0,0 +1,128 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.parser.Expression.DataType;
+import com.ibm.bi.dml.parser.Expression.ValueType;
+import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContext;
+import com.ibm.bi.dml.runtime.controlprogram.context.ExecutionContextFactory;
+import com.ibm.bi.dml.runtime.instructions.cp.BooleanObject;
+import com.ibm.bi.dml.runtime.instructions.cp.CPOperand;
+import com.ibm.bi.dml.runtime.instructions.cp.IntObject;
+import com.ibm.bi.dml.runtime.instructions.cp.ScalarObject;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for the allocation-free fast paths of scalar instructions, i.e., shared
+ * int and boolean result objects and cached literal operands, as well as a
+ * scalar-heavy script (loop index arithmetic and convergence checks).
+ *
+ */
+public class ScalarFastPathTest extends AutomatedTestBase
+{
+	private static final String TEST_NAME = "ScalarFastPath";
+	private static final String TEST_DIR = "functions/misc/";
+
+	private static final int n = 1000;
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration( TEST_NAME, new TestConfiguration(TEST_DIR, TEST_NAME, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testSharedIntObjects()
+	{
+		for( long val : new long[]{-128, -1, 0, 1, 7, 1024} ) {
+			Assert.assertSame(IntObject.valueOf(val), IntObject.valueOf(val));
+			Assert.assertEquals(val, IntObject.valueOf(val).getLongValue());
+			Assert.assertNull(IntObject.valueOf(val).getName());
+		}
+		for( long val : new long[]{-129, 1025, Long.MAX_VALUE, Long.MIN_VALUE} ) {
+			Assert.assertNotSame(IntObject.valueOf(val), IntObject.valueOf(val));
+			Assert.assertEquals(val, IntObject.valueOf(val).getLongValue());
+		}
+	}
+
+	@Test
+	public void testSharedBooleanObjects()
+	{
+		Assert.assertSame(BooleanObject.TRUE, BooleanObject.valueOf(true));
+		Assert.assertSame(BooleanObject.FALSE, BooleanObject.valueOf(false));
+		Assert.assertTrue(BooleanObject.valueOf(true).getBooleanValue());
+		Assert.assertFalse(BooleanObject.valueOf(false).getBooleanValue());
+	}
+
+	@Test
+	public void testCachedLiteralOperands()
+		throws Exception
+	{
+		ExecutionContext ec = ExecutionContextFactory.createContext();
+
+		//literal operand, cached on first access
+		CPOperand lit = new CPOperand("7", ValueType.INT, DataType.SCALAR, true);
+		ScalarObject so = ec.getScalarInput(lit);
+		Assert.assertEquals(7, so.getLongValue());
+		Assert.assertSame(so, ec.getScalarInput(lit));
+
+		//cache reset on name and value type changes
+		lit.set_name("3");
+		Assert.assertEquals(3, ec.getScalarInput(lit).getLongValue());
+		lit.setValueType(ValueType.DOUBLE);
+		Assert.assertEquals(3.0, ec.getScalarInput(lit).getDoubleValue(), 0);
+
+		//variable operand, never cached
+		CPOperand var = new CPOperand("a", ValueType.INT, DataType.SCALAR);
+		ec.setScalarOutput("a", IntObject.valueOf(1));
+		Assert.assertEquals(1, ec.getScalarInput(var).getLongValue());
+		ec.setScalarOutput("a", IntObject.valueOf(2));
+		Assert.assertEquals(2, ec.getScalarInput(var).getLongValue());
+		Assert.assertNull(var.getLiteral());
+	}
+
+	@Test
+	public void testScalarLoops()
+	{
+		TestConfiguration config = getTestConfiguration(TEST_NAME);
+
+		String HOME = SCRIPT_DIR + TEST_DIR;
+		fullDMLScriptName = HOME + TEST_NAME + ".dml";
+		programArgs = new String[]{ "-args", String.valueOf(n), HOME + OUTPUT_DIR + "R" };
+		loadTestConfiguration(config);
+
+		runTest(true, false, null, -1);
+
+		//compute expected result
+		long s = 0;
+		for( int i=0; i<n; i++ )
+			s += (i % 7 - 3) * 2 + (long)(i / 100d);
+		int k = 0;
+		for( double x = 1.0; k < 100 && x >= 1e-6; k++ )
+			x = x / 2;
+
+		double ret = TestUtils.readDMLScalar(HOME + OUTPUT_DIR + "R");
+		Assert.assertEquals(s + k, ret, 0);
+	}
+}
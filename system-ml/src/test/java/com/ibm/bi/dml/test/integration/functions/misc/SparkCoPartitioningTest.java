@@ -0,0 +1,339 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.apache.spark.Dependency;
+import org.apache.spark.ShuffleDependency;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.rdd.RDD;
+import org.junit.Assert;
+import org.junit.Test;
+
+import scala.collection.JavaConversions;
+
+import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.runtime.controlprogram.context.SparkExecutionContext;
+import com.ibm.bi.dml.runtime.functionobjects.Plus;
+import com.ibm.bi.dml.runtime.instructions.spark.data.BlockPartitioner;
+import com.ibm.bi.dml.runtime.instructions.spark.functions.IsBlockInRange;
+import com.ibm.bi.dml.runtime.instructions.spark.functions.MatrixMatrixBinaryOpFunction;
+import com.ibm.bi.dml.runtime.instructions.spark.utils.RDDAggregateUtils;
+import com.ibm.bi.dml.runtime.instructions.spark.utils.SparkUtils;
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixIndexes;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.runtime.matrix.operators.BinaryOperator;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+import com.ibm.bi.dml.utils.Explain;
+
+/**
+ * Tests for co-partitioned spark binary operations and left indexing, which
+ * check the results against CP, the preserved output partitioner and the number
+ * of shuffles, as well as the runtime partitioning report of explain.
+ *
+ */
+public class SparkCoPartitioningTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME1 = "SparkCoPartitioning";
+	private final static String TEST_DIR = "functions/misc/";
+	private final static double eps = 1e-10;
+
+	private final static int rows = 2500;
+	private final static int cols = 1700;
+	private final static int blen = 1000;
+	private final static int numParts = 4;
+
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.1;
+
+	//left indexing range (0-based, inclusive)
+	private final static int rl = 700, ru = 1499, cl = 950, cu = 1049;
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME1,
+			new TestConfiguration(TEST_DIR, TEST_NAME1, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testBinaryCoPartitionedDense()
+	{
+		runBinaryTest(false, true);
+	}
+
+	@Test
+	public void testBinaryCoPartitionedSparse()
+	{
+		runBinaryTest(true, true);
+	}
+
+	@Test
+	public void testBinaryLeftPartitionedDense()
+	{
+		runBinaryTest(false, false);
+	}
+
+	@Test
+	public void testLeftIndexingCoPartitionedDense()
+	{
+		runLeftIndexingTest(false);
+	}
+
+	@Test
+	public void testLeftIndexingCoPartitionedSparse()
+	{
+		runLeftIndexingTest(true);
+	}
+
+	@Test
+	public void testExplainPartitioningReportSP()
+	{
+		runExplainPartitioningTest();
+	}
+
+	/**
+	 * Joins two rdds (both or only the left input partitioned) and checks the
+	 * result against CP, the output partitioner and the number of shuffles.
+	 *
+	 * @param sparse
+	 * @param copart
+	 */
+	private void runBinaryTest( boolean sparse, boolean copart )
+	{
+		boolean oldUseSparkConfig = DMLScript.USE_LOCAL_SPARK_CONFIG;
+
+		try
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			JavaSparkContext sc = SparkExecutionContext.getSparkContextStatic();
+
+			double sparsity = sparse ? sparsity2 : sparsity1;
+			MatrixBlock mb1 = MatrixBlock.randOperations(rows, cols, sparsity, 0, 1, "uniform", 7);
+			MatrixBlock mb2 = MatrixBlock.randOperations(rows, cols, sparsity, 0, 1, "uniform", 3);
+			MatrixCharacteristics mc = new MatrixCharacteristics(rows, cols, blen, blen, -1);
+			BlockPartitioner partitioner = new BlockPartitioner(mc, numParts);
+
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in1 = SparkExecutionContext
+				.toJavaPairRDD(sc, mb1, blen, blen).partitionBy(partitioner);
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in2 = SparkExecutionContext
+				.toJavaPairRDD(sc, mb2, blen, blen);
+			if( copart )
+				in2 = in2.partitionBy(partitioner);
+
+			BinaryOperator bop = new BinaryOperator(Plus.getPlusFnObject());
+			JavaPairRDD<MatrixIndexes,MatrixBlock> out = SparkUtils
+				.joinPartitioningAware(in1, in2)
+				.mapValues(new MatrixMatrixBinaryOpFunction(bop));
+
+			//check preserved partitioner and shuffles (none or only the right input)
+			Assert.assertEquals(copart, SparkUtils.isCoPartitioned(in1, in2));
+			Assert.assertTrue("Partitioner not preserved.", out.partitioner().isPresent()
+				&& out.partitioner().get().equals(partitioner));
+			Assert.assertEquals(copart ? 0 : 1, countShuffles(out.rdd(), getRDDIDs(in1, in2)));
+
+			//check result against CP
+			MatrixBlock expected = (MatrixBlock) mb1.binaryOperations(bop, mb2, new MatrixBlock());
+			MatrixBlock ret = SparkExecutionContext.toMatrixBlock(out, rows, cols, blen, blen, -1);
+			compareMatrixBlocks(expected, ret);
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = oldUseSparkConfig;
+		}
+	}
+
+	/**
+	 * Merges a partitioned, zeroed-out left-hand side with the sliced right-hand side
+	 * (as in left indexing w/o broadcast) and checks the result against CP, the output
+	 * partitioner and that the co-partitioned merge requires no shuffle.
+	 *
+	 * @param sparse
+	 */
+	private void runLeftIndexingTest( boolean sparse )
+	{
+		boolean oldUseSparkConfig = DMLScript.USE_LOCAL_SPARK_CONFIG;
+
+		try
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			JavaSparkContext sc = SparkExecutionContext.getSparkContextStatic();
+
+			double sparsity = sparse ? sparsity2 : sparsity1;
+			MatrixBlock mb1 = MatrixBlock.randOperations(rows, cols, sparsity, 0, 1, "uniform", 7);
+			MatrixBlock rhs = MatrixBlock.randOperations(ru-rl+1, cu-cl+1, sparsity, 2, 3, "uniform", 3);
+			MatrixCharacteristics mc = new MatrixCharacteristics(rows, cols, blen, blen, -1);
+			BlockPartitioner partitioner = new BlockPartitioner(mc, numParts);
+
+			//zeroed-out lhs and rhs sliced to lhs blocks
+			MatrixBlock lhs0 = mb1.leftIndexingOperations(new MatrixBlock(ru-rl+1, cu-cl+1, true),
+				rl, ru, cl, cu, new MatrixBlock(), false);
+			MatrixBlock rhs0 = new MatrixBlock(rows, cols, true).leftIndexingOperations(
+				rhs, rl, ru, cl, cu, new MatrixBlock(), false);
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in1 = SparkExecutionContext
+				.toJavaPairRDD(sc, lhs0, blen, blen).partitionBy(partitioner);
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in2 = SparkExecutionContext
+				.toJavaPairRDD(sc, rhs0, blen, blen)
+				.filter(new IsBlockInRange(rl+1, ru+1, cl+1, cu+1, mc));
+
+			in2 = RDDAggregateUtils.mergeByKey(in2, in1.partitioner().get());
+			JavaPairRDD<MatrixIndexes,MatrixBlock> out = RDDAggregateUtils.mergeByKey(in1, in2);
+
+			//check preserved partitioner and shuffle-free merge of co-partitioned inputs
+			Assert.assertTrue(SparkUtils.isCoPartitioned(in1, in2));
+			Assert.assertTrue("Partitioner not preserved.", out.partitioner().isPresent()
+				&& out.partitioner().get().equals(partitioner));
+			Assert.assertEquals(0, countShuffles(out.rdd(), getRDDIDs(in1, in2)));
+
+			//check result against CP
+			MatrixBlock expected = mb1.leftIndexingOperations(rhs, rl, ru, cl, cu, new MatrixBlock(), false);
+			MatrixBlock ret = SparkExecutionContext.toMatrixBlock(out, rows, cols, blen, blen, -1);
+			compareMatrixBlocks(expected, ret);
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		finally
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = oldUseSparkConfig;
+		}
+	}
+
+	/**
+	 * Runs a script with binary operations and left indexing in spark and checks
+	 * the results against R as well as the runtime partitioning report of explain.
+	 */
+	private void runExplainPartitioningTest()
+	{
+		RUNTIME_PLATFORM oldRT = rtplatform;
+		boolean oldUseSparkConfig = DMLScript.USE_LOCAL_SPARK_CONFIG;
+
+		try
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			rtplatform = RUNTIME_PLATFORM.SPARK;
+
+			TestConfiguration config = getTestConfiguration(TEST_NAME1);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME1 + ".dml";
+			programArgs = new String[]{"-explain", "-args", HOME + INPUT_DIR + "X",
+					HOME + INPUT_DIR + "Y", HOME + OUTPUT_DIR + "R" };
+			fullRScriptName = HOME + TEST_NAME1 + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " +
+			       HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+			loadTestConfiguration(config);
+
+			double[][] X = getRandomMatrix(rows, cols, 0, 1, sparsity1, 7);
+			double[][] Y = getRandomMatrix(rows, cols, 0, 1, sparsity1, 3);
+			writeInputMatrixWithMTD("X", X, true);
+			writeInputMatrixWithMTD("Y", Y, true);
+
+			runTest(true, false, null, -1);
+			runRScript(true);
+
+			//compare matrices
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+			TestUtils.compareMatrices(dmlfile, rfile, eps, "DML", "R");
+
+			//check runtime partitioning report (one line per instruction and output)
+			String report = Explain.explainPartitioningReport();
+			Assert.assertTrue(report.startsWith("EXPLAIN (PARTITIONING"));
+			boolean binary = false, leftix = false;
+			for( String line : report.split("\n") ) {
+				if( !line.startsWith("-- ") )
+					continue;
+				String[] parts = line.substring(3).split(" \t");
+				Assert.assertEquals("Invalid report line: "+line, 4, parts.length);
+				Assert.assertTrue(Long.parseLong(parts[2]) >= 0 && Long.parseLong(parts[3]) >= 1);
+				binary |= parts[0].startsWith("+ ") || parts[0].startsWith("* ");
+				leftix |= parts[0].toLowerCase().contains("leftindex");
+			}
+			Assert.assertTrue("No binary operation in partitioning report.", binary);
+			Assert.assertTrue("No left indexing in partitioning report.", leftix);
+		}
+		finally
+		{
+			rtplatform = oldRT;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = oldUseSparkConfig;
+		}
+	}
+
+	/**
+	 *
+	 * @param in1
+	 * @param in2
+	 * @return
+	 */
+	private static HashSet<Integer> getRDDIDs( JavaPairRDD<?,?> in1, JavaPairRDD<?,?> in2 )
+	{
+		HashSet<Integer> ret = new HashSet<Integer>();
+		ret.add(in1.rdd().id());
+		ret.add(in2.rdd().id());
+		return ret;
+	}
+
+	/**
+	 * Counts the shuffle dependencies in the lineage of the given rdd up to the inputs.
+	 *
+	 * @param rdd
+	 * @param inputs
+	 * @return
+	 */
+	private static int countShuffles( RDD<?> rdd, HashSet<Integer> inputs )
+	{
+		if( inputs.contains(rdd.id()) )
+			return 0;
+
+		int ret = 0;
+		for( Dependency<?> dep : JavaConversions.seqAsJavaList(rdd.dependencies()) ) {
+			if( dep instanceof ShuffleDependency )
+				ret++;
+			ret += countShuffles(dep.rdd(), inputs);
+		}
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param expected
+	 * @param ret
+	 */
+	private static void compareMatrixBlocks( MatrixBlock expected, MatrixBlock ret )
+	{
+		Assert.assertEquals(expected.getNumRows(), ret.getNumRows());
+		Assert.assertEquals(expected.getNumColumns(), ret.getNumColumns());
+		for( int i=0; i<expected.getNumRows(); i++ )
+			for( int j=0; j<expected.getNumColumns(); j++ )
+				Assert.assertEquals(expected.quickGetValue(i, j), ret.quickGetValue(i, j), eps);
+	}
+}
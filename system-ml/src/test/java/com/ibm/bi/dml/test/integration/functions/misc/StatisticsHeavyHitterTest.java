@@ -0,0 +1,89 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.misc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+import com.ibm.bi.dml.utils.Statistics;
+
+/**
+ * Tests that the per-thread heavy hitter tables of terminated threads (e.g., of 
+ * local parfor workers) are dropped, while their statistics are preserved.
+ * 
+ */
+public class StatisticsHeavyHitterTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "StatisticsHeavyHitter";
+	private final static String TEST_DIR = "functions/misc/";
+	
+	private final static int numThreads = 16;
+	private final static int numCalls = 1000;
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] {}) );
+	}
+	
+	@Test
+	public void testHeavyHitterTablesOfTerminatedThreads() 
+		throws InterruptedException
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		Statistics.resetCPHeavyHitters();
+		
+		try
+		{
+			//run and terminate multiple rounds of worker threads
+			for( int k=0; k<3; k++ ) {
+				Thread[] threads = new Thread[numThreads];
+				for( int i=0; i<numThreads; i++ ) {
+					threads[i] = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							for( int j=0; j<numCalls; j++ )
+								Statistics.maintainCPHeavyHitters("hhtest", 1);
+						}
+					});
+					threads[i].start();
+				}
+				for( Thread t : threads )
+					t.join();
+			}
+			
+			//check dropped tables and preserved counts
+			Assert.assertEquals(0, Statistics.getNumCPHeavyHitterTables());
+			Assert.assertEquals(3L*numThreads*numCalls, Statistics.getCPHeavyHitterCount("hhtest"));
+			
+			//check updates of live thread after merge
+			Statistics.maintainCPHeavyHitters("hhtest", 1);
+			Assert.assertEquals(1, Statistics.getNumCPHeavyHitterTables());
+			Assert.assertEquals(3L*numThreads*numCalls+1, Statistics.getCPHeavyHitterCount("hhtest"));
+		}
+		finally
+		{
+			Statistics.resetCPHeavyHitters();
+		}
+	}
+}
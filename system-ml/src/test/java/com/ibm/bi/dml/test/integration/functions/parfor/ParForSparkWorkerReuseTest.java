@@ -0,0 +1,111 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.parfor;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Test for the reuse of configured remote spark parfor workers across tasks, 
+ * where the same parfor body is executed twice with many small tasks, i.e., 
+ * results of all tasks need to be exported and merged independently of the
+ * reused worker.
+ * 
+ */
+public class ParForSparkWorkerReuseTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "parfor_spark_reuse";
+	private final static String TEST_DIR = "functions/parfor/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows = 1100;  
+	private final static int cols = 70;  
+	
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.1d;
+	
+	@Override
+	public void setUp() 
+	{
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testParForWorkerReuseDenseSP() 
+	{
+		runParForWorkerReuseTest(false);
+	}
+	
+	@Test
+	public void testParForWorkerReuseSparseSP() 
+	{
+		runParForWorkerReuseTest(true);
+	}
+	
+	/**
+	 * 
+	 * @param sparse
+	 */
+	private void runParForWorkerReuseTest( boolean sparse )
+	{
+		RUNTIME_PLATFORM oldRT = rtplatform;
+		boolean oldUseSparkConfig = DMLScript.USE_LOCAL_SPARK_CONFIG;
+		
+		try
+		{
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			rtplatform = RUNTIME_PLATFORM.HYBRID_SPARK;
+			
+			TestConfiguration config = getTestConfiguration(TEST_NAME);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			programArgs = new String[]{"-args", HOME + INPUT_DIR + "V" , 
+					                        HOME + OUTPUT_DIR + "R" };
+			fullRScriptName = HOME + TEST_NAME + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " + 
+			       HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+			loadTestConfiguration(config);
+	
+			double sparsity = sparse ? sparsity2 : sparsity1;
+			double[][] V = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+			writeInputMatrixWithMTD("V", V, true);
+	
+			runTest(true, false, null, -1);
+			runRScript(true);
+			
+			//compare matrices (lost results of reused workers would show as zero columns)
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("R");
+			TestUtils.compareMatrices(dmlfile, rfile, eps, "DML", "R");
+		}
+		finally
+		{
+			rtplatform = oldRT;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = oldUseSparkConfig;	
+		}
+	}
+}
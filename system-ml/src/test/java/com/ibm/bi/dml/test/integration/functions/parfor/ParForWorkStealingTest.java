@@ -0,0 +1,111 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.ibm.bi.dml.test.integration.functions.parfor;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+public class ParForWorkStealingTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "parfor_workstealing";
+	private final static String TEST_DIR = "functions/parfor/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows1 = 7;   //less iterations than threads*chunks
+	private final static int rows2 = 251; 
+	private final static int cols = 30;  
+
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.1;
+	
+	
+	@Override
+	public void setUp() 
+	{
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] { "Rout" }) );
+	}
+
+	@Test
+	public void testParForWorkStealingSmallDense() 
+	{
+		runParForWorkStealingTest(true, false);
+	}
+	
+	@Test
+	public void testParForWorkStealingSmallSparse() 
+	{
+		runParForWorkStealingTest(true, true);
+	}
+	
+	@Test
+	public void testParForWorkStealingLargeDense() 
+	{
+		runParForWorkStealingTest(false, false);
+	}
+	
+	@Test
+	public void testParForWorkStealingLargeSparse() 
+	{
+		runParForWorkStealingTest(false, true);
+	}
+	
+	/**
+	 * 
+	 * @param small
+	 * @param sparse
+	 */
+	private void runParForWorkStealingTest( boolean small, boolean sparse )
+	{
+		int rows = small ? rows1 : rows2;
+		
+		TestConfiguration config = getTestConfiguration(TEST_NAME);
+		config.addVariable("rows", rows);
+		config.addVariable("cols", cols);
+		
+		String HOME = SCRIPT_DIR + TEST_DIR;
+		fullDMLScriptName = HOME + TEST_NAME + ".dml";
+		programArgs = new String[]{"-args", HOME + INPUT_DIR + "V" , 
+				                        Integer.toString(rows),
+				                        Integer.toString(cols),
+				                        HOME + OUTPUT_DIR + "R" };
+		fullRScriptName = HOME + TEST_NAME + ".R";
+		rCmd = "Rscript" + " " + fullRScriptName + " " + 
+		       HOME + INPUT_DIR + " " + HOME + EXPECTED_DIR;
+		
+		loadTestConfiguration(config);
+
+		double sparsity = sparse ? sparsity2 : sparsity1;
+		double[][] V = getRandomMatrix(rows, cols, 0, 1, sparsity, System.nanoTime());
+		writeInputMatrix("V", V, true);
+
+		runTest(true, false, null, -1);
+		runRScript(true);
+		
+		//compare matrices
+		HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+		HashMap<CellIndex, Double> rfile  = readRMatrixFromFS("Rout");
+		TestUtils.compareMatrices(dmlfile, rfile, eps, "DML", "R");
+	}
+}
@@ -0,0 +1,253 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.recompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.hops.AggBinaryOp;
+import com.ibm.bi.dml.hops.BinaryOp;
+import com.ibm.bi.dml.hops.DataOp;
+import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.OpOp2;
+import com.ibm.bi.dml.hops.MemoTable;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.hops.rewrite.HopRewriteUtils;
+import com.ibm.bi.dml.parser.Expression.DataType;
+import com.ibm.bi.dml.parser.Expression.ValueType;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for density map estimates of matrix multiplications, cell-wise operations,
+ * and transpose, as well as their use in memory estimates of AggBinaryOp and BinaryOp.
+ * All inputs have skewed non-zero structure (dense sub-regions), for which density
+ * maps give exact results while estimates over entire matrices do not.
+ * 
+ */
+public class DensityMapEstimateTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "DensityMapEstimate";
+	private final static String TEST_DIR = "functions/recompile/";
+	
+	private final static int n = 2000; //2 x 2 cells
+	private final static int r = 1000; //dense region
+	private final static double eps = 1e-6;
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] {}) );
+	}
+	
+	@Test
+	public void testTransposeEstimate() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		MatrixBlock X = createRegionMatrix(n, 2*n, 0, 3*r/2, r/2, 2*r);
+		DensityMap dmap = DensityMap.create(X).transpose();
+		DensityMap dmap2 = DensityMap.create(transpose(X));
+		
+		Assert.assertEquals(dmap2.getNumRows(), dmap.getNumRows());
+		Assert.assertEquals(dmap2.getNumColumns(), dmap.getNumColumns());
+		Assert.assertEquals(X.getNonZeros(), dmap.getNonZeros(), eps);
+		//equal cells iff the sum of cell-wise minimums equals the total
+		Assert.assertEquals(X.getNonZeros(), 
+			DensityMap.estimateCellwise(dmap, dmap2, false).getNonZeros(), eps);
+	}
+	
+	@Test
+	public void testMatMultEstimateAligned() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		//dense top-left regions -> dense top-left output region
+		MatrixBlock X = createRegionMatrix(n, n, 0, r, 0, r);
+		DensityMap ret = DensityMap.estimateMatMult(DensityMap.create(X), DensityMap.create(X));
+		Assert.assertEquals((double)r*r, ret.getNonZeros(), eps);
+		
+		//uniform estimates would give a dense output
+		DensityMap ret2 = DensityMap.estimateMatMult(
+			DensityMap.createUniform(n, n, X.getNonZeros()), DensityMap.createUniform(n, n, X.getNonZeros()));
+		Assert.assertTrue(ret2.getNonZeros() > 0.9*n*n);
+	}
+	
+	@Test
+	public void testMatMultEstimateDisjoint() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		//non-zeros of X in columns [0,r), of Y in rows [r,n) -> empty output 
+		MatrixBlock X = createRegionMatrix(n, n, 0, n, 0, r);
+		MatrixBlock Y = createRegionMatrix(n, n, r, n, 0, n);
+		DensityMap ret = DensityMap.estimateMatMult(DensityMap.create(X), DensityMap.create(Y));
+		Assert.assertEquals(0, ret.getNonZeros(), eps);
+	}
+	
+	@Test
+	public void testCellwiseEstimate() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		MatrixBlock X = createRegionMatrix(n, n, 0, r, 0, r);
+		MatrixBlock Y = createRegionMatrix(n, n, r, n, r, n);
+		DensityMap mX = DensityMap.create(X);
+		DensityMap mY = DensityMap.create(Y);
+		
+		//intersection (multiply) and union (plus/minus)
+		Assert.assertEquals(0, DensityMap.estimateCellwise(mX, mY, false).getNonZeros(), eps);
+		Assert.assertEquals(2.0*r*r, DensityMap.estimateCellwise(mX, mY, true).getNonZeros(), eps);
+		Assert.assertEquals((double)r*r, DensityMap.estimateCellwise(mX, mX, true).getNonZeros(), eps);
+	}
+	
+	@Test
+	public void testNotApplicable() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		//single cell (computed maps only) and too many cells (incl int overflow of number of cells)
+		Assert.assertFalse(DensityMap.isApplicable(r, r));
+		Assert.assertNull(DensityMap.createUniform(1000000, 1000000, -1));
+		Assert.assertNull(DensityMap.createUniform(100000000000L, 100000000000L, -1));
+		Assert.assertFalse(DensityMap.isApplicableMatMult(1000000, 1000000, n));
+		Assert.assertTrue(DensityMap.isApplicableMatMult(n, n, n));
+	}
+	
+	@Test
+	public void testAggBinaryOpEstimate() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		boolean oldFlag = OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES;
+		try
+		{
+			MatrixBlock X = createRegionMatrix(n, n, 0, n, 0, r);
+			MatrixBlock Y = createRegionMatrix(n, n, r, n, 0, n);
+			double dense = OptimizerUtils.estimateSizeExactSparsity(n, n, 1.0);
+			
+			//with density maps: sparse output, dense intermediate 
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = true;
+			AggBinaryOp mm = HopRewriteUtils.createMatrixMultiply(createRead("X", X, true), createRead("Y", Y, true));
+			mm.computeMemEstimate(new MemoTable());
+			Assert.assertNotNull(mm.getDensityMap());
+			Assert.assertEquals(0, mm.getDensityMap().getNonZeros(), eps);
+			Assert.assertTrue(mm.getOutputMemEstimate() < dense);
+			Assert.assertTrue(mm.getIntermediateMemEstimate() >= dense);
+			
+			//without density maps: dense output estimate
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = false;
+			AggBinaryOp mm2 = HopRewriteUtils.createMatrixMultiply(createRead("X", X, false), createRead("Y", Y, false));
+			mm2.computeMemEstimate(new MemoTable());
+			Assert.assertNull(mm2.getDensityMap());
+			Assert.assertEquals(dense, mm2.getOutputMemEstimate(), eps);
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = oldFlag;
+		}
+	}
+	
+	@Test
+	public void testBinaryOpEstimate() 
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+		
+		boolean oldFlag = OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES;
+		try
+		{
+			MatrixBlock X = createRegionMatrix(n, n, 0, r, 0, r);
+			MatrixBlock Y = createRegionMatrix(n, n, r, n, r, n);
+			
+			//with density maps: empty intersection
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = true;
+			BinaryOp mult = HopRewriteUtils.createBinary(createRead("X", X, true), createRead("Y", Y, true), OpOp2.MULT);
+			mult.computeMemEstimate(new MemoTable());
+			Assert.assertNotNull(mult.getDensityMap());
+			Assert.assertEquals(0, mult.getDensityMap().getNonZeros(), eps);
+			
+			//without density maps: sparsity of min(sp1, sp2)
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = false;
+			BinaryOp mult2 = HopRewriteUtils.createBinary(createRead("X", X, false), createRead("Y", Y, false), OpOp2.MULT);
+			mult2.computeMemEstimate(new MemoTable());
+			Assert.assertNull(mult2.getDensityMap());
+			Assert.assertTrue(mult.getOutputMemEstimate() < mult2.getOutputMemEstimate());
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = oldFlag;
+		}
+	}
+	
+	/**
+	 * Creates a sparse matrix block with a dense region of non-zeros.
+	 * 
+	 * @param rows
+	 * @param cols
+	 * @param rl
+	 * @param ru
+	 * @param cl
+	 * @param cu
+	 * @return
+	 */
+	private static MatrixBlock createRegionMatrix( int rows, int cols, int rl, int ru, int cl, int cu )
+	{
+		MatrixBlock ret = new MatrixBlock(rows, cols, true);
+		for( int i=rl; i<ru; i++ )
+			for( int j=cl; j<cu; j++ )
+				ret.appendValue(i, j, 1);
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @return
+	 */
+	private static MatrixBlock transpose( MatrixBlock in )
+	{
+		MatrixBlock ret = new MatrixBlock(in.getNumColumns(), in.getNumRows(), true);
+		for( int i=0; i<in.getNumRows(); i++ )
+			for( int j=0; j<in.getNumColumns(); j++ )
+				if( in.quickGetValue(i, j) != 0 )
+					ret.quickSetValue(j, i, in.quickGetValue(i, j));
+		return ret;
+	}
+	
+	/**
+	 * Creates a transient read with the statistics and (optionally) density map of the given block.
+	 * 
+	 * @param name
+	 * @param mb
+	 * @param dmap
+	 * @return
+	 */
+	private static DataOp createRead( String name, MatrixBlock mb, boolean dmap )
+	{
+		DataOp ret = new DataOp(name, DataType.MATRIX, ValueType.DOUBLE, DataOpTypes.TRANSIENTREAD, 
+			name, mb.getNumRows(), mb.getNumColumns(), mb.getNonZeros(), 1000, 1000);
+		if( dmap )
+			ret.setDensityMap(DensityMap.create(mb));
+		return ret;
+	}
+}
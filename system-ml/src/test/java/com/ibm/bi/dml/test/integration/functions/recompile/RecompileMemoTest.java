@@ -0,0 +1,235 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.recompile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.api.DMLScript;
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.hops.DataOp;
+import com.ibm.bi.dml.hops.Hop;
+import com.ibm.bi.dml.hops.Hop.DataOpTypes;
+import com.ibm.bi.dml.hops.Hop.ReOrgOp;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.hops.ReorgOp;
+import com.ibm.bi.dml.hops.recompile.RecompileMemo;
+import com.ibm.bi.dml.parser.Expression.DataType;
+import com.ibm.bi.dml.parser.Expression.ValueType;
+import com.ibm.bi.dml.runtime.controlprogram.LocalVariableMap;
+import com.ibm.bi.dml.runtime.controlprogram.caching.MatrixObject;
+import com.ibm.bi.dml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
+import com.ibm.bi.dml.runtime.instructions.Instruction;
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.runtime.matrix.MatrixFormatMetaData;
+import com.ibm.bi.dml.runtime.matrix.data.DensityMap;
+import com.ibm.bi.dml.runtime.matrix.data.InputInfo;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixValue.CellIndex;
+import com.ibm.bi.dml.runtime.matrix.data.OutputInfo;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+import com.ibm.bi.dml.utils.Statistics;
+
+/**
+ * Tests for the memo of recompiled instructions, i.e., LRU eviction and
+ * invalidation of memo entries, the memo signature (exact nnz, density maps,
+ * remote memory budgets), as well as a parfor script with more workers
+ * than memo entries (and a recompiled inner loop body), which is executed with
+ * and without memo and with shared or copied statement blocks per worker.
+ *
+ */
+public class RecompileMemoTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME = "recompile_memo";
+	private final static String TEST_DIR = "functions/recompile/";
+
+	private final static int rows = 1000;
+	private final static int cols = 10;
+	private final static int workers = 12; //more than max memo entries
+	private final static int dmRows = 2000; //2x2 density map cells
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME,
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testMemoEvictionAndInvalidation()
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+		RecompileMemo memo = new RecompileMemo();
+		ArrayList<Hop> hops = new ArrayList<Hop>();
+		ArrayList<Instruction> inst = new ArrayList<Instruction>();
+
+		//no entry for unknown or null keys
+		Assert.assertNull(memo.get(hops, "k0"));
+		memo.put(hops, null, inst);
+		Assert.assertNull(memo.get(hops, null));
+
+		//LRU eviction after 8 entries (k0 recently used)
+		for( int i=0; i<8; i++ )
+			memo.put(hops, "k"+i, inst);
+		Assert.assertSame(inst, memo.get(hops, "k0"));
+		memo.put(hops, "k8", inst);
+		Assert.assertSame(inst, memo.get(hops, "k0"));
+		Assert.assertNull(memo.get(hops, "k1"));
+		Assert.assertSame(inst, memo.get(hops, "k8"));
+
+		//invalidation by other hop dags and global epoch
+		Assert.assertNull(memo.get(new ArrayList<Hop>(), "k8"));
+		Assert.assertNull(memo.get(hops, "k8"));
+		memo.put(hops, "k8", inst);
+		Assert.assertSame(inst, memo.get(hops, "k8"));
+		RecompileMemo.invalidateAll();
+		Assert.assertNull(memo.get(hops, "k8"));
+	}
+
+	@Test
+	public void testMemoSignature()
+	{
+		loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+		RUNTIME_PLATFORM oldPlatform = DMLScript.rtplatform;
+		long oldMemMap = InfrastructureAnalyzer.getRemoteMaxMemoryMap();
+		boolean oldFlagDM = OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES;
+
+		try
+		{
+			//t(X) as consumer of the density map of X
+			DataOp X = new DataOp("X", DataType.MATRIX, ValueType.DOUBLE,
+				DataOpTypes.TRANSIENTREAD, "X", dmRows, dmRows, -1, 1000, 1000);
+			ArrayList<Hop> hops = new ArrayList<Hop>();
+			hops.add(new ReorgOp("t", DataType.MATRIX, ValueType.DOUBLE, ReOrgOp.TRANSPOSE, X));
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = true;
+
+			//equal signatures for equal sizes and non-zero structure
+			String sig = RecompileMemo.createSignature(hops, createVars(0, 10));
+			Assert.assertNotNull(sig);
+			Assert.assertEquals(sig, RecompileMemo.createSignature(hops, createVars(0, 10)));
+
+			//different signatures for different nnz and density maps (equal nnz)
+			Assert.assertFalse(sig.equals(RecompileMemo.createSignature(hops, createVars(0, 11))));
+			Assert.assertFalse(sig.equals(RecompileMemo.createSignature(hops, createVars(1000, 10))));
+
+			//different signatures for different remote memory budgets
+			DMLScript.rtplatform = RUNTIME_PLATFORM.HYBRID;
+			String sig2 = RecompileMemo.createSignature(hops, createVars(0, 10));
+			InfrastructureAnalyzer.setRemoteMaxMemoryMap(2 * oldMemMap);
+			Assert.assertFalse(sig2.equals(RecompileMemo.createSignature(hops, createVars(0, 10))));
+		}
+		finally
+		{
+			DMLScript.rtplatform = oldPlatform;
+			InfrastructureAnalyzer.setRemoteMaxMemoryMap(oldMemMap);
+			OptimizerUtils.ALLOW_DENSITY_MAP_ESTIMATES = oldFlagDM;
+		}
+	}
+
+	@Test
+	public void testParForRecompileMemoCopiedBlocks()
+	{
+		runRecompileMemoTest(true);
+	}
+
+	@Test
+	public void testParForRecompileMemoSharedBlocks()
+	{
+		runRecompileMemoTest(false);
+	}
+
+	/**
+	 *
+	 * @param copyBlocks
+	 */
+	private void runRecompileMemoTest( boolean copyBlocks )
+	{
+		boolean oldFlagMemo = OptimizerUtils.ALLOW_RECOMPILE_MEMO;
+		boolean oldFlagCopy = OptimizerUtils.ALLOW_PARALLEL_DYN_RECOMPILATION;
+
+		try
+		{
+			TestConfiguration config = getTestConfiguration(TEST_NAME);
+
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			loadTestConfiguration(config);
+
+			double[][] X = getRandomMatrix(rows, cols, 0, 1, 1.0, 7);
+			writeInputMatrixWithMTD("X", X, true);
+
+			OptimizerUtils.ALLOW_PARALLEL_DYN_RECOMPILATION = copyBlocks;
+
+			//run w/o recompile memo
+			OptimizerUtils.ALLOW_RECOMPILE_MEMO = false;
+			programArgs = new String[]{"-stats", "-args", HOME + INPUT_DIR + "X",
+					String.valueOf(workers), HOME + OUTPUT_DIR + "R0" };
+			runTest(true, false, null, -1);
+			Assert.assertEquals(0, Statistics.getHopRecompileMemoHits());
+
+			//run w/ recompile memo
+			OptimizerUtils.ALLOW_RECOMPILE_MEMO = true;
+			programArgs = new String[]{"-stats", "-args", HOME + INPUT_DIR + "X",
+					String.valueOf(workers), HOME + OUTPUT_DIR + "R" };
+			runTest(true, false, null, -1);
+			Assert.assertTrue("No recompile memo hits.", Statistics.getHopRecompileMemoHits() > 0);
+
+			//compare results
+			HashMap<CellIndex, Double> ret0 = readDMLMatrixFromHDFS("R0");
+			HashMap<CellIndex, Double> ret  = readDMLMatrixFromHDFS("R");
+			TestUtils.compareMatrices(ret0, ret, 1e-10, "NoMemo", "Memo");
+		}
+		finally
+		{
+			OptimizerUtils.ALLOW_RECOMPILE_MEMO = oldFlagMemo;
+			OptimizerUtils.ALLOW_PARALLEL_DYN_RECOMPILATION = oldFlagCopy;
+		}
+	}
+
+	/**
+	 * Creates the variables with a sparse matrix X of nnz non-zeros on the
+	 * diagonal (starting at the given offset) and its density map.
+	 *
+	 * @param offset
+	 * @param nnz
+	 * @return
+	 */
+	private static LocalVariableMap createVars( int offset, int nnz )
+	{
+		MatrixBlock mb = new MatrixBlock(dmRows, dmRows, true);
+		for( int i=0; i<nnz; i++ )
+			mb.quickSetValue(offset+i, offset+i, 1);
+
+		MatrixCharacteristics mc = new MatrixCharacteristics(dmRows, dmRows, 1000, 1000, mb.getNonZeros());
+		mc.setDensityMap(DensityMap.create(mb));
+		MatrixObject mo = new MatrixObject(ValueType.DOUBLE, "X", new MatrixFormatMetaData(
+			mc, OutputInfo.BinaryBlockOutputInfo, InputInfo.BinaryBlockInputInfo));
+
+		LocalVariableMap vars = new LocalVariableMap();
+		vars.put("X", mo);
+		return vars;
+	}
+}
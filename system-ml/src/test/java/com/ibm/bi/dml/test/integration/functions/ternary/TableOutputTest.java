@@ -37,6 +37,7 @@ public class TableOutputTest extends AutomatedTestBase
 	private final static String TEST_DIR = "functions/ternary/";
 	
 	private final static int rows = 50000;
+	private final static int rows2 = 1234567; //multi-threaded cp
 	private final static int maxVal1 = 7, maxVal2 = 15; 
 	
 	
@@ -83,6 +84,18 @@ public class TableOutputTest extends AutomatedTestBase
 		runTableOutputTest(ExecType.CP, -5);
 	}
 	
+	@Test
+	public void testTableOutputLargeCP1() 
+	{
+		runTableOutputTest(ExecType.CP, 0, rows2);
+	}
+	
+	@Test
+	public void testTableOutputLargeCP3() 
+	{
+		runTableOutputTest(ExecType.CP, -5, rows2);
+	}
+	
 	@Test
 	public void testTableOutputMR1() 
 	{
@@ -109,6 +122,17 @@ public class TableOutputTest extends AutomatedTestBase
 	 * @param instType
 	 */
 	private void runTableOutputTest( ExecType et, int delta)
+	{
+		runTableOutputTest(et, delta, rows);
+	}
+	
+	/**
+	 * 
+	 * @param et
+	 * @param delta
+	 * @param rows
+	 */
+	private void runTableOutputTest( ExecType et, int delta, int rows)
 	{
 		//rtplatform for MR
 		RUNTIME_PLATFORM platformOld = rtplatform;
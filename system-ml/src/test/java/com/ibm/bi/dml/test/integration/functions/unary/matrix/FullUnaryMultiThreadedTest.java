@@ -0,0 +1,217 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.ibm.bi.dml.test.integration.functions.unary.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.bi.dml.runtime.functionobjects.Builtin;
+import com.ibm.bi.dml.runtime.matrix.data.MatrixBlock;
+import com.ibm.bi.dml.runtime.matrix.operators.UnaryOperator;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+import com.ibm.bi.dml.test.utils.TestUtils;
+
+/**
+ * Tests for the multi-threaded CP kernels of cumulative aggregates (LibMatrixAgg)
+ * and cell-wise unary builtins (LibMatrixUnary), which compare the results and
+ * number of non-zeros of k threads against the single-threaded kernels. The
+ * inputs exceed the minimum number of cells for multi-threading (1M cells), and
+ * hence enforce the multi-threaded code paths independent of the local cores.
+ *
+ */
+public class FullUnaryMultiThreadedTest extends AutomatedTestBase
+{
+	private final static String TEST_NAME = "UnaryMultiThreaded";
+	private final static String TEST_DIR = "functions/unary/matrix/";
+
+	private final static int rows = 1201;
+	private final static int cols = 1103;
+	private final static double spSparse = 0.1;
+	private final static double spDense = 0.9;
+	private final static int k = 4;
+	private final static double eps = 1e-10;
+
+	@Override
+	public void setUp()
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME,
+			new TestConfiguration(TEST_DIR, TEST_NAME, new String[] {}) );
+	}
+
+	@Test
+	public void testCumsumDense() {
+		runMultiThreadedUnaryTest("ucumk+", false);
+	}
+
+	@Test
+	public void testCumsumSparse() {
+		runMultiThreadedUnaryTest("ucumk+", true);
+	}
+
+	@Test
+	public void testCumprodDense() {
+		runMultiThreadedUnaryTest("ucum*", false);
+	}
+
+	@Test
+	public void testCumprodSparse() {
+		runMultiThreadedUnaryTest("ucum*", true);
+	}
+
+	@Test
+	public void testCumminDense() {
+		runMultiThreadedUnaryTest("ucummin", false);
+	}
+
+	@Test
+	public void testCumminSparse() {
+		runMultiThreadedUnaryTest("ucummin", true);
+	}
+
+	@Test
+	public void testCummaxDense() {
+		runMultiThreadedUnaryTest("ucummax", false);
+	}
+
+	@Test
+	public void testCummaxSparse() {
+		runMultiThreadedUnaryTest("ucummax", true);
+	}
+
+	@Test
+	public void testExpDense() {
+		runMultiThreadedUnaryTest("exp", false);
+	}
+
+	@Test
+	public void testExpSparse() {
+		runMultiThreadedUnaryTest("exp", true);
+	}
+
+	@Test
+	public void testLogDense() {
+		runMultiThreadedUnaryTest("log", false);
+	}
+
+	@Test
+	public void testLogSparse() {
+		runMultiThreadedUnaryTest("log", true);
+	}
+
+	@Test
+	public void testSqrtDense() {
+		runMultiThreadedUnaryTest("sqrt", false);
+	}
+
+	@Test
+	public void testSqrtSparse() {
+		runMultiThreadedUnaryTest("sqrt", true);
+	}
+
+	@Test
+	public void testAbsDense() {
+		runMultiThreadedUnaryTest("abs", false);
+	}
+
+	@Test
+	public void testAbsSparse() {
+		runMultiThreadedUnaryTest("abs", true);
+	}
+
+	@Test
+	public void testRoundDense() {
+		runMultiThreadedUnaryTest("round", false);
+	}
+
+	@Test
+	public void testRoundSparse() {
+		runMultiThreadedUnaryTest("round", true);
+	}
+
+	@Test
+	public void testSigmoidDense() {
+		runMultiThreadedUnaryTest("sigmoid", false);
+	}
+
+	@Test
+	public void testSigmoidSparse() {
+		runMultiThreadedUnaryTest("sigmoid", true);
+	}
+
+	@Test
+	public void testSelpDense() {
+		runMultiThreadedUnaryTest("sel+", false);
+	}
+
+	@Test
+	public void testSelpSparse() {
+		runMultiThreadedUnaryTest("sel+", true);
+	}
+
+	@Test
+	public void testSinSparse() {
+		runMultiThreadedUnaryTest("sin", true);
+	}
+
+	@Test
+	public void testCosSparse() {
+		runMultiThreadedUnaryTest("cos", true);
+	}
+
+	/**
+	 *
+	 * @param opcode
+	 * @param sparse
+	 */
+	private void runMultiThreadedUnaryTest( String opcode, boolean sparse )
+	{
+		try
+		{
+			loadTestConfiguration(getTestConfiguration(TEST_NAME));
+
+			double sparsity = sparse ? spSparse : spDense;
+			MatrixBlock in = MatrixBlock.randOperations(rows, cols, sparsity, -1, 1, "uniform", 7);
+			Assert.assertTrue((long)rows*cols >= 1024*1024);
+
+			//single- and multi-threaded execution
+			Builtin fn = Builtin.getBuiltinFnObject(opcode);
+			MatrixBlock ret1 = (MatrixBlock) in.unaryOperations(new UnaryOperator(fn, 1), new MatrixBlock());
+			MatrixBlock retk = (MatrixBlock) in.unaryOperations(new UnaryOperator(fn, k), new MatrixBlock());
+
+			//compare number of non-zeros and cell values (incl NaN)
+			Assert.assertEquals(ret1.getNonZeros(), retk.getNonZeros());
+			retk.recomputeNonZeros();
+			Assert.assertEquals(ret1.getNonZeros(), retk.getNonZeros());
+			for( int i=0; i<rows; i++ )
+				for( int j=0; j<cols; j++ ) {
+					double v1 = ret1.quickGetValue(i, j);
+					double vk = retk.quickGetValue(i, j);
+					if( Double.isNaN(v1) || Double.isNaN(vk) )
+						Assert.assertTrue("NaN mismatch at ("+i+","+j+")", Double.isNaN(v1) && Double.isNaN(vk));
+					else if( v1 != vk )
+						Assert.assertEquals("Mismatch at ("+i+","+j+")", v1, vk, eps * Math.max(1, Math.abs(v1)));
+				}
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+}
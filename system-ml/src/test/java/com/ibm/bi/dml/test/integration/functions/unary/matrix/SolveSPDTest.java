@@ -0,0 +1,112 @@
+/**
+ * (C) Copyright IBM Corp. 2010, 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.ibm.bi.dml.test.integration.functions.unary.matrix;
+
+import org.junit.Test;
+
+import com.ibm.bi.dml.api.DMLScript.RUNTIME_PLATFORM;
+import com.ibm.bi.dml.hops.OptimizerUtils;
+import com.ibm.bi.dml.runtime.matrix.MatrixCharacteristics;
+import com.ibm.bi.dml.test.integration.AutomatedTestBase;
+import com.ibm.bi.dml.test.integration.TestConfiguration;
+
+/**
+ * Tests solve over symmetric positive definite systems (regularized normal
+ * equations), which use the native Cholesky factorization in CP.
+ */
+public class SolveSPDTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "SolveSPD";
+	private final static String TEST_DIR = "functions/unary/matrix/";
+	private static final String TEST_CLASS_DIR = TEST_DIR + SolveSPDTest.class.getSimpleName() + "/";
+
+	private final static int rows = 2000;
+	private final static int cols = 600;
+	private final static double sparsity = 0.7;
+	
+	@Override
+	public void setUp() 
+	{
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME, new String[] { "x" }) ); 
+	}
+	
+	@Test
+	public void testSolveSPDNativeCP() 
+	{
+		runTestSolveSPD( RUNTIME_PLATFORM.SINGLE_NODE, true );
+	}
+	
+	@Test
+	public void testSolveSPDCommonsMathCP() 
+	{
+		runTestSolveSPD( RUNTIME_PLATFORM.SINGLE_NODE, false );
+	}
+	
+	@Test
+	public void testSolveSPDNativeHybrid() 
+	{
+		runTestSolveSPD( RUNTIME_PLATFORM.HYBRID, true );
+	}
+	
+	/**
+	 * 
+	 * @param rt
+	 * @param nativeLinalg
+	 */
+	private void runTestSolveSPD( RUNTIME_PLATFORM rt, boolean nativeLinalg )
+	{
+		RUNTIME_PLATFORM rtold = rtplatform;
+		boolean flagOld = OptimizerUtils.ALLOW_NATIVE_LINALG;
+		
+		try
+		{
+			rtplatform = rt;
+			OptimizerUtils.ALLOW_NATIVE_LINALG = nativeLinalg;
+			
+			TestConfiguration config = getAndLoadTestConfiguration(TEST_NAME);
+			
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			programArgs = new String[]{"-args", input("A"), input("y"), 
+				output(config.getOutputFiles()[0]) };
+	
+			fullRScriptName = HOME + TEST_NAME + ".R";
+			rCmd = "Rscript" + " " + fullRScriptName + " " + input("A.mtx") + " " + 
+				input("y.mtx") + " " + expected(config.getOutputFiles()[0]);
+			
+			double[][] A = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+			MatrixCharacteristics mc = new MatrixCharacteristics(rows, cols, -1, -1, -1);
+			writeInputMatrixWithMTD("A", A, true, mc);
+			
+			double[][] y = getRandomMatrix(rows, 1, 0, 1, 1.0, 3);
+			mc.set(rows, 1, -1, -1);
+			writeInputMatrixWithMTD("y", y, true, mc);
+			
+			runTest(true, false, null, -1);
+			runRScript(true);
+		
+			compareResultsWithR(1e-5);
+		}
+		finally
+		{
+			rtplatform = rtold;
+			OptimizerUtils.ALLOW_NATIVE_LINALG = flagOld;
+		}
+	}	
+}
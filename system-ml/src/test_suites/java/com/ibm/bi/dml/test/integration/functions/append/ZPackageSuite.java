@@ -28,7 +28,8 @@ import org.junit.runners.Suite;
   StringAppendTest.class,
   
   AppendChainTest.class,
-  AppendMatrixTest.class
+  AppendMatrixTest.class,
+  AppendLoopUpdateInPlaceTest.class
 })
 
 
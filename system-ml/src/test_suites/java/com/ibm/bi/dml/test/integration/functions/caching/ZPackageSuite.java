@@ -24,6 +24,7 @@ import org.junit.runners.Suite;
  *  won't run two of them at once. */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	CachingEvictionPolicyTest.class,
 	CachingPWriteExportTest.class
 })
 
@@ -26,6 +26,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	FullReblockTest.class,
 	FullStringInitializeTest.class,
+	PRNGeneratorTest.class,
 	RandTest1.class,
 	RandTest2.class,
 	RandTest3.class,
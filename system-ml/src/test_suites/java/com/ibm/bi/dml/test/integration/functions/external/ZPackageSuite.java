@@ -27,6 +27,7 @@ import org.junit.runners.Suite;
 	DynProjectTest.class,
 	DynReadWriteTest.class,
 	FunctionExpressionsTest.class,
+	OrderInMemoryTest.class,
 	OrderTest.class
 })
 
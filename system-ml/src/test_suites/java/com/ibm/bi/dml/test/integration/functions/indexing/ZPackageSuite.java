@@ -28,7 +28,9 @@ import org.junit.runners.Suite;
 	LeftIndexingSparseDenseTest.class,
 	LeftIndexingSparseSparseTest.class,
 	LeftIndexingTest.class,
+	LeftIndexingUpdateInPlaceTest.class,
 	RightIndexingMatrixTest.class,
+	RightIndexingPartitionPruningTest.class,
 	RightIndexingVectorTest.class,
 	
 	Jdk7IssueRightIndexingTest.class
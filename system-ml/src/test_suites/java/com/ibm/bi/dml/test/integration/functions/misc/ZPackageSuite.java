@@ -28,6 +28,7 @@ import org.junit.runners.Suite;
 	DataTypeCastingTest.class,
 	DataTypeChangeTest.class,
 	FunctionInliningTest.class,
+	InstructionParseCacheTest.class,
 	InvalidFunctionSignatureTest.class,
 	IPALiteralReplacementTest.class,
 	IPAScalarRecursionTest.class,
@@ -39,10 +40,16 @@ import org.junit.runners.Suite;
 	PrintExpressionTest.class,
 	PrintMatrixTest.class,
 	ReadAfterWriteTest.class,
+	RewriteLoopInvariantCodeMotionTest.class,
+	RewriteMatrixMultChainOptTest.class,
 	RewriteSimplifyRowColSumMVMultTest.class,
+	RmvarPlacementTest.class,
 	ScalarAssignmentTest.class,
+	ScalarFastPathTest.class,
 	ScalarFunctionTest.class,
 	SetWorkingDirTest.class,
+	SparkCoPartitioningTest.class,
+	StatisticsHeavyHitterTest.class,
 	ValueTypeAutoCastingTest.class,
 	ValueTypeCastingTest.class
 })
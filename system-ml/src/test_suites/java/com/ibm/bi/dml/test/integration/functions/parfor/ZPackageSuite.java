@@ -34,6 +34,8 @@ import org.junit.runners.Suite;
 	ParForNaNResultMergeTest.class,
 	ParForReplaceThreadIDRecompileTest.class,
 	ParForRowwiseDataPartitioningTest.class,
+	ParForSparkWorkerReuseTest.class,
+	ParForWorkStealingTest.class,
 	
 	ParForParallelRemoteResultMergeTest.class,
 	ParForSerialRemoteResultMergeTest.class,
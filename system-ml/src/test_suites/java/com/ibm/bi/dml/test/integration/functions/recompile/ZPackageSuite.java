@@ -26,6 +26,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	BranchRemovalTest.class,
 	CSVReadUnknownSizeTest.class,
+	DensityMapEstimateTest.class,
 	FunctionRecompileTest.class,
 	IPAAssignConstantPropagationTest.class,
 	IPAComplexAppendTest.class,
@@ -38,6 +39,7 @@ import org.junit.runners.Suite;
 	RandRecompileTest.class,
 	RandSizeExpressionEvalTest.class,
 	ReblockRecompileTest.class,
+	RecompileMemoTest.class,
 	RemoveEmptyPotpourriTest.class,
 	RemoveEmptyRecompileTest.class,
 	RewriteComplexMapMultChainTest.class,
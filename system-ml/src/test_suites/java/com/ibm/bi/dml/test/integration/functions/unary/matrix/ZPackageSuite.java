@@ -39,6 +39,7 @@ import org.junit.runners.Suite;
 	QRSolverTest.class,
 	ReplaceTest.class,
 	RoundTest.class,
+	SolveSPDTest.class,
 	SinTest.class,
 	SqrtTest.class,
 	TanTest.class,